@@ -0,0 +1,241 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.school.analysis.di.DependencyContainer;
+import org.school.analysis.infrastructure.metrics.LatencyHistogram;
+import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сквозная нагрузка на SchoolTelegramBot без обращения к настоящему Telegram. Поднимает FakeTelegramServer,
+ * собирает бота через DependencyContainer (база и настройки из config.properties, адрес Bot API подменяется)
+ * и гоняет через него поток обновлений от тысяч чатов.
+ *
+ * Синтетический режим замкнутый: каждый чат отправляет следующее обновление только после первого ответа
+ * на предыдущее (плюс пауза -Dthink). Режим повтора (-Dreplay=файл.jsonl, по объекту Update в строке) открытый:
+ * обновления идут с частотой -Drate независимо от ответов, chat_id раскладываются по -Dchats чатам.
+ *
+ * Запуск: mvn -Pbenchmarks test-compile exec:java -Dexec.mainClass=org.example.BotLoadDriver
+ * Параметры: -Dchats=2000 -Dupdates=5 -Dthink=0 -Dlatency=20 -Djitter=10 -Dthrottle=0.0 -Dseed=42
+ * -Dreplay= -Drate=200 -Drepeat=1 -Dtimeout=120 -Dconfig=config.properties
+ */
+public class BotLoadDriver {
+    private static final long CHAT_ID_BASE = 1_000_000L;
+    private static final String[] MESSAGES = {"/start", "/help", "/status", "/stats", "/queries", "/charts"};
+    private static final String[] CALLBACKS = {"query_expenditure", "query_math_schools", "query_student_stats",
+            "data_stats", "chart_students"};
+    // Доли команд и нажатий кнопок, примерно как в живом трафике бота
+    private static final int[] MESSAGE_WEIGHTS = {10, 5, 5, 10, 10, 5};
+    private static final int[] CALLBACK_WEIGHTS = {15, 15, 15, 5, 5};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        int chats = Integer.getInteger("chats", 2000);
+        int updatesPerChat = Integer.getInteger("updates", 5);
+        long thinkMillis = Long.getLong("think", 0L);
+        long latencyMillis = Long.getLong("latency", 20L);
+        long jitterMillis = Long.getLong("jitter", 10L);
+        double throttleRatio = Double.parseDouble(System.getProperty("throttle", "0.0"));
+        long seed = Long.getLong("seed", 42L);
+        String replay = System.getProperty("replay", "").trim();
+        int timeoutSeconds = Integer.getInteger("timeout", 120);
+
+        FakeTelegramServer server = new FakeTelegramServer(latencyMillis, jitterMillis, throttleRatio, seed);
+        server.start();
+        DependencyContainer container = DependencyContainer.getInstance();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "load-driver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        SchoolTelegramBot bot = null;
+        BotSession session = null;
+        try {
+            container.configure(config(server));
+            container.initializeApplication();
+            bot = container.createTelegramBot("0:load-test", "load_test_bot");
+            session = new TelegramBotsApi(DefaultBotSession.class).registerBot(bot);
+
+            long start = System.nanoTime();
+            long expected;
+            if (replay.isEmpty()) {
+                System.out.printf("Синтетическая нагрузка: %,d чатов по %d обновлений, пауза %d мс%n",
+                        chats, updatesPerChat, thinkMillis);
+                expected = runSynthetic(server, scheduler, chats, updatesPerChat, thinkMillis, seed);
+            } else {
+                double rate = Double.parseDouble(System.getProperty("rate", "200"));
+                int repeat = Integer.getInteger("repeat", 1);
+                System.out.printf("Повтор %s: %.0f обновлений/с, %,d чатов, %d проход(а)%n",
+                        replay, rate, chats, repeat);
+                expected = runReplay(server, scheduler, Paths.get(replay), chats, rate, repeat);
+            }
+            awaitResponses(server, expected, TimeUnit.SECONDS.toNanos(timeoutSeconds));
+            report(server, System.nanoTime() - start);
+        } finally {
+            if (session != null) {
+                session.stop();
+            }
+            if (bot != null) {
+                bot.shutdown();
+            }
+            scheduler.shutdownNow();
+            container.shutdown();
+            server.stop();
+        }
+    }
+
+    private static Properties config(FakeTelegramServer server) throws IOException {
+        Properties config = new Properties();
+        Path path = Paths.get(System.getProperty("config", "config.properties"));
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                config.load(in);
+            }
+        }
+        // Порт метрик может быть занят работающим ботом, а для прогона он не нужен
+        config.setProperty("metrics.enabled", "false");
+        config.setProperty("telegram.api.base.url", server.getBaseUrl());
+        return config;
+    }
+
+    private static long runSynthetic(FakeTelegramServer server, ScheduledExecutorService scheduler, int chats,
+                                     int updatesPerChat, long thinkMillis, long seed) {
+        Random random = new Random(seed);
+        Map<Long, AtomicInteger> remaining = new ConcurrentHashMap<>();
+        for (int i = 0; i < chats; i++) {
+            remaining.put(CHAT_ID_BASE + i, new AtomicInteger(updatesPerChat - 1));
+        }
+        server.setResponseListener(chatId -> {
+            AtomicInteger left = remaining.get(chatId);
+            if (left == null || left.getAndDecrement() <= 0) {
+                return;
+            }
+            if (thinkMillis > 0) {
+                scheduler.schedule(() -> sendNext(server, random, chatId), thinkMillis, TimeUnit.MILLISECONDS);
+            } else {
+                sendNext(server, random, chatId);
+            }
+        });
+        for (int i = 0; i < chats; i++) {
+            sendNext(server, random, CHAT_ID_BASE + i);
+        }
+        return (long) chats * updatesPerChat;
+    }
+
+    private static void sendNext(FakeTelegramServer server, Random random, long chatId) {
+        int roll;
+        synchronized (random) {
+            roll = random.nextInt(total(MESSAGE_WEIGHTS) + total(CALLBACK_WEIGHTS));
+        }
+        if (roll < total(MESSAGE_WEIGHTS)) {
+            server.enqueueMessage(chatId, MESSAGES[pick(MESSAGE_WEIGHTS, roll)]);
+        } else {
+            server.enqueueCallback(chatId, CALLBACKS[pick(CALLBACK_WEIGHTS, roll - total(MESSAGE_WEIGHTS))]);
+        }
+    }
+
+    private static long runReplay(FakeTelegramServer server, ScheduledExecutorService scheduler, Path file,
+                                  int chats, double rate, int repeat) throws Exception {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        long total = (long) lines.size() * repeat;
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            ObjectNode update = (ObjectNode) MAPPER.readTree(lines.get((int) (i % lines.size())));
+            retarget(update, CHAT_ID_BASE + i % chats);
+            // Открытая модель: время отправки не зависит от того, успевает ли бот отвечать
+            long delay = start + i * intervalNanos - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            server.enqueue(update);
+        }
+        return total;
+    }
+
+    private static void retarget(ObjectNode update, long chatId) {
+        for (JsonNode holder : new JsonNode[]{update.path("message"), update.path("callback_query"),
+                update.path("callback_query").path("message")}) {
+            if (holder.has("chat")) {
+                ((ObjectNode) holder.get("chat")).put("id", chatId);
+            }
+            if (holder.has("from")) {
+                ((ObjectNode) holder.get("from")).put("id", chatId);
+            }
+        }
+    }
+
+    private static void awaitResponses(FakeTelegramServer server, long expected, long timeoutNanos)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (server.getResponseLatency().getCount() < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    private static void report(FakeTelegramServer server, long elapsedNanos) {
+        LatencyHistogram latency = server.getResponseLatency();
+        double seconds = elapsedNanos / 1e9;
+        long injected = server.getInjectedCount();
+        System.out.printf("%nОбновлений: %,d, отвечено: %,d, без ответа: %,d, время %.1f с%n",
+                injected, latency.getCount(), server.getUnansweredCount(), seconds);
+        System.out.printf("Пропускная способность: %.1f обновлений/с%n", latency.getCount() / seconds);
+        System.out.printf("Время до первого ответа: p50 %.1f мс, p90 %.1f мс, p99 %.1f мс, max %.1f мс%n",
+                latency.getPercentileMicros(0.5) / 1000.0, latency.getPercentileMicros(0.9) / 1000.0,
+                latency.getPercentileMicros(0.99) / 1000.0, latency.getMaxMicros() / 1000.0);
+        System.out.printf("Сообщений на обновление: %.2f (всего %,d), ответов 429: %,d%n",
+                injected == 0 ? 0.0 : (double) server.getOutboundCount() / injected,
+                server.getOutboundCount(), server.getThrottledCount());
+        System.out.println("Вызовы Bot API:");
+        server.getMethodCounts().forEach((method, count) -> System.out.printf("  %-20s %,d%n", method, count));
+    }
+
+    private static int total(int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        return total;
+    }
+
+    private static int pick(int[] weights, int roll) {
+        for (int i = 0; i < weights.length; i++) {
+            if (roll < weights[i]) {
+                return i;
+            }
+            roll -= weights[i];
+        }
+        return weights.length - 1;
+    }
+}
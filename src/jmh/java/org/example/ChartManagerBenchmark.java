@@ -0,0 +1,65 @@
+package org.example;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.openjdk.jmh.annotations.*;
+import org.school.analysis.application.ports.output.SchoolRepository;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.infrastructure.visualization.ChartManager;
+import org.school.analysis.infrastructure.visualization.ChartRenderService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Диаграмма студентов: полная отрисовка с кодированием и отдельно chartToBytes для готового JFreeChart.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChartManagerBenchmark {
+    private static final String[] COUNTIES = {"Los Angeles", "San Diego", "Orange", "Riverside", "San Bernardino",
+            "Santa Clara", "Alameda", "Sacramento", "Contra Costa", "Fresno"};
+
+    @Param({"480", "1200"})
+    int width;
+
+    private int height;
+    private ChartManager chartManager;
+    private List<CountryStudentStats> stats;
+    private JFreeChart chart;
+
+    @Setup
+    public void setUp() {
+        height = width * 2 / 3;
+        chartManager = new ChartManager((SchoolRepository) null, new ChartRenderService(1), width, height);
+        stats = new ArrayList<>();
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        for (int i = 0; i < COUNTIES.length; i++) {
+            CountryStudentStats stat = new CountryStudentStats();
+            stat.setCountryName(COUNTIES[i]);
+            stat.setAvgStudents(3000 + i * 417.3);
+            stat.setSchoolCount(20 + i);
+            stats.add(stat);
+            dataset.addValue(stat.getAvgStudents(), ChartManager.AVERAGE_STUDENTS_SERIES, stat.getCountryName());
+        }
+        chart = ChartFactory.createBarChart(ChartManager.AVERAGE_STUDENTS_TITLE,
+                ChartManager.AVERAGE_STUDENTS_CATEGORY_LABEL, ChartManager.AVERAGE_STUDENTS_SERIES, dataset);
+    }
+
+    @Benchmark
+    public byte[] renderAverageStudentsChart() {
+        return chartManager.renderAverageStudentsChart(stats, width, height);
+    }
+
+    @Benchmark
+    public byte[] chartToBytes() throws IOException {
+        return chartManager.chartToBytes(chart, width, height);
+    }
+}
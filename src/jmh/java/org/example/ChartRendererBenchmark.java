@@ -0,0 +1,95 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.school.analysis.application.ports.output.SchoolRepository;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.infrastructure.visualization.ChartManager;
+import org.school.analysis.infrastructure.visualization.ChartRenderService;
+import org.school.analysis.infrastructure.visualization.Java2DChartRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Диаграмма студентов через JFreeChart и через Java2D: только построение (draw) и вместе с кодированием PNG (png).
+ * Выделения памяти на диаграмму показывает -prof gc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChartRendererBenchmark {
+    private static final String[] COUNTIES = {"Los Angeles", "San Diego", "Orange", "Riverside", "San Bernardino",
+            "Santa Clara", "Alameda", "Sacramento", "Contra Costa", "Fresno"};
+
+    @Param({"draw", "png"})
+    String output;
+
+    private ChartManager chartManager;
+    private Java2DChartRenderer java2d;
+    private List<CountryStudentStats> stats;
+    private List<String> countries;
+    private double[] values;
+
+    @Setup
+    public void setUp() {
+        ChartRenderService renderService = "draw".equals(output) ? new DrawOnlyRenderService()
+                : new ChartRenderService(1);
+        chartManager = new ChartManager((SchoolRepository) null, renderService);
+        java2d = new Java2DChartRenderer(renderService);
+        stats = new ArrayList<>();
+        countries = new ArrayList<>();
+        values = new double[COUNTIES.length];
+        for (int i = 0; i < COUNTIES.length; i++) {
+            CountryStudentStats stat = new CountryStudentStats();
+            stat.setCountryName(COUNTIES[i]);
+            stat.setAvgStudents(3000 + i * 417.3);
+            stat.setSchoolCount(20 + i);
+            stats.add(stat);
+            countries.add(COUNTIES[i]);
+            values[i] = stat.getAvgStudents();
+        }
+    }
+
+    @Benchmark
+    public byte[] jfreeChart() {
+        return chartManager.renderAverageStudentsChart(stats);
+    }
+
+    @Benchmark
+    public byte[] java2d() throws IOException {
+        return java2d.renderBarChart(ChartManager.AVERAGE_STUDENTS_TITLE, ChartManager.AVERAGE_STUDENTS_CATEGORY_LABEL,
+                ChartManager.AVERAGE_STUDENTS_SERIES, ChartManager.AVERAGE_STUDENTS_SERIES, countries, values,
+                ChartManager.CHART_WIDTH, ChartManager.CHART_HEIGHT);
+    }
+
+    /**
+     * Рисует в переиспользуемую картинку и не кодирует PNG, чтобы сравнить только построение диаграммы.
+     */
+    private static final class DrawOnlyRenderService extends ChartRenderService {
+        private final BufferedImage image = new BufferedImage(ChartManager.CHART_WIDTH, ChartManager.CHART_HEIGHT,
+                BufferedImage.TYPE_INT_ARGB);
+
+        private DrawOnlyRenderService() {
+            super(1);
+        }
+
+        @Override
+        public byte[] toPng(String chartName, int width, int height, Consumer<Graphics2D> painter) {
+            Graphics2D g2 = image.createGraphics();
+            try {
+                painter.accept(g2);
+            } finally {
+                g2.dispose();
+            }
+            return new byte[0];
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.school.analysis.domain.model.School;
+import org.school.analysis.infrastructure.csv.CsvSchoolParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор CSV: одна строка (parseCsvLine, parseLine) и весь файл (parseSchools) на образце
+ * data/schools.csv и на копиях, размноженных до нужного числа строк.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvParserBenchmark {
+    static final String SAMPLE_CSV = "data/schools.csv";
+
+    @State(Scope.Thread)
+    public static class Lines {
+        CsvSchoolParser parser = new CsvSchoolParser();
+        String line;
+
+        @Setup
+        public void setUp() throws IOException {
+            line = Files.readAllLines(Paths.get(SAMPLE_CSV), StandardCharsets.UTF_8).get(1);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Dataset {
+        @Param({"420", "10000", "100000"})
+        int rows;
+
+        CsvSchoolParser parser = new CsvSchoolParser();
+        byte[] csv;
+
+        @Setup
+        public void setUp() throws IOException {
+            csv = scaledCsv(rows);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String[] parseCsvLine(Lines lines) {
+        return lines.parser.parseCsvLine(lines.line);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public School parseLine(Lines lines) {
+        return lines.parser.parseLine(lines.line);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<School> parseSchools(Dataset dataset) throws IOException {
+        return dataset.parser.parseSchools(new ByteArrayInputStream(dataset.csv));
+    }
+
+    /**
+     * Строки образца повторяются по кругу, id в первом столбце заменяется на порядковый номер.
+     */
+    static byte[] scaledCsv(int rows) throws IOException {
+        List<String> sample = Files.readAllLines(Paths.get(SAMPLE_CSV), StandardCharsets.UTF_8);
+        StringBuilder csv = new StringBuilder(rows * 160);
+        csv.append(sample.get(0)).append('\n');
+        for (int i = 0; i < rows; i++) {
+            String line = sample.get(1 + i % (sample.size() - 1));
+            csv.append('"').append(i + 1).append('"').append(line, line.indexOf(','), line.length()).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
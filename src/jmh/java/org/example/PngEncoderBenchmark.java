@@ -0,0 +1,86 @@
+package org.example;
+
+import org.jfree.chart.ChartUtils;
+import org.openjdk.jmh.annotations.*;
+import org.school.analysis.application.ports.output.SchoolRepository;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.infrastructure.visualization.ChartManager;
+import org.school.analysis.infrastructure.visualization.ChartRenderService;
+import org.school.analysis.infrastructure.visualization.PngEncoder;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Кодирование диаграммы студентов: ChartUtils против PngEncoder с разными настройками.
+ * Размер PNG для каждого профиля печатается при подготовке.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PngEncoderBenchmark {
+    private static final String[] COUNTIES = {"Los Angeles", "San Diego", "Orange", "Riverside", "San Bernardino",
+            "Santa Clara", "Alameda", "Sacramento", "Contra Costa", "Fresno"};
+
+    // chartutils или палитра и уровень сжатия через двоеточие
+    @Param({"chartutils", "rgb:1", "rgb:4", "rgb:6", "rgb:9", "palette:1", "palette:4", "palette:6", "palette:9"})
+    String profile;
+
+    private BufferedImage image;
+    private PngEncoder encoder;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+
+    @Setup
+    public void setUp() throws IOException {
+        image = renderChart();
+        if (!"chartutils".equals(profile)) {
+            String[] parts = profile.split(":");
+            encoder = new PngEncoder("palette".equals(parts[0]), Integer.parseInt(parts[1]));
+        }
+        System.out.printf("%n%s: %d байт%n", profile, encode());
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        out.reset();
+        if (encoder == null) {
+            ChartUtils.writeBufferedImageAsPNG(out, image);
+        } else {
+            encoder.encode(image, out);
+        }
+        return out.size();
+    }
+
+    private static BufferedImage renderChart() {
+        BufferedImage[] captured = new BufferedImage[1];
+        ChartRenderService capture = new ChartRenderService(1) {
+            @Override
+            public byte[] toPng(String chartName, int width, int height, Consumer<Graphics2D> painter) {
+                captured[0] = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g2 = captured[0].createGraphics();
+                painter.accept(g2);
+                g2.dispose();
+                return new byte[0];
+            }
+        };
+        List<CountryStudentStats> stats = new ArrayList<>();
+        for (int i = 0; i < COUNTIES.length; i++) {
+            CountryStudentStats stat = new CountryStudentStats();
+            stat.setCountryName(COUNTIES[i]);
+            stat.setAvgStudents(3000 + i * 417.3);
+            stat.setSchoolCount(20 + i);
+            stats.add(stat);
+        }
+        new ChartManager((SchoolRepository) null, capture).renderAverageStudentsChart(stats);
+        return captured[0];
+    }
+}
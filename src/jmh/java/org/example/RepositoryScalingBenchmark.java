@@ -0,0 +1,235 @@
+package org.example;
+
+import org.school.analysis.domain.model.School;
+import org.school.analysis.infrastructure.csv.CsvSchoolParser;
+import org.school.analysis.infrastructure.database.DatabaseManagerImpl;
+import org.school.analysis.infrastructure.database.SchoolStatisticsRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Как запросы репозитория ведут себя при росте базы. Для каждого размера строится новая SQLite база через
+ * DatabaseManagerImpl (школы из data/schools.csv, размноженные с новыми id и слегка измененными числами),
+ * затем меряются p50/p99 каждого запроса в одном потоке и при нескольких параллельных читателях.
+ * Результаты дописываются в CSV вместе с коммитом, так что кривые разных коммитов можно сравнивать.
+ *
+ * Запуск: mvn -Pbenchmarks test-compile exec:java -Dexec.mainClass=org.example.RepositoryScalingBenchmark
+ * Параметры: -Dsizes=1000,10000,100000,1000000,10000000 -Dreaders=4 -Diterations=200
+ * -Dreport=benchmarks/repository-scaling.csv -Dbench.commit=(по умолчанию git rev-parse --short HEAD)
+ */
+public class RepositoryScalingBenchmark {
+    private static final String SAMPLE_CSV = "data/schools.csv";
+    private static final String REPORT_HEADER = "timestamp,commit,schools,readers,query,iterations,p50_ms,p99_ms,"
+            + "max_ms,throughput_qps,load_ms,db_bytes";
+    private static final int INSERT_CHUNK = 50_000;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final List<String> COUNTIES = Arrays.asList("Fresno", "Contra Costa", "El Dorado", "Glenn");
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = Arrays.stream(System.getProperty("sizes", "1000,10000,100000,1000000").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        int readers = Integer.getInteger("readers", 4);
+        int iterations = Integer.getInteger("iterations", 200);
+        Path report = Paths.get(System.getProperty("report", "benchmarks/repository-scaling.csv"));
+        Path workDir = Files.createDirectories(Paths.get("target", "repository-scaling"));
+        String commit = System.getProperty("bench.commit", gitCommit());
+        String timestamp = LocalDateTime.now().withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        List<School> sample = loadSample();
+
+        List<String> rows = new ArrayList<>();
+        for (int size : sizes) {
+            Path dbFile = workDir.resolve("schools-" + size + ".db");
+            Files.deleteIfExists(dbFile);
+            DatabaseManagerImpl databaseManager = new DatabaseManagerImpl("jdbc:sqlite:" + dbFile);
+            databaseManager.connect();
+            try {
+                long loadMillis = load(databaseManager, sample, size);
+                long dbBytes = Files.size(dbFile);
+                System.out.printf("%nШкол: %,d, загрузка %,d мс, файл %,d КБ%n", size, loadMillis, dbBytes / 1024);
+                SchoolStatisticsRepository repository = new SchoolStatisticsRepository(
+                        databaseManager.getConnection(), SchoolStatisticsRepository.DEFAULT_MAX_CONCURRENT_QUERIES);
+                for (Map.Entry<String, Supplier<Object>> query : queries(repository).entrySet()) {
+                    for (int threads : new int[]{1, readers}) {
+                        Result result = measure(query.getValue(), threads, iterations);
+                        System.out.printf("  %-34s читателей %2d: p50 %9.3f мс, p99 %9.3f мс, %8.1f запросов/с%n",
+                                query.getKey(), threads, result.percentile(0.5), result.percentile(0.99),
+                                result.throughput());
+                        rows.add(String.join(",", timestamp, commit, String.valueOf(size), String.valueOf(threads),
+                                query.getKey(), String.valueOf(result.latencies.length),
+                                format(result.percentile(0.5)), format(result.percentile(0.99)),
+                                format(result.percentile(1.0)), format(result.throughput()),
+                                String.valueOf(loadMillis), String.valueOf(dbBytes)));
+                    }
+                }
+            } finally {
+                databaseManager.close();
+                if (!Boolean.getBoolean("keep")) {
+                    Files.deleteIfExists(dbFile);
+                }
+            }
+        }
+        appendReport(report, rows);
+        System.out.printf("%nОтчет дописан в %s%n", report.toAbsolutePath());
+    }
+
+    private static Map<String, Supplier<Object>> queries(SchoolStatisticsRepository repository) {
+        Map<String, Supplier<Object>> queries = new LinkedHashMap<>();
+        queries.put("findAverageExpenditureInCounties", () -> repository.findAverageExpenditureInCounties(COUNTIES, 10.0));
+        queries.put("findTopMathSchoolByStudentRange", () -> repository.findTopMathSchoolByStudentRange(5000, 7500));
+        queries.put("findAverageStudentsByCountries", () -> repository.findAverageStudentsByCountries(10));
+        queries.put("getDatabaseStatistics", repository::getDatabaseStatistics);
+        return queries;
+    }
+
+    private static long load(DatabaseManagerImpl databaseManager, List<School> sample, int size) {
+        long start = System.nanoTime();
+        databaseManager.createTables();
+        Random random = new Random(size);
+        List<School> chunk = new ArrayList<>(Math.min(size, INSERT_CHUNK));
+        for (int i = 0; i < size; i++) {
+            chunk.add(copy(sample.get(i % sample.size()), i + 1, random));
+            if (chunk.size() == INSERT_CHUNK) {
+                databaseManager.insertSchools(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            databaseManager.insertSchools(chunk);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    // Разброс до 10%, чтобы у копий не совпадали значения и лучший результат не был всегда первым
+    private static School copy(School source, int id, Random random) {
+        School school = new School();
+        school.setId(id);
+        school.setDistrictId(source.getDistrictId());
+        school.setName(source.getName());
+        school.setCountry(source.getCountry());
+        school.setGrades(source.getGrades());
+        school.setStudents(source.getStudents() == null ? null
+                : (int) Math.round(source.getStudents() * jitter(random)));
+        school.setTeachers(source.getTeachers());
+        school.setCalworks(source.getCalworks());
+        school.setLunch(source.getLunch());
+        school.setComputers(source.getComputers());
+        school.setExpenditure(source.getExpenditure() == null ? null : source.getExpenditure() * jitter(random));
+        school.setIncome(source.getIncome());
+        school.setEnglish(source.getEnglish());
+        school.setReadScore(source.getReadScore());
+        school.setMathScore(source.getMathScore() == null ? null : source.getMathScore() * jitter(random));
+        return school;
+    }
+
+    private static double jitter(Random random) {
+        return 0.9 + random.nextDouble() * 0.2;
+    }
+
+    private static Result measure(Supplier<Object> query, int threads, int iterations) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long[] latencies = new long[iterations * threads];
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * iterations;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        long begin = System.nanoTime();
+                        query.get();
+                        latencies[offset + i] = System.nanoTime() - begin;
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return new Result(latencies, System.nanoTime() - begin);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<School> loadSample() throws IOException {
+        try (InputStream in = Files.newInputStream(Paths.get(SAMPLE_CSV))) {
+            return new CsvSchoolParser().parseSchools(in);
+        }
+    }
+
+    private static void appendReport(Path report, List<String> rows) throws IOException {
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        boolean newFile = !Files.exists(report);
+        try (Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newFile) {
+                writer.write(REPORT_HEADER + "\n");
+            }
+            for (String row : rows) {
+                writer.write(row + "\n");
+            }
+        }
+    }
+
+    private static String gitCommit() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                return process.waitFor() == 0 && line != null ? line.trim() : "unknown";
+            }
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static final class Result {
+        private final long[] latencies;
+        private final long wallNanos;
+
+        Result(long[] latencies, long wallNanos) {
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+            this.wallNanos = wallNanos;
+        }
+
+        double percentile(double q) {
+            int index = (int) Math.ceil(q * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1_000_000.0;
+        }
+
+        double throughput() {
+            return latencies.length / (wallNanos / 1_000_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.domain.dto.ExpenditureStats;
+import org.school.analysis.domain.dto.MathSchoolStats;
+import org.school.analysis.presentation.telegram.util.TelegramOutputService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Форматирование ответов бота на данных того же размера, что возвращают запросы.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TelegramOutputServiceBenchmark {
+    private static final String[] COUNTIES = {"Los Angeles", "San Diego", "Orange", "Riverside", "San Bernardino",
+            "Santa Clara", "Alameda", "Sacramento", "Contra Costa", "Fresno"};
+
+    private TelegramOutputService outputService;
+    private List<ExpenditureStats> expenditureStats;
+    private List<CountryStudentStats> countryStats;
+    private MathSchoolStats smallSchool;
+    private MathSchoolStats largeSchool;
+
+    @Setup
+    public void setUp() {
+        outputService = new TelegramOutputService();
+        expenditureStats = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ExpenditureStats stat = new ExpenditureStats();
+            stat.setCountyName(COUNTIES[i]);
+            stat.setSchoolCount(10 + i);
+            stat.setAvgExpenditure(5200 + i * 113.7);
+            stat.setMinExpenditure(4100 + i * 50.2);
+            stat.setMaxExpenditure(7300 + i * 91.4);
+            expenditureStats.add(stat);
+        }
+        countryStats = new ArrayList<>();
+        for (int i = 0; i < COUNTIES.length; i++) {
+            CountryStudentStats stat = new CountryStudentStats();
+            stat.setCountryName(COUNTIES[i]);
+            stat.setSchoolCount(20 + i);
+            stat.setAvgStudents(3000 + i * 417.3);
+            stat.setMinStudents(120 + i);
+            stat.setMaxStudents(27000 - i * 300);
+            stat.setTotalStudents(60000 + i * 1500);
+            countryStats.add(stat);
+        }
+        smallSchool = mathSchool(1, "Sunol Glen Unified", 195, 690.0);
+        largeSchool = mathSchool(2, "Los Altos Elementary", 5500, 671.3);
+    }
+
+    @Benchmark
+    public String formatExpenditureStats() {
+        return outputService.formatExpenditureStatsForTelegram(expenditureStats);
+    }
+
+    @Benchmark
+    public String formatMathSchoolStats() {
+        return outputService.formatMathSchoolStatsForTelegram(smallSchool, 5000, 7500);
+    }
+
+    @Benchmark
+    public String formatAllMathSchoolsStats() {
+        return outputService.formatAllMathSchoolsStatsForTelegram(smallSchool, largeSchool);
+    }
+
+    @Benchmark
+    public String formatCountryStudentStats() {
+        return outputService.formatCountryStudentStatsForTelegram(countryStats);
+    }
+
+    private static MathSchoolStats mathSchool(int id, String name, int students, double mathScore) {
+        MathSchoolStats stats = new MathSchoolStats();
+        stats.setId(id);
+        stats.setSchoolName(name);
+        stats.setCountyName("Alameda");
+        stats.setStudents(students);
+        stats.setMathScore(mathScore);
+        stats.setExpenditure(5380.5);
+        return stats;
+    }
+}
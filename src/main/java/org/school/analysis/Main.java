@@ -1,6 +1,7 @@
 package org.school.analysis;
 
 import org.school.analysis.di.DependencyContainer;
+import org.school.analysis.infrastructure.logging.AsyncLogStream;
 import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
@@ -8,24 +9,32 @@ import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.util.Properties;
 
 public class Main {
     public static void main(String[] args) {
         System.out.println("Запуск телеграм бота");
+        long startNanos = System.nanoTime();
         DependencyContainer diContainer = null;
         try {
             Properties config = loadConfig();
+            configureLogging(config);
             String botToken = getBotToken(config);
             String botUsername = getBotUsername(config);
             validateConfiguration(botToken);
             diContainer = DependencyContainer.getInstance();
+            diContainer.configure(config);
             diContainer.initializeApplication();
+            System.out.println("Сервисы готовы за " + elapsedMillis(startNanos) + " мс");
 
             SchoolTelegramBot bot = diContainer.createTelegramBot(botToken, botUsername);
             registerTelegramBot(bot);
-            printStartupInfo(botUsername);
+            printStartupInfo(botUsername, elapsedMillis(startNanos));
             setupShutdownHook(diContainer, bot);
+            diContainer.startMetricsExporter();
+            // Диаграммы поднимаются в фоне, бот уже отвечает на команды
+            diContainer.warmUpCharts();
 
         } catch (TelegramApiException e) {
             handleTelegramApiError(e);
@@ -50,6 +59,21 @@ public class Main {
         return props;
     }
 
+    // slf4j-simple пишет в System.err синхронно, при включенной настройке вывод уходит в фоновый поток
+    private static void configureLogging(Properties config) {
+        if (!Boolean.parseBoolean(config.getProperty("logging.async.enabled", "false").trim())) {
+            return;
+        }
+        int capacity = AsyncLogStream.DEFAULT_CAPACITY;
+        try {
+            capacity = Integer.parseInt(config.getProperty("logging.async.buffer.lines",
+                    String.valueOf(AsyncLogStream.DEFAULT_CAPACITY)).trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Некорректный размер буфера лога, используется " + capacity);
+        }
+        AsyncLogStream.install(Math.max(1, capacity));
+    }
+
     private static String getBotToken(Properties config) {
         String token = config.getProperty("telegram.bot.token");
         if (token == null || token.isEmpty()) {
@@ -74,8 +98,14 @@ public class Main {
         botsApi.registerBot(bot);
     }
 
-    private static void printStartupInfo(String botUsername) {
+    private static void printStartupInfo(String botUsername, long startupMillis) {
         System.out.println("Telegram бот успешно запущен!");
+        System.out.println("@" + botUsername + " отвечает через " + startupMillis + " мс после старта main ("
+                + ManagementFactory.getRuntimeMXBean().getUptime() + " мс с запуска JVM)");
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
     }
 
     private static void setupShutdownHook(DependencyContainer diContainer, SchoolTelegramBot bot) {
@@ -1,6 +1,20 @@
 package org.school.analysis.application.ports.output;
 
+import org.school.analysis.domain.dto.ChartRenderResult;
+import org.school.analysis.domain.model.ChartSpec;
+
+import java.util.function.Consumer;
+
 public interface ChartGenerator {
-    byte[] createAverageStudentsChart();
-    String getChartDescription();
-}
\ No newline at end of file
+    ChartRenderResult renderAverageStudentsChart();
+    ChartRenderResult renderAverageStudentsPreview();
+    ChartRenderResult render(ChartSpec spec);
+
+    /**
+     * Один запрос к БД на превью и полную диаграмму: превью рисуется первым и передается в previewListener,
+     * затем рисуется и возвращается полная версия. Если полная диаграмма уже готова, превью не рисуется.
+     */
+    ChartRenderResult renderAverageStudentsChart(Consumer<ChartRenderResult> previewListener);
+
+    ChartRenderResult render(ChartSpec spec, Consumer<ChartRenderResult> previewListener);
+}
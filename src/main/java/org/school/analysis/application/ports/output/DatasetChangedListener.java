@@ -0,0 +1,5 @@
+package org.school.analysis.application.ports.output;
+
+public interface DatasetChangedListener {
+    void onDatasetChanged(long datasetVersion);
+}
@@ -2,7 +2,10 @@ package org.school.analysis.application.ports.output;
 
 import org.school.analysis.domain.dto.CountryStudentStats;
 import org.school.analysis.domain.dto.ExpenditureStats;
+import org.school.analysis.domain.dto.GroupedMetricStats;
 import org.school.analysis.domain.dto.MathSchoolStats;
+import org.school.analysis.domain.dto.MetricSeries;
+import org.school.analysis.domain.model.ChartMetric;
 
 import java.util.List;
 
@@ -11,4 +14,7 @@ public interface SchoolRepository {
     List<ExpenditureStats> findAverageExpenditureInCounties(List<String> counties, double minExpenditure);
     MathSchoolStats findTopMathSchoolByStudentRange(int minStudents, int maxStudents);
     List<CountryStudentStats> findAverageStudentsByCountries(int limit);
+    List<GroupedMetricStats> findAverageMetricByCounty(ChartMetric metric, int limit);
+    MetricSeries findMetricPairs(ChartMetric xMetric, ChartMetric yMetric);
+    double[] findMetricValues(ChartMetric metric);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package org.school.analysis.application.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Номер версии загруженных данных. Увеличивается после каждой успешной загрузки CSV,
+ * чтобы результаты, посчитанные по старым данным, не переиспользовались.
+ */
+public class DatasetVersion {
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long increment() {
+        return version.incrementAndGet();
+    }
+}
@@ -1,6 +1,7 @@
 package org.school.analysis.application.services;
 
 import org.school.analysis.application.ports.input.LoadSchoolsUseCase;
+import org.school.analysis.application.ports.output.DatasetChangedListener;
 import org.school.analysis.domain.model.School;
 import org.school.analysis.infrastructure.csv.CsvSchoolParser;
 import org.school.analysis.application.ports.output.DatabaseManager;
@@ -9,16 +10,29 @@ import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class LoadSchoolsService implements LoadSchoolsUseCase {
     private static final Logger logger = LoggerFactory.getLogger(LoadSchoolsService.class);
 
     private final CsvSchoolParser csvParser;
     private final DatabaseManager databaseManager;
+    private final DatasetVersion datasetVersion;
+    private final List<DatasetChangedListener> listeners = new CopyOnWriteArrayList<>();
 
     public LoadSchoolsService(CsvSchoolParser csvParser, DatabaseManager databaseManager) {
+        this(csvParser, databaseManager, new DatasetVersion());
+    }
+
+    public LoadSchoolsService(CsvSchoolParser csvParser, DatabaseManager databaseManager,
+                              DatasetVersion datasetVersion) {
         this.csvParser = csvParser;
         this.databaseManager = databaseManager;
+        this.datasetVersion = datasetVersion;
+    }
+
+    public void addDatasetChangedListener(DatasetChangedListener listener) {
+        listeners.add(listener);
     }
 
     @Override
@@ -37,6 +51,9 @@ public class LoadSchoolsService implements LoadSchoolsUseCase {
             }
 
             databaseManager.insertSchools(schools);
+            long version = datasetVersion.increment();
+            logger.info("Данные обновлены, версия набора данных {}", version);
+            notifyDatasetChanged(version);
             return schools.size();
 
         } catch (Exception e) {
@@ -45,6 +62,17 @@ public class LoadSchoolsService implements LoadSchoolsUseCase {
         }
     }
 
+    private void notifyDatasetChanged(long version) {
+        for (DatasetChangedListener listener : listeners) {
+            try {
+                listener.onDatasetChanged(version);
+            } catch (Exception e) {
+                // Данные уже сохранены, ошибка подписчика не должна отменять загрузку
+                logger.warn("Ошибка обработчика смены данных: {}", e.getMessage());
+            }
+        }
+    }
+
     private void validateSchools(List<School> schools) {
         if (schools == null || schools.isEmpty()) {
             throw new IllegalArgumentException("В CSV нет школ или файл пуст");
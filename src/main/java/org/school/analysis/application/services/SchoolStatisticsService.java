@@ -6,6 +6,7 @@ import org.school.analysis.application.exception.DatabaseExceptionHandler;
 import org.school.analysis.domain.dto.CountryStudentStats;
 import org.school.analysis.domain.dto.ExpenditureStats;
 import org.school.analysis.domain.dto.MathSchoolStats;
+import org.school.analysis.infrastructure.concurrency.SingleFlight;
 import org.school.analysis.presentation.telegram.util.TelegramOutputService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,9 +19,18 @@ public class SchoolStatisticsService implements SchoolStatisticsUseCase {
     private final SchoolRepository repository;
     private final TelegramOutputService telegramOutputService;
     private final DatabaseExceptionHandler exceptionHandler;
+    private final DatasetVersion datasetVersion;
+    // Одинаковые запросы по одной версии данных выполняются один раз, остальные ждут результат
+    private final SingleFlight<String, String> reportFlights = new SingleFlight<>();
+    private final SingleFlight<String, List<CountryStudentStats>> studentStatsFlights = new SingleFlight<>();
 
     public SchoolStatisticsService(SchoolRepository repository, TelegramOutputService telegramOutputService,
                                    DatabaseExceptionHandler exceptionHandler) {
+        this(repository, telegramOutputService, exceptionHandler, new DatasetVersion());
+    }
+
+    public SchoolStatisticsService(SchoolRepository repository, TelegramOutputService telegramOutputService,
+                                   DatabaseExceptionHandler exceptionHandler, DatasetVersion datasetVersion) {
         if (repository == null) {
             throw new NullPointerException("SchoolRepository cannot be null");
         }
@@ -34,34 +44,45 @@ public class SchoolStatisticsService implements SchoolStatisticsUseCase {
         this.repository = repository;
         this.telegramOutputService = telegramOutputService;
         this.exceptionHandler = exceptionHandler;
+        this.datasetVersion = datasetVersion;
     }
 
     public String getExpenditureReportForTelegram() {
-        try {
-            List<String> counties = Arrays.asList("Fresno", "Contra Costa", "El Dorado", "Glenn");
-            List<ExpenditureStats> stats = repository.findAverageExpenditureInCounties(counties, 10.0);
-            return telegramOutputService.formatExpenditureStatsForTelegram(stats);
-        } catch (Exception e) {
-            return exceptionHandler.handleExpenditureQueryError(e);
-        }
+        List<String> counties = Arrays.asList("Fresno", "Contra Costa", "El Dorado", "Glenn");
+        return reportFlights.execute(flightKey("expenditure", counties, 10.0), () -> {
+            try {
+                List<ExpenditureStats> stats = repository.findAverageExpenditureInCounties(counties, 10.0);
+                return telegramOutputService.formatExpenditureStatsForTelegram(stats);
+            } catch (Exception e) {
+                return exceptionHandler.handleExpenditureQueryError(e);
+            }
+        });
     }
 
     public String getMathSchoolsReportForTelegram() {
-        try {
-            MathSchoolStats range1 = repository.findTopMathSchoolByStudentRange(5000, 7500);
-            MathSchoolStats range2 = repository.findTopMathSchoolByStudentRange(10000, 11000);
-            return telegramOutputService.formatAllMathSchoolsStatsForTelegram(range1, range2);
-        } catch (Exception e) {
-            return exceptionHandler.handleMathSchoolsQueryError(e, 5000, 7500);
-        }
+        return reportFlights.execute(flightKey("math_schools", 5000, 7500, 10000, 11000), () -> {
+            try {
+                MathSchoolStats range1 = repository.findTopMathSchoolByStudentRange(5000, 7500);
+                MathSchoolStats range2 = repository.findTopMathSchoolByStudentRange(10000, 11000);
+                return telegramOutputService.formatAllMathSchoolsStatsForTelegram(range1, range2);
+            } catch (Exception e) {
+                return exceptionHandler.handleMathSchoolsQueryError(e, 5000, 7500);
+            }
+        });
     }
 
     public List<CountryStudentStats> getStudentStatistics(int limit) {
-        try {
-            return repository.findAverageStudentsByCountries(limit);
-        } catch (Exception e) {
-            logger.error("Ошибка получения статистики студентов", e);
-            throw e;
-        }
+        return studentStatsFlights.execute(flightKey("student_stats", limit), () -> {
+            try {
+                return repository.findAverageStudentsByCountries(limit);
+            } catch (Exception e) {
+                logger.error("Ошибка получения статистики студентов", e);
+                throw e;
+            }
+        });
+    }
+
+    private String flightKey(String query, Object... params) {
+        return query + Arrays.toString(params) + "@v" + datasetVersion.current();
     }
 }
\ No newline at end of file
@@ -5,31 +5,73 @@ import org.school.analysis.application.ports.input.LoadSchoolsUseCase;
 import org.school.analysis.application.ports.output.ChartGenerator;
 import org.school.analysis.application.ports.output.DatabaseStatisticsPort;
 import org.school.analysis.application.ports.output.SchoolRepository;
+import org.school.analysis.application.services.DatasetVersion;
 import org.school.analysis.application.services.LoadSchoolsService;
 import org.school.analysis.application.services.SchoolStatisticsService;
 import org.school.analysis.presentation.telegram.ports.ChartHandler;
 import org.school.analysis.presentation.telegram.ports.CommandHandler;
 import org.school.analysis.presentation.telegram.ports.DataHandler;
 import org.school.analysis.presentation.telegram.ports.QueryHandler;
+import org.school.analysis.infrastructure.adapters.Java2DChartGenerator;
 import org.school.analysis.infrastructure.adapters.JFreeChartGenerator;
+import org.school.analysis.infrastructure.adapters.LazyChartGenerator;
+import org.school.analysis.infrastructure.concurrency.ExecutionMode;
+import org.school.analysis.infrastructure.concurrency.LazyProvider;
 import org.school.analysis.infrastructure.csv.CsvSchoolParser;
+import org.school.analysis.infrastructure.csv.SchoolCsvGenerator;
+import org.school.analysis.infrastructure.csv.SchoolDataProfile;
 import org.school.analysis.application.ports.output.DatabaseManager;
 import org.school.analysis.infrastructure.database.DatabaseManagerImpl;
 import org.school.analysis.infrastructure.database.SchoolStatisticsRepository;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.infrastructure.jfr.FlightRecorderControl;
+import org.school.analysis.infrastructure.metrics.MetricsRegistry;
+import org.school.analysis.infrastructure.metrics.PrometheusExporter;
+import org.school.analysis.infrastructure.tracing.ContextPropagatingExecutorService;
+import org.school.analysis.infrastructure.tracing.RequestLog;
 import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
 import org.school.analysis.presentation.telegram.handlers.DefaultChartHandler;
 import org.school.analysis.presentation.telegram.handlers.DefaultCommandHandler;
 import org.school.analysis.presentation.telegram.handlers.DefaultDataHandler;
 import org.school.analysis.presentation.telegram.handlers.DefaultQueryHandler;
+import org.school.analysis.presentation.telegram.util.BotStage;
 import org.school.analysis.presentation.telegram.util.ThreadPoolManager;
+import org.school.analysis.infrastructure.visualization.ChartCache;
 import org.school.analysis.infrastructure.visualization.ChartManager;
+import org.school.analysis.infrastructure.visualization.ChartPreRenderer;
+import org.school.analysis.infrastructure.visualization.ChartRenderService;
+import org.school.analysis.infrastructure.visualization.ChartRendererType;
+import org.school.analysis.infrastructure.visualization.Java2DChartRenderer;
+import org.school.analysis.infrastructure.visualization.PngEncoder;
 import org.school.analysis.presentation.telegram.util.TelegramOutputService;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class DependencyContainer {
+    private static final String WARM_UP_DATABASE_URL = "jdbc:sqlite::memory:";
+    private static final int WARM_UP_ROWS = 2000;
+    private static final int INIT_THREADS = 4;
+    private static final AtomicInteger INIT_THREAD_COUNTER = new AtomicInteger();
     private static DependencyContainer instance;
     private DatabaseManager databaseManager;
     private SchoolRepository repository;
@@ -41,6 +83,38 @@ public class DependencyContainer {
     private LoadSchoolsUseCase loadSchoolsUseCase;
     private ExecutorService executorService;
     private CsvSchoolParser csvSchoolParser;
+    private DatasetVersion datasetVersion;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private int maxConcurrentQueries = SchoolStatisticsRepository.DEFAULT_MAX_CONCURRENT_QUERIES;
+    private Path chartsDirectory = Paths.get("charts");
+    private long chartCacheMemoryBytes = ChartCache.DEFAULT_MAX_MEMORY_BYTES;
+    private int maxConcurrentRenders = ChartRenderService.DEFAULT_MAX_CONCURRENT_RENDERS;
+    private ChartRendererType chartRenderer = ChartRendererType.JFREECHART;
+    private int chartOutputWidth = ChartManager.CHART_WIDTH;
+    private int chartOutputHeight = ChartManager.CHART_HEIGHT;
+    private boolean pngPalette = true;
+    private int pngCompressionLevel = PngEncoder.DEFAULT_COMPRESSION_LEVEL;
+    private boolean chartsProgressive = false;
+    private boolean metricsEnabled = true;
+    private String metricsHost = "127.0.0.1";
+    private int metricsPort = 9464;
+    private long slowRequestThresholdMillis = RequestLog.DEFAULT_SLOW_THRESHOLD_MILLIS;
+    private Set<Long> adminChatIds = Collections.emptySet();
+    private Path recordingsDirectory = Paths.get("recordings");
+    private String telegramApiBaseUrl;
+    private Path csvSamplePath = Paths.get("data/schools.csv");
+    private boolean warmUpEnabled = false;
+    private int warmUpRounds = StartupWarmUp.DEFAULT_ROUNDS;
+    private int warmUpMaxMillis = 15000;
+    private volatile StartupWarmUp.Report warmUpReport;
+    private volatile InitializationGraph.Report initializationReport;
+    private PrometheusExporter metricsExporter;
+    // Подсистема диаграмм создается лениво, поэтому ее части заполняются из потока прогрева
+    private LazyProvider<ChartGenerator> chartGeneratorProvider;
+    private volatile ChartManager chartManager;
+    private volatile ChartRenderService chartRenderService;
+    private volatile ChartCache chartCache;
+    private volatile ChartPreRenderer chartPreRenderer;
     private boolean diInitialized = false;
     private boolean databaseInitialized = false;
     private boolean tablesCreated = false;
@@ -55,6 +129,86 @@ public class DependencyContainer {
         return instance;
     }
 
+    public synchronized void configure(Properties config) {
+        if (diInitialized) {
+            throw new IllegalStateException("Конфигурацию нужно задать до создания DI контейнера");
+        }
+        this.executionMode = ExecutionMode.fromProperty(config.getProperty("bot.execution.mode"));
+        this.maxConcurrentQueries = parsePositiveInt(config.getProperty("database.max.concurrent.queries"),
+                SchoolStatisticsRepository.DEFAULT_MAX_CONCURRENT_QUERIES);
+        this.chartsDirectory = Paths.get(config.getProperty("charts.output.dir", "charts"));
+        this.chartCacheMemoryBytes = parsePositiveInt(config.getProperty("charts.cache.memory.bytes"),
+                (int) ChartCache.DEFAULT_MAX_MEMORY_BYTES);
+        this.maxConcurrentRenders = parsePositiveInt(config.getProperty("charts.max.concurrent.renders"),
+                ChartRenderService.DEFAULT_MAX_CONCURRENT_RENDERS);
+        this.chartRenderer = ChartRendererType.fromProperty(config.getProperty("charts.renderer"));
+        this.chartOutputWidth = parsePositiveInt(config.getProperty("charts.output.width"), ChartManager.CHART_WIDTH);
+        this.chartOutputHeight = parsePositiveInt(config.getProperty("charts.output.height"), ChartManager.CHART_HEIGHT);
+        this.pngPalette = Boolean.parseBoolean(config.getProperty("charts.png.palette", "true").trim());
+        this.pngCompressionLevel = parseCompressionLevel(config.getProperty("charts.png.compression"));
+        this.chartsProgressive = Boolean.parseBoolean(config.getProperty("charts.progressive", "false").trim());
+        this.metricsEnabled = Boolean.parseBoolean(config.getProperty("metrics.enabled", "true").trim());
+        this.metricsHost = config.getProperty("metrics.host", "127.0.0.1").trim();
+        this.metricsPort = parsePositiveInt(config.getProperty("metrics.port"), 9464);
+        this.slowRequestThresholdMillis = parsePositiveInt(config.getProperty("requests.slow.threshold.ms"),
+                (int) RequestLog.DEFAULT_SLOW_THRESHOLD_MILLIS);
+        RequestLog.global().setSlowThresholdMillis(slowRequestThresholdMillis);
+        this.adminChatIds = parseChatIds(config.getProperty("bot.admin.chat.ids"));
+        this.recordingsDirectory = Paths.get(config.getProperty("jfr.output.dir", "recordings").trim());
+        String apiBaseUrl = config.getProperty("telegram.api.base.url");
+        this.telegramApiBaseUrl = apiBaseUrl == null || apiBaseUrl.trim().isEmpty() ? null : apiBaseUrl.trim();
+        this.csvSamplePath = Paths.get(config.getProperty("csv.file.path", "data/schools.csv").trim());
+        this.warmUpEnabled = Boolean.parseBoolean(config.getProperty("startup.warmup.enabled", "false").trim());
+        this.warmUpRounds = parsePositiveInt(config.getProperty("startup.warmup.rounds"), StartupWarmUp.DEFAULT_ROUNDS);
+        this.warmUpMaxMillis = parsePositiveInt(config.getProperty("startup.warmup.max.ms"), 15000);
+    }
+
+    private int parseCompressionLevel(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return PngEncoder.DEFAULT_COMPRESSION_LEVEL;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= 0 && parsed <= 9) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        System.err.println("Уровень сжатия PNG должен быть от 0 до 9: " + value);
+        return PngEncoder.DEFAULT_COMPRESSION_LEVEL;
+    }
+
+    private Set<Long> parseChatIds(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<Long> chatIds = new LinkedHashSet<>();
+        for (String part : value.split(",")) {
+            if (part.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                chatIds.add(Long.parseLong(part.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("Некорректный id чата администратора: " + part);
+            }
+        }
+        return Collections.unmodifiableSet(chatIds);
+    }
+
+    private int parsePositiveInt(String value, int defaultValue) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            System.err.println("Некорректное числовое значение в конфигурации: " + value);
+            return defaultValue;
+        }
+    }
+
     public synchronized void initializeDi() {
         if (diInitialized) {
             return;
@@ -63,9 +217,8 @@ public class DependencyContainer {
 
         try {
             this.databaseManager = createDatabaseManager();
-            this.telegramOutputService = createTelegramOutputService();
-            this.exceptionHandler = createDatabaseExceptionHandler();
-            this.executorService = createExecutorService();
+            createOutputServices();
+            createExecutors();
             this.csvSchoolParser = createCsvSchoolParser(); // Создаем парсер
             this.diInitialized = true;
 
@@ -76,6 +229,16 @@ public class DependencyContainer {
         }
     }
 
+    private void createOutputServices() {
+        this.telegramOutputService = createTelegramOutputService();
+        this.exceptionHandler = createDatabaseExceptionHandler();
+    }
+
+    private void createExecutors() {
+        ThreadPoolManager.configure(executionMode);
+        this.executorService = createExecutorService();
+    }
+
     public synchronized void connectToDatabase() {
         if (!diInitialized) {
             throw new IllegalStateException("DI контейнер должен быть создан перед подключением к БД");
@@ -83,6 +246,10 @@ public class DependencyContainer {
         if (databaseInitialized) {
             return;
         }
+        openDatabase();
+    }
+
+    private void openDatabase() {
         try {
             databaseManager.connect();
             Connection connection = databaseManager.getConnection();
@@ -102,6 +269,10 @@ public class DependencyContainer {
         if (tablesCreated) {
             return;
         }
+        createTables();
+    }
+
+    private void createTables() {
         try {
             databaseManager.createTables();
             tablesCreated = true;
@@ -114,6 +285,10 @@ public class DependencyContainer {
         if (!tablesCreated) {
             throw new IllegalStateException("Таблицы БД должны быть созданы перед созданием репозиториев");
         }
+        createRepositories();
+    }
+
+    private void createRepositories() {
         try {
             Connection connection = databaseManager.getConnection();
             if (connection == null || connection.isClosed()) {
@@ -134,9 +309,17 @@ public class DependencyContainer {
         if (servicesInitialized) {
             return;
         }
+        createServices();
+    }
+
+    private void createServices() {
         try {
+            this.datasetVersion = new DatasetVersion();
+            // Кэшу не нужен AWT, он создается сразу, чтобы /load до прогрева диаграмм тоже его сбрасывал
+            this.chartCache = new ChartCache(chartsDirectory, chartCacheMemoryBytes, datasetVersion.current());
             this.statisticsService = createSchoolStatisticsService();
-            this.chartGenerator = createChartGenerator();
+            this.chartGeneratorProvider = new LazyProvider<>("charts", this::createChartGenerator);
+            this.chartGenerator = new LazyChartGenerator(chartGeneratorProvider);
             this.loadSchoolsUseCase = createLoadSchoolsUseCase();
             servicesInitialized = true;
         } catch (Exception e) {
@@ -144,17 +327,72 @@ public class DependencyContainer {
         }
     }
 
+    /**
+     * Поднимает компоненты по графу зависимостей: пулы, парсер, сервисы вывода и подключение к БД
+     * не зависят друг от друга и создаются параллельно. Время каждого компонента печатается в итоге.
+     * Шрифты и классы диаграмм по-прежнему грузятся в фоне после регистрации бота (warmUpCharts).
+     */
     public synchronized void initializeApplication() {
+        if (isApplicationInitialized()) {
+            return;
+        }
+        if (diInitialized) {
+            initializeRemainingSteps();
+            return;
+        }
+        InitializationGraph graph = new InitializationGraph()
+                .component("executors", this::createExecutors)
+                .component("parser", () -> this.csvSchoolParser = createCsvSchoolParser())
+                .component("output", this::createOutputServices)
+                .component("di", () -> this.diInitialized = true, "executors", "parser", "output")
+                .component("database", () -> {
+                    this.databaseManager = createDatabaseManager();
+                    openDatabase();
+                })
+                .component("tables", this::createTables, "database")
+                .component("repositories", this::createRepositories, "tables")
+                .component("services", this::createServices, "di", "repositories");
+        if (warmUpEnabled) {
+            // Прогрев работает на своей временной базе, поэтому ждет только парсер
+            graph.component("warmup", this::warmUpHotPaths, "parser");
+        }
+        ExecutorService initExecutor = Executors.newFixedThreadPool(INIT_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "init-" + INIT_THREAD_COUNTER.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            this.initializationReport = graph.run(initExecutor);
+            System.out.println(initializationReport);
+        } catch (RuntimeException e) {
+            shutdown();
+            throw e;
+        } finally {
+            initExecutor.shutdown();
+        }
+    }
+
+    // DI уже создан по отдельности, оставшиеся шаги выполняются по порядку
+    private void initializeRemainingSteps() {
         try {
-            initializeDi();
             connectToDatabase();
             createDatabaseTables();
             initializeRepositories();
             initializeServices();
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             shutdown();
             throw e;
         }
+        if (warmUpEnabled) {
+            warmUpHotPaths();
+        }
+    }
+
+    /**
+     * Время инициализации по компонентам или null, если initializeApplication еще не выполнялся.
+     */
+    public InitializationGraph.Report getInitializationReport() {
+        return initializationReport;
     }
 
     public boolean isApplicationInitialized() {
@@ -169,8 +407,73 @@ public class DependencyContainer {
         return new CsvSchoolParser();
     }
 
+    /**
+     * Прогревает разбор CSV, запросы и отрисовку до регистрации бота. Данные генерируются по образцу
+     * из csv.file.path и пишутся во временную базу в памяти, рабочая база и кэш диаграмм не затрагиваются.
+     * Ошибка прогрева запуск не прерывает.
+     */
+    private void warmUpHotPaths() {
+        DatabaseManagerImpl scratch = new DatabaseManagerImpl(WARM_UP_DATABASE_URL);
+        try (InputStream sample = Files.newInputStream(csvSamplePath)) {
+            SchoolDataProfile profile = SchoolDataProfile.fit(csvSchoolParser.parseSchools(sample));
+            StringWriter csv = new StringWriter();
+            new SchoolCsvGenerator(profile, 1, Math.max(1, profile.getCounties().size()), 200, 0.0)
+                    .write(csv, WARM_UP_ROWS);
+            byte[] csvBytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+            scratch.connect();
+            scratch.createTables();
+            scratch.insertSchools(csvSchoolParser.parseSchools(new ByteArrayInputStream(csvBytes)));
+            SchoolStatisticsRepository scratchRepository = new SchoolStatisticsRepository(scratch.getConnection(), 1);
+            ChartRenderService renderService = new ChartRenderService(1, new PngEncoder(pngPalette, pngCompressionLevel));
+            ChartManager scratchCharts = new ChartManager(scratchRepository, renderService, chartOutputWidth,
+                    chartOutputHeight);
+            Java2DChartRenderer java2DRenderer = new Java2DChartRenderer(renderService);
+            List<String> counties = profile.getCounties().subList(0, Math.min(4, profile.getCounties().size()));
+
+            StartupWarmUp.Report report = new StartupWarmUp(warmUpRounds, warmUpMaxMillis)
+                    .stage("csv", () -> csvSchoolParser.parseSchools(new ByteArrayInputStream(csvBytes)))
+                    .stage("db", () -> {
+                        scratchRepository.findAverageExpenditureInCounties(counties, 10.0);
+                        scratchRepository.findTopMathSchoolByStudentRange(5000, 7500);
+                        return scratchRepository.getDatabaseStatistics();
+                    })
+                    .stage("charts", () -> renderWarmUpChart(scratchCharts, java2DRenderer))
+                    .run();
+            this.warmUpReport = report;
+            System.out.println(report);
+        } catch (Exception e) {
+            System.err.println("Прогрев пропущен: " + e.getMessage());
+        } finally {
+            scratch.close();
+        }
+    }
+
+    private byte[] renderWarmUpChart(ChartManager charts, Java2DChartRenderer java2DRenderer) throws Exception {
+        List<CountryStudentStats> stats = charts.loadAverageStudentsStats();
+        if (chartRenderer != ChartRendererType.JAVA2D) {
+            return charts.renderAverageStudentsChart(stats);
+        }
+        List<String> categories = new ArrayList<>(stats.size());
+        double[] values = new double[stats.size()];
+        for (int i = 0; i < stats.size(); i++) {
+            categories.add(stats.get(i).getCountryName());
+            values[i] = stats.get(i).getAvgStudents();
+        }
+        return java2DRenderer.renderBarChart(ChartManager.AVERAGE_STUDENTS_TITLE,
+                ChartManager.AVERAGE_STUDENTS_CATEGORY_LABEL, ChartManager.AVERAGE_STUDENTS_SERIES,
+                ChartManager.AVERAGE_STUDENTS_SERIES, categories, values, chartOutputWidth, chartOutputHeight);
+    }
+
+    /**
+     * Итог прогрева или null, если он выключен или не удался.
+     */
+    public StartupWarmUp.Report getWarmUpReport() {
+        return warmUpReport;
+    }
+
     private SchoolStatisticsRepository createSchoolRepository(Connection connection) {
-        return new SchoolStatisticsRepository(connection);
+        return new SchoolStatisticsRepository(connection, maxConcurrentQueries);
     }
 
     private TelegramOutputService createTelegramOutputService() {
@@ -185,22 +488,109 @@ public class DependencyContainer {
         if (repository == null) {
             throw new IllegalStateException("Репозиторий должен быть создан перед созданием SchoolStatisticsService");
         }
-        return new SchoolStatisticsService(repository, telegramOutputService, exceptionHandler);
+        return new SchoolStatisticsService(repository, telegramOutputService, exceptionHandler, datasetVersion);
     }
 
     private ChartGenerator createChartGenerator() {
         if (repository == null) {
             throw new IllegalStateException("Репозиторий должен быть создан перед созданием ChartGenerator");
         }
-        ChartManager chartService = new ChartManager(repository);
-        return new JFreeChartGenerator(chartService);
+        ChartRenderService renderService = new ChartRenderService(maxConcurrentRenders,
+                new PngEncoder(pngPalette, pngCompressionLevel));
+        ChartManager chartService = new ChartManager(repository, renderService, chartOutputWidth, chartOutputHeight);
+        this.chartManager = chartService;
+        this.chartRenderService = renderService;
+        ChartGenerator generator = chartRenderer == ChartRendererType.JAVA2D
+                ? new Java2DChartGenerator(chartService, new Java2DChartRenderer(renderService), datasetVersion, chartCache)
+                : new JFreeChartGenerator(chartService, datasetVersion, chartCache);
+        System.out.println("Рендерер диаграмм: " + chartRenderer + ", " + chartOutputWidth + "x" + chartOutputHeight
+                + ", PNG " + renderService.getEncoder().getProfile());
+        this.chartPreRenderer = new ChartPreRenderer(datasetVersion);
+        chartPreRenderer.register(ChartManager.AVERAGE_STUDENTS_CHART, generator::renderAverageStudentsChart);
+        for (ChartSpec spec : DefaultChartHandler.DASHBOARD_SPECS) {
+            chartPreRenderer.register(spec.getKey(), () -> generator.render(spec));
+        }
+        return generator;
     }
 
     private LoadSchoolsUseCase createLoadSchoolsUseCase() {
         if (databaseManager == null) {
             throw new IllegalStateException("DatabaseManager должен быть создан перед созданием LoadSchoolsUseCase");
         }
-        return new LoadSchoolsService(csvSchoolParser, databaseManager);
+        LoadSchoolsService loadSchoolsService = new LoadSchoolsService(csvSchoolParser, databaseManager, datasetVersion);
+        // Сначала сбрасываем кэш, затем в фоне рисуем диаграммы по новым данным.
+        // Пока подсистема диаграмм не создана, перерисовывать нечего
+        LazyProvider<ChartGenerator> charts = chartGeneratorProvider;
+        loadSchoolsService.addDatasetChangedListener(version -> {
+            ChartCache cache = chartCache;
+            if (cache != null) {
+                cache.onDatasetChanged(version);
+            }
+            ChartPreRenderer preRenderer = chartPreRenderer;
+            if (charts.isInitialized() && preRenderer != null) {
+                preRenderer.onDatasetChanged(version);
+            }
+        });
+        return loadSchoolsService;
+    }
+
+    /**
+     * Создает подсистему диаграмм в фоне после регистрации бота: загружает AWT и JFreeChart
+     * и заранее рисует диаграммы по текущим данным, чтобы они оказались в кэше.
+     */
+    public CompletableFuture<ChartGenerator> warmUpCharts() {
+        if (!servicesInitialized) {
+            throw new IllegalStateException("Сервисы должны быть созданы перед прогревом диаграмм");
+        }
+        return chartGeneratorProvider.warmUp(generator -> {
+            chartManager.warmUp();
+            chartPreRenderer.onDatasetChanged(datasetVersion.current());
+        });
+    }
+
+    /**
+     * Поднимает локальную точку /metrics для Prometheus. Датчики читают очереди пулов
+     * и кэш диаграмм только в момент выгрузки.
+     */
+    public synchronized void startMetricsExporter() {
+        if (!metricsEnabled || metricsExporter != null) {
+            return;
+        }
+        MetricsRegistry metrics = MetricsRegistry.global();
+        for (BotStage stage : BotStage.values()) {
+            metrics.gauge("school_bot_executor_queue_depth", () -> ThreadPoolManager.getQueueDepth(stage),
+                    "stage", stage.name().toLowerCase());
+            metrics.gauge("school_bot_executor_active", () -> ThreadPoolManager.getActiveCount(stage),
+                    "stage", stage.name().toLowerCase());
+        }
+        if (databaseStatisticsPort instanceof SchoolStatisticsRepository) {
+            SchoolStatisticsRepository statisticsRepository = (SchoolStatisticsRepository) databaseStatisticsPort;
+            metrics.gauge("school_bot_repository_query_slots_available", statisticsRepository::getAvailableQuerySlots);
+        }
+        metrics.gauge("school_bot_chart_cache_hit_ratio", () -> {
+            ChartCache cache = chartCache;
+            return cache != null ? cache.getHitRatio() : Double.NaN;
+        });
+        metrics.gauge("school_bot_chart_cache_memory_bytes", () -> {
+            ChartCache cache = chartCache;
+            return cache != null ? cache.getMemoryBytes() : 0;
+        });
+        metrics.gauge("school_bot_chart_render_slots_available", () -> {
+            ChartRenderService renderService = chartRenderService;
+            return renderService != null ? renderService.getAvailableRenderSlots() : 0;
+        });
+        PrometheusExporter exporter = new PrometheusExporter(metrics, metricsHost, metricsPort);
+        try {
+            exporter.start();
+            metricsExporter = exporter;
+        } catch (Exception e) {
+            // Без метрик бот работает как обычно
+            System.err.println("Не удалось запустить экспорт метрик на порту " + metricsPort + ": " + e.getMessage());
+        }
+    }
+
+    public boolean isChartSubsystemInitialized() {
+        return chartGeneratorProvider != null && chartGeneratorProvider.isInitialized();
     }
 
     private ExecutorService createExecutorService() {
@@ -213,21 +603,47 @@ public class DependencyContainer {
             throw new IllegalStateException("Приложение должно быть полностью инициализировано перед созданием бота");
         }
         CommandHandler commandHandler = new DefaultCommandHandler();
-        QueryHandler queryHandler = new DefaultQueryHandler(statisticsService, executorService);
-        ChartHandler chartHandler = new DefaultChartHandler(chartGenerator, executorService);
-        DataHandler dataHandler = new DefaultDataHandler(databaseStatisticsPort, executorService,
-                loadSchoolsUseCase
+        // Обработчики получают пулы, переносящие контекст запроса, чтобы время БД, отрисовки и отправки
+        // попадало в запись о том обновлении, которое его вызвало
+        ExecutorService queryExecutor = traced(executorService);
+        ExecutorService sendExecutor = traced(ThreadPoolManager.getExecutor(BotStage.SENDS));
+        QueryHandler queryHandler = new DefaultQueryHandler(statisticsService, queryExecutor, sendExecutor);
+        ChartHandler chartHandler = new DefaultChartHandler(chartGenerator,
+                traced(ThreadPoolManager.getExecutor(BotStage.CHARTS)), sendExecutor, chartsProgressive);
+        DataHandler dataHandler = new DefaultDataHandler(databaseStatisticsPort, queryExecutor,
+                traced(ThreadPoolManager.getExecutor(BotStage.LOADS)), loadSchoolsUseCase
         );
 
-        return new SchoolTelegramBot(botToken, botUsername, commandHandler, queryHandler, chartHandler, dataHandler
+        DefaultBotOptions options = new DefaultBotOptions();
+        if (telegramApiBaseUrl != null) {
+            options.setBaseUrl(telegramApiBaseUrl);
+        }
+        return new SchoolTelegramBot(options, botToken, botUsername, commandHandler, queryHandler, chartHandler,
+                dataHandler, adminChatIds, new FlightRecorderControl(recordingsDirectory)
         );
     }
 
+    private ExecutorService traced(ExecutorService executor) {
+        return executor == null ? null : new ContextPropagatingExecutorService(executor);
+    }
+
     public synchronized void shutdown() {
         System.out.println("Завершение работы DI контейнера");
 
         try {
             ThreadPoolManager.shutdown();
+            if (metricsExporter != null) {
+                metricsExporter.stop();
+                metricsExporter = null;
+            }
+            if (chartPreRenderer != null) {
+                chartPreRenderer.shutdown();
+                chartPreRenderer = null;
+            }
+            if (chartCache != null) {
+                chartCache.persist();
+                chartCache = null;
+            }
             if (databaseManager != null && databaseManager instanceof DatabaseManagerImpl) {
                 ((DatabaseManagerImpl) databaseManager).close();
             }
@@ -239,6 +655,9 @@ public class DependencyContainer {
             databaseStatisticsPort = null;
             statisticsService = null;
             chartGenerator = null;
+            chartGeneratorProvider = null;
+            chartManager = null;
+            chartRenderService = null;
             loadSchoolsUseCase = null;
             csvSchoolParser = null;
         } catch (Exception e) {
@@ -0,0 +1,142 @@
+package org.school.analysis.di;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Граф инициализации компонентов. Каждый компонент объявляет, от каких зависит, и запускается,
+ * как только готовы все его зависимости, поэтому независимые компоненты поднимаются параллельно.
+ * Ошибка компонента отменяет зависящие от него, остальные доводятся до конца, затем ошибка пробрасывается.
+ */
+public class InitializationGraph {
+    private final Map<String, Runnable> actions = new LinkedHashMap<>();
+    private final Map<String, List<String>> dependencies = new LinkedHashMap<>();
+
+    public InitializationGraph component(String name, Runnable action, String... dependsOn) {
+        if (actions.containsKey(name)) {
+            throw new IllegalArgumentException("Компонент уже объявлен: " + name);
+        }
+        actions.put(name, action);
+        dependencies.put(name, Arrays.asList(dependsOn));
+        return this;
+    }
+
+    public Report run(Executor executor) {
+        List<String> order = topologicalOrder();
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        Map<String, Long> initNanos = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        for (String name : order) {
+            CompletableFuture<?>[] required = dependencies.get(name).stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture[]::new);
+            Runnable action = actions.get(name);
+            futures.put(name, CompletableFuture.allOf(required).thenRunAsync(() -> {
+                long componentStart = System.nanoTime();
+                action.run();
+                initNanos.put(name, System.nanoTime() - componentStart);
+            }, executor));
+        }
+
+        RuntimeException failure = null;
+        for (CompletableFuture<Void> future : futures.values()) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        Map<String, Long> millis = new LinkedHashMap<>();
+        for (String name : order) {
+            millis.put(name, TimeUnit.NANOSECONDS.toMillis(initNanos.get(name)));
+        }
+        return new Report(millis, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private List<String> topologicalOrder() {
+        List<String> order = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Set<String> inProgress = new HashSet<>();
+        for (String name : actions.keySet()) {
+            visit(name, visited, inProgress, order);
+        }
+        return order;
+    }
+
+    private void visit(String name, Set<String> visited, Set<String> inProgress, List<String> order) {
+        if (visited.contains(name)) {
+            return;
+        }
+        if (!inProgress.add(name)) {
+            throw new IllegalStateException("Циклическая зависимость компонентов: " + name);
+        }
+        for (String dependency : dependencies.get(name)) {
+            if (!actions.containsKey(dependency)) {
+                throw new IllegalStateException("Компонент " + name + " зависит от необъявленного " + dependency);
+            }
+            visit(dependency, visited, inProgress, order);
+        }
+        inProgress.remove(name);
+        visited.add(name);
+        order.add(name);
+    }
+
+    public static class Report {
+        private final Map<String, Long> componentMillis;
+        private final long totalMillis;
+
+        Report(Map<String, Long> componentMillis, long totalMillis) {
+            this.componentMillis = Collections.unmodifiableMap(componentMillis);
+            this.totalMillis = totalMillis;
+        }
+
+        /**
+         * Время инициализации каждого компонента в порядке запуска.
+         */
+        public Map<String, Long> getComponentMillis() {
+            return componentMillis;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        /**
+         * Сумма времени всех компонентов, то есть сколько заняла бы последовательная инициализация.
+         */
+        public long getSequentialMillis() {
+            long sum = 0;
+            for (long millis : componentMillis.values()) {
+                sum += millis;
+            }
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append("Инициализация за ").append(totalMillis).append(" мс (последовательно ")
+                    .append(getSequentialMillis()).append(" мс):");
+            componentMillis.forEach((name, millis) -> text.append(' ').append(name).append('=').append(millis)
+                    .append("мс"));
+            return text.toString();
+        }
+    }
+}
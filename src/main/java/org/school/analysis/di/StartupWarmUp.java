@@ -0,0 +1,158 @@
+package org.school.analysis.di;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прогрев горячих путей до того, как бот начнет принимать обновления. Этапы (разбор CSV, запросы, отрисовка)
+ * гоняются по кругу, пока JIT не скомпилирует их и не загрузятся классы. Раунд считается быстрым, если каждый
+ * этап в нем не медленнее установившегося времени (медиана второй половины раундов), умноженного на fastRatio.
+ * Время до первого быстрого ответа - от начала прогрева до конца первого быстрого раунда.
+ */
+public class StartupWarmUp {
+    public static final int DEFAULT_ROUNDS = 30;
+    public static final double DEFAULT_FAST_RATIO = 1.5;
+
+    private final int rounds;
+    private final long maxNanos;
+    private final double fastRatio;
+    private final Map<String, Callable<?>> stages = new LinkedHashMap<>();
+
+    public StartupWarmUp(int rounds, long maxMillis) {
+        this(rounds, maxMillis, DEFAULT_FAST_RATIO);
+    }
+
+    public StartupWarmUp(int rounds, long maxMillis, double fastRatio) {
+        if (rounds <= 0 || maxMillis <= 0 || fastRatio < 1) {
+            throw new IllegalArgumentException("Некорректные параметры прогрева");
+        }
+        this.rounds = rounds;
+        this.maxNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        this.fastRatio = fastRatio;
+    }
+
+    public StartupWarmUp stage(String name, Callable<?> action) {
+        stages.put(name, action);
+        return this;
+    }
+
+    /**
+     * Прогоняет раунды, пока не выйдет их число или бюджет времени. Ошибка этапа прерывает прогрев.
+     */
+    public Report run() throws Exception {
+        List<String> names = new ArrayList<>(stages.keySet());
+        List<long[]> roundTimes = new ArrayList<>();
+        List<Long> roundEnds = new ArrayList<>();
+        long start = System.nanoTime();
+        while (roundTimes.size() < rounds && System.nanoTime() - start < maxNanos) {
+            long[] times = new long[names.size()];
+            for (int i = 0; i < names.size(); i++) {
+                long stageStart = System.nanoTime();
+                stages.get(names.get(i)).call();
+                times[i] = System.nanoTime() - stageStart;
+            }
+            roundTimes.add(times);
+            roundEnds.add(System.nanoTime() - start);
+        }
+        return new Report(names, roundTimes, roundEnds, fastRatio);
+    }
+
+    public static class Report {
+        private final List<String> stages;
+        private final List<long[]> roundTimes;
+        private final long[] steadyNanos;
+        private final int firstFastRound;
+        private final long totalNanos;
+        private final long timeToFirstFastNanos;
+
+        Report(List<String> stages, List<long[]> roundTimes, List<Long> roundEnds, double fastRatio) {
+            this.stages = Collections.unmodifiableList(stages);
+            this.roundTimes = roundTimes;
+            this.steadyNanos = new long[stages.size()];
+            for (int i = 0; i < stages.size(); i++) {
+                steadyNanos[i] = steadyState(roundTimes, i);
+            }
+            int fast = -1;
+            for (int round = 0; round < roundTimes.size() && fast < 0; round++) {
+                boolean allFast = true;
+                for (int i = 0; i < stages.size(); i++) {
+                    allFast &= roundTimes.get(round)[i] <= steadyNanos[i] * fastRatio;
+                }
+                if (allFast) {
+                    fast = round;
+                }
+            }
+            this.firstFastRound = fast;
+            this.totalNanos = roundEnds.isEmpty() ? 0 : roundEnds.get(roundEnds.size() - 1);
+            this.timeToFirstFastNanos = fast < 0 ? -1 : roundEnds.get(fast);
+        }
+
+        private static long steadyState(List<long[]> roundTimes, int stage) {
+            if (roundTimes.isEmpty()) {
+                return 0;
+            }
+            long[] tail = new long[roundTimes.size() - roundTimes.size() / 2];
+            for (int i = 0; i < tail.length; i++) {
+                tail[i] = roundTimes.get(roundTimes.size() / 2 + i)[stage];
+            }
+            Arrays.sort(tail);
+            return tail[tail.length / 2];
+        }
+
+        public List<String> getStages() {
+            return stages;
+        }
+
+        public int getRounds() {
+            return roundTimes.size();
+        }
+
+        public long getFirstRoundMillis(String stage) {
+            int index = stages.indexOf(stage);
+            return roundTimes.isEmpty() || index < 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(roundTimes.get(0)[index]);
+        }
+
+        public double getSteadyStateMillis(String stage) {
+            int index = stages.indexOf(stage);
+            return index < 0 ? 0 : steadyNanos[index] / 1e6;
+        }
+
+        /**
+         * Номер первого быстрого раунда (с нуля) или -1, если прогрев до него не дошел.
+         */
+        public int getFirstFastRound() {
+            return firstFastRound;
+        }
+
+        public long getTimeToFirstFastMillis() {
+            return timeToFirstFastNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(timeToFirstFastNanos);
+        }
+
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append("Прогрев: ").append(getRounds()).append(" раундов за ").append(getTotalMillis()).append(" мс");
+            if (firstFastRound < 0) {
+                text.append(", установившаяся скорость не достигнута");
+            } else {
+                text.append(", быстрый ответ с раунда ").append(firstFastRound + 1)
+                        .append(" (через ").append(getTimeToFirstFastMillis()).append(" мс)");
+            }
+            for (String stage : stages) {
+                text.append(String.format("%n  %s: первый %d мс, установившийся %.2f мс", stage,
+                        getFirstRoundMillis(stage), getSteadyStateMillis(stage)));
+            }
+            return text.toString();
+        }
+    }
+}
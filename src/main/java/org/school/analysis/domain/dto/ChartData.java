@@ -0,0 +1,28 @@
+package org.school.analysis.domain.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Данные, готовые к отрисовке: подписи категорий (для столбцов и гистограммы) и точки
+ * после прореживания. sourceSize - сколько значений было до прореживания.
+ */
+@Getter
+public class ChartData {
+    private final List<String> labels;
+    private final double[] xs;
+    private final double[] ys;
+    private final int sourceSize;
+
+    public ChartData(List<String> labels, double[] xs, double[] ys, int sourceSize) {
+        this.labels = labels;
+        this.xs = xs;
+        this.ys = ys;
+        this.sourceSize = sourceSize;
+    }
+
+    public int size() {
+        return ys.length;
+    }
+}
@@ -0,0 +1,22 @@
+package org.school.analysis.domain.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Готовая диаграмма: картинка, подпись и статистика, по которой они построены.
+ * Все три части получены из одного запроса к БД. Если диаграмма взята из кэша, статистика пустая.
+ */
+@Getter
+public class ChartRenderResult {
+    private final byte[] png;
+    private final String caption;
+    private final List<CountryStudentStats> stats;
+
+    public ChartRenderResult(byte[] png, String caption, List<CountryStudentStats> stats) {
+        this.png = png;
+        this.caption = caption;
+        this.stats = stats;
+    }
+}
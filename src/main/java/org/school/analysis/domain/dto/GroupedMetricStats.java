@@ -0,0 +1,12 @@
+package org.school.analysis.domain.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class GroupedMetricStats {
+    private String groupName;
+    private int schoolCount;
+    private double average;
+}
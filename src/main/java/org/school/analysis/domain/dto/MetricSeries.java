@@ -0,0 +1,24 @@
+package org.school.analysis.domain.dto;
+
+import lombok.Getter;
+
+/**
+ * Пары значений двух метрик по школам в примитивных массивах, без объекта на каждую точку.
+ */
+@Getter
+public class MetricSeries {
+    private final double[] xs;
+    private final double[] ys;
+
+    public MetricSeries(double[] xs, double[] ys) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Длины рядов X и Y не совпадают");
+        }
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    public int size() {
+        return xs.length;
+    }
+}
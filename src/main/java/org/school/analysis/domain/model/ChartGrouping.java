@@ -0,0 +1,18 @@
+package org.school.analysis.domain.model;
+
+import lombok.Getter;
+
+/**
+ * По чему строятся точки диаграммы: среднее по округу или каждая школа отдельно.
+ */
+@Getter
+public enum ChartGrouping {
+    COUNTY("Округ"),
+    SCHOOL("Школа");
+
+    private final String label;
+
+    ChartGrouping(String label) {
+        this.label = label;
+    }
+}
@@ -0,0 +1,28 @@
+package org.school.analysis.domain.model;
+
+import lombok.Getter;
+
+@Getter
+public enum ChartMetric {
+    STUDENTS("students", "Количество студентов"),
+    MATH_SCORE("math", "Балл по математике"),
+    READ_SCORE("read", "Балл по чтению"),
+    EXPENDITURE("expenditure", "Расходы на студента");
+
+    private final String code;
+    private final String label;
+
+    ChartMetric(String code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public static ChartMetric fromCode(String code) {
+        for (ChartMetric metric : values()) {
+            if (metric.code.equalsIgnoreCase(code)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестная метрика: " + code);
+    }
+}
@@ -0,0 +1,154 @@
+package org.school.analysis.domain.model;
+
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * Описание диаграммы: тип, метрики, группировка, лимит и размер.
+ * Размер 0x0 означает размер по умолчанию из конфигурации.
+ */
+@Getter
+public class ChartSpec {
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int DEFAULT_BINS = 20;
+    public static final int DEFAULT_MAX_POINTS = 2000;
+    public static final int MAX_LIMIT = 50;
+    public static final int MAX_BINS = 200;
+    public static final int MIN_SIZE = 200;
+    public static final int MAX_SIZE = 2000;
+    public static final int PREVIEW_WIDTH = 480;
+    public static final int PREVIEW_HEIGHT = 320;
+
+    private final ChartType type;
+    private final ChartMetric metric;
+    private final ChartMetric xMetric;
+    private final ChartGrouping grouping;
+    private final int limit;
+    private final int bins;
+    private final int maxPoints;
+    private final int width;
+    private final int height;
+
+    public ChartSpec(ChartType type, ChartMetric metric, ChartMetric xMetric, ChartGrouping grouping,
+                     int limit, int bins, int maxPoints, int width, int height) {
+        if (type == null || metric == null || grouping == null) {
+            throw new IllegalArgumentException("Тип, метрика и группировка диаграммы обязательны");
+        }
+        if ((type == ChartType.SCATTER || type == ChartType.LINE) && xMetric == null) {
+            throw new IllegalArgumentException("Для диаграммы " + type + " нужна метрика по оси X");
+        }
+        if (type == ChartType.BAR && grouping != ChartGrouping.COUNTY) {
+            throw new IllegalArgumentException("Столбчатая диаграмма строится только по округам");
+        }
+        if (limit <= 0 || bins <= 0 || maxPoints < 3) {
+            throw new IllegalArgumentException("Лимит, число интервалов и точек должны быть положительными");
+        }
+        if (limit > MAX_LIMIT || bins > MAX_BINS) {
+            throw new IllegalArgumentException("Лимит не больше " + MAX_LIMIT + ", интервалов не больше " + MAX_BINS);
+        }
+        if ((width != 0 || height != 0) && (width < MIN_SIZE || width > MAX_SIZE
+                || height < MIN_SIZE || height > MAX_SIZE)) {
+            throw new IllegalArgumentException("Размер диаграммы должен быть от " + MIN_SIZE + " до " + MAX_SIZE);
+        }
+        this.type = type;
+        this.metric = metric;
+        this.xMetric = xMetric;
+        this.grouping = grouping;
+        this.limit = limit;
+        this.bins = bins;
+        this.maxPoints = maxPoints;
+        this.width = width;
+        this.height = height;
+    }
+
+    public static ChartSpec averageByCounty(ChartMetric metric, int limit) {
+        return new ChartSpec(ChartType.BAR, metric, null, ChartGrouping.COUNTY, limit, DEFAULT_BINS,
+                DEFAULT_MAX_POINTS, 0, 0);
+    }
+
+    public static ChartSpec scatter(ChartMetric xMetric, ChartMetric yMetric) {
+        return new ChartSpec(ChartType.SCATTER, yMetric, xMetric, ChartGrouping.SCHOOL, DEFAULT_LIMIT,
+                DEFAULT_BINS, DEFAULT_MAX_POINTS, 0, 0);
+    }
+
+    public static ChartSpec line(ChartMetric xMetric, ChartMetric yMetric) {
+        return new ChartSpec(ChartType.LINE, yMetric, xMetric, ChartGrouping.SCHOOL, DEFAULT_LIMIT,
+                DEFAULT_BINS, DEFAULT_MAX_POINTS, 0, 0);
+    }
+
+    public static ChartSpec histogram(ChartMetric metric, int bins) {
+        return new ChartSpec(ChartType.HISTOGRAM, metric, null, ChartGrouping.SCHOOL, DEFAULT_LIMIT, bins,
+                DEFAULT_MAX_POINTS, 0, 0);
+    }
+
+    public ChartSpec withSize(int width, int height) {
+        return new ChartSpec(type, metric, xMetric, grouping, limit, bins, maxPoints, width, height);
+    }
+
+    /**
+     * Уменьшенная копия для быстрого превью. Если размер задан явно, пропорции сохраняются.
+     */
+    public ChartSpec preview() {
+        if (width == 0 || height == 0) {
+            return withSize(PREVIEW_WIDTH, PREVIEW_HEIGHT);
+        }
+        int previewHeight = Math.max(MIN_SIZE, Math.min(MAX_SIZE, PREVIEW_WIDTH * height / width));
+        return withSize(PREVIEW_WIDTH, previewHeight);
+    }
+
+    public String getTitle() {
+        switch (type) {
+            case BAR:
+                return metric.getLabel() + ": среднее по округам (топ " + limit + ")";
+            case HISTOGRAM:
+                return "Распределение: " + metric.getLabel();
+            default:
+                return metric.getLabel() + " и " + xMetric.getLabel().toLowerCase();
+        }
+    }
+
+    /**
+     * Канонический вид описания, по нему диаграмма кэшируется.
+     */
+    public String getKey() {
+        StringBuilder key = new StringBuilder(type.name().toLowerCase())
+                .append(':').append(metric.getCode());
+        if (xMetric != null) {
+            key.append(":x=").append(xMetric.getCode());
+        }
+        key.append(':').append(grouping.name().toLowerCase());
+        switch (type) {
+            case BAR:
+                key.append(":top").append(limit);
+                break;
+            case HISTOGRAM:
+                key.append(":bins").append(bins);
+                break;
+            default:
+                key.append(":max").append(maxPoints);
+        }
+        return key.append(':').append(width).append('x').append(height).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ChartSpec)) {
+            return false;
+        }
+        return getKey().equals(((ChartSpec) o).getKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getKey());
+    }
+
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
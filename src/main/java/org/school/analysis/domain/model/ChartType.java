@@ -0,0 +1,17 @@
+package org.school.analysis.domain.model;
+
+public enum ChartType {
+    BAR,
+    SCATTER,
+    HISTOGRAM,
+    LINE;
+
+    public static ChartType fromCode(String code) {
+        for (ChartType type : values()) {
+            if (type.name().equalsIgnoreCase(code)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип диаграммы: " + code);
+    }
+}
@@ -0,0 +1,223 @@
+package org.school.analysis.infrastructure.adapters;
+
+import org.school.analysis.application.ports.output.ChartGenerator;
+import org.school.analysis.application.services.DatasetVersion;
+import org.school.analysis.domain.dto.ChartData;
+import org.school.analysis.domain.dto.ChartRenderResult;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.infrastructure.concurrency.SingleFlight;
+import org.school.analysis.infrastructure.metrics.MetricsRegistry;
+import org.school.analysis.infrastructure.visualization.ChartCache;
+import org.school.analysis.infrastructure.visualization.ChartManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Общая часть генераторов диаграмм: один запрос к БД на отрисовку, схлопывание одинаковых
+ * запросов, кэш PNG по версии данных. Наследники отвечают только за растеризацию.
+ */
+public abstract class CachingChartGenerator implements ChartGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(CachingChartGenerator.class);
+    public static final String RESULT_CACHE_METRIC = "school_bot_chart_result_cache_total";
+    protected final ChartManager chartService;
+    private final DatasetVersion datasetVersion;
+    private final ChartCache chartCache;
+    private final String cacheKeyPrefix;
+    // Одновременные запросы одной диаграммы по одной версии данных рисуются один раз
+    private final SingleFlight<String, ChartRenderResult> renderFlights = new SingleFlight<>();
+    // Последний результат целиком: повторный запрос по той же версии данных не ходит в БД
+    private volatile CachedRender lastRender;
+    private final Map<String, CachedRender> specRenders = new ConcurrentHashMap<>();
+    private final LongAdder resultHits = MetricsRegistry.global().counter(RESULT_CACHE_METRIC, "result", "hit");
+    private final LongAdder resultMisses = MetricsRegistry.global().counter(RESULT_CACHE_METRIC, "result", "miss");
+
+    protected CachingChartGenerator(ChartManager chartService, DatasetVersion datasetVersion,
+                                    ChartCache chartCache, String cacheKeyPrefix) {
+        this.chartService = chartService;
+        this.datasetVersion = datasetVersion;
+        this.chartCache = chartCache;
+        this.cacheKeyPrefix = cacheKeyPrefix;
+    }
+
+    @Override
+    public ChartRenderResult renderAverageStudentsChart() {
+        return renderAverageStudentsChart(null);
+    }
+
+    @Override
+    public ChartRenderResult renderAverageStudentsChart(Consumer<ChartRenderResult> previewListener) {
+        long version = datasetVersion.current();
+        CachedRender cached = lastRender;
+        if (cached != null && cached.version == version) {
+            resultHits.increment();
+            return cached.result;
+        }
+        resultMisses.increment();
+        String key = cacheKeyPrefix + chartService.getAverageStudentsChartKey();
+        return renderFlights.execute(key + "@v" + version, () -> {
+            try {
+                ChartRenderResult stored = cachedResult(key, version);
+                if (stored != null) {
+                    lastRender = new CachedRender(version, stored);
+                    return stored;
+                }
+                // Один запрос: по нему строятся и картинка, и подпись
+                List<CountryStudentStats> stats = chartService.loadAverageStudentsStats();
+                String caption = chartService.describeAverageStudentsChart(stats);
+                byte[] png = cachedPng(key, version, caption, () -> {
+                    if (previewListener != null) {
+                        String previewKey = cacheKeyPrefix + chartService.getAverageStudentsChartKey(
+                                ChartSpec.PREVIEW_WIDTH, ChartSpec.PREVIEW_HEIGHT);
+                        sendPreview(previewListener, previewKey, version, caption, stats,
+                                () -> renderAverageStudentsPng(stats, ChartSpec.PREVIEW_WIDTH,
+                                        ChartSpec.PREVIEW_HEIGHT));
+                    }
+                    return renderAverageStudentsPng(stats);
+                });
+                ChartRenderResult result = new ChartRenderResult(png, caption, stats);
+                lastRender = new CachedRender(version, result);
+                return result;
+            } catch (Exception e) {
+                throw new RuntimeException("Не удалось создать диаграмму", e);
+            }
+        });
+    }
+
+    /**
+     * Уменьшенная диаграмма для превью. Последний результат не запоминается:
+     * превью нужно только пока рисуется полная версия.
+     */
+    @Override
+    public ChartRenderResult renderAverageStudentsPreview() {
+        long version = datasetVersion.current();
+        String key = cacheKeyPrefix + chartService.getAverageStudentsChartKey(ChartSpec.PREVIEW_WIDTH,
+                ChartSpec.PREVIEW_HEIGHT);
+        return renderFlights.execute(key + "@v" + version, () -> {
+            try {
+                ChartRenderResult stored = cachedResult(key, version);
+                if (stored != null) {
+                    return stored;
+                }
+                List<CountryStudentStats> stats = chartService.loadAverageStudentsStats();
+                String caption = chartService.describeAverageStudentsChart(stats);
+                byte[] png = cachedPng(key, version, caption, () -> renderAverageStudentsPng(stats,
+                        ChartSpec.PREVIEW_WIDTH, ChartSpec.PREVIEW_HEIGHT));
+                return new ChartRenderResult(png, caption, stats);
+            } catch (Exception e) {
+                throw new RuntimeException("Не удалось создать превью диаграммы", e);
+            }
+        });
+    }
+
+    @Override
+    public ChartRenderResult render(ChartSpec spec) {
+        return render(spec, null);
+    }
+
+    @Override
+    public ChartRenderResult render(ChartSpec spec, Consumer<ChartRenderResult> previewListener) {
+        long version = datasetVersion.current();
+        String key = cacheKeyPrefix + chartService.getChartKey(spec);
+        CachedRender cached = specRenders.get(key);
+        if (cached != null && cached.version == version) {
+            resultHits.increment();
+            return cached.result;
+        }
+        resultMisses.increment();
+        return renderFlights.execute(key + "@v" + version, () -> {
+            try {
+                ChartRenderResult result = cachedResult(key, version);
+                if (result == null) {
+                    result = renderSpec(spec, key, version, previewListener);
+                }
+                // Результаты прошлых версий данных больше не понадобятся
+                specRenders.values().removeIf(render -> render.version != version);
+                specRenders.put(key, new CachedRender(version, result));
+                return result;
+            } catch (Exception e) {
+                throw new RuntimeException("Не удалось создать диаграмму", e);
+            }
+        });
+    }
+
+    private ChartRenderResult renderSpec(ChartSpec spec, String key, long version,
+                                         Consumer<ChartRenderResult> previewListener) throws Exception {
+        ChartData data = chartService.loadChartData(spec);
+        String caption = chartService.describeChart(spec, data);
+        byte[] png = cachedPng(key, version, caption, () -> {
+            if (previewListener != null) {
+                // Превью рисуется по тем же данным, второго запроса к БД нет
+                ChartSpec preview = spec.preview();
+                sendPreview(previewListener, cacheKeyPrefix + chartService.getChartKey(preview), version,
+                        caption, List.of(), () -> renderPng(preview, data));
+            }
+            return renderPng(spec, data);
+        });
+        return new ChartRenderResult(png, caption, List.of());
+    }
+
+    /**
+     * Готовая диаграмма из кэша вместе с подписью, без запроса к БД. Статистики в таком результате нет.
+     */
+    private ChartRenderResult cachedResult(String key, long version) {
+        if (chartCache == null) {
+            return null;
+        }
+        String caption = chartCache.getCaption(key, version);
+        byte[] png = caption != null ? chartCache.get(key, version) : null;
+        return png != null ? new ChartRenderResult(png, caption, List.of()) : null;
+    }
+
+    private byte[] cachedPng(String key, long version, String caption, PngRender render) throws Exception {
+        byte[] png = chartCache != null ? chartCache.get(key, version) : null;
+        if (png == null) {
+            png = render.render();
+            if (chartCache != null) {
+                chartCache.put(key, version, png, caption);
+            }
+        }
+        return png;
+    }
+
+    // Без превью пользователь просто дождется полной диаграммы
+    private void sendPreview(Consumer<ChartRenderResult> previewListener, String key, long version, String caption,
+                             List<CountryStudentStats> stats, PngRender render) {
+        try {
+            previewListener.accept(new ChartRenderResult(cachedPng(key, version, caption, render), caption, stats));
+        } catch (Exception e) {
+            logger.debug("Не удалось нарисовать превью {}: {}", key, e.getMessage());
+        }
+    }
+
+    protected abstract byte[] renderAverageStudentsPng(List<CountryStudentStats> stats) throws Exception;
+
+    protected abstract byte[] renderAverageStudentsPng(List<CountryStudentStats> stats, int width, int height)
+            throws Exception;
+
+    protected abstract byte[] renderPng(ChartSpec spec, ChartData data) throws Exception;
+
+    public ChartCache getChartCache() {
+        return chartCache;
+    }
+
+    private interface PngRender {
+        byte[] render() throws Exception;
+    }
+
+    private static final class CachedRender {
+        private final long version;
+        private final ChartRenderResult result;
+
+        private CachedRender(long version, ChartRenderResult result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+}
@@ -1,33 +1,40 @@
 package org.school.analysis.infrastructure.adapters;
 
-import org.school.analysis.application.exception.RepositoryException;
-import org.school.analysis.application.ports.output.ChartGenerator;
+import org.school.analysis.application.services.DatasetVersion;
+import org.school.analysis.domain.dto.ChartData;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.infrastructure.visualization.ChartCache;
 import org.school.analysis.infrastructure.visualization.ChartManager;
 
-public class JFreeChartGenerator implements ChartGenerator {
-    private final ChartManager chartService;
+import java.util.List;
+
+public class JFreeChartGenerator extends CachingChartGenerator {
 
     public JFreeChartGenerator(ChartManager chartManager) {
-        this.chartService = chartManager;
+        this(chartManager, new DatasetVersion());
+    }
+
+    public JFreeChartGenerator(ChartManager chartManager, DatasetVersion datasetVersion) {
+        this(chartManager, datasetVersion, null);
+    }
+
+    public JFreeChartGenerator(ChartManager chartManager, DatasetVersion datasetVersion, ChartCache chartCache) {
+        super(chartManager, datasetVersion, chartCache, "");
+    }
+
+    @Override
+    protected byte[] renderAverageStudentsPng(List<CountryStudentStats> stats) {
+        return chartService.renderAverageStudentsChart(stats);
     }
 
     @Override
-    public byte[] createAverageStudentsChart() {
-        try {
-            return chartService.createAverageStudentsByCountriesChart();
-        } catch (Exception e) {
-            throw new RuntimeException("Не удалось создать диаграмму", e);
-        }
+    protected byte[] renderAverageStudentsPng(List<CountryStudentStats> stats, int width, int height) {
+        return chartService.renderAverageStudentsChart(stats, width, height);
     }
 
     @Override
-    public String getChartDescription() {
-        try {
-            return chartService.getChartDescription();
-        } catch (RepositoryException e) {
-            return "Ошибка получения данных для диаграммы" + e.getMessage();
-        } catch (Exception e) {
-            return "Ошибка создания диаграммы";
-        }
+    protected byte[] renderPng(ChartSpec spec, ChartData data) {
+        return chartService.renderChart(spec, data);
     }
-}
\ No newline at end of file
+}
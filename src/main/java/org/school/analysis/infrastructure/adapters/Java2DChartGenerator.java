@@ -0,0 +1,62 @@
+package org.school.analysis.infrastructure.adapters;
+
+import org.school.analysis.application.services.DatasetVersion;
+import org.school.analysis.domain.dto.ChartData;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.infrastructure.visualization.ChartCache;
+import org.school.analysis.infrastructure.visualization.ChartManager;
+import org.school.analysis.infrastructure.visualization.Java2DChartRenderer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Java2DChartGenerator extends CachingChartGenerator {
+    private final Java2DChartRenderer renderer;
+
+    public Java2DChartGenerator(ChartManager chartManager, Java2DChartRenderer renderer,
+                                DatasetVersion datasetVersion, ChartCache chartCache) {
+        super(chartManager, datasetVersion, chartCache, "java2d:");
+        this.renderer = renderer;
+    }
+
+    @Override
+    protected byte[] renderAverageStudentsPng(List<CountryStudentStats> stats) throws IOException {
+        return renderAverageStudentsPng(stats, chartService.getOutputWidth(), chartService.getOutputHeight());
+    }
+
+    @Override
+    protected byte[] renderAverageStudentsPng(List<CountryStudentStats> stats, int width, int height)
+            throws IOException {
+        List<String> countries = new ArrayList<>(stats.size());
+        double[] values = new double[stats.size()];
+        for (int i = 0; i < stats.size(); i++) {
+            countries.add(stats.get(i).getCountryName());
+            values[i] = stats.get(i).getAvgStudents();
+        }
+        return renderer.renderBarChart(ChartManager.AVERAGE_STUDENTS_TITLE, ChartManager.AVERAGE_STUDENTS_CATEGORY_LABEL,
+                ChartManager.AVERAGE_STUDENTS_SERIES, ChartManager.AVERAGE_STUDENTS_SERIES, countries, values,
+                width, height);
+    }
+
+    @Override
+    protected byte[] renderPng(ChartSpec spec, ChartData data) throws IOException {
+        int width = chartService.resolveWidth(spec);
+        int height = chartService.resolveHeight(spec);
+        String metricLabel = spec.getMetric().getLabel();
+        switch (spec.getType()) {
+            case BAR:
+                return renderer.renderBarChart(spec.getTitle(), spec.getGrouping().getLabel(), metricLabel,
+                        metricLabel, data.getLabels(), data.getYs(), width, height);
+            case HISTOGRAM:
+                return renderer.renderBins(spec.getTitle(), metricLabel, data.getLabels(), data.getYs(), width, height);
+            case LINE:
+                return renderer.renderLineChart(spec.getTitle(), spec.getXMetric().getLabel(), metricLabel,
+                        metricLabel, data.getXs(), data.getYs(), width, height);
+            default:
+                return renderer.renderScatterChart(spec.getTitle(), spec.getXMetric().getLabel(), metricLabel,
+                        metricLabel, data.getXs(), data.getYs(), width, height);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.school.analysis.infrastructure.adapters;
+
+import org.school.analysis.application.ports.output.ChartGenerator;
+import org.school.analysis.domain.dto.ChartRenderResult;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.infrastructure.concurrency.LazyProvider;
+
+import java.util.function.Consumer;
+
+/**
+ * Генератор, который создает настоящий рендерер (AWT, JFreeChart, кэш PNG) только при первой
+ * диаграмме или при фоновом прогреве. Бот начинает отвечать, не дожидаясь графической подсистемы.
+ */
+public class LazyChartGenerator implements ChartGenerator {
+    private final LazyProvider<ChartGenerator> provider;
+
+    public LazyChartGenerator(LazyProvider<ChartGenerator> provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public ChartRenderResult renderAverageStudentsChart() {
+        return provider.get().renderAverageStudentsChart();
+    }
+
+    @Override
+    public ChartRenderResult renderAverageStudentsPreview() {
+        return provider.get().renderAverageStudentsPreview();
+    }
+
+    @Override
+    public ChartRenderResult render(ChartSpec spec) {
+        return provider.get().render(spec);
+    }
+
+    @Override
+    public ChartRenderResult renderAverageStudentsChart(Consumer<ChartRenderResult> previewListener) {
+        return provider.get().renderAverageStudentsChart(previewListener);
+    }
+
+    @Override
+    public ChartRenderResult render(ChartSpec spec, Consumer<ChartRenderResult> previewListener) {
+        return provider.get().render(spec, previewListener);
+    }
+
+    public boolean isInitialized() {
+        return provider.isInitialized();
+    }
+
+    public LazyProvider<ChartGenerator> getProvider() {
+        return provider;
+    }
+}
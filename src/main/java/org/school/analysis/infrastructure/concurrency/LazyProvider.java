@@ -0,0 +1,92 @@
+package org.school.analysis.infrastructure.concurrency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Ленивая инициализация тяжелой подсистемы: объект создается при первом обращении
+ * или заранее в фоновом потоке (warmUp), но ровно один раз. Если создание упало,
+ * следующее обращение пробует снова.
+ */
+public class LazyProvider<T> implements Supplier<T> {
+    private static final Logger logger = LoggerFactory.getLogger(LazyProvider.class);
+
+    private final String name;
+    private final Supplier<T> factory;
+    private volatile T instance;
+    private volatile long initMillis = -1;
+
+    public LazyProvider(String name, Supplier<T> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    @Override
+    public T get() {
+        T current = instance;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (instance == null) {
+                long start = System.nanoTime();
+                T created = factory.get();
+                if (created == null) {
+                    throw new IllegalStateException("Подсистема " + name + " не создана");
+                }
+                initMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                instance = created;
+                logger.info("Подсистема {} создана за {} мс", name, initMillis);
+            }
+            return instance;
+        }
+    }
+
+    public boolean isInitialized() {
+        return instance != null;
+    }
+
+    /**
+     * Время создания в миллисекундах, -1 пока подсистема не создана.
+     */
+    public long getInitMillis() {
+        return initMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Создает подсистему в отдельном фоновом потоке с минимальным приоритетом и выполняет прогрев,
+     * чтобы первый пользователь не ждал загрузки классов и шрифтов.
+     */
+    public CompletableFuture<T> warmUp(Consumer<T> warmer) {
+        CompletableFuture<T> warmed = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                T value = get();
+                if (warmer != null) {
+                    warmer.accept(value);
+                }
+                logger.info("Подсистема {} прогрета за {} мс", name,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                warmed.complete(value);
+            } catch (Throwable e) {
+                // На headless-хосте AWT и шрифты падают с Error, будущее все равно должно завершиться
+                logger.warn("Не удалось прогреть подсистему {}: {}", name, e.toString(), e);
+                warmed.completeExceptionally(e);
+            }
+        }, "warmup-" + name);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return warmed;
+    }
+}
@@ -0,0 +1,78 @@
+package org.school.analysis.infrastructure.concurrency;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Схлопывает одинаковые одновременные вызовы: пока задача по ключу выполняется,
+ * повторные вызовы с тем же ключом получают ее результат и не запускают новую работу.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> submit(K key, Supplier<CompletableFuture<V>> starter) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            starter.get().whenComplete((value, error) -> finish(key, flight, value, error));
+        } catch (Throwable e) {
+            // Error (например, OutOfMemoryError) тоже должен снять ключ, иначе ждущие зависнут навсегда
+            finish(key, flight, null, e);
+            throw e;
+        }
+        return flight;
+    }
+
+    public V execute(K key, Supplier<V> task) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = task.get();
+            finish(key, flight, value, null);
+            return value;
+        } catch (Throwable e) {
+            finish(key, flight, null, e);
+            throw e;
+        }
+    }
+
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    private void finish(K key, CompletableFuture<V> flight, V value, Throwable error) {
+        // Сначала снимаем ключ, чтобы вызовы после завершения запускали работу заново
+        inFlight.remove(key, flight);
+        if (error != null) {
+            flight.completeExceptionally(error);
+        } else {
+            flight.complete(value);
+        }
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
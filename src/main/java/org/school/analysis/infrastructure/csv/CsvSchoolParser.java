@@ -2,6 +2,8 @@ package org.school.analysis.infrastructure.csv;
 
 import org.school.analysis.domain.model.School;
 import org.school.analysis.application.ports.input.CsvParser;
+import org.school.analysis.infrastructure.jfr.CsvParseChunkEvent;
+import org.school.analysis.infrastructure.logging.LogSampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,49 +16,87 @@ import java.util.List;
 
 public class CsvSchoolParser implements CsvParser {
     private static final Logger logger = LoggerFactory.getLogger(CsvSchoolParser.class);
+    private static final int EVENT_CHUNK_LINES = 1000;
+    // В битом файле ошибка в каждой строке, поэтому в лог идут первые строки со стеком и затем каждая тысячная
+    private static final int LOGGED_BAD_ROWS = 5;
+    private static final int BAD_ROW_SAMPLE_EVERY = 1000;
 
     @Override
     public List<School> parseSchools(InputStream csvStream) throws IOException {
+        return parse(csvStream).getSchools();
+    }
+
+    /**
+     * Разбирает файл и возвращает школы вместе с числом некорректных строк. Парсер один на приложение,
+     * поэтому выборка и счетчик заводятся заново для каждого файла.
+     */
+    public ParseResult parse(InputStream csvStream) throws IOException {
         List<School> schools = new ArrayList<>();
+        LogSampler badRows = newSampler();
+        LogSampler badValues = newSampler();
         try (BufferedReader br = new BufferedReader(new InputStreamReader(csvStream))) {
             String line;
             boolean firstLine = true;
+            long lineNumber = 0;
+            long skipped = 0;
+            CsvParseChunkEvent chunk = CsvParseChunkEvent.begin(2);
             while ((line = br.readLine()) != null) {
+                lineNumber++;
                 if (firstLine) {
                     firstLine = false;
                     continue;
                 }
-                School school = parseLine(line);
+                School school = parseLine(line, badRows, badValues);
                 if (school != null) {
                     schools.add(school);
+                } else {
+                    skipped++;
+                }
+                chunk.line(school != null);
+                if (chunk.getLines() == EVENT_CHUNK_LINES) {
+                    chunk.finish();
+                    chunk = CsvParseChunkEvent.begin(lineNumber + 1);
                 }
             }
+            chunk.finish();
+            if (skipped > 0) {
+                logger.warn("Пропущено некорректных строк: {} из {}", skipped, Math.max(0, lineNumber - 1));
+            }
         }
-        return schools;
+        return new ParseResult(schools, badRows.getOccurrences());
     }
 
     public School parseLine(String line) {
+        return parseLine(line, newSampler(), newSampler());
+    }
+
+    private School parseLine(String line, LogSampler badRows, LogSampler badValues) {
         try {
             String[] values = parseCsvLine(line);
             School school = new School();
-            school.setId(parseInt(values[0]));
-            school.setDistrictId(parseInt(values[1]));
+            school.setId(parseInt(values[0], badValues));
+            school.setDistrictId(parseInt(values[1], badValues));
             school.setName(values[2]);
             school.setCountry(values[3]);
             school.setGrades(values[4]);
-            school.setStudents(parseInt(values[5]));
-            school.setTeachers(parseDouble(values[6]));
-            school.setCalworks(parseDouble(values[7]));
-            school.setLunch(parseDouble(values[8]));
-            school.setComputers(parseInt(values[9]));
-            school.setExpenditure(parseDouble(values[10]));
-            school.setIncome(parseDouble(values[11]));
-            school.setEnglish(parseDouble(values[12]));
-            school.setReadScore(parseDouble(values[13]));
-            school.setMathScore(parseDouble(values[14]));
+            school.setStudents(parseInt(values[5], badValues));
+            school.setTeachers(parseDouble(values[6], badValues));
+            school.setCalworks(parseDouble(values[7], badValues));
+            school.setLunch(parseDouble(values[8], badValues));
+            school.setComputers(parseInt(values[9], badValues));
+            school.setExpenditure(parseDouble(values[10], badValues));
+            school.setIncome(parseDouble(values[11], badValues));
+            school.setEnglish(parseDouble(values[12], badValues));
+            school.setReadScore(parseDouble(values[13], badValues));
+            school.setMathScore(parseDouble(values[14], badValues));
             return school;
         } catch (Exception e) {
-            logger.error("Ошибка парсинга строки: {}", line, e);
+            long occurrence = badRows.sample();
+            if (badRows.isDetailed(occurrence)) {
+                logger.error("Ошибка парсинга строки: {}", line, e);
+            } else if (occurrence > 0) {
+                logger.error("Ошибка парсинга строки (некорректная строка №{}): {} - {}", occurrence, line, e.toString());
+            }
             return null;
         }
     }
@@ -81,26 +121,60 @@ public class CsvSchoolParser implements CsvParser {
     }
 
     public Integer parseInt(String value) {
+        return parseInt(value, newSampler());
+    }
+
+    private Integer parseInt(String value, LogSampler badValues) {
         if (value == null || value.trim().isEmpty()) {
             return null;
         }
         try {
             return Integer.parseInt(value.trim());
         } catch (NumberFormatException e) {
-            logger.warn("Не удалось преобразовать в число {}", value);
+            if (badValues.sample() > 0) {
+                logger.warn("Не удалось преобразовать в число {}", value);
+            }
             return null;
         }
     }
 
     public Double parseDouble(String value) {
+        return parseDouble(value, newSampler());
+    }
+
+    private Double parseDouble(String value, LogSampler badValues) {
         if (value == null || value.trim().isEmpty()) {
             return null;
         }
         try {
             return Double.parseDouble(value.trim());
         } catch (NumberFormatException e) {
-            logger.warn("Не удалось преобразовать в дробное число {}", value);
+            if (badValues.sample() > 0) {
+                logger.warn("Не удалось преобразовать в дробное число {}", value);
+            }
             return null;
         }
     }
-}
\ No newline at end of file
+
+    private static LogSampler newSampler() {
+        return new LogSampler(LOGGED_BAD_ROWS, BAD_ROW_SAMPLE_EVERY);
+    }
+
+    public static class ParseResult {
+        private final List<School> schools;
+        private final long badRowCount;
+
+        public ParseResult(List<School> schools, long badRowCount) {
+            this.schools = schools;
+            this.badRowCount = badRowCount;
+        }
+
+        public List<School> getSchools() {
+            return schools;
+        }
+
+        public long getBadRowCount() {
+            return badRowCount;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.school.analysis.infrastructure.csv;
+
+import org.school.analysis.domain.model.School;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Синтетический набор школ в том же формате из 15 столбцов, который читает CsvSchoolParser.
+ * Строки пишутся по одной, в памяти держится только текущая строка, поэтому можно выпускать десятки
+ * миллионов строк. При одинаковых профиле, seed и настройках результат совпадает байт в байт.
+ *
+ * Запуск: java -cp ... org.school.analysis.infrastructure.csv.SchoolCsvGenerator --rows 10000000 --seed 42
+ * --counties 58 --districts 1000 --null-ratio 0.01 --sample data/schools.csv --out data/generated.csv
+ */
+public class SchoolCsvGenerator {
+    public static final String HEADER = "\"\",\"district\",\"school\",\"county\",\"grades\",\"students\","
+            + "\"teachers\",\"calworks\",\"lunch\",\"computer\",\"expenditure\",\"income\",\"english\",\"read\",\"math\"";
+    private static final int FIRST_DISTRICT_ID = 10000;
+
+    private final SchoolDataProfile profile;
+    private final long seed;
+    private final int countyCount;
+    private final int districtCount;
+    private final double nullRatio;
+
+    public SchoolCsvGenerator(SchoolDataProfile profile, long seed, int countyCount, int districtCount,
+                              double nullRatio) {
+        if (countyCount <= 0 || districtCount <= 0) {
+            throw new IllegalArgumentException("Количество округов и районов должно быть положительным");
+        }
+        if (nullRatio < 0 || nullRatio >= 1) {
+            throw new IllegalArgumentException("Доля пустых значений должна быть в диапазоне [0, 1)");
+        }
+        this.profile = profile;
+        this.seed = seed;
+        this.countyCount = countyCount;
+        this.districtCount = districtCount;
+        this.nullRatio = nullRatio;
+    }
+
+    /**
+     * Пишет заголовок и rows строк. Writer не закрывается.
+     */
+    public long write(Writer out, long rows) throws IOException {
+        if (rows < 0 || rows > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Количество строк должно быть от 0 до " + Integer.MAX_VALUE);
+        }
+        Random random = new Random(seed);
+        StringBuilder line = new StringBuilder(256);
+        out.write(HEADER);
+        out.write('\n');
+        for (int id = 1; id <= rows; id++) {
+            line.setLength(0);
+            appendRow(line, id, random);
+            line.append('\n');
+            out.append(line);
+        }
+        out.flush();
+        return rows;
+    }
+
+    public String countyName(int index) {
+        List<String> sampleCounties = profile.getCounties();
+        return index < sampleCounties.size() ? sampleCounties.get(index) : "Synthetic County " + (index + 1);
+    }
+
+    private void appendRow(StringBuilder line, int id, Random random) {
+        int district = random.nextInt(districtCount);
+        boolean kk08 = random.nextDouble() < profile.getKk08Ratio();
+        double students = Math.max(1, Math.round(profile.getStudents().sample(random)));
+        double teachers = students / Math.max(1, profile.getStudentsPerTeacher().sample(random));
+        double computers = Math.round(students / Math.max(1, profile.getStudentsPerComputer().sample(random)));
+        double readZ = random.nextGaussian();
+        double correlation = profile.getReadMathCorrelation();
+        double mathZ = correlation * readZ + Math.sqrt(1 - correlation * correlation) * random.nextGaussian();
+
+        quoted(line, Integer.toString(id)).append(',');
+        quoted(line, Integer.toString(FIRST_DISTRICT_ID + district)).append(',');
+        quoted(line, "Synthetic " + (kk08 ? "Unified" : "Elementary") + " " + id).append(',');
+        quoted(line, countyName(district % countyCount)).append(',');
+        quoted(line, kk08 ? "KK-08" : "KK-06").append(',');
+        integer(line, students, random).append(',');
+        decimal(line, teachers, random).append(',');
+        decimal(line, profile.getCalworks().sample(random), random).append(',');
+        decimal(line, profile.getLunch().sample(random), random).append(',');
+        integer(line, computers, random).append(',');
+        decimal(line, profile.getExpenditure().sample(random), random).append(',');
+        decimal(line, profile.getIncome().sample(random), random).append(',');
+        decimal(line, profile.getEnglish().sample(random), random).append(',');
+        decimal(line, profile.getRead().fromStandard(readZ), random).append(',');
+        decimal(line, profile.getMath().fromStandard(mathZ), random);
+    }
+
+    private static StringBuilder quoted(StringBuilder line, String value) {
+        return line.append('"').append(value).append('"');
+    }
+
+    // Случайное число тянется всегда, чтобы доля пустых значений не сдвигала последовательность
+    private StringBuilder integer(StringBuilder line, double value, Random random) {
+        return random.nextDouble() < nullRatio ? line : line.append((long) value);
+    }
+
+    // Три знака: меньшие значения Double.toString записал бы в экспоненциальной форме
+    private StringBuilder decimal(StringBuilder line, double value, Random random) {
+        return random.nextDouble() < nullRatio ? line : line.append(Math.round(value * 1000) / 1000.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        long rows = Long.parseLong(options.getOrDefault("rows", "100000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Path sample = Paths.get(options.getOrDefault("sample", "data/schools.csv"));
+        Path output = Paths.get(options.getOrDefault("out", "data/generated-" + rows + ".csv"));
+
+        List<School> schools;
+        try (InputStream in = Files.newInputStream(sample)) {
+            schools = new CsvSchoolParser().parseSchools(in);
+        }
+        SchoolDataProfile profile = SchoolDataProfile.fit(schools);
+        int counties = Integer.parseInt(options.getOrDefault("counties", String.valueOf(profile.getCounties().size())));
+        int districts = Integer.parseInt(options.getOrDefault("districts", "1000"));
+        double nullRatio = Double.parseDouble(options.getOrDefault("null-ratio", "0"));
+
+        SchoolCsvGenerator generator = new SchoolCsvGenerator(profile, seed, counties, districts, nullRatio);
+        long start = System.nanoTime();
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(output),
+                StandardCharsets.UTF_8), 1 << 20)) {
+            generator.write(out, rows);
+        }
+        System.out.printf("Сгенерировано %,d строк в %s за %,d мс (%,d байт)%n", rows, output,
+                (System.nanoTime() - start) / 1_000_000, Files.size(output));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Ожидался параметр вида --name value: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,218 @@
+package org.school.analysis.infrastructure.csv;
+
+import org.school.analysis.domain.model.School;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Распределения столбцов, подобранные по образцу: для каждого числового столбца среднее и отклонение
+ * (для скошенных - в логарифмической шкале) и границы образца. Учителя и компьютеры считаются через
+ * отношение к числу студентов, балл по математике коррелирует с баллом по чтению, как в образце.
+ */
+public class SchoolDataProfile {
+    private final List<String> counties;
+    private final double kk08Ratio;
+    private final Distribution students;
+    private final Distribution studentsPerTeacher;
+    private final Distribution studentsPerComputer;
+    private final Distribution calworks;
+    private final Distribution lunch;
+    private final Distribution expenditure;
+    private final Distribution income;
+    private final Distribution english;
+    private final Distribution read;
+    private final Distribution math;
+    private final double readMathCorrelation;
+
+    private SchoolDataProfile(List<School> sample) {
+        Set<String> names = new LinkedHashSet<>();
+        int kk08 = 0;
+        for (School school : sample) {
+            if (school.getCountry() != null && !school.getCountry().trim().isEmpty()) {
+                names.add(school.getCountry().trim());
+            }
+            if ("KK-08".equals(school.getGrades())) {
+                kk08++;
+            }
+        }
+        this.counties = Collections.unmodifiableList(new ArrayList<>(names));
+        this.kk08Ratio = (double) kk08 / sample.size();
+        this.students = Distribution.fit(sample, s -> toDouble(s.getStudents()), true);
+        this.studentsPerTeacher = Distribution.fit(sample, s -> ratio(s.getStudents(), s.getTeachers()), false);
+        this.studentsPerComputer = Distribution.fit(sample, s -> ratio(s.getStudents(), toDouble(s.getComputers())), true);
+        this.calworks = Distribution.fit(sample, School::getCalworks, false);
+        this.lunch = Distribution.fit(sample, School::getLunch, false);
+        this.expenditure = Distribution.fit(sample, School::getExpenditure, true);
+        this.income = Distribution.fit(sample, School::getIncome, true);
+        this.english = Distribution.fit(sample, School::getEnglish, false);
+        this.read = Distribution.fit(sample, School::getReadScore, false);
+        this.math = Distribution.fit(sample, School::getMathScore, false);
+        this.readMathCorrelation = correlation(sample);
+    }
+
+    public static SchoolDataProfile fit(List<School> sample) {
+        if (sample == null || sample.isEmpty()) {
+            throw new IllegalArgumentException("Образец для подбора распределений пуст");
+        }
+        return new SchoolDataProfile(sample);
+    }
+
+    public List<String> getCounties() {
+        return counties;
+    }
+
+    public double getKk08Ratio() {
+        return kk08Ratio;
+    }
+
+    public Distribution getStudents() {
+        return students;
+    }
+
+    public Distribution getStudentsPerTeacher() {
+        return studentsPerTeacher;
+    }
+
+    public Distribution getStudentsPerComputer() {
+        return studentsPerComputer;
+    }
+
+    public Distribution getCalworks() {
+        return calworks;
+    }
+
+    public Distribution getLunch() {
+        return lunch;
+    }
+
+    public Distribution getExpenditure() {
+        return expenditure;
+    }
+
+    public Distribution getIncome() {
+        return income;
+    }
+
+    public Distribution getEnglish() {
+        return english;
+    }
+
+    public Distribution getRead() {
+        return read;
+    }
+
+    public Distribution getMath() {
+        return math;
+    }
+
+    public double getReadMathCorrelation() {
+        return readMathCorrelation;
+    }
+
+    private static Double toDouble(Number value) {
+        return value == null ? null : value.doubleValue();
+    }
+
+    private static Double ratio(Integer numerator, Double denominator) {
+        if (numerator == null || denominator == null || denominator <= 0) {
+            return null;
+        }
+        return numerator / denominator;
+    }
+
+    private static double correlation(List<School> sample) {
+        double sumX = 0, sumY = 0, sumXX = 0, sumYY = 0, sumXY = 0;
+        int n = 0;
+        for (School school : sample) {
+            if (school.getReadScore() == null || school.getMathScore() == null) {
+                continue;
+            }
+            double x = school.getReadScore();
+            double y = school.getMathScore();
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumYY += y * y;
+            sumXY += x * y;
+            n++;
+        }
+        if (n < 2) {
+            return 0;
+        }
+        double covariance = sumXY - sumX * sumY / n;
+        double denominator = Math.sqrt((sumXX - sumX * sumX / n) * (sumYY - sumY * sumY / n));
+        return denominator == 0 ? 0 : Math.max(-1, Math.min(1, covariance / denominator));
+    }
+
+    /**
+     * Нормальное распределение (или логнормальное для скошенных столбцов), обрезанное границами образца.
+     */
+    public static class Distribution {
+        private final double mean;
+        private final double stddev;
+        private final double min;
+        private final double max;
+        private final boolean logScale;
+
+        Distribution(double mean, double stddev, double min, double max, boolean logScale) {
+            this.mean = mean;
+            this.stddev = stddev;
+            this.min = min;
+            this.max = max;
+            this.logScale = logScale;
+        }
+
+        static Distribution fit(List<School> sample, Function<School, Double> column, boolean logScale) {
+            double sum = 0;
+            double sumSquares = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            int n = 0;
+            for (School school : sample) {
+                Double value = column.apply(school);
+                if (value == null || Double.isNaN(value) || (logScale && value <= 0)) {
+                    continue;
+                }
+                double scaled = logScale ? Math.log(value) : value;
+                sum += scaled;
+                sumSquares += scaled * scaled;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                n++;
+            }
+            if (n == 0) {
+                return new Distribution(0, 0, 0, 0, false);
+            }
+            double mean = sum / n;
+            double variance = n > 1 ? Math.max(0, (sumSquares - sum * sum / n) / (n - 1)) : 0;
+            return new Distribution(mean, Math.sqrt(variance), min, max, logScale);
+        }
+
+        public double sample(Random random) {
+            return fromStandard(random.nextGaussian());
+        }
+
+        /**
+         * Значение по стандартной нормальной величине, нужно для коррелированных столбцов.
+         */
+        public double fromStandard(double z) {
+            double scaled = mean + stddev * z;
+            double value = logScale ? Math.exp(scaled) : scaled;
+            return Math.max(min, Math.min(max, value));
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+    }
+}
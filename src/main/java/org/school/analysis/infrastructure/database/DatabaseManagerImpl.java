@@ -2,6 +2,7 @@ package org.school.analysis.infrastructure.database;
 
 import org.school.analysis.application.ports.output.DatabaseManager;
 import org.school.analysis.domain.model.School;
+import org.school.analysis.infrastructure.jfr.DbInsertBatchEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,13 +11,23 @@ import java.util.List;
 
 public class DatabaseManagerImpl implements DatabaseManager {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManagerImpl.class);
+    public static final String DEFAULT_URL = "jdbc:sqlite:schools.db";
+    private final String url;
     private Connection connection;
 
+    public DatabaseManagerImpl() {
+        this(DEFAULT_URL);
+    }
+
+    public DatabaseManagerImpl(String url) {
+        this.url = url;
+    }
+
     @Override
     public void connect() {
         try {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection("jdbc:sqlite:schools.db");
+            connection = DriverManager.getConnection(url);
             connection.setAutoCommit(true);
         } catch (SQLException e) {
             throw new RuntimeException("Не удалось подключиться к базе данных", e);
@@ -118,13 +129,15 @@ public class DatabaseManagerImpl implements DatabaseManager {
         String insertCountySQL = "INSERT OR IGNORE INTO counties (name) VALUES (?)";
 
         try (PreparedStatement pstmt = connection.prepareStatement(insertCountySQL)) {
+            int rows = 0;
             for (School school : schools) {
                 if (school.getCountry() != null && !school.getCountry().trim().isEmpty()) {
                     pstmt.setString(1, school.getCountry().trim());
                     pstmt.addBatch();
+                    rows++;
                 }
             }
-            pstmt.executeBatch();
+            executeBatch(pstmt, "counties", rows);
             logger.debug("Округа сохранены в БД");
         }
     }
@@ -140,7 +153,7 @@ public class DatabaseManagerImpl implements DatabaseManager {
                 pstmt.setString(3, school.getCountry());
                 pstmt.addBatch();
             }
-            pstmt.executeBatch();
+            executeBatch(pstmt, "districts", schools.size());
             logger.debug("Районы сохранены в БД");
         }
     }
@@ -162,7 +175,7 @@ public class DatabaseManagerImpl implements DatabaseManager {
 
                 pstmt.addBatch();
             }
-            pstmt.executeBatch();
+            executeBatch(pstmt, "schools", schools.size());
             logger.debug("Основные данные школ сохранены в БД");
         }
     }
@@ -182,7 +195,7 @@ public class DatabaseManagerImpl implements DatabaseManager {
 
                 pstmt.addBatch();
             }
-            pstmt.executeBatch();
+            executeBatch(pstmt, "school_financials", schools.size());
             logger.debug("Финансовые данные сохранены в БД");
         }
     }
@@ -201,8 +214,17 @@ public class DatabaseManagerImpl implements DatabaseManager {
 
                 pstmt.addBatch();
             }
-            pstmt.executeBatch();
+            executeBatch(pstmt, "school_performance", schools.size());
             logger.debug("Данные об успеваемости сохранены в БД");
         }
     }
+
+    private void executeBatch(PreparedStatement pstmt, String table, int rows) throws SQLException {
+        DbInsertBatchEvent event = DbInsertBatchEvent.begin(table, rows);
+        try {
+            pstmt.executeBatch();
+        } finally {
+            event.finish();
+        }
+    }
 }
\ No newline at end of file
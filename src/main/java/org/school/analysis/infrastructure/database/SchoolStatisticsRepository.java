@@ -4,24 +4,78 @@ import org.school.analysis.application.ports.output.DatabaseStatisticsPort;
 import org.school.analysis.application.ports.output.SchoolRepository;
 import org.school.analysis.domain.dto.CountryStudentStats;
 import org.school.analysis.domain.dto.ExpenditureStats;
+import org.school.analysis.domain.dto.GroupedMetricStats;
 import org.school.analysis.domain.dto.MathSchoolStats;
+import org.school.analysis.domain.dto.MetricSeries;
+import org.school.analysis.domain.model.ChartMetric;
+import org.school.analysis.infrastructure.jfr.RepositoryQueryEvent;
+import org.school.analysis.infrastructure.logging.RateLimitedLogger;
+import org.school.analysis.infrastructure.metrics.MetricsRegistry;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+import org.school.analysis.infrastructure.tracing.RequestStage;
 import org.school.analysis.application.exception.RepositoryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 
 public class SchoolStatisticsRepository implements SchoolRepository, DatabaseStatisticsPort {
     private static final Logger logger = LoggerFactory.getLogger(SchoolStatisticsRepository.class);
+    // Ошибки и пустые результаты повторяются на каждом запросе, пока база недоступна или пуста
+    private static final RateLimitedLogger limitedLogger = new RateLimitedLogger(logger);
+    public static final int DEFAULT_MAX_CONCURRENT_QUERIES = 4;
+    public static final String QUERY_LATENCY_METRIC = "school_bot_repository_seconds";
+    public static final String QUERY_ERRORS_METRIC = "school_bot_repository_errors_total";
+    private static final String METRICS_FROM = "FROM schools s JOIN counties c ON s.county_id = c.id " +
+            "LEFT JOIN school_performance p ON p.school_id = s.id " +
+            "LEFT JOIN school_financials f ON f.school_id = s.id ";
+    private static final String COUNT_SCHOOLS_SQL = "SELECT COUNT(*) FROM schools";
     private final Connection connection;
+    private final Semaphore querySlots;
 
     public SchoolStatisticsRepository(Connection connection) {
+        this(connection, DEFAULT_MAX_CONCURRENT_QUERIES);
+    }
+
+    public SchoolStatisticsRepository(Connection connection, int maxConcurrentQueries) {
         if (connection == null) {
             throw new IllegalArgumentException("Соединение null");
         }
+        if (maxConcurrentQueries <= 0) {
+            throw new IllegalArgumentException("Количество одновременных запросов должно быть положительным");
+        }
         this.connection = connection;
+        this.querySlots = new Semaphore(maxConcurrentQueries, true);
+    }
+
+    public int getAvailableQuerySlots() {
+        return querySlots.availablePermits();
+    }
+
+    private void releaseQuerySlot(RepositoryQueryEvent event, long startNanos, int rows) {
+        querySlots.release();
+        event.finish(rows);
+        // Время запроса вместе с ожиданием свободного слота
+        MetricsRegistry.global().histogram(QUERY_LATENCY_METRIC, "method", event.getMethod()).recordSince(startNanos);
+        RequestContext.record(RequestStage.DB, System.nanoTime() - startNanos);
+    }
+
+    private void recordQueryError(RepositoryQueryEvent event) {
+        event.fail();
+        MetricsRegistry.global().counter(QUERY_ERRORS_METRIC, "method", event.getMethod()).increment();
+    }
+
+    private void acquireQuerySlot() {
+        try {
+            querySlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Ожидание соединения с БД прервано", e);
+        }
     }
 
     @Override
@@ -32,20 +86,25 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
     @Override
     public String getDatabaseStatistics() {
         StringBuilder stats = new StringBuilder();
+        String[] statisticsQueries = {
+                "SELECT COUNT(*) as total_schools FROM schools",
+                "SELECT COUNT(DISTINCT county_id) as total_counties FROM schools",
+                "SELECT AVG(students) as avg_students FROM schools WHERE students IS NOT NULL",
+                "SELECT AVG(math_score) as avg_math FROM school_performance WHERE math_score IS NOT NULL",
+                "SELECT AVG(read_score) as avg_read FROM school_performance WHERE read_score IS NOT NULL",
+                "SELECT AVG(expenditure) as avg_expenditure FROM school_financials WHERE expenditure IS NOT NULL",
+                "SELECT SUM(students) as total_students FROM schools WHERE students IS NOT NULL",
+                "SELECT MIN(students) as min_students FROM schools WHERE students IS NOT NULL",
+                "SELECT MAX(students) as max_students FROM schools WHERE students IS NOT NULL"
+        };
 
+        int rows = 0;
+        long start = System.nanoTime();
+        // Одно событие на весь отчет: девять запросов и проверка пустой базы идут под одним слотом
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin("getDatabaseStatistics",
+                String.join("; ", statisticsQueries));
+        acquireQuerySlot();
         try {
-            String[] statisticsQueries = {
-                    "SELECT COUNT(*) as total_schools FROM schools",
-                    "SELECT COUNT(DISTINCT county_id) as total_counties FROM schools",
-                    "SELECT AVG(students) as avg_students FROM schools WHERE students IS NOT NULL",
-                    "SELECT AVG(math_score) as avg_math FROM school_performance WHERE math_score IS NOT NULL",
-                    "SELECT AVG(read_score) as avg_read FROM school_performance WHERE read_score IS NOT NULL",
-                    "SELECT AVG(expenditure) as avg_expenditure FROM school_financials WHERE expenditure IS NOT NULL",
-                    "SELECT SUM(students) as total_students FROM schools WHERE students IS NOT NULL",
-                    "SELECT MIN(students) as min_students FROM schools WHERE students IS NOT NULL",
-                    "SELECT MAX(students) as max_students FROM schools WHERE students IS NOT NULL"
-            };
-
             String[] descriptions = {
                     "Всего школ в БД",
                     "Всего округов",
@@ -63,6 +122,7 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
                      ResultSet rs = stmt.executeQuery(statisticsQueries[i])) {
 
                     if (rs.next()) {
+                        rows++;
                         Object value = rs.getObject(1);
                         if (value instanceof Number) {
                             Number num = (Number) value;
@@ -77,16 +137,20 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
                         }
                     }
                 } catch (SQLException e) {
+                    recordQueryError(event);
                     stats.append(String.format("%s: <b>Ошибка</b>\n", descriptions[i]));
                 }
             }
-            if (isDatabaseEmpty()) {
+            if (checkDatabaseEmpty()) {
                 stats.append("\nБаза данных пуста. Используйте 'Загрузить данные' для импорта");
             }
 
         } catch (Exception e) {
+            recordQueryError(event);
             stats.append("Ошибка получения статистики ").append(e.getMessage());
             stats.append("\nВозможно, база данных не инициализирована. Используйте 'Загрузить данные'");
+        } finally {
+            releaseQuerySlot(event, start, rows);
         }
 
         return stats.toString();
@@ -94,11 +158,22 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
 
     @Override
     public boolean isDatabaseEmpty() {
+        long start = System.nanoTime();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin("isDatabaseEmpty", COUNT_SCHOOLS_SQL);
+        acquireQuerySlot();
+        try {
+            return checkDatabaseEmpty();
+        } finally {
+            releaseQuerySlot(event, start, 1);
+        }
+    }
+
+    private boolean checkDatabaseEmpty() {
         try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM schools")) {
+             ResultSet rs = stmt.executeQuery(COUNT_SCHOOLS_SQL)) {
             return rs.next() && rs.getInt(1) == 0;
         } catch (SQLException e) {
-            logger.error("Ошибка проверки", e);
+            limitedLogger.error("empty-check", "Ошибка проверки", e);
             return true;
         }
     }
@@ -116,6 +191,9 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
 
         List<ExpenditureStats> stats = new ArrayList<>();
 
+        long start = System.nanoTime();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin("findAverageExpenditureInCounties", sql);
+        acquireQuerySlot();
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             for (int i = 0; i < counties.size(); i++) {
                 pstmt.setString(i + 1, counties.get(i));
@@ -134,13 +212,16 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
                 }
             }
         } catch (SQLException e) {
+            recordQueryError(event);
             String errorMessage = String.format("Ошибка при выполнении запроса средних расходов для округов: %s",
                     String.join(", ", counties));
-            logger.error(errorMessage, e);
+            limitedLogger.error("expenditure", errorMessage, e);
             throw new RepositoryException(errorMessage, e);
+        } finally {
+            releaseQuerySlot(event, start, stats.size());
         }
 
-        logger.info("Найдено {} записей о расходах", stats.size());
+        logger.debug("Найдено {} записей о расходах", stats.size());
         return stats;
     }
 
@@ -154,6 +235,10 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
                 "WHERE s.students BETWEEN ? AND ? AND p.math_score IS NOT NULL " +
                 "ORDER BY p.math_score DESC LIMIT 1";
 
+        int rows = 0;
+        long start = System.nanoTime();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin("findTopMathSchoolByStudentRange", sql);
+        acquireQuerySlot();
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, minStudents);
             pstmt.setInt(2, maxStudents);
@@ -166,15 +251,20 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
                     stats.setStudents(rs.getInt("students"));
                     stats.setMathScore(rs.getDouble("math_score"));
                     stats.setExpenditure(rs.getDouble("expenditure"));
-                    logger.info("Найдена школа: {} (ID: {}) с баллом по математике: {}",
+                    logger.debug("Найдена школа: {} (ID: {}) с баллом по математике: {}",
                             stats.getSchoolName(), stats.getId(), stats.getMathScore());
+                    rows = 1;
                     return stats;
                 }
             }
         } catch (SQLException e) {
+            recordQueryError(event);
             throw new RepositoryException("Ошибка при поиске лучшей школы", e);
+        } finally {
+            releaseQuerySlot(event, start, rows);
         }
-        logger.warn("Не найдено школ с количеством студентов в диапазоне {}-{}", minStudents, maxStudents);
+        limitedLogger.warn("no-math-school", "Не найдено школ с количеством студентов в диапазоне {}-{}",
+                minStudents, maxStudents);
         return null;
     }
 
@@ -197,6 +287,9 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
                 "LIMIT ?";
 
         List<CountryStudentStats> stats = new ArrayList<>();
+        long start = System.nanoTime();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin("findAverageStudentsByCountries", sql);
+        acquireQuerySlot();
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, limit);
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -212,8 +305,124 @@ public class SchoolStatisticsRepository implements SchoolRepository, DatabaseSta
                 }
             }
         } catch (SQLException e) {
+            recordQueryError(event);
             throw new RepositoryException("Ошибка при получении статистики студентов", e);
+        } finally {
+            releaseQuerySlot(event, start, stats.size());
         }
         return stats;
     }
+
+    @Override
+    public List<GroupedMetricStats> findAverageMetricByCounty(ChartMetric metric, int limit) {
+        String column = metricColumn(metric);
+        logger.debug("Запрос среднего {} по округам, лимит: {}", column, limit);
+        String sql = "SELECT c.name as group_name, COUNT(*) as school_count, AVG(" + column + ") as average " +
+                METRICS_FROM +
+                "WHERE " + column + " IS NOT NULL " +
+                "GROUP BY c.name " +
+                "HAVING COUNT(*) >= 3 " +
+                "ORDER BY school_count DESC " +
+                "LIMIT ?";
+
+        List<GroupedMetricStats> stats = new ArrayList<>();
+        long start = System.nanoTime();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin("findAverageMetricByCounty", sql);
+        acquireQuerySlot();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    GroupedMetricStats stat = new GroupedMetricStats();
+                    stat.setGroupName(rs.getString("group_name"));
+                    stat.setSchoolCount(rs.getInt("school_count"));
+                    stat.setAverage(rs.getDouble("average"));
+                    stats.add(stat);
+                }
+            }
+        } catch (SQLException e) {
+            recordQueryError(event);
+            throw new RepositoryException("Ошибка при получении средних значений по округам", e);
+        } finally {
+            releaseQuerySlot(event, start, stats.size());
+        }
+        return stats;
+    }
+
+    @Override
+    public MetricSeries findMetricPairs(ChartMetric xMetric, ChartMetric yMetric) {
+        String xColumn = metricColumn(xMetric);
+        String yColumn = metricColumn(yMetric);
+        String sql = "SELECT " + xColumn + " as x, " + yColumn + " as y " + METRICS_FROM +
+                "WHERE " + xColumn + " IS NOT NULL AND " + yColumn + " IS NOT NULL " +
+                "ORDER BY x";
+
+        double[] xs = new double[1024];
+        double[] ys = new double[1024];
+        int size = 0;
+        long start = System.nanoTime();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin("findMetricPairs", sql);
+        acquireQuerySlot();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                if (size == xs.length) {
+                    xs = Arrays.copyOf(xs, size * 2);
+                    ys = Arrays.copyOf(ys, size * 2);
+                }
+                xs[size] = rs.getDouble("x");
+                ys[size] = rs.getDouble("y");
+                size++;
+            }
+        } catch (SQLException e) {
+            recordQueryError(event);
+            throw new RepositoryException("Ошибка при получении значений метрик", e);
+        } finally {
+            releaseQuerySlot(event, start, size);
+        }
+        return new MetricSeries(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size));
+    }
+
+    @Override
+    public double[] findMetricValues(ChartMetric metric) {
+        String column = metricColumn(metric);
+        String sql = "SELECT " + column + " as value " + METRICS_FROM + "WHERE " + column + " IS NOT NULL";
+
+        double[] values = new double[1024];
+        int size = 0;
+        long start = System.nanoTime();
+        RepositoryQueryEvent event = RepositoryQueryEvent.begin("findMetricValues", sql);
+        acquireQuerySlot();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = rs.getDouble("value");
+            }
+        } catch (SQLException e) {
+            recordQueryError(event);
+            throw new RepositoryException("Ошибка при получении значений метрики", e);
+        } finally {
+            releaseQuerySlot(event, start, size);
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    // Столбцы берутся только из перечисления, поэтому подстановка в SQL безопасна
+    private static String metricColumn(ChartMetric metric) {
+        switch (metric) {
+            case STUDENTS:
+                return "s.students";
+            case MATH_SCORE:
+                return "p.math_score";
+            case READ_SCORE:
+                return "p.read_score";
+            case EXPENDITURE:
+                return "f.expenditure";
+            default:
+                throw new IllegalArgumentException("Неизвестная метрика: " + metric);
+        }
+    }
 }
\ No newline at end of file
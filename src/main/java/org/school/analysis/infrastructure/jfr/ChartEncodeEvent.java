@@ -0,0 +1,47 @@
+package org.school.analysis.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+
+/**
+ * Кодирование готового изображения в PNG.
+ */
+@Name("org.school.analysis.ChartEncode")
+@Label("Chart Encode")
+@Category({"School Bot", "Charts"})
+@StackTrace(false)
+public class ChartEncodeEvent extends Event {
+    @Label("Chart")
+    String chart;
+
+    @Label("Encoder")
+    String encoder;
+
+    @Label("Size")
+    @DataAmount
+    int bytes;
+
+    @Label("Request Id")
+    String requestId;
+
+    public static ChartEncodeEvent begin(String chart, String encoder) {
+        ChartEncodeEvent event = new ChartEncodeEvent();
+        event.chart = chart;
+        event.encoder = encoder;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int bytes) {
+        if (shouldCommit()) {
+            this.bytes = bytes;
+            requestId = RequestContext.currentId();
+            commit();
+        }
+    }
+}
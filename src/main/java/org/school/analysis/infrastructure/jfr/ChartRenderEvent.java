@@ -0,0 +1,45 @@
+package org.school.analysis.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+
+/**
+ * Отрисовка диаграммы в буфер, без кодирования в PNG.
+ */
+@Name("org.school.analysis.ChartRender")
+@Label("Chart Render")
+@Category({"School Bot", "Charts"})
+@StackTrace(false)
+public class ChartRenderEvent extends Event {
+    @Label("Chart")
+    String chart;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Request Id")
+    String requestId;
+
+    public static ChartRenderEvent begin(String chart, int width, int height) {
+        ChartRenderEvent event = new ChartRenderEvent();
+        event.chart = chart;
+        event.width = width;
+        event.height = height;
+        event.begin();
+        return event;
+    }
+
+    public void finish() {
+        if (shouldCommit()) {
+            requestId = RequestContext.currentId();
+            commit();
+        }
+    }
+}
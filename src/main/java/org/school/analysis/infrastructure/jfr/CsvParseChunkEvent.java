@@ -0,0 +1,49 @@
+package org.school.analysis.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Разбор порции строк CSV. Одно событие на порцию, а не на строку, чтобы запись не раздувалась.
+ */
+@Name("org.school.analysis.CsvParseChunk")
+@Label("CSV Parse Chunk")
+@Category({"School Bot", "Loading"})
+@StackTrace(false)
+public class CsvParseChunkEvent extends Event {
+    @Label("First Line")
+    long firstLine;
+
+    @Label("Lines")
+    int lines;
+
+    @Label("Failed Lines")
+    int failedLines;
+
+    public static CsvParseChunkEvent begin(long firstLine) {
+        CsvParseChunkEvent event = new CsvParseChunkEvent();
+        event.firstLine = firstLine;
+        event.begin();
+        return event;
+    }
+
+    public void line(boolean parsed) {
+        lines++;
+        if (!parsed) {
+            failedLines++;
+        }
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public void finish() {
+        if (lines > 0 && shouldCommit()) {
+            commit();
+        }
+    }
+}
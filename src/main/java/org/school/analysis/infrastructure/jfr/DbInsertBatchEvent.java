@@ -0,0 +1,36 @@
+package org.school.analysis.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Выполнение пакетной вставки в одну таблицу.
+ */
+@Name("org.school.analysis.DbInsertBatch")
+@Label("DB Insert Batch")
+@Category({"School Bot", "Database"})
+@StackTrace(false)
+public class DbInsertBatchEvent extends Event {
+    @Label("Table")
+    String table;
+
+    @Label("Rows")
+    int rows;
+
+    public static DbInsertBatchEvent begin(String table, int rows) {
+        DbInsertBatchEvent event = new DbInsertBatchEvent();
+        event.table = table;
+        event.rows = rows;
+        event.begin();
+        return event;
+    }
+
+    public void finish() {
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.school.analysis.infrastructure.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Управление записью JFR из бота: запуск с настройками "profile" (GC, блокировки, события бота),
+ * сброс текущего содержимого в файл и остановка. Запись одна на процесс.
+ */
+public class FlightRecorderControl {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderControl.class);
+    public static final String RECORDING_NAME = "school-bot";
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(30);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path outputDirectory;
+    private final Duration maxAge;
+    private Recording recording;
+
+    public FlightRecorderControl(Path outputDirectory) {
+        this(outputDirectory, DEFAULT_MAX_AGE);
+    }
+
+    public FlightRecorderControl(Path outputDirectory, Duration maxAge) {
+        this.outputDirectory = outputDirectory;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Запускает запись. Возвращает false, если запись уже идет.
+     */
+    public synchronized boolean start() throws IOException {
+        if (isRecording()) {
+            return false;
+        }
+        Recording created;
+        try {
+            created = new Recording(Configuration.getConfiguration("profile"));
+        } catch (ParseException e) {
+            throw new IOException("Не удалось прочитать настройки JFR 'profile'", e);
+        }
+        created.setName(RECORDING_NAME);
+        created.setToDisk(true);
+        // Храним только последние минуты, чтобы запись не росла, пока ее забыли остановить
+        created.setMaxAge(maxAge);
+        created.start();
+        recording = created;
+        logger.info("Запись JFR запущена, хранится последние {} мин", maxAge.toMinutes());
+        return true;
+    }
+
+    /**
+     * Сбрасывает накопленное в файл, запись продолжается. Возвращает null, если записи нет.
+     */
+    public synchronized Path dump() throws IOException {
+        if (!isRecording()) {
+            return null;
+        }
+        Files.createDirectories(outputDirectory);
+        Path file = outputDirectory.resolve(RECORDING_NAME + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+        recording.dump(file);
+        logger.info("Запись JFR сохранена в {}", file.toAbsolutePath());
+        return file;
+    }
+
+    /**
+     * Останавливает запись, предварительно сохранив ее в файл. Возвращает null, если записи нет.
+     */
+    public synchronized Path stop() throws IOException {
+        if (!isRecording()) {
+            return null;
+        }
+        Path file = dump();
+        recording.close();
+        recording = null;
+        logger.info("Запись JFR остановлена");
+        return file;
+    }
+
+    public synchronized boolean isRecording() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+}
@@ -0,0 +1,57 @@
+package org.school.analysis.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+
+/**
+ * Один запрос к БД вместе с ожиданием слота. SQL пишется с плейсхолдерами, без значений параметров.
+ */
+@Name("org.school.analysis.RepositoryQuery")
+@Label("Repository Query")
+@Category({"School Bot", "Database"})
+@StackTrace(false)
+public class RepositoryQueryEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Request Id")
+    String requestId;
+
+    public static RepositoryQueryEvent begin(String method, String sql) {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        event.method = method;
+        event.sql = sql;
+        event.begin();
+        return event;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void fail() {
+        failed = true;
+    }
+
+    public void finish(int rows) {
+        if (shouldCommit()) {
+            this.rows = rows;
+            this.sql = sql.replaceAll("\\s+", " ").trim();
+            this.requestId = RequestContext.currentId();
+            commit();
+        }
+    }
+}
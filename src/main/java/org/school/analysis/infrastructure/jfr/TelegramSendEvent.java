@@ -0,0 +1,51 @@
+package org.school.analysis.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+
+/**
+ * Один вызов Bot API при отправке ответа.
+ */
+@Name("org.school.analysis.TelegramSend")
+@Label("Telegram Send")
+@Category({"School Bot", "Telegram"})
+@StackTrace(false)
+public class TelegramSendEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Chat Id")
+    long chatId;
+
+    @Label("Payload")
+    @DataAmount
+    int payloadBytes;
+
+    @Label("Request Id")
+    String requestId;
+
+    public static TelegramSendEvent begin(String method, Long chatId, int payloadBytes) {
+        TelegramSendEvent event = new TelegramSendEvent();
+        event.method = method;
+        event.chatId = chatId != null ? chatId : 0;
+        event.payloadBytes = payloadBytes;
+        event.begin();
+        return event;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void finish() {
+        if (shouldCommit()) {
+            requestId = RequestContext.currentId();
+            commit();
+        }
+    }
+}
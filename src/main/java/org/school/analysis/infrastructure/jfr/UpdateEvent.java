@@ -0,0 +1,44 @@
+package org.school.analysis.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Обработка одного обновления Telegram в задаче диспетчера.
+ */
+@Name("org.school.analysis.Update")
+@Label("Update Handling")
+@Category({"School Bot", "Telegram"})
+@StackTrace(false)
+public class UpdateEvent extends Event {
+    @Label("Request Id")
+    String requestId;
+
+    @Label("Chat Id")
+    long chatId;
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Lane")
+    String lane;
+
+    public static UpdateEvent begin(String requestId, long chatId, String kind, String lane) {
+        UpdateEvent event = new UpdateEvent();
+        event.requestId = requestId;
+        event.chatId = chatId;
+        event.kind = kind;
+        event.lane = lane;
+        event.begin();
+        return event;
+    }
+
+    public void finish() {
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
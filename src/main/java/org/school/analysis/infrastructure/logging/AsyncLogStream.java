@@ -0,0 +1,182 @@
+package org.school.analysis.infrastructure.logging;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Асинхронный вывод лога. slf4j-simple пишет в System.err синхронно из рабочих потоков, поэтому install
+ * подменяет System.err потоком, который только кладет строку в кольцевой буфер, а на stderr ее пишет
+ * отдельный фоновый поток пачками. При переполнении буфера вытесняются самые старые строки, число
+ * потерянных печатается, как только вывод догонит.
+ */
+public class AsyncLogStream extends PrintStream {
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final int DRAIN_BATCH = 256;
+
+    private static AsyncLogStream installed;
+
+    private final PrintStream target;
+    private final BlockingQueue<String> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public AsyncLogStream(PrintStream target, int capacity) {
+        super(target, true);
+        this.target = target;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drainLoop, "async-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Подменяет System.err и регистрирует сброс буфера при остановке JVM. Повторный вызов ничего не меняет.
+     */
+    public static synchronized AsyncLogStream install(int capacity) {
+        if (installed == null) {
+            installed = new AsyncLogStream(System.err, capacity);
+            System.setErr(installed);
+            Runtime.getRuntime().addShutdownHook(new Thread(AsyncLogStream::uninstall, "async-log-flush"));
+        }
+        return installed;
+    }
+
+    /**
+     * Возвращает исходный System.err и дописывает накопленное.
+     */
+    public static synchronized void uninstall() {
+        if (installed != null) {
+            System.setErr(installed.target);
+            installed.close();
+            installed = null;
+        }
+    }
+
+    @Override
+    public synchronized void println(String line) {
+        enqueue(line + System.lineSeparator());
+    }
+
+    @Override
+    public synchronized void println(Object value) {
+        enqueue(value + System.lineSeparator());
+    }
+
+    @Override
+    public synchronized void println() {
+        enqueue(System.lineSeparator());
+    }
+
+    @Override
+    public synchronized void print(String text) {
+        enqueue(String.valueOf(text));
+    }
+
+    @Override
+    public synchronized void print(Object value) {
+        enqueue(String.valueOf(value));
+    }
+
+    // slf4j-simple сбрасывает поток после каждой строки, ждать диск при этом не нужно
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeBatch(drainAll());
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Ждет, пока фоновый поток допишет все, что уже в буфере. Нужен тестам и перед остановкой.
+     */
+    public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (written.sum() + dropped.sum() < enqueued.sum()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return true;
+    }
+
+    private void enqueue(String text) {
+        if (closed) {
+            target.print(text);
+            return;
+        }
+        while (!buffer.offer(text)) {
+            // Кольцевой буфер: освобождаем место за счет самой старой строки
+            if (buffer.poll() != null) {
+                dropped.increment();
+            }
+        }
+        enqueued.increment();
+    }
+
+    private void drainLoop() {
+        long reportedDropped = 0;
+        List<String> batch = new ArrayList<>(DRAIN_BATCH);
+        try {
+            while (!closed) {
+                batch.add(buffer.take());
+                buffer.drainTo(batch, DRAIN_BATCH - 1);
+                long droppedNow = dropped.sum();
+                if (droppedNow > reportedDropped) {
+                    target.println("[async-log] буфер лога переполнен, потеряно строк: " + (droppedNow - reportedDropped));
+                    reportedDropped = droppedNow;
+                }
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Остановка, остаток допишет close
+        }
+    }
+
+    private List<String> drainAll() {
+        List<String> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        return rest;
+    }
+
+    private void writeBatch(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (String line : batch) {
+            text.append(line);
+        }
+        target.print(text);
+        target.flush();
+        written.add(batch.size());
+    }
+}
@@ -0,0 +1,40 @@
+package org.school.analysis.infrastructure.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выборочное логирование частых событий, например некорректных строк CSV: в лог попадают первые first
+ * событий и затем каждое every-е. Счетчик ведется по всем событиям, чтобы в итоге назвать их полное число.
+ */
+public class LogSampler {
+    private final long first;
+    private final long every;
+    private final AtomicLong occurrences = new AtomicLong();
+
+    public LogSampler(long first, long every) {
+        if (first < 0 || every <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры выборки");
+        }
+        this.first = first;
+        this.every = every;
+    }
+
+    /**
+     * Отмечает событие. Возвращает его номер (с единицы), если событие надо записать в лог, иначе 0.
+     */
+    public long sample() {
+        long occurrence = occurrences.incrementAndGet();
+        return occurrence <= first || occurrence % every == 0 ? occurrence : 0;
+    }
+
+    /**
+     * Событие из первых first, для которого стоит писать подробности, например стек.
+     */
+    public boolean isDetailed(long occurrence) {
+        return occurrence > 0 && occurrence <= first;
+    }
+
+    public long getOccurrences() {
+        return occurrences.get();
+    }
+}
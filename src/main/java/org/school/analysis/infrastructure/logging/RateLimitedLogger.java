@@ -0,0 +1,171 @@
+package org.school.analysis.infrastructure.logging;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничивает число однотипных сообщений в лог. Для каждого ключа в окне пропускается не больше permits
+ * сообщений, остальные только считаются. Первое сообщение после окна с подавленными получает приписку
+ * с их количеством, так что пачка ошибок превращается в несколько строк и итог. Если пачка закончилась
+ * и следующего сообщения нет, итог пишется отдельной строкой вскоре после конца окна.
+ */
+public class RateLimitedLogger {
+    public static final int DEFAULT_PERMITS = 5;
+    public static final long DEFAULT_WINDOW_MILLIS = 10_000;
+    private static final String SUMMARY_FORMAT = "Подавлено похожих сообщений ({}): {}";
+    // Итог не должен обгонять следующее сообщение продолжающейся пачки
+    private static final long MIN_FLUSH_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "rate-limited-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger;
+    private final int permits;
+    private final long windowNanos;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder suppressedTotal = new LongAdder();
+
+    public RateLimitedLogger(Logger logger) {
+        this(logger, DEFAULT_PERMITS, DEFAULT_WINDOW_MILLIS);
+    }
+
+    public RateLimitedLogger(Logger logger, int permits, long windowMillis) {
+        if (permits <= 0 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Лимит и окно должны быть положительными");
+        }
+        this.logger = logger;
+        this.permits = permits;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    public void info(String key, String format, Object... args) {
+        long suppressed = acquire(key, Level.INFO);
+        if (suppressed >= 0) {
+            logger.info(withSummary(format, suppressed), withSummary(args, suppressed));
+        }
+    }
+
+    public void warn(String key, String format, Object... args) {
+        long suppressed = acquire(key, Level.WARN);
+        if (suppressed >= 0) {
+            logger.warn(withSummary(format, suppressed), withSummary(args, suppressed));
+        }
+    }
+
+    public void error(String key, String format, Object... args) {
+        long suppressed = acquire(key, Level.ERROR);
+        if (suppressed >= 0) {
+            logger.error(withSummary(format, suppressed), withSummary(args, suppressed));
+        }
+    }
+
+    public long getSuppressedCount() {
+        return suppressedTotal.sum();
+    }
+
+    /**
+     * -1, если сообщение нужно подавить, иначе число подавленных по этому ключу до него.
+     */
+    private long acquire(String key, Level level) {
+        Window window = windows.computeIfAbsent(key, k -> new Window());
+        long now = System.nanoTime();
+        synchronized (window) {
+            if (now - window.startNanos >= windowNanos) {
+                window.startNanos = now;
+                window.count = 0;
+            }
+            if (window.count < permits) {
+                window.count++;
+                long suppressed = window.suppressed;
+                window.suppressed = 0;
+                return suppressed;
+            }
+            window.suppressed++;
+            window.level = level;
+            if (!window.flushScheduled) {
+                window.flushScheduled = true;
+                scheduleFlush(key, window, window.startNanos + windowNanos - now);
+            }
+        }
+        suppressedTotal.increment();
+        return -1;
+    }
+
+    private void scheduleFlush(String key, Window window, long untilWindowEndNanos) {
+        long delay = Math.max(0, untilWindowEndNanos) + Math.max(windowNanos, MIN_FLUSH_DELAY_NANOS);
+        flusher.schedule(() -> flush(key, window), delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Пишет итог по ключу, если подавленные так и не попали в приписку к следующему сообщению.
+     */
+    private void flush(String key, Window window) {
+        long suppressed;
+        Level level;
+        synchronized (window) {
+            long untilWindowEnd = window.startNanos + windowNanos - System.nanoTime();
+            if (window.suppressed > 0 && untilWindowEnd > 0) {
+                // Началось новое окно и в нем снова подавляются сообщения
+                scheduleFlush(key, window, untilWindowEnd);
+                return;
+            }
+            window.flushScheduled = false;
+            suppressed = window.suppressed;
+            level = window.level;
+            window.suppressed = 0;
+        }
+        if (suppressed == 0) {
+            return;
+        }
+        switch (level) {
+            case INFO:
+                logger.info(SUMMARY_FORMAT, key, suppressed);
+                break;
+            case WARN:
+                logger.warn(SUMMARY_FORMAT, key, suppressed);
+                break;
+            default:
+                logger.error(SUMMARY_FORMAT, key, suppressed);
+        }
+    }
+
+    private static String withSummary(String format, long suppressed) {
+        return suppressed == 0 ? format : format + " (подавлено похожих сообщений: {})";
+    }
+
+    // Исключение должно остаться последним аргументом, чтобы slf4j напечатал стек
+    private static Object[] withSummary(Object[] args, long suppressed) {
+        if (suppressed == 0) {
+            return args;
+        }
+        Object[] result = new Object[args.length + 1];
+        boolean trailingThrowable = args.length > 0 && args[args.length - 1] instanceof Throwable;
+        int position = trailingThrowable ? args.length - 1 : args.length;
+        System.arraycopy(args, 0, result, 0, position);
+        result[position] = suppressed;
+        if (trailingThrowable) {
+            result[args.length] = args[args.length - 1];
+        }
+        return result;
+    }
+
+    private enum Level {
+        INFO, WARN, ERROR
+    }
+
+    private static class Window {
+        private long startNanos = System.nanoTime();
+        private int count;
+        private long suppressed;
+        private Level level = Level.WARN;
+        private boolean flushScheduled;
+    }
+}
@@ -0,0 +1,157 @@
+package org.school.analysis.infrastructure.metrics;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Реестр метрик: счетчики на LongAdder, гистограммы задержек и датчики, которые читаются
+ * только при выгрузке. Метрика задается именем и парами метка-значение. Выгрузка - текстовый
+ * формат Prometheus.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    // Границы корзин гистограмм при выгрузке, в секундах
+    private static final double[] EXPORT_BUCKETS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private final Map<MetricKey, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<MetricKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<MetricKey, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public LongAdder counter(String name, String... labels) {
+        return counters.computeIfAbsent(new MetricKey(name, labels), key -> new LongAdder());
+    }
+
+    public LatencyHistogram histogram(String name, String... labels) {
+        return histograms.computeIfAbsent(new MetricKey(name, labels), key -> new LatencyHistogram());
+    }
+
+    /**
+     * Датчик вычисляется при каждой выгрузке. Повторная регистрация заменяет прежний источник.
+     */
+    public void gauge(String name, DoubleSupplier value, String... labels) {
+        gauges.put(new MetricKey(name, labels), value);
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, List<Map.Entry<MetricKey, LongAdder>>> family : group(counters).entrySet()) {
+            out.append("# TYPE ").append(family.getKey()).append(" counter\n");
+            for (Map.Entry<MetricKey, LongAdder> counter : family.getValue()) {
+                out.append(counter.getKey().render("", "")).append(' ').append(counter.getValue().sum()).append('\n');
+            }
+        }
+        for (Map.Entry<String, List<Map.Entry<MetricKey, DoubleSupplier>>> family : group(gauges).entrySet()) {
+            out.append("# TYPE ").append(family.getKey()).append(" gauge\n");
+            for (Map.Entry<MetricKey, DoubleSupplier> gauge : family.getValue()) {
+                out.append(gauge.getKey().render("", "")).append(' ')
+                        .append(formatDouble(readGauge(gauge.getValue()))).append('\n');
+            }
+        }
+        for (Map.Entry<String, List<Map.Entry<MetricKey, LatencyHistogram>>> family : group(histograms).entrySet()) {
+            out.append("# TYPE ").append(family.getKey()).append(" histogram\n");
+            for (Map.Entry<MetricKey, LatencyHistogram> entry : family.getValue()) {
+                MetricKey key = entry.getKey();
+                LatencyHistogram histogram = entry.getValue();
+                long count = histogram.getCount();
+                for (double bound : EXPORT_BUCKETS) {
+                    long atOrBelow = Math.min(count, histogram.countAtOrBelow((long) (bound * 1_000_000)));
+                    out.append(key.render("_bucket", "le=\"" + formatDouble(bound) + "\"")).append(' ')
+                            .append(atOrBelow).append('\n');
+                }
+                out.append(key.render("_bucket", "le=\"+Inf\"")).append(' ').append(count).append('\n');
+                out.append(key.render("_sum", "")).append(' ')
+                        .append(formatDouble(histogram.getSumMicros() / 1_000_000.0)).append('\n');
+                out.append(key.render("_count", "")).append(' ').append(count).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static double readGauge(DoubleSupplier gauge) {
+        try {
+            return gauge.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    private static <V> Map<String, List<Map.Entry<MetricKey, V>>> group(Map<MetricKey, V> metrics) {
+        Map<String, List<Map.Entry<MetricKey, V>>> families = new TreeMap<>();
+        for (Map.Entry<MetricKey, V> entry : metrics.entrySet()) {
+            families.computeIfAbsent(entry.getKey().name, name -> new ArrayList<>()).add(entry);
+        }
+        for (List<Map.Entry<MetricKey, V>> family : families.values()) {
+            family.sort((a, b) -> a.getKey().labels.compareTo(b.getKey().labels));
+        }
+        return families;
+    }
+
+    private static final class MetricKey {
+        private final String name;
+        // Метки уже в виде текста Prometheus: lane="background",stage="CHARTS"
+        private final String labels;
+
+        private MetricKey(String name, String[] labelPairs) {
+            if (labelPairs.length % 2 != 0) {
+                throw new IllegalArgumentException("Метки задаются парами имя-значение: " + name);
+            }
+            StringBuilder rendered = new StringBuilder();
+            for (int i = 0; i < labelPairs.length; i += 2) {
+                if (rendered.length() > 0) {
+                    rendered.append(',');
+                }
+                rendered.append(labelPairs[i]).append("=\"").append(escape(labelPairs[i + 1])).append('"');
+            }
+            this.name = name;
+            this.labels = rendered.toString();
+        }
+
+        private String render(String suffix, String extraLabel) {
+            String all = labels.isEmpty() ? extraLabel
+                    : extraLabel.isEmpty() ? labels : labels + "," + extraLabel;
+            return all.isEmpty() ? name + suffix : name + suffix + "{" + all + "}";
+        }
+
+        private static String escape(String value) {
+            return String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey other = (MetricKey) o;
+            return name.equals(other.name) && labels.equals(other.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + labels.hashCode();
+        }
+    }
+}
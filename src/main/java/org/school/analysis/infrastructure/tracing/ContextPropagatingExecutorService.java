@@ -0,0 +1,60 @@
+package org.school.analysis.infrastructure.tracing;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул, который переносит текущий RequestContext в поток исполнителя. Задачи вне запроса
+ * передаются как есть. Отклоненная задача сразу отпускает запрос.
+ */
+public class ContextPropagatingExecutorService extends AbstractExecutorService {
+    private final ExecutorService delegate;
+
+    public ContextPropagatingExecutorService(ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        RequestContext context = RequestContext.current();
+        if (context == null) {
+            delegate.execute(command);
+            return;
+        }
+        Runnable wrapped = context.wrap(command);
+        try {
+            delegate.execute(wrapped);
+        } catch (RejectedExecutionException e) {
+            context.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,172 @@
+package org.school.analysis.infrastructure.tracing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Контекст одного обновления Telegram: идентификатор корреляции и суммарное время по этапам.
+ * Текущий контекст хранится в ThreadLocal и переходит в пулы вместе с задачами (wrap).
+ * Каждая переданная задача удерживает контекст; когда отпущена последняя, запрос считается
+ * завершенным и одна запись о нем уходит в RequestLog.
+ */
+public class RequestContext {
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final String ID_PREFIX = Long.toString(System.currentTimeMillis() % 1_000_000, 36);
+
+    private final String id;
+    private final long chatId;
+    private final String kind;
+    private final long startNanos;
+    private final RequestLog log;
+    private final AtomicLongArray stageNanos = new AtomicLongArray(RequestStage.values().length);
+    private final AtomicLongArray stageCalls = new AtomicLongArray(RequestStage.values().length);
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile long totalNanos = -1;
+
+    RequestContext(String id, long chatId, String kind, long startNanos, RequestLog log) {
+        this.id = id;
+        this.chatId = chatId;
+        this.kind = kind;
+        this.startNanos = startNanos;
+        this.log = log;
+    }
+
+    public static RequestContext start(long chatId, String kind, long startNanos, RequestLog log) {
+        return new RequestContext(ID_PREFIX + "-" + Long.toString(SEQUENCE.incrementAndGet(), 36), chatId, kind,
+                startNanos, log);
+    }
+
+    public static RequestContext current() {
+        return CURRENT.get();
+    }
+
+    public static String currentId() {
+        RequestContext context = CURRENT.get();
+        return context != null ? context.id : null;
+    }
+
+    /**
+     * Добавляет время этапа к текущему запросу. Вне запроса (прогрев, фоновая отрисовка) ничего не делает.
+     */
+    public static void record(RequestStage stage, long nanos) {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.add(stage, nanos);
+        }
+    }
+
+    public void add(RequestStage stage, long nanos) {
+        stageNanos.addAndGet(stage.ordinal(), Math.max(0, nanos));
+        stageCalls.incrementAndGet(stage.ordinal());
+    }
+
+    /**
+     * Оборачивает задачу для другого потока: время до старта записывается как ожидание в очереди,
+     * на время выполнения контекст становится текущим. Задача удерживает запрос до своего завершения.
+     */
+    public Runnable wrap(Runnable task) {
+        retain();
+        long submitted = System.nanoTime();
+        return () -> {
+            add(RequestStage.QUEUE, System.nanoTime() - submitted);
+            RequestContext previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+                release();
+            }
+        };
+    }
+
+    /**
+     * Выполняет действие с этим контекстом в текущем потоке.
+     */
+    public void run(Runnable action) {
+        retain();
+        RequestContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+            release();
+        }
+    }
+
+    public void retain() {
+        pending.incrementAndGet();
+    }
+
+    public void release() {
+        if (pending.decrementAndGet() == 0 && finished.compareAndSet(false, true)) {
+            totalNanos = System.nanoTime() - startNanos;
+            if (log != null) {
+                log.complete(this);
+            }
+        }
+    }
+
+    private static void restore(RequestContext previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getChatId() {
+        return chatId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public boolean isFinished() {
+        return finished.get();
+    }
+
+    public long getStageMillis(RequestStage stage) {
+        return TimeUnit.NANOSECONDS.toMillis(stageNanos.get(stage.ordinal()));
+    }
+
+    public long getStageCalls(RequestStage stage) {
+        return stageCalls.get(stage.ordinal());
+    }
+
+    /**
+     * Полное время от приема обновления до завершения последней задачи, -1 пока запрос идет.
+     */
+    public long getTotalMillis() {
+        return totalNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(totalNanos);
+    }
+
+    /**
+     * Структурированная запись: ключ=значение, одна строка на запрос.
+     */
+    public String toRecord() {
+        StringBuilder record = new StringBuilder()
+                .append("request=").append(id)
+                .append(" chat=").append(chatId)
+                .append(" kind=").append(kind)
+                .append(" total_ms=").append(getTotalMillis());
+        for (RequestStage stage : RequestStage.values()) {
+            record.append(' ').append(stage.getCode()).append("_ms=").append(getStageMillis(stage));
+            if (stage != RequestStage.QUEUE) {
+                record.append(' ').append(stage.getCode()).append("_calls=").append(getStageCalls(stage));
+            }
+        }
+        return record.toString();
+    }
+}
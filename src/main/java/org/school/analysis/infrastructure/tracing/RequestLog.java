@@ -0,0 +1,60 @@
+package org.school.analysis.infrastructure.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Журнал завершенных запросов: каждая запись идет в лог запросов, а запросы дольше порога -
+ * еще и в отдельный лог медленных запросов. Последние медленные записи держатся в памяти для /status.
+ */
+public class RequestLog {
+    private static final Logger requestLogger = LoggerFactory.getLogger("org.school.analysis.requests");
+    private static final Logger slowLogger = LoggerFactory.getLogger("org.school.analysis.slow_requests");
+    public static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 2000;
+    private static final int RECENT_SLOW_LIMIT = 20;
+    private static final RequestLog GLOBAL = new RequestLog(DEFAULT_SLOW_THRESHOLD_MILLIS);
+
+    private volatile long slowThresholdMillis;
+    private final Deque<String> recentSlow = new ArrayDeque<>();
+
+    public RequestLog(long slowThresholdMillis) {
+        this.slowThresholdMillis = slowThresholdMillis;
+    }
+
+    public static RequestLog global() {
+        return GLOBAL;
+    }
+
+    public void setSlowThresholdMillis(long slowThresholdMillis) {
+        this.slowThresholdMillis = slowThresholdMillis;
+    }
+
+    public long getSlowThresholdMillis() {
+        return slowThresholdMillis;
+    }
+
+    public void complete(RequestContext context) {
+        String record = context.toRecord();
+        requestLogger.info(record);
+        if (context.getTotalMillis() >= slowThresholdMillis) {
+            slowLogger.warn("Медленный запрос (порог {} мс): {}", slowThresholdMillis, record);
+            synchronized (recentSlow) {
+                if (recentSlow.size() == RECENT_SLOW_LIMIT) {
+                    recentSlow.removeFirst();
+                }
+                recentSlow.addLast(record);
+            }
+        }
+    }
+
+    public List<String> getRecentSlowRequests() {
+        synchronized (recentSlow) {
+            return new ArrayList<>(recentSlow);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.school.analysis.infrastructure.tracing;
+
+/**
+ * Этапы, на которые раскладывается время одного запроса пользователя.
+ */
+public enum RequestStage {
+    QUEUE("queue"),
+    DB("db"),
+    RENDER("render"),
+    SEND("send");
+
+    private final String code;
+
+    RequestStage(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
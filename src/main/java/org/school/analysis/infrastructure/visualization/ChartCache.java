@@ -0,0 +1,269 @@
+package org.school.analysis.infrastructure.visualization;
+
+import org.school.analysis.application.ports.output.DatasetChangedListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Кэш готовых PNG диаграмм. Горячие картинки лежат в памяти (LRU с лимитом по байтам),
+ * вытесненные сохраняются в каталог диаграмм под именем sha256 содержимого и
+ * подхватываются после перезапуска. Рядом хранится подпись диаграммы, чтобы при попадании
+ * не нужно было снова читать данные из БД. Переход на новую версию набора данных сбрасывает весь кэш,
+ * обращения со старой версией (отрисовка, начатая до /load) считаются промахом и ничего не сохраняют.
+ */
+public class ChartCache implements DatasetChangedListener {
+    private static final Logger logger = LoggerFactory.getLogger(ChartCache.class);
+    public static final long DEFAULT_MAX_MEMORY_BYTES = 8L * 1024 * 1024;
+    private static final String INDEX_FILE = "chart-index.properties";
+    private static final String CAPTIONS_FILE = "chart-captions.properties";
+
+    private final Path directory;
+    private final long maxMemoryBytes;
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    // Ключ диаграммы -> sha256 файла на диске
+    private final Properties index = new Properties();
+    private final Properties captions = new Properties();
+    private long memoryBytes;
+    private long datasetVersion;
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+
+    public ChartCache(Path directory, long maxMemoryBytes, long datasetVersion) {
+        if (maxMemoryBytes <= 0) {
+            throw new IllegalArgumentException("Размер кэша диаграмм должен быть положительным");
+        }
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.datasetVersion = datasetVersion;
+        loadIndex();
+    }
+
+    public synchronized byte[] get(String key, long version) {
+        if (!checkVersion(version)) {
+            misses++;
+            return null;
+        }
+        byte[] png = memory.get(key);
+        if (png != null) {
+            memoryHits++;
+            return png;
+        }
+        String hash = index.getProperty(key);
+        if (hash != null) {
+            png = readSpilled(hash);
+            if (png != null) {
+                diskHits++;
+                putInMemory(key, png);
+                return png;
+            }
+            index.remove(key);
+            saveIndex();
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Подпись, сохраненная вместе с диаграммой, или null.
+     */
+    public synchronized String getCaption(String key, long version) {
+        return checkVersion(version) ? captions.getProperty(key) : null;
+    }
+
+    public synchronized void put(String key, long version, byte[] png, String caption) {
+        if (caption != null && checkVersion(version)) {
+            captions.setProperty(key, caption);
+        }
+        put(key, version, png);
+    }
+
+    public synchronized void put(String key, long version, byte[] png) {
+        if (!checkVersion(version)) {
+            logger.debug("Диаграмма {} отрисована по устаревшей версии данных {}, в кэш не кладем", key, version);
+            return;
+        }
+        if (png.length > maxMemoryBytes) {
+            spill(key, png);
+            return;
+        }
+        putInMemory(key, png);
+    }
+
+    public synchronized void invalidate() {
+        memory.clear();
+        memoryBytes = 0;
+        for (String key : index.stringPropertyNames()) {
+            String hash = index.getProperty(key);
+            try {
+                Files.deleteIfExists(directory.resolve(hash + ".png"));
+            } catch (IOException e) {
+                logger.warn("Не удалось удалить файл кэша диаграмм {}: {}", hash, e.getMessage());
+            }
+        }
+        index.clear();
+        captions.clear();
+        saveIndex();
+        logger.info("Кэш диаграмм очищен");
+    }
+
+    // Сохраняет горячие диаграммы на диск, чтобы после перезапуска не рисовать их заново
+    public synchronized void persist() {
+        for (Map.Entry<String, byte[]> entry : memory.entrySet()) {
+            if (!index.containsKey(entry.getKey())) {
+                spill(entry.getKey(), entry.getValue());
+            }
+        }
+        saveIndex();
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized int getMemoryEntryCount() {
+        return memory.size();
+    }
+
+    public synchronized int getSpilledEntryCount() {
+        return index.size();
+    }
+
+    /**
+     * Доля запросов, найденных в памяти или на диске. NaN, пока запросов не было.
+     */
+    public synchronized double getHitRatio() {
+        long requests = memoryHits + diskHits + misses;
+        return requests == 0 ? Double.NaN : (double) (memoryHits + diskHits) / requests;
+    }
+
+    public synchronized String getStats() {
+        return String.format("в памяти %d (%d КБ), на диске %d, попаданий %d/%d, промахов %d",
+                memory.size(), memoryBytes / 1024, index.size(), memoryHits, diskHits, misses);
+    }
+
+    // Вызывается сразу после загрузки, чтобы старые файлы не пережили перезапуск
+    @Override
+    public synchronized void onDatasetChanged(long version) {
+        checkVersion(version);
+    }
+
+    // false для устаревшей версии; кэш сбрасывается только при движении версии вперед
+    private boolean checkVersion(long version) {
+        if (version < datasetVersion) {
+            return false;
+        }
+        if (version > datasetVersion) {
+            logger.info("Версия данных изменилась ({} -> {}), сбрасываем кэш диаграмм", datasetVersion, version);
+            datasetVersion = version;
+            invalidate();
+        }
+        return true;
+    }
+
+    private void putInMemory(String key, byte[] png) {
+        byte[] previous = memory.put(key, png);
+        memoryBytes += png.length - (previous == null ? 0 : previous.length);
+        Iterator<Map.Entry<String, byte[]>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            Map.Entry<String, byte[]> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            eldest.remove();
+            memoryBytes -= entry.getValue().length;
+            spill(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void spill(String key, byte[] png) {
+        String hash = sha256(png);
+        Path file = directory.resolve(hash + ".png");
+        try {
+            if (!Files.exists(file)) {
+                Files.createDirectories(directory);
+                Path temp = Files.createTempFile(directory, hash, ".tmp");
+                Files.write(temp, png);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            index.setProperty(key, hash);
+            saveIndex();
+        } catch (IOException e) {
+            logger.warn("Не удалось сохранить диаграмму {} на диск: {}", key, e.getMessage());
+        }
+    }
+
+    private byte[] readSpilled(String hash) {
+        try {
+            byte[] png = Files.readAllBytes(directory.resolve(hash + ".png"));
+            // Имя файла - хэш содержимого, поэтому испорченный файл сразу видно
+            return sha256(png).equals(hash) ? png : null;
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать диаграмму {} из кэша: {}", hash, e.getMessage());
+            return null;
+        }
+    }
+
+    private void loadIndex() {
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(indexFile)) {
+            index.load(in);
+            logger.info("Загружен индекс кэша диаграмм: {} записей", index.size());
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать индекс кэша диаграмм: {}", e.getMessage());
+            index.clear();
+        }
+        Path captionsFile = directory.resolve(CAPTIONS_FILE);
+        if (Files.exists(captionsFile)) {
+            try (InputStream in = Files.newInputStream(captionsFile)) {
+                captions.load(in);
+            } catch (IOException e) {
+                logger.warn("Не удалось прочитать подписи кэша диаграмм: {}", e.getMessage());
+                captions.clear();
+            }
+        }
+    }
+
+    private void saveIndex() {
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream out = Files.newOutputStream(directory.resolve(INDEX_FILE))) {
+                index.store(out, "chart cache index");
+            }
+            try (OutputStream out = Files.newOutputStream(directory.resolve(CAPTIONS_FILE))) {
+                captions.store(out, "chart cache captions");
+            }
+        } catch (IOException e) {
+            logger.warn("Не удалось сохранить индекс кэша диаграмм: {}", e.getMessage());
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
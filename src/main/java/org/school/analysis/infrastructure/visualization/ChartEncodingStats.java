@@ -0,0 +1,49 @@
+package org.school.analysis.infrastructure.visualization;
+
+/**
+ * Размер и время кодирования PNG для одной диаграммы: последний результат и суммы для средних.
+ */
+public class ChartEncodingStats {
+    private final String chartName;
+    private long encodedCount;
+    private int lastSizeBytes;
+    private long lastEncodeMicros;
+    private long totalSizeBytes;
+    private long totalEncodeMicros;
+
+    public ChartEncodingStats(String chartName) {
+        this.chartName = chartName;
+    }
+
+    synchronized void record(int sizeBytes, long encodeMicros) {
+        encodedCount++;
+        lastSizeBytes = sizeBytes;
+        lastEncodeMicros = encodeMicros;
+        totalSizeBytes += sizeBytes;
+        totalEncodeMicros += encodeMicros;
+    }
+
+    public String getChartName() {
+        return chartName;
+    }
+
+    public synchronized long getEncodedCount() {
+        return encodedCount;
+    }
+
+    public synchronized int getLastSizeBytes() {
+        return lastSizeBytes;
+    }
+
+    public synchronized long getLastEncodeMicros() {
+        return lastEncodeMicros;
+    }
+
+    public synchronized long getAverageSizeBytes() {
+        return encodedCount == 0 ? 0 : totalSizeBytes / encodedCount;
+    }
+
+    public synchronized long getAverageEncodeMicros() {
+        return encodedCount == 0 ? 0 : totalEncodeMicros / encodedCount;
+    }
+}
@@ -1,7 +1,6 @@
 package org.school.analysis.infrastructure.visualization;
 
 import org.jfree.chart.ChartFactory;
-import org.jfree.chart.ChartUtils;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.CategoryAxis;
 import org.jfree.chart.axis.NumberAxis;
@@ -11,56 +10,243 @@ import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.chart.renderer.category.StandardBarPainter;
 import org.jfree.chart.ui.TextAnchor;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRenderer;
 import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.xy.DefaultXYDataset;
 import org.school.analysis.application.exception.RepositoryException;
 import org.school.analysis.application.ports.output.SchoolRepository;
+import org.school.analysis.domain.dto.ChartData;
 import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.domain.dto.GroupedMetricStats;
+import org.school.analysis.domain.dto.MetricSeries;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.domain.model.ChartType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ChartManager {
     private static final Logger logger = LoggerFactory.getLogger(ChartManager.class);
+    public static final String AVERAGE_STUDENTS_CHART = "average_students_by_country:top10";
+    public static final String AVERAGE_STUDENTS_TITLE = "Среднее количество студентов в 10 различных странах (округах)";
+    public static final String AVERAGE_STUDENTS_CATEGORY_LABEL = "Страна (округ)";
+    public static final String AVERAGE_STUDENTS_SERIES = "Среднее количество студентов";
+    // Общая подпись оси для JFreeChart и Java2D, чтобы гистограмма не зависела от charts.renderer
+    public static final String HISTOGRAM_COUNT_LABEL = "Количество школ";
+    public static final int CHART_WIDTH = 1200;
+    public static final int CHART_HEIGHT = 800;
+    private static final int MAX_LABEL_DECIMALS = 4;
+    private static final long TEMPLATE_WAIT_MILLIS = 100;
     private final SchoolRepository repository;
+    private final ChartRenderService renderService;
+    private final int outputWidth;
+    private final int outputHeight;
+    // JFreeChart не потокобезопасен: шаблон берется из пула на время отрисовки, шаблонов не больше разрешений
+    private final BlockingQueue<JFreeChart> averageStudentsTemplates;
+    private final AtomicInteger averageStudentsTemplatesCreated = new AtomicInteger();
 
     public ChartManager(SchoolRepository repository) {
+        this(repository, new ChartRenderService());
+    }
+
+    public ChartManager(SchoolRepository repository, ChartRenderService renderService) {
+        this(repository, renderService, CHART_WIDTH, CHART_HEIGHT);
+    }
+
+    public ChartManager(SchoolRepository repository, ChartRenderService renderService,
+                        int outputWidth, int outputHeight) {
+        if (outputWidth <= 0 || outputHeight <= 0) {
+            throw new IllegalArgumentException("Размер диаграммы должен быть положительным");
+        }
         this.repository = repository;
+        this.renderService = renderService;
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        this.averageStudentsTemplates = new ArrayBlockingQueue<>(renderService.getMaxConcurrentRenders());
     }
 
-    public byte[] createAverageStudentsByCountriesChart() {
-        logger.info("Создаем диаграмму среднего количества студентов по странам");
+    public int getOutputWidth() {
+        return outputWidth;
+    }
 
-        try {
-            List<CountryStudentStats> stats = repository.findAverageStudentsByCountries(10);
-            if (stats.isEmpty()) {
-                throw new RepositoryException("Нет данных для создания диаграммы. Загрузите данные из CSV");
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    /**
+     * Ключ кэша учитывает размер и настройки кодирования, чтобы после смены конфигурации
+     * не отдавать PNG, закодированный по-старому.
+     */
+    public String getAverageStudentsChartKey() {
+        return getAverageStudentsChartKey(outputWidth, outputHeight);
+    }
+
+    public String getAverageStudentsChartKey(int width, int height) {
+        return AVERAGE_STUDENTS_CHART + ":" + width + "x" + height + ":"
+                + renderService.getEncoder().getProfile();
+    }
+
+    public int resolveWidth(ChartSpec spec) {
+        return spec.getWidth() > 0 ? spec.getWidth() : outputWidth;
+    }
+
+    public int resolveHeight(ChartSpec spec) {
+        return spec.getHeight() > 0 ? spec.getHeight() : outputHeight;
+    }
+
+    public String getChartKey(ChartSpec spec) {
+        return spec.withSize(resolveWidth(spec), resolveHeight(spec)).getKey() + ":"
+                + renderService.getEncoder().getProfile();
+    }
+
+    /**
+     * Загружает данные по описанию диаграммы. Облако точек и линия прореживаются до
+     * spec.getMaxPoints(), гистограмма приходит уже разбитой на интервалы.
+     */
+    public ChartData loadChartData(ChartSpec spec) {
+        ChartData data;
+        switch (spec.getType()) {
+            case BAR: {
+                List<GroupedMetricStats> stats = repository.findAverageMetricByCounty(spec.getMetric(), spec.getLimit());
+                List<String> labels = new ArrayList<>(stats.size());
+                double[] values = new double[stats.size()];
+                for (int i = 0; i < stats.size(); i++) {
+                    labels.add(stats.get(i).getGroupName());
+                    values[i] = stats.get(i).getAverage();
+                }
+                data = new ChartData(labels, new double[0], values, stats.size());
+                break;
+            }
+            case HISTOGRAM: {
+                double[] values = repository.findMetricValues(spec.getMetric());
+                MetricSeries histogram = Downsampling.histogram(values, spec.getBins());
+                data = new ChartData(histogramLabels(histogram.getXs()), histogram.getXs(), histogram.getYs(),
+                        values.length);
+                break;
             }
+            default: {
+                MetricSeries pairs = repository.findMetricPairs(spec.getXMetric(), spec.getMetric());
+                MetricSeries sampled = spec.getType() == ChartType.LINE
+                        ? Downsampling.lttb(pairs, spec.getMaxPoints())
+                        : Downsampling.gridBin(pairs, spec.getMaxPoints());
+                data = new ChartData(List.of(), sampled.getXs(), sampled.getYs(), pairs.size());
+            }
+        }
+        if (data.getSourceSize() == 0) {
+            throw new RepositoryException("Нет данных для создания диаграммы. Загрузите данные из CSV");
+        }
+        logger.debug("Данные для диаграммы {}: {} значений, к отрисовке {}", spec, data.getSourceSize(), data.size());
+        return data;
+    }
 
-            DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+    /**
+     * Подписи интервалов служат ключами категорий, а DefaultCategoryDataset молча перезаписывает
+     * совпадающие ключи. Поэтому точность растет, пока подписи не станут различными, например
+     * для 200 интервалов на шкале из 100 баллов.
+     */
+    static List<String> histogramLabels(double[] starts) {
+        for (int decimals = 0; decimals <= MAX_LABEL_DECIMALS; decimals++) {
+            String format = "%." + decimals + "f";
+            Set<String> seen = new HashSet<>();
+            List<String> labels = new ArrayList<>(starts.length);
+            for (double start : starts) {
+                String label = String.format(format, start);
+                if (!seen.add(label)) {
+                    break;
+                }
+                labels.add(label);
+            }
+            if (labels.size() == starts.length) {
+                return labels;
+            }
+        }
+        List<String> labels = new ArrayList<>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            labels.add(String.format("%d: %." + MAX_LABEL_DECIMALS + "f", i + 1, starts[i]));
+        }
+        return labels;
+    }
 
-            for (CountryStudentStats stat : stats) {
-                dataset.addValue(stat.getAvgStudents(), "Среднее количество студентов", stat.getCountryName());
+    public byte[] renderChart(ChartSpec spec, ChartData data) {
+        try {
+            JFreeChart chart;
+            String metricLabel = spec.getMetric().getLabel();
+            if (spec.getType() == ChartType.BAR || spec.getType() == ChartType.HISTOGRAM) {
+                DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+                for (int i = 0; i < data.size(); i++) {
+                    dataset.addValue(data.getYs()[i], metricLabel, data.getLabels().get(i));
+                }
+                boolean histogram = spec.getType() == ChartType.HISTOGRAM;
+                chart = ChartFactory.createBarChart(spec.getTitle(),
+                        histogram ? metricLabel : spec.getGrouping().getLabel(),
+                        histogram ? HISTOGRAM_COUNT_LABEL : metricLabel,
+                        dataset, PlotOrientation.VERTICAL, !histogram, true, false);
+                customizeBarChart(chart, 1);
+                if (histogram) {
+                    // Интервалы гистограммы идут вплотную, подписи значений только мешают
+                    BarRenderer renderer = (BarRenderer) ((CategoryPlot) chart.getPlot()).getRenderer();
+                    renderer.setMaximumBarWidth(1.0);
+                    renderer.setItemMargin(0);
+                    renderer.setDefaultItemLabelsVisible(false);
+                    ((CategoryPlot) chart.getPlot()).getDomainAxis().setCategoryMargin(0);
+                }
+            } else {
+                DefaultXYDataset dataset = new DefaultXYDataset();
+                dataset.addSeries(metricLabel, new double[][]{data.getXs(), data.getYs()});
+                String xLabel = spec.getXMetric().getLabel();
+                chart = spec.getType() == ChartType.LINE
+                        ? ChartFactory.createXYLineChart(spec.getTitle(), xLabel, metricLabel, dataset,
+                        PlotOrientation.VERTICAL, true, false, false)
+                        : ChartFactory.createScatterPlot(spec.getTitle(), xLabel, metricLabel, dataset,
+                        PlotOrientation.VERTICAL, true, false, false);
+                customizeXYChart(chart);
             }
+            return chartToBytes(chart, resolveWidth(spec), resolveHeight(spec));
+        } catch (Exception e) {
+            throw new RepositoryException("Ошибка при создании диаграммы", e);
+        }
+    }
 
-            JFreeChart chart = ChartFactory.createBarChart(
-                    "Среднее количество студентов в 10 различных странах (округах)",
-                    "Страна (округ)",
-                    "Среднее количество студентов",
-                    dataset,
-                    PlotOrientation.VERTICAL,
-                    true,
-                    true,
-                    false
-            );
+    public String describeChart(ChartSpec spec, ChartData data) {
+        StringBuilder description = new StringBuilder();
+        description.append("Диаграмма: ").append(spec.getTitle()).append('\n');
+        switch (spec.getType()) {
+            case BAR:
+                for (int i = 0; i < data.size(); i++) {
+                    description.append(String.format("• %s: %.1f\n", data.getLabels().get(i), data.getYs()[i]));
+                }
+                break;
+            case HISTOGRAM:
+                description.append(String.format("Значений: %d, интервалов: %d\n", data.getSourceSize(), data.size()));
+                break;
+            default:
+                description.append(String.format("Школ: %d", data.getSourceSize()));
+                if (data.size() < data.getSourceSize()) {
+                    description.append(String.format(", на диаграмме %d точек после прореживания", data.size()));
+                }
+                description.append('\n');
+        }
+        description.append("\nДиаграмма построена на основе данных из CSV файла");
+        return description.toString();
+    }
 
-            customizeBarChart(chart, stats);
-            return chartToBytes(chart, 1200, 800);
+    public byte[] createAverageStudentsByCountriesChart() {
+        logger.info("Создаем диаграмму среднего количества студентов по странам");
 
+        try {
+            return renderAverageStudentsChart(loadAverageStudentsStats());
         } catch (RepositoryException e) {
             throw e;
         } catch (Exception e) {
@@ -68,36 +254,133 @@ public class ChartManager {
         }
     }
 
-    public String getChartDescription() {
-        try {
-            List<CountryStudentStats> stats = repository.findAverageStudentsByCountries(10);
+    public List<CountryStudentStats> loadAverageStudentsStats() {
+        List<CountryStudentStats> stats = repository.findAverageStudentsByCountries(10);
+        if (stats.isEmpty()) {
+            throw new RepositoryException("Нет данных для создания диаграммы. Загрузите данные из CSV");
+        }
+        return stats;
+    }
 
-            if (stats.isEmpty()) {
-                return "Нет данных для создания диаграммы";
-            }
+    public byte[] renderAverageStudentsChart(List<CountryStudentStats> stats) {
+        return renderAverageStudentsChart(stats, outputWidth, outputHeight);
+    }
 
-            StringBuilder description = new StringBuilder();
-            description.append("Диаграмма: Среднее количество студентов по странам\n");
-            description.append("Статистика по странам:\n");
+    public byte[] renderAverageStudentsChart(List<CountryStudentStats> stats, int width, int height) {
+        try {
+            DefaultCategoryDataset dataset = new DefaultCategoryDataset();
 
             for (CountryStudentStats stat : stats) {
-                description.append(String.format("• %s: %.1f студентов в среднем (%d школ)\n",
-                        stat.getCountryName(), stat.getAvgStudents(), stat.getSchoolCount()
-                ));
+                dataset.addValue(stat.getAvgStudents(), AVERAGE_STUDENTS_SERIES, stat.getCountryName());
             }
 
-            description.append("\nДиаграмма построена на основе данных из CSV файла");
+            return renderAverageStudentsTemplate(dataset, width, height);
 
-            return description.toString();
+        } catch (Exception e) {
+            throw new RepositoryException("Ошибка при создании диаграммы", e);
+        }
+    }
 
-        } catch (RepositoryException e) {
-            return "Ошибка при получении данных для диаграммы " + e.getMessage();
+    /**
+     * Рисует пустой шаблон в минимальном размере, чтобы классы AWT, JFreeChart и шрифты
+     * загрузились до первого запроса пользователя.
+     */
+    public void warmUp() {
+        try {
+            renderAverageStudentsTemplate(new DefaultCategoryDataset(), ChartSpec.MIN_SIZE, ChartSpec.MIN_SIZE);
         } catch (Exception e) {
-            return "Ошибка при создании описания диаграммы " + e.getMessage();
+            logger.warn("Не удалось прогреть JFreeChart: {}", e.getMessage());
+        }
+    }
+
+    public String describeAverageStudentsChart(List<CountryStudentStats> stats) {
+        StringBuilder description = new StringBuilder();
+        description.append("Диаграмма: Среднее количество студентов по странам\n");
+        description.append("Статистика по странам:\n");
+
+        for (CountryStudentStats stat : stats) {
+            description.append(String.format("• %s: %.1f студентов в среднем (%d школ)\n",
+                    stat.getCountryName(), stat.getAvgStudents(), stat.getSchoolCount()
+            ));
+        }
+
+        description.append("\nДиаграмма построена на основе данных из CSV файла");
+
+        return description.toString();
+    }
+
+    private byte[] renderAverageStudentsTemplate(DefaultCategoryDataset dataset, int width, int height)
+            throws IOException {
+        JFreeChart chart = checkOutAverageStudentsTemplate();
+        try {
+            // Шаблон уже оформлен, меняем только данные
+            ((CategoryPlot) chart.getPlot()).setDataset(dataset);
+            return chartToBytes(chart, width, height);
+        } finally {
+            averageStudentsTemplates.offer(chart);
         }
     }
 
-    private void customizeBarChart(JFreeChart chart, List<CountryStudentStats> stats) {
+    /**
+     * Шаблоны создаются по мере надобности, но не больше числа одновременных отрисовок, поэтому
+     * на виртуальных потоках оформленных диаграмм в памяти не больше, чем разрешений у сервиса.
+     * Считаются только созданные шаблоны: неудачное создание возвращает место в пуле.
+     */
+    private JFreeChart checkOutAverageStudentsTemplate() {
+        try {
+            while (true) {
+                JFreeChart chart = averageStudentsTemplates.poll();
+                if (chart != null) {
+                    return chart;
+                }
+                int created = averageStudentsTemplatesCreated.get();
+                if (created < renderService.getMaxConcurrentRenders()) {
+                    if (averageStudentsTemplatesCreated.compareAndSet(created, created + 1)) {
+                        return createCountedAverageStudentsTemplate();
+                    }
+                    continue;
+                }
+                // Ждем с таймаутом: место могло освободиться после неудачного создания
+                chart = averageStudentsTemplates.poll(TEMPLATE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (chart != null) {
+                    return chart;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Ожидание отрисовки диаграммы прервано", e);
+        }
+    }
+
+    private JFreeChart createCountedAverageStudentsTemplate() {
+        boolean created = false;
+        try {
+            JFreeChart chart = createAverageStudentsTemplate();
+            created = true;
+            return chart;
+        } finally {
+            if (!created) {
+                averageStudentsTemplatesCreated.decrementAndGet();
+            }
+        }
+    }
+
+    private JFreeChart createAverageStudentsTemplate() {
+        JFreeChart chart = ChartFactory.createBarChart(
+                AVERAGE_STUDENTS_TITLE,
+                AVERAGE_STUDENTS_CATEGORY_LABEL,
+                AVERAGE_STUDENTS_SERIES,
+                new DefaultCategoryDataset(),
+                PlotOrientation.VERTICAL,
+                true,
+                true,
+                false
+        );
+        customizeBarChart(chart, 1);
+        return chart;
+    }
+
+    private void customizeBarChart(JFreeChart chart, int seriesCount) {
         CategoryPlot plot = (CategoryPlot) chart.getPlot();
         CategoryAxis domainAxis = plot.getDomainAxis();
         domainAxis.setCategoryLabelPositions(
@@ -115,7 +398,7 @@ public class ChartManager {
 
         Color[] colors = {new Color(65, 105, 225)};
 
-        for (int i = 0; i < stats.size(); i++) {
+        for (int i = 0; i < seriesCount; i++) {
             renderer.setSeriesPaint(i, colors[i % colors.length]);
             renderer.setSeriesOutlinePaint(i, Color.BLACK);
             renderer.setSeriesOutlineStroke(i, new BasicStroke(1.0f));
@@ -137,10 +420,28 @@ public class ChartManager {
         chart.getTitle().setFont(new Font("Arial", Font.BOLD, 16));
     }
 
+    private void customizeXYChart(JFreeChart chart) {
+        XYPlot plot = (XYPlot) chart.getPlot();
+        plot.getDomainAxis().setLabelFont(new Font("Arial", Font.BOLD, 12));
+        plot.getDomainAxis().setTickLabelFont(new Font("Arial", Font.PLAIN, 10));
+        plot.getRangeAxis().setLabelFont(new Font("Arial", Font.BOLD, 12));
+        plot.getRangeAxis().setTickLabelFont(new Font("Arial", Font.PLAIN, 10));
+        ((NumberAxis) plot.getDomainAxis()).setAutoRangeIncludesZero(false);
+        ((NumberAxis) plot.getRangeAxis()).setAutoRangeIncludesZero(false);
+
+        XYItemRenderer renderer = plot.getRenderer();
+        renderer.setSeriesPaint(0, new Color(65, 105, 225));
+        renderer.setSeriesStroke(0, new BasicStroke(2.0f));
+
+        plot.setBackgroundPaint(new Color(240, 240, 240));
+        plot.setDomainGridlinePaint(Color.WHITE);
+        plot.setRangeGridlinePaint(Color.WHITE);
+
+        chart.getTitle().setFont(new Font("Arial", Font.BOLD, 16));
+    }
+
     public byte[] chartToBytes(JFreeChart chart, int width, int height) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ChartUtils.writeChartAsPNG(baos, chart, width, height);
-        return baos.toByteArray();
+        return renderService.toPng(chart, width, height);
     }
 
     private void saveChartToFile(byte[] chartData, String filename) throws IOException {
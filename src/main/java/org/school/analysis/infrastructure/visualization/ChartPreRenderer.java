@@ -0,0 +1,75 @@
+package org.school.analysis.infrastructure.visualization;
+
+import org.school.analysis.application.ports.output.DatasetChangedListener;
+import org.school.analysis.application.services.DatasetVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Заранее рисует все зарегистрированные диаграммы после загрузки данных,
+ * чтобы первый пользователь получил картинку из кэша. Работает в одном фоновом потоке
+ * с минимальным приоритетом; если за время отрисовки данные снова сменились, старый проход прерывается.
+ */
+public class ChartPreRenderer implements DatasetChangedListener {
+    private static final Logger logger = LoggerFactory.getLogger(ChartPreRenderer.class);
+
+    private final DatasetVersion datasetVersion;
+    private final Map<String, Runnable> charts = new LinkedHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    public ChartPreRenderer(DatasetVersion datasetVersion) {
+        this.datasetVersion = datasetVersion;
+        // В очереди держим только последний проход, более старые уже неактуальны
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                r -> {
+                    Thread thread = new Thread(r, "chart-prerender");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    public synchronized void register(String name, Runnable render) {
+        charts.put(name, render);
+    }
+
+    @Override
+    public void onDatasetChanged(long version) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.execute(() -> preRender(version));
+    }
+
+    private void preRender(long version) {
+        Map<String, Runnable> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(charts);
+        }
+        long start = System.currentTimeMillis();
+        for (Map.Entry<String, Runnable> chart : snapshot.entrySet()) {
+            if (datasetVersion.current() != version || Thread.currentThread().isInterrupted()) {
+                logger.info("Данные изменились, предварительная отрисовка версии {} прервана", version);
+                return;
+            }
+            try {
+                chart.getValue().run();
+            } catch (Exception e) {
+                logger.warn("Не удалось заранее нарисовать диаграмму {}: {}", chart.getKey(), e.getMessage());
+            }
+        }
+        logger.info("Диаграммы для версии данных {} готовы за {} мс", version, System.currentTimeMillis() - start);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,155 @@
+package org.school.analysis.infrastructure.visualization;
+
+import org.jfree.chart.JFreeChart;
+import org.school.analysis.application.exception.RepositoryException;
+import org.school.analysis.infrastructure.jfr.ChartEncodeEvent;
+import org.school.analysis.infrastructure.jfr.ChartRenderEvent;
+import org.school.analysis.infrastructure.metrics.LatencyHistogram;
+import org.school.analysis.infrastructure.metrics.MetricsRegistry;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+import org.school.analysis.infrastructure.tracing.RequestStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Растеризация диаграмм в PNG. Число одновременных отрисовок ограничено семафором,
+ * а картинка и буфер вывода берутся из пула по числу разрешений, чтобы серия запросов
+ * не выделяла по 4 МБ на каждую диаграмму даже на виртуальных потоках. Размер и время кодирования PNG копятся по каждой диаграмме.
+ */
+public class ChartRenderService {
+    private static final Logger logger = LoggerFactory.getLogger(ChartRenderService.class);
+    public static final int DEFAULT_MAX_CONCURRENT_RENDERS = Runtime.getRuntime().availableProcessors();
+    private static final String UNNAMED_CHART = "chart";
+
+    private final int maxConcurrentRenders;
+    private final Semaphore renderSlots;
+    private final PngEncoder encoder;
+    private final BlockingQueue<RenderBuffers> buffers;
+    private final Map<String, ChartEncodingStats> encodingStats = new ConcurrentHashMap<>();
+    private final LatencyHistogram renderLatency = MetricsRegistry.global().histogram("school_bot_chart_render_seconds");
+    private final LatencyHistogram encodeLatency = MetricsRegistry.global().histogram("school_bot_chart_encode_seconds");
+
+    public ChartRenderService() {
+        this(DEFAULT_MAX_CONCURRENT_RENDERS);
+    }
+
+    public ChartRenderService(int maxConcurrentRenders) {
+        this(maxConcurrentRenders, new PngEncoder());
+    }
+
+    public ChartRenderService(int maxConcurrentRenders, PngEncoder encoder) {
+        if (maxConcurrentRenders <= 0) {
+            throw new IllegalArgumentException("Количество одновременных отрисовок должно быть положительным");
+        }
+        this.maxConcurrentRenders = maxConcurrentRenders;
+        this.renderSlots = new Semaphore(maxConcurrentRenders, true);
+        this.encoder = encoder;
+        // Буферов ровно по числу разрешений: владелец разрешения всегда находит свободный
+        this.buffers = new ArrayBlockingQueue<>(maxConcurrentRenders);
+        for (int i = 0; i < maxConcurrentRenders; i++) {
+            buffers.add(new RenderBuffers());
+        }
+    }
+
+    public byte[] toPng(JFreeChart chart, int width, int height) throws IOException {
+        String chartName = chart.getTitle() != null ? chart.getTitle().getText() : UNNAMED_CHART;
+        return toPng(chartName, width, height, g2 -> chart.draw(g2, new Rectangle2D.Double(0, 0, width, height)));
+    }
+
+    public byte[] toPng(int width, int height, Consumer<Graphics2D> painter) throws IOException {
+        return toPng(UNNAMED_CHART, width, height, painter);
+    }
+
+    public byte[] toPng(String chartName, int width, int height, Consumer<Graphics2D> painter) throws IOException {
+        acquireRenderSlot();
+        RenderBuffers renderBuffers = buffers.poll();
+        try {
+            BufferedImage image = renderBuffers.image(width, height);
+            long renderStart = System.nanoTime();
+            ChartRenderEvent renderEvent = ChartRenderEvent.begin(chartName, width, height);
+            Graphics2D g2 = image.createGraphics();
+            try {
+                // Буфер остался от прошлой диаграммы, очищаем его до прозрачного
+                g2.setBackground(new Color(0, 0, 0, 0));
+                g2.clearRect(0, 0, width, height);
+                painter.accept(g2);
+            } finally {
+                g2.dispose();
+                renderEvent.finish();
+            }
+            renderLatency.recordSince(renderStart);
+            ByteArrayOutputStream out = renderBuffers.out;
+            out.reset();
+            long start = System.nanoTime();
+            ChartEncodeEvent encodeEvent = ChartEncodeEvent.begin(chartName, encoder.getProfile());
+            encoder.encode(image, out);
+            encodeEvent.finish(out.size());
+            long encodeNanos = System.nanoTime() - start;
+            long encodeMicros = encodeNanos / 1000;
+            encodeLatency.record(encodeNanos);
+            RequestContext.record(RequestStage.RENDER, System.nanoTime() - renderStart);
+            encodingStats.computeIfAbsent(chartName, ChartEncodingStats::new).record(out.size(), encodeMicros);
+            logger.debug("Диаграмма '{}' {}x{} закодирована ({}): {} байт за {} мкс", chartName, width, height,
+                    encoder.getProfile(), out.size(), encodeMicros);
+            return out.toByteArray();
+        } finally {
+            buffers.offer(renderBuffers);
+            renderSlots.release();
+        }
+    }
+
+    public PngEncoder getEncoder() {
+        return encoder;
+    }
+
+    public List<ChartEncodingStats> getEncodingStats() {
+        return new ArrayList<>(encodingStats.values());
+    }
+
+    public ChartEncodingStats getEncodingStats(String chartName) {
+        return encodingStats.get(chartName);
+    }
+
+    public int getMaxConcurrentRenders() {
+        return maxConcurrentRenders;
+    }
+
+    public int getAvailableRenderSlots() {
+        return renderSlots.availablePermits();
+    }
+
+    private void acquireRenderSlot() {
+        try {
+            renderSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Ожидание отрисовки диаграммы прервано", e);
+        }
+    }
+
+    private static final class RenderBuffers {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+        private BufferedImage image;
+
+        private BufferedImage image(int width, int height) {
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+            return image;
+        }
+    }
+}
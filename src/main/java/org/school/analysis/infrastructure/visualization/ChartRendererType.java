@@ -0,0 +1,17 @@
+package org.school.analysis.infrastructure.visualization;
+
+public enum ChartRendererType {
+    JFREECHART,
+    JAVA2D;
+
+    public static ChartRendererType fromProperty(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return JFREECHART;
+        }
+        try {
+            return ChartRendererType.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return JFREECHART;
+        }
+    }
+}
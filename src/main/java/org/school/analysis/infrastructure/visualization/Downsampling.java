@@ -0,0 +1,146 @@
+package org.school.analysis.infrastructure.visualization;
+
+import org.school.analysis.domain.dto.MetricSeries;
+
+import java.util.Arrays;
+
+/**
+ * Прореживание рядов перед отрисовкой: число точек, попадающих в рендерер, ограничено,
+ * поэтому время отрисовки не растет вместе с объемом данных.
+ */
+public final class Downsampling {
+
+    private Downsampling() {
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets для линии: сохраняет форму ряда, оставляя threshold точек.
+     * Ряд должен быть упорядочен по X.
+     */
+    public static MetricSeries lttb(MetricSeries series, int threshold) {
+        int size = series.size();
+        if (threshold < 3 || size <= threshold) {
+            return series;
+        }
+        double[] xs = series.getXs();
+        double[] ys = series.getYs();
+        double[] sampledX = new double[threshold];
+        double[] sampledY = new double[threshold];
+        sampledX[0] = xs[0];
+        sampledY[0] = ys[0];
+
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int selected = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Среднее следующей корзины - третья вершина треугольника
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += xs[i];
+                avgY += ys[i];
+            }
+            int nextCount = Math.max(1, nextEnd - nextStart);
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((xs[selected] - avgX) * (ys[i] - ys[selected])
+                        - (xs[selected] - xs[i]) * (avgY - ys[selected]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            sampledX[bucket + 1] = xs[chosen];
+            sampledY[bucket + 1] = ys[chosen];
+            selected = chosen;
+        }
+        sampledX[threshold - 1] = xs[size - 1];
+        sampledY[threshold - 1] = ys[size - 1];
+        return new MetricSeries(sampledX, sampledY);
+    }
+
+    /**
+     * Прореживание облака точек сеткой: в каждой занятой ячейке остается одна точка - среднее
+     * попавших в нее. Ячеек не больше maxPoints, плотные области не перекрывают друг друга.
+     */
+    public static MetricSeries gridBin(MetricSeries series, int maxPoints) {
+        int size = series.size();
+        if (size <= maxPoints) {
+            return series;
+        }
+        double[] xs = series.getXs();
+        double[] ys = series.getYs();
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        int cells = (int) Math.max(1, Math.floor(Math.sqrt(maxPoints)));
+        double cellWidth = maxX > minX ? (maxX - minX) / cells : 1;
+        double cellHeight = maxY > minY ? (maxY - minY) / cells : 1;
+        double[] sumX = new double[cells * cells];
+        double[] sumY = new double[cells * cells];
+        int[] counts = new int[cells * cells];
+        for (int i = 0; i < size; i++) {
+            int cx = Math.min(cells - 1, (int) ((xs[i] - minX) / cellWidth));
+            int cy = Math.min(cells - 1, (int) ((ys[i] - minY) / cellHeight));
+            int cell = cy * cells + cx;
+            sumX[cell] += xs[i];
+            sumY[cell] += ys[i];
+            counts[cell]++;
+        }
+        double[] binnedX = new double[counts.length];
+        double[] binnedY = new double[counts.length];
+        int occupied = 0;
+        for (int cell = 0; cell < counts.length; cell++) {
+            if (counts[cell] > 0) {
+                binnedX[occupied] = sumX[cell] / counts[cell];
+                binnedY[occupied] = sumY[cell] / counts[cell];
+                occupied++;
+            }
+        }
+        return new MetricSeries(Arrays.copyOf(binnedX, occupied), Arrays.copyOf(binnedY, occupied));
+    }
+
+    /**
+     * Гистограмма с равными интервалами: xs - левые границы интервалов, ys - количество значений.
+     */
+    public static MetricSeries histogram(double[] samples, int bins) {
+        if (bins <= 0) {
+            throw new IllegalArgumentException("Количество интервалов должно быть положительным");
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double sample : samples) {
+            min = Math.min(min, sample);
+            max = Math.max(max, sample);
+        }
+        if (samples.length == 0) {
+            min = 0;
+            max = bins;
+        }
+        double binWidth = max > min ? (max - min) / bins : 1;
+        double[] starts = new double[bins];
+        double[] counts = new double[bins];
+        for (int i = 0; i < bins; i++) {
+            starts[i] = min + i * binWidth;
+        }
+        for (double sample : samples) {
+            int bin = (int) Math.min(bins - 1, Math.floor((sample - min) / binWidth));
+            counts[bin]++;
+        }
+        return new MetricSeries(starts, counts);
+    }
+}
@@ -0,0 +1,289 @@
+package org.school.analysis.infrastructure.visualization;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.text.NumberFormat;
+import java.util.List;
+
+/**
+ * Легкий рендерер простых диаграмм (столбцы, гистограмма, линия, точки) прямо через Java2D,
+ * без построения объектов JFreeChart. Оформление повторяет ChartManager.customizeBarChart.
+ */
+public class Java2DChartRenderer {
+    private static final Color BAR_COLOR = new Color(65, 105, 225);
+    private static final Color PLOT_BACKGROUND = new Color(240, 240, 240);
+    private static final Color AXIS_COLOR = Color.GRAY;
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font AXIS_LABEL_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font TICK_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final Font ITEM_LABEL_FONT = new Font("SansSerif", Font.PLAIN, 10);
+    private static final Font LEGEND_FONT = new Font("SansSerif", Font.PLAIN, 10);
+    private static final BasicStroke OUTLINE_STROKE = new BasicStroke(1.0f);
+    private static final BasicStroke LINE_STROKE = new BasicStroke(2.0f);
+    private static final double LABEL_ANGLE = Math.PI / 6.0;
+    private static final double MAX_BAR_WIDTH = 0.1;
+    private static final int PADDING = 8;
+    private static final int POINT_SIZE = 4;
+    private static final int TARGET_TICKS = 8;
+
+    private final ChartRenderService renderService;
+
+    public Java2DChartRenderer(ChartRenderService renderService) {
+        this.renderService = renderService;
+    }
+
+    public byte[] renderBarChart(String title, String categoryLabel, String valueLabel, String seriesName,
+                                 List<String> categories, double[] values, int width, int height) throws IOException {
+        return renderService.toPng(title, width, height, g2 -> paintBars(g2, width, height, title, categoryLabel,
+                valueLabel, seriesName, categories, values, MAX_BAR_WIDTH, true));
+    }
+
+    /**
+     * Гистограмма по уже посчитанным интервалам: столбцы во всю ширину, без подписей значений.
+     */
+    public byte[] renderBins(String title, String valueLabel, List<String> binLabels, double[] counts,
+                             int width, int height) throws IOException {
+        return renderService.toPng(title, width, height, g2 -> paintBars(g2, width, height, title, valueLabel,
+                ChartManager.HISTOGRAM_COUNT_LABEL, null, binLabels, counts, 1.0, false));
+    }
+
+    public byte[] renderScatterChart(String title, String xLabel, String yLabel, String seriesName,
+                                     double[] xs, double[] ys, int width, int height) throws IOException {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Длины рядов X и Y не совпадают");
+        }
+        return renderService.toPng(title, width, height, g2 -> paintXY(g2, width, height, title, xLabel, yLabel,
+                seriesName, xs, ys, false));
+    }
+
+    public byte[] renderLineChart(String title, String xLabel, String yLabel, String seriesName,
+                                  double[] xs, double[] ys, int width, int height) throws IOException {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Длины рядов X и Y не совпадают");
+        }
+        return renderService.toPng(title, width, height, g2 -> paintXY(g2, width, height, title, xLabel, yLabel,
+                seriesName, xs, ys, true));
+    }
+
+    private void paintBars(Graphics2D g2, int width, int height, String title, String categoryLabel,
+                           String valueLabel, String seriesName, List<String> categories, double[] values,
+                           double maxBarWidth, boolean itemLabels) {
+        prepare(g2, width, height);
+        double maxValue = 0;
+        for (double value : values) {
+            maxValue = Math.max(maxValue, value);
+        }
+        double step = niceStep(maxValue, true);
+        double upper = Math.max(step, Math.ceil(maxValue * 1.1 / step) * step);
+
+        FontMetrics tickMetrics = g2.getFontMetrics(TICK_FONT);
+        double maxLabelWidth = 0;
+        for (String category : categories) {
+            maxLabelWidth = Math.max(maxLabelWidth, tickMetrics.stringWidth(category));
+        }
+        double categoryLabelsHeight = maxLabelWidth * Math.sin(LABEL_ANGLE) + tickMetrics.getHeight();
+        Rectangle2D plot = paintFrame(g2, width, height, title, categoryLabel, valueLabel, seriesName,
+                categoryLabelsHeight, 0, upper, step, true);
+
+        int count = Math.max(1, categories.size());
+        double slot = plot.getWidth() / count;
+        double barWidth = Math.min(slot * 0.8, plot.getWidth() * maxBarWidth);
+        if (maxBarWidth >= 1.0) {
+            barWidth = slot;
+        }
+        NumberFormat itemFormat = NumberFormat.getInstance();
+        g2.setFont(ITEM_LABEL_FONT);
+        FontMetrics itemMetrics = g2.getFontMetrics();
+        for (int i = 0; i < values.length && i < categories.size(); i++) {
+            double center = plot.getX() + slot * (i + 0.5);
+            double barHeight = plot.getHeight() * values[i] / upper;
+            Rectangle2D bar = new Rectangle2D.Double(center - barWidth / 2, plot.getMaxY() - barHeight,
+                    barWidth, barHeight);
+            g2.setPaint(BAR_COLOR);
+            g2.fill(bar);
+            g2.setPaint(Color.BLACK);
+            g2.setStroke(OUTLINE_STROKE);
+            g2.draw(bar);
+            if (itemLabels) {
+                String label = itemFormat.format(values[i]);
+                g2.drawString(label, (float) (center - itemMetrics.stringWidth(label) / 2.0),
+                        (float) (bar.getY() - 2));
+            }
+        }
+
+        g2.setFont(TICK_FONT);
+        g2.setPaint(Color.DARK_GRAY);
+        AffineTransform saved = g2.getTransform();
+        for (int i = 0; i < categories.size(); i++) {
+            String label = categories.get(i);
+            double center = plot.getX() + slot * (i + 0.5);
+            // Подписи повернуты вверх на 30 градусов и заканчиваются под своим столбцом
+            g2.translate(center, plot.getMaxY() + tickMetrics.getAscent());
+            g2.rotate(-LABEL_ANGLE);
+            g2.drawString(label, -tickMetrics.stringWidth(label), 0);
+            g2.setTransform(saved);
+        }
+    }
+
+    private void paintXY(Graphics2D g2, int width, int height, String title, String xLabel, String yLabel,
+                         String seriesName, double[] xs, double[] ys, boolean connect) {
+        prepare(g2, width, height);
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < xs.length; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (xs.length == 0) {
+            minX = minY = 0;
+            maxX = maxY = 1;
+        }
+        double yStep = niceStep(maxY - minY, false);
+        double lower = Math.floor(minY / yStep) * yStep;
+        double upper = Math.max(lower + yStep, Math.ceil(maxY / yStep) * yStep);
+        FontMetrics tickMetrics = g2.getFontMetrics(TICK_FONT);
+        Rectangle2D plot = paintFrame(g2, width, height, title, xLabel, yLabel, seriesName,
+                tickMetrics.getHeight(), lower, upper, yStep, false);
+
+        double xRange = maxX > minX ? maxX - minX : 1;
+        double xStep = niceStep(xRange, false);
+        g2.setFont(TICK_FONT);
+        g2.setPaint(Color.DARK_GRAY);
+        for (double x = Math.ceil(minX / xStep) * xStep; x <= maxX; x += xStep) {
+            double px = plot.getX() + plot.getWidth() * (x - minX) / xRange;
+            String label = formatNumber(x);
+            g2.drawString(label, (float) (px - tickMetrics.stringWidth(label) / 2.0),
+                    (float) (plot.getMaxY() + tickMetrics.getAscent() + 2));
+        }
+
+        g2.setPaint(BAR_COLOR);
+        if (!connect) {
+            Rectangle2D.Double point = new Rectangle2D.Double(0, 0, POINT_SIZE, POINT_SIZE);
+            for (int i = 0; i < xs.length; i++) {
+                point.x = plot.getX() + plot.getWidth() * (xs[i] - minX) / xRange - POINT_SIZE / 2.0;
+                point.y = plot.getMaxY() - plot.getHeight() * (ys[i] - lower) / (upper - lower) - POINT_SIZE / 2.0;
+                g2.fill(point);
+            }
+            return;
+        }
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            double px = plot.getX() + plot.getWidth() * (xs[i] - minX) / xRange;
+            double py = plot.getMaxY() - plot.getHeight() * (ys[i] - lower) / (upper - lower);
+            if (i == 0) {
+                path.moveTo(px, py);
+            } else {
+                path.lineTo(px, py);
+            }
+        }
+        g2.setStroke(LINE_STROKE);
+        g2.draw(path);
+    }
+
+    private void prepare(Graphics2D g2, int width, int height) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setPaint(Color.WHITE);
+        g2.fillRect(0, 0, width, height);
+    }
+
+    // Рисует заголовок, оси, сетку и легенду; возвращает область построения
+    private Rectangle2D paintFrame(Graphics2D g2, int width, int height, String title, String xLabel,
+                                   String yLabel, String seriesName, double xTicksHeight,
+                                   double lower, double upper, double step, boolean integerTicks) {
+        FontMetrics titleMetrics = g2.getFontMetrics(TITLE_FONT);
+        FontMetrics labelMetrics = g2.getFontMetrics(AXIS_LABEL_FONT);
+        FontMetrics tickMetrics = g2.getFontMetrics(TICK_FONT);
+        FontMetrics legendMetrics = g2.getFontMetrics(LEGEND_FONT);
+
+        double maxTickWidth = 0;
+        for (double value = lower; value <= upper + step / 2; value += step) {
+            maxTickWidth = Math.max(maxTickWidth, tickMetrics.stringWidth(formatTick(value, integerTicks)));
+        }
+        double top = PADDING + titleMetrics.getHeight() + PADDING;
+        double left = PADDING + labelMetrics.getHeight() + PADDING + maxTickWidth + 4;
+        double legendHeight = seriesName != null ? legendMetrics.getHeight() + PADDING : 0;
+        double bottom = height - PADDING - legendHeight - labelMetrics.getHeight() - xTicksHeight - 4;
+        double right = width - PADDING * 2;
+        Rectangle2D plot = new Rectangle2D.Double(left, top, right - left, bottom - top);
+
+        g2.setFont(TITLE_FONT);
+        g2.setPaint(Color.BLACK);
+        g2.drawString(title, (float) ((width - titleMetrics.stringWidth(title)) / 2.0),
+                (float) (PADDING + titleMetrics.getAscent()));
+
+        g2.setPaint(PLOT_BACKGROUND);
+        g2.fill(plot);
+
+        g2.setFont(TICK_FONT);
+        g2.setStroke(OUTLINE_STROKE);
+        for (double value = lower; value <= upper + step / 2; value += step) {
+            double y = plot.getMaxY() - plot.getHeight() * (value - lower) / (upper - lower);
+            g2.setPaint(Color.WHITE);
+            g2.draw(new Line2D.Double(plot.getX(), y, plot.getMaxX(), y));
+            String tick = formatTick(value, integerTicks);
+            g2.setPaint(Color.DARK_GRAY);
+            g2.drawString(tick, (float) (plot.getX() - 4 - tickMetrics.stringWidth(tick)),
+                    (float) (y + tickMetrics.getAscent() / 2.0 - 1));
+        }
+        g2.setPaint(AXIS_COLOR);
+        g2.draw(new Line2D.Double(plot.getX(), plot.getY(), plot.getX(), plot.getMaxY()));
+        g2.draw(new Line2D.Double(plot.getX(), plot.getMaxY(), plot.getMaxX(), plot.getMaxY()));
+
+        g2.setFont(AXIS_LABEL_FONT);
+        g2.setPaint(Color.BLACK);
+        g2.drawString(xLabel, (float) (plot.getCenterX() - labelMetrics.stringWidth(xLabel) / 2.0),
+                (float) (plot.getMaxY() + xTicksHeight + 4 + labelMetrics.getAscent()));
+        AffineTransform saved = g2.getTransform();
+        g2.translate(PADDING + labelMetrics.getAscent(), plot.getCenterY() + labelMetrics.stringWidth(yLabel) / 2.0);
+        g2.rotate(-Math.PI / 2);
+        g2.drawString(yLabel, 0, 0);
+        g2.setTransform(saved);
+
+        if (seriesName != null) {
+            g2.setFont(LEGEND_FONT);
+            int box = legendMetrics.getAscent();
+            double legendWidth = box + 4 + legendMetrics.stringWidth(seriesName);
+            double x = (width - legendWidth) / 2.0;
+            double y = height - PADDING - legendMetrics.getHeight();
+            Rectangle2D marker = new Rectangle2D.Double(x, y + (legendMetrics.getHeight() - box) / 2.0, box, box);
+            g2.setPaint(BAR_COLOR);
+            g2.fill(marker);
+            g2.setPaint(Color.BLACK);
+            g2.draw(marker);
+            g2.drawString(seriesName, (float) (x + box + 4), (float) (y + legendMetrics.getAscent()));
+        }
+        return plot;
+    }
+
+    private static double niceStep(double range, boolean integer) {
+        if (range <= 0) {
+            return 1;
+        }
+        double raw = range / TARGET_TICKS;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(raw)));
+        double residual = raw / magnitude;
+        double nice = residual <= 1 ? 1 : residual <= 2 ? 2 : residual <= 5 ? 5 : 10;
+        double step = nice * magnitude;
+        return integer ? Math.max(1, Math.round(step)) : step;
+    }
+
+    private static String formatTick(double value, boolean integer) {
+        return integer ? String.valueOf(Math.round(value)) : formatNumber(value);
+    }
+
+    private static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return String.format("%.1f", value);
+    }
+}
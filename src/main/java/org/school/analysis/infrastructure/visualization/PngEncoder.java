@@ -0,0 +1,349 @@
+package org.school.analysis.infrastructure.visualization;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Кодирование диаграмм в PNG. У диаграмм мало цветов (заливка, сетка, текст), поэтому по умолчанию
+ * пишется палитровый PNG с байтом на пиксель, а уровень сжатия задает баланс скорости и размера.
+ */
+public class PngEncoder {
+    public static final int DEFAULT_COMPRESSION_LEVEL = 4;
+    private static final int MAX_PALETTE_SIZE = 256;
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int COLOR_TYPE_PALETTE = 3;
+    private static final int COLOR_TYPE_RGBA = 6;
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+
+    private final boolean palette;
+    private final int compressionLevel;
+
+    public PngEncoder() {
+        this(true, DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    public PngEncoder(boolean palette, int compressionLevel) {
+        if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Уровень сжатия PNG должен быть от 0 до 9");
+        }
+        this.palette = palette;
+        this.compressionLevel = compressionLevel;
+    }
+
+    public boolean isPalette() {
+        return palette;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Краткое описание настроек, входит в ключ кэша диаграмм.
+     */
+    public String getProfile() {
+        return (palette ? "palette" : "rgb") + "-z" + compressionLevel;
+    }
+
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = argbPixels(image);
+        boolean opaque = isOpaque(pixels);
+
+        out.write(SIGNATURE);
+        if (palette) {
+            Palette colors = Palette.build(pixels);
+            writeHeader(out, width, height, COLOR_TYPE_PALETTE);
+            writePalette(out, colors, opaque);
+            writeImageData(out, width, height, 1, FILTER_NONE, (y, row) -> {
+                int offset = y * width;
+                int lastColor = pixels[offset];
+                int lastIndex = colors.indexOf(lastColor);
+                for (int x = 0; x < width; x++) {
+                    int color = pixels[offset + x];
+                    if (color != lastColor) {
+                        lastColor = color;
+                        lastIndex = colors.indexOf(color);
+                    }
+                    row[x] = (byte) lastIndex;
+                }
+            });
+        } else {
+            int channels = opaque ? 3 : 4;
+            writeHeader(out, width, height, opaque ? COLOR_TYPE_RGB : COLOR_TYPE_RGBA);
+            writeImageData(out, width, height, channels, FILTER_SUB, (y, row) -> {
+                int offset = y * width;
+                for (int x = 0, i = 0; x < width; x++) {
+                    int argb = pixels[offset + x];
+                    row[i++] = (byte) (argb >>> 16);
+                    row[i++] = (byte) (argb >>> 8);
+                    row[i++] = (byte) argb;
+                    if (channels == 4) {
+                        row[i++] = (byte) (argb >>> 24);
+                    }
+                }
+            });
+        }
+        writeChunk(out, "IEND", new byte[0], 0);
+    }
+
+    private int[] argbPixels(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getRaster().getParent() == null) {
+            // Картинка из ChartRenderService: читаем пиксели без копирования
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private boolean isOpaque(int[] pixels) {
+        for (int pixel : pixels) {
+            if (pixel >>> 24 != 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeHeader(OutputStream out, int width, int height, int colorType) throws IOException {
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;
+        header[9] = (byte) colorType;
+        writeChunk(out, "IHDR", header, header.length);
+    }
+
+    private void writePalette(OutputStream out, Palette colors, boolean opaque) throws IOException {
+        byte[] rgb = new byte[colors.size * 3];
+        byte[] alpha = new byte[colors.size];
+        for (int i = 0; i < colors.size; i++) {
+            int argb = colors.colors[i];
+            rgb[i * 3] = (byte) (argb >>> 16);
+            rgb[i * 3 + 1] = (byte) (argb >>> 8);
+            rgb[i * 3 + 2] = (byte) argb;
+            alpha[i] = (byte) (argb >>> 24);
+        }
+        writeChunk(out, "PLTE", rgb, rgb.length);
+        if (!opaque) {
+            writeChunk(out, "tRNS", alpha, alpha.length);
+        }
+    }
+
+    private void writeImageData(OutputStream out, int width, int height, int bytesPerPixel, int filter,
+                                RowWriter rowWriter) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(64 * 1024);
+        Deflater deflater = new Deflater(compressionLevel);
+        try (DeflaterOutputStream deflated = new DeflaterOutputStream(compressed, deflater, 64 * 1024)) {
+            byte[] row = new byte[width * bytesPerPixel];
+            byte[] filtered = new byte[row.length + 1];
+            filtered[0] = (byte) filter;
+            for (int y = 0; y < height; y++) {
+                rowWriter.write(y, row);
+                if (filter == FILTER_SUB) {
+                    System.arraycopy(row, 0, filtered, 1, bytesPerPixel);
+                    for (int i = bytesPerPixel; i < row.length; i++) {
+                        filtered[i + 1] = (byte) (row[i] - row[i - bytesPerPixel]);
+                    }
+                } else {
+                    System.arraycopy(row, 0, filtered, 1, row.length);
+                }
+                deflated.write(filtered);
+            }
+        } finally {
+            deflater.end();
+        }
+        writeChunk(out, "IDAT", compressed.toByteArray(), compressed.size());
+    }
+
+    private void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] lengthBytes = new byte[4];
+        putInt(lengthBytes, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        byte[] crcBytes = new byte[4];
+        putInt(crcBytes, 0, (int) crc.getValue());
+        out.write(lengthBytes);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.write(crcBytes);
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private interface RowWriter {
+        void write(int y, byte[] row);
+    }
+
+    /**
+     * Палитра из самых частых цветов. Редкие цвета сглаживания, которым не хватило места,
+     * заменяются ближайшим цветом палитры.
+     */
+    private static final class Palette {
+        private final int[] colors;
+        private final int size;
+        private final IntIntMap indexes;
+
+        private Palette(int[] colors, int size, IntIntMap indexes) {
+            this.colors = colors;
+            this.size = size;
+            this.indexes = indexes;
+        }
+
+        private static Palette build(int[] pixels) {
+            IntIntMap counts = new IntIntMap();
+            int index = 0;
+            while (index < pixels.length) {
+                // На диаграммах длинные одноцветные участки, считаем их целиком
+                int color = pixels[index];
+                int run = 1;
+                while (index + run < pixels.length && pixels[index + run] == color) {
+                    run++;
+                }
+                counts.add(color, run);
+                index += run;
+            }
+
+            int[] distinct = counts.keys();
+            if (distinct.length > MAX_PALETTE_SIZE) {
+                long[] byCount = new long[distinct.length];
+                for (int i = 0; i < distinct.length; i++) {
+                    byCount[i] = ((long) counts.get(distinct[i]) << 32) | (distinct[i] & 0xFFFFFFFFL);
+                }
+                Arrays.sort(byCount);
+                distinct = new int[MAX_PALETTE_SIZE];
+                for (int i = 0; i < MAX_PALETTE_SIZE; i++) {
+                    distinct[i] = (int) byCount[byCount.length - 1 - i];
+                }
+            }
+
+            IntIntMap indexes = new IntIntMap();
+            for (int i = 0; i < distinct.length; i++) {
+                indexes.put(distinct[i], i);
+            }
+            for (int color : counts.keys()) {
+                if (indexes.get(color) < 0) {
+                    indexes.put(color, nearest(distinct, color));
+                }
+            }
+            return new Palette(distinct, distinct.length, indexes);
+        }
+
+        private static int nearest(int[] palette, int color) {
+            int best = 0;
+            long bestDistance = Long.MAX_VALUE;
+            for (int i = 0; i < palette.length; i++) {
+                long distance = 0;
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int delta = ((palette[i] >>> shift) & 0xFF) - ((color >>> shift) & 0xFF);
+                    distance += (long) delta * delta;
+                }
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        private int indexOf(int color) {
+            return indexes.get(color);
+        }
+    }
+
+    /**
+     * Открытая адресация int -> int без упаковки в Integer, значения неотрицательные.
+     */
+    private static final class IntIntMap {
+        private int[] keys = new int[1024];
+        private int[] values = new int[1024];
+        private boolean[] used = new boolean[1024];
+        private int size;
+
+        private void add(int key, int delta) {
+            int slot = slot(key);
+            if (used[slot]) {
+                values[slot] += delta;
+            } else {
+                insert(slot, key, delta);
+            }
+        }
+
+        private void put(int key, int value) {
+            int slot = slot(key);
+            if (used[slot]) {
+                values[slot] = value;
+            } else {
+                insert(slot, key, value);
+            }
+        }
+
+        private int get(int key) {
+            int slot = slot(key);
+            return used[slot] ? values[slot] : -1;
+        }
+
+        private int[] keys() {
+            int[] result = new int[size];
+            for (int i = 0, j = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    result[j++] = keys[i];
+                }
+            }
+            return result;
+        }
+
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void insert(int slot, int key, int value) {
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    insert(slot(oldKeys[i]), oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
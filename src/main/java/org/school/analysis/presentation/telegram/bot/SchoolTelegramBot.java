@@ -1,65 +1,196 @@
 package org.school.analysis.presentation.telegram.bot;
 
+import org.school.analysis.infrastructure.jfr.FlightRecorderControl;
+import org.school.analysis.infrastructure.jfr.UpdateEvent;
+import org.school.analysis.infrastructure.logging.RateLimitedLogger;
+import org.school.analysis.infrastructure.metrics.LatencyHistogram;
+import org.school.analysis.infrastructure.metrics.MetricsRegistry;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+import org.school.analysis.infrastructure.tracing.RequestLog;
+import org.school.analysis.infrastructure.tracing.RequestStage;
+import org.school.analysis.presentation.telegram.dispatch.PriorityDispatcher;
+import org.school.analysis.presentation.telegram.dispatch.UpdateLane;
 import org.school.analysis.presentation.telegram.ports.ChartHandler;
 import org.school.analysis.presentation.telegram.ports.CommandHandler;
 import org.school.analysis.presentation.telegram.ports.DataHandler;
 import org.school.analysis.presentation.telegram.ports.QueryHandler;
+import org.school.analysis.presentation.telegram.util.BotStage;
 import org.school.analysis.presentation.telegram.util.MessageSender;
+import org.school.analysis.presentation.telegram.util.ThreadPoolManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 
 
 public class SchoolTelegramBot extends TelegramLongPollingBot {
     private static final Logger logger = LoggerFactory.getLogger(SchoolTelegramBot.class);
+    // Переполнение очередей случается пачками, каждое отклонение в лог не пишем
+    private static final RateLimitedLogger limitedLogger = new RateLimitedLogger(logger);
     private final String botUsername;
     private final String botToken;
+    public static final String BUSY_MESSAGE = "Бот сейчас перегружен, попробуйте позже";
+    private static final String UNKNOWN_COMMAND_MESSAGE = "Неизвестная команда. Используйте /help для списка команд";
+    private static final int STATUS_SLOW_REQUESTS = 5;
+    private static final int CHEAP_UPDATE_COST = 1;
+    private static final int HEAVY_UPDATE_COST = 4;
+    private static final int MAX_PENDING_UPDATES_PER_CHAT = 20;
     private final ExecutorService executorService;
+    private final PriorityDispatcher dispatcher;
     private final MessageSender messageSender;
     private final CommandHandler commandHandler;
     private final QueryHandler queryHandler;
     private final ChartHandler chartHandler;
     private final DataHandler dataHandler;
+    private final Set<Long> adminChatIds;
+    private final FlightRecorderControl flightRecorder;
+    // Воркер фоновой полосы не ждет Bot API: его сообщения уходят через этап отправки
+    private final ThreadLocal<Boolean> deferSends = ThreadLocal.withInitial(() -> false);
 
     public SchoolTelegramBot(String botToken, String botUsername, CommandHandler commandHandler, QueryHandler queryHandler,
                              ChartHandler chartHandler, DataHandler dataHandler) {
-        super(botToken);
+        this(botToken, botUsername, commandHandler, queryHandler, chartHandler, dataHandler, Collections.emptySet(),
+                new FlightRecorderControl(Paths.get("recordings")));
+    }
+
+    public SchoolTelegramBot(String botToken, String botUsername, CommandHandler commandHandler, QueryHandler queryHandler,
+                             ChartHandler chartHandler, DataHandler dataHandler, Set<Long> adminChatIds,
+                             FlightRecorderControl flightRecorder) {
+        this(new DefaultBotOptions(), botToken, botUsername, commandHandler, queryHandler, chartHandler, dataHandler,
+                adminChatIds, flightRecorder);
+    }
+
+    /**
+     * В options можно задать адрес Bot API, например локальной заглушки для нагрузочных тестов.
+     */
+    public SchoolTelegramBot(DefaultBotOptions options, String botToken, String botUsername,
+                             CommandHandler commandHandler, QueryHandler queryHandler, ChartHandler chartHandler,
+                             DataHandler dataHandler, Set<Long> adminChatIds, FlightRecorderControl flightRecorder) {
+        super(options, botToken);
         this.botToken = botToken;
         this.botUsername = botUsername;
         this.executorService = createExecutorService();
+        // Фоновая полоса работает на пуле приема обновлений, быстрая - на пуле команд
+        this.dispatcher = new PriorityDispatcher(lane -> lane == UpdateLane.BACKGROUND
+                ? executorService : ThreadPoolManager.getExecutor(lane.getStage()),
+                HEAVY_UPDATE_COST, MAX_PENDING_UPDATES_PER_CHAT);
         this.messageSender = new MessageSender(this);
         this.commandHandler = commandHandler;
         this.queryHandler = queryHandler;
         this.chartHandler = chartHandler;
         this.dataHandler = dataHandler;
-        logger.info("SchoolTelegramBot инициализирован: @{}", botUsername);
+        this.adminChatIds = adminChatIds;
+        this.flightRecorder = flightRecorder;
+        registerDispatcherGauges();
+        logger.info("SchoolTelegramBot инициализирован: @{} (режим {})", botUsername,
+                ThreadPoolManager.getExecutionMode());
+    }
+
+    private void registerDispatcherGauges() {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        for (UpdateLane lane : UpdateLane.values()) {
+            String label = laneLabel(lane);
+            metrics.gauge("school_bot_dispatcher_pending", () -> dispatcher.getPendingCount(lane), "lane", label);
+            metrics.gauge("school_bot_dispatcher_active_chats", () -> dispatcher.getActiveChatCount(lane),
+                    "lane", label);
+            metrics.gauge("school_bot_dispatcher_slo_misses", () -> dispatcher.getSloMisses(lane), "lane", label);
+        }
+    }
+
+    private static String laneLabel(UpdateLane lane) {
+        return lane.name().toLowerCase();
     }
 
     private ExecutorService createExecutorService() {
-        int corePoolSize = Runtime.getRuntime().availableProcessors() * 2;
-        return Executors.newFixedThreadPool(corePoolSize, r -> {
-            Thread thread = new Thread(r);
-            thread.setName("telegram-bot-worker-" + thread.getId());
-            thread.setDaemon(true);
-            return thread;
-        });
+        return ThreadPoolManager.getExecutor(BotStage.INGRESS);
     }
 
     @Override
     public void onUpdateReceived(Update update) {
-        executorService.submit(() -> {
-            try {
-                processUpdate(update);
-            } catch (Exception e) {
-                logger.error("Ошибка обработки обновления", e);
-            }
-        });
+        Long chatId = getChatId(update);
+        if (chatId == null) {
+            return;
+        }
+        long received = System.nanoTime();
+        // Тяжелые обновления расходуют больше кванта, поэтому чат с /load и диаграммами не вытесняет остальных
+        UpdateLane lane = classifyUpdate(update);
+        int cost = lane == UpdateLane.INTERACTIVE ? CHEAP_UPDATE_COST : HEAVY_UPDATE_COST;
+        MetricsRegistry metrics = MetricsRegistry.global();
+        String label = laneLabel(lane);
+        metrics.counter("school_bot_updates_total", "lane", label).increment();
+        // Запрос завершается, когда отпущены и задача диспетчера, и все задачи, порожденные обработчиками
+        RequestContext request = RequestContext.start(chatId, requestKind(update), received, RequestLog.global());
+        request.retain();
+        if (update.hasCallbackQuery()) {
+            // Подтверждение нажатия не ждет очереди полосы, иначе у кнопки крутится индикатор
+            answerCallbackQueryAsync(update.getCallbackQuery().getId());
+        }
+        try {
+            dispatcher.submit(lane, chatId, cost, () -> {
+                long started = System.nanoTime();
+                metrics.histogram("school_bot_dispatch_wait_seconds", "lane", label).record(started - received);
+                request.add(RequestStage.QUEUE, started - received);
+                UpdateEvent event = UpdateEvent.begin(request.getId(), chatId, request.getKind(), label);
+                deferSends.set(lane == UpdateLane.BACKGROUND);
+                try {
+                    request.run(() -> processUpdate(update));
+                } catch (Exception e) {
+                    logger.error("Ошибка обработки обновления {}", request.getId(), e);
+                } finally {
+                    deferSends.remove();
+                    event.finish();
+                    metrics.histogram("school_bot_update_processing_seconds", "lane", label).recordSince(started);
+                    request.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            request.release();
+            metrics.counter("school_bot_updates_rejected_total", "lane", label).increment();
+            limitedLogger.warn("rejected:" + label, "Очередь полосы {} переполнена, обновление для чата {} отклонено",
+                    lane, chatId);
+            sendBusy(chatId);
+        } finally {
+            metrics.histogram("school_bot_update_intake_seconds", "lane", label).recordSince(received);
+        }
+    }
+
+    /**
+     * Тип запроса для журнала: команда, данные кнопки или вид сообщения. Текст пользователя в журнал не попадает.
+     */
+    private String requestKind(Update update) {
+        if (update.hasCallbackQuery()) {
+            return String.valueOf(update.getCallbackQuery().getData());
+        }
+        if (update.hasMessage() && update.getMessage().hasText()) {
+            String text = update.getMessage().getText().trim();
+            return text.startsWith("/") ? text.split("\\s+", 2)[0] : "text";
+        }
+        if (update.hasMessage() && update.getMessage().hasDocument()) {
+            return "document";
+        }
+        return "other";
+    }
+
+    private UpdateLane classifyUpdate(Update update) {
+        if (update.hasCallbackQuery()) {
+            return classifyCallback(update.getCallbackQuery().getData());
+        }
+        if (update.hasMessage() && update.getMessage().hasText()) {
+            String text = update.getMessage().getText().trim();
+            return text.startsWith("/") ? classifyCommand(text) : classifyTextMessage(text);
+        }
+        return UpdateLane.INTERACTIVE;
     }
 
     private void processUpdate(Update update) {
@@ -94,7 +225,6 @@ public class SchoolTelegramBot extends TelegramLongPollingBot {
         Long chatId = callbackQuery.getMessage().getChatId();
         String callbackData = callbackQuery.getData();
         try {
-            answerCallbackQuery(callbackQuery.getId());
             if (callbackData.startsWith("query_")) {
                 queryHandler.handleCallback(chatId, callbackData, this);
             } else if (callbackData.startsWith("chart_")) {
@@ -108,13 +238,23 @@ public class SchoolTelegramBot extends TelegramLongPollingBot {
         }
     }
 
+    private UpdateLane classifyCallback(String callbackData) {
+        if (callbackData != null && (callbackData.startsWith("query_") || callbackData.startsWith("chart_")
+                || callbackData.startsWith("data_"))) {
+            return UpdateLane.BACKGROUND;
+        }
+        return UpdateLane.INTERACTIVE;
+    }
+
     private void processDocument(org.telegram.telegrambots.meta.api.objects.Message message) {
         Long chatId = message.getChatId();
         sendText(chatId, "Загрузка файлов через Telegram недоступна");
     }
 
     private void handleCommand(Long chatId, String command) {
-        String normalizedCommand = command.split("@")[0].toLowerCase();
+        String[] parts = command.trim().split("\\s+", 2);
+        String normalizedCommand = parts[0].split("@")[0].toLowerCase();
+        String arguments = parts.length > 1 ? parts[1] : "";
         switch (normalizedCommand) {
             case "/start":
                 commandHandler.sendWelcome(chatId, this);
@@ -131,14 +271,68 @@ public class SchoolTelegramBot extends TelegramLongPollingBot {
             case "/charts":
                 chartHandler.showMenu(chatId, this);
                 break;
+            case "/chart":
+                chartHandler.handleChartCommand(chatId, arguments, this);
+                break;
+            case "/dashboard":
+                chartHandler.showDashboard(chatId, this);
+                break;
             case "/stats":
                 dataHandler.showStatistics(chatId, this);
                 break;
             case "/status":
                 sendBotStatus(chatId);
                 break;
+            case "/jfr":
+                handleFlightRecorderCommand(chatId, arguments);
+                break;
+            default:
+                sendText(chatId, UNKNOWN_COMMAND_MESSAGE);
+        }
+    }
+
+    // Команда администратора, для остальных чатов ее как будто нет
+    private void handleFlightRecorderCommand(Long chatId, String arguments) {
+        if (!adminChatIds.contains(chatId)) {
+            sendText(chatId, UNKNOWN_COMMAND_MESSAGE);
+            return;
+        }
+        try {
+            switch (arguments.trim().toLowerCase()) {
+                case "start":
+                    sendText(chatId, flightRecorder.start()
+                            ? "Запись JFR запущена" : "Запись JFR уже идет");
+                    break;
+                case "dump":
+                    Path dumped = flightRecorder.dump();
+                    sendText(chatId, dumped != null
+                            ? "Запись JFR сохранена: " + dumped.toAbsolutePath() : "Запись JFR не запущена");
+                    break;
+                case "stop":
+                    Path stopped = flightRecorder.stop();
+                    sendText(chatId, stopped != null
+                            ? "Запись JFR остановлена и сохранена: " + stopped.toAbsolutePath() : "Запись JFR не запущена");
+                    break;
+                default:
+                    sendText(chatId, String.format("Запись JFR %s\nИспользование: /jfr start | dump | stop",
+                            flightRecorder.isRecording() ? "идет" : "не запущена"));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Ошибка управления записью JFR", e);
+            sendText(chatId, "Ошибка управления записью JFR: " + e.getMessage());
+        }
+    }
+
+    private UpdateLane classifyCommand(String command) {
+        switch (command.trim().split("\\s+", 2)[0].split("@")[0].toLowerCase()) {
+            case "/load":
+            case "/chart":
+            case "/dashboard":
+            case "/stats":
+            case "/jfr":
+                return UpdateLane.BACKGROUND;
             default:
-                sendText(chatId, "Неизвестная команда. Используйте /help для списка команд");
+                return UpdateLane.INTERACTIVE;
         }
     }
 
@@ -167,18 +361,44 @@ public class SchoolTelegramBot extends TelegramLongPollingBot {
         }
     }
 
+    private UpdateLane classifyTextMessage(String text) {
+        switch (text) {
+            case "Загрузить данные":
+            case "Статистика":
+                return UpdateLane.BACKGROUND;
+            default:
+                return UpdateLane.INTERACTIVE;
+        }
+    }
+
     private void sendBotStatus(Long chatId) {
-        String status = String.format("""
-            Статус бота
-            
-            Потоков в пуле: %d/%d
-            Завершено задач: %d
-            """,
-                ((java.util.concurrent.ThreadPoolExecutor) executorService).getActiveCount(),
-                ((java.util.concurrent.ThreadPoolExecutor) executorService).getPoolSize(),
-                ((java.util.concurrent.ThreadPoolExecutor) executorService).getCompletedTaskCount()
-        );
-        sendText(chatId, status);
+        StringBuilder status = new StringBuilder();
+        status.append("Статус бота\n\n");
+        status.append(String.format("Режим выполнения: %s\n", ThreadPoolManager.getExecutionMode()));
+        for (UpdateLane lane : UpdateLane.values()) {
+            status.append(String.format("Полоса %s: чатов %d, ожидает %d, превышений SLO %d\n", lane,
+                    dispatcher.getActiveChatCount(lane), dispatcher.getPendingCount(lane),
+                    dispatcher.getSloMisses(lane)));
+            LatencyHistogram wait = MetricsRegistry.global().histogram("school_bot_dispatch_wait_seconds",
+                    "lane", laneLabel(lane));
+            status.append(String.format("  ожидание p50/p99: %.1f/%.1f мс (обновлений %d)\n",
+                    wait.getPercentileMicros(0.5) / 1000.0, wait.getPercentileMicros(0.99) / 1000.0,
+                    wait.getCount()));
+        }
+        for (BotStage stage : BotStage.values()) {
+            status.append(String.format("%s: активно %d, в очереди %d\n", stage,
+                    ThreadPoolManager.getActiveCount(stage), ThreadPoolManager.getQueueDepth(stage)));
+        }
+        List<String> slowRequests = RequestLog.global().getRecentSlowRequests();
+        if (!slowRequests.isEmpty()) {
+            status.append(String.format("\nМедленные запросы (дольше %d мс):\n",
+                    RequestLog.global().getSlowThresholdMillis()));
+            int from = Math.max(0, slowRequests.size() - STATUS_SLOW_REQUESTS);
+            for (String record : slowRequests.subList(from, slowRequests.size())) {
+                status.append(record).append('\n');
+            }
+        }
+        sendText(chatId, status.toString());
     }
 
     private Long getChatId(Update update) {
@@ -195,14 +415,43 @@ public class SchoolTelegramBot extends TelegramLongPollingBot {
             execute(org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery.builder()
                     .callbackQueryId(callbackQueryId).build());
         } catch (TelegramApiException e) {
-            logger.warn("Не удалось отправить подтверждение callback: {}", e.getMessage());
+            limitedLogger.warn("answerCallbackQuery", "Не удалось отправить подтверждение callback: {}", e.getMessage());
         }
     }
 
+    private void answerCallbackQueryAsync(String callbackQueryId) {
+        try {
+            ThreadPoolManager.getExecutor(BotStage.SENDS).execute(() -> answerCallbackQuery(callbackQueryId));
+        } catch (RejectedExecutionException e) {
+            limitedLogger.warn("answerCallbackQuery", "Очередь отправки переполнена, подтверждение callback отброшено");
+        }
+    }
+
+    /**
+     * На воркере фоновой полосы текст (например, о начале долгой операции) ставится в очередь этапа отправки,
+     * чтобы воркер сразу брал следующий чат. При переполнении очереди текст отправляется сразу.
+     */
     public void sendText(Long chatId, String text) {
+        if (deferSends.get()) {
+            try {
+                ThreadPoolManager.getExecutor(BotStage.SENDS).execute(() -> messageSender.sendText(chatId, text));
+                return;
+            } catch (RejectedExecutionException e) {
+                logger.debug("Очередь отправки переполнена, сообщение для чата {} отправляется сразу", chatId);
+            }
+        }
         messageSender.sendText(chatId, text);
     }
 
+    public void sendBusy(Long chatId) {
+        try {
+            ThreadPoolManager.getExecutor(BotStage.SENDS).execute(() -> sendText(chatId, BUSY_MESSAGE));
+        } catch (RejectedExecutionException e) {
+            limitedLogger.warn("busy-dropped", "Очередь отправки переполнена, ответ о перегрузке для чата {} отброшен",
+                    chatId);
+        }
+    }
+
     public void sendMenu(Long chatId, String text,
                          org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard keyboard) {
         messageSender.sendMenu(chatId, text, keyboard);
@@ -227,15 +476,8 @@ public class SchoolTelegramBot extends TelegramLongPollingBot {
     }
 
     public void shutdown() {
-        try {
-            executorService.shutdown();
-            if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
-            }
-            logger.info("Бот завершил работу");
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+        dispatcher.shutdown();
+        ThreadPoolManager.shutdown(BotStage.INGRESS, BotStage.COMMANDS);
+        logger.info("Бот завершил работу");
     }
 }
\ No newline at end of file
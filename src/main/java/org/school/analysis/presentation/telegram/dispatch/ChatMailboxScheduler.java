@@ -0,0 +1,166 @@
+package org.school.analysis.presentation.telegram.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Почтовые ящики по чатам: обновления одного чата выполняются строго по очереди,
+ * а между активными чатами воркеры ходят по кругу (deficit round-robin),
+ * поэтому активный пользователь не отодвигает остальных.
+ */
+public class ChatMailboxScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ChatMailboxScheduler.class);
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final BlockingQueue<Mailbox> activeChats = new LinkedBlockingQueue<>();
+    private final AtomicInteger pendingTotal = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final int quantum;
+    private final int maxPendingPerChat;
+    private final int maxPendingTotal;
+    private volatile boolean running = true;
+
+    public ChatMailboxScheduler(ExecutorService workers, int workerCount, int quantum,
+                                int maxPendingPerChat, int maxPendingTotal) {
+        if (workerCount <= 0 || quantum <= 0 || maxPendingPerChat <= 0 || maxPendingTotal <= 0) {
+            throw new IllegalArgumentException("Параметры планировщика должны быть положительными");
+        }
+        this.workers = workers;
+        this.workerCount = workerCount;
+        this.quantum = quantum;
+        this.maxPendingPerChat = maxPendingPerChat;
+        this.maxPendingTotal = maxPendingTotal;
+    }
+
+    public void submit(long chatId, int cost, Runnable task) {
+        if (!running) {
+            throw new RejectedExecutionException("Планировщик остановлен");
+        }
+        startWorkers();
+        if (pendingTotal.incrementAndGet() > maxPendingTotal) {
+            pendingTotal.decrementAndGet();
+            throw new RejectedExecutionException("Превышен общий лимит ожидающих обновлений");
+        }
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(chatId, Mailbox::new);
+            boolean activate;
+            synchronized (mailbox) {
+                if (mailbox.retired) {
+                    continue;
+                }
+                if (mailbox.tasks.size() >= maxPendingPerChat) {
+                    pendingTotal.decrementAndGet();
+                    throw new RejectedExecutionException("Превышен лимит ожидающих обновлений для чата " + chatId);
+                }
+                mailbox.tasks.add(new Task(Math.max(1, cost), task));
+                activate = !mailbox.scheduled;
+                mailbox.scheduled = true;
+            }
+            if (activate) {
+                activeChats.offer(mailbox);
+            }
+            return;
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingTotal.get();
+    }
+
+    public int getActiveChatCount() {
+        return mailboxes.size();
+    }
+
+    public void shutdown() {
+        running = false;
+    }
+
+    private void startWorkers() {
+        if (started.compareAndSet(false, true)) {
+            for (int i = 0; i < workerCount; i++) {
+                workers.execute(this::workerLoop);
+            }
+        }
+    }
+
+    private void workerLoop() {
+        while (running) {
+            try {
+                Mailbox mailbox = activeChats.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (mailbox != null) {
+                    drain(mailbox);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        mailbox.deficit += quantum;
+        while (true) {
+            Task next;
+            synchronized (mailbox) {
+                next = mailbox.tasks.peek();
+                if (next == null) {
+                    // Чат опустел: выходим из круга и освобождаем ящик
+                    mailbox.deficit = 0;
+                    mailbox.scheduled = false;
+                    mailbox.retired = true;
+                    mailboxes.remove(mailbox.chatId, mailbox);
+                    return;
+                }
+                if (next.cost > mailbox.deficit) {
+                    break;
+                }
+                mailbox.tasks.poll();
+                mailbox.deficit -= next.cost;
+            }
+            pendingTotal.decrementAndGet();
+            try {
+                next.runnable.run();
+            } catch (Throwable e) {
+                logger.error("Ошибка обработки обновления чата {}", mailbox.chatId, e);
+            }
+        }
+        // Квант исчерпан - в конец круга, чтобы дать очередь другим чатам
+        activeChats.offer(mailbox);
+    }
+
+    private static final class Mailbox {
+        private final long chatId;
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean retired;
+        private int deficit;
+
+        private Mailbox(long chatId) {
+            this.chatId = chatId;
+        }
+    }
+
+    private static final class Task {
+        private final int cost;
+        private final Runnable runnable;
+
+        private Task(int cost, Runnable runnable) {
+            this.cost = cost;
+            this.runnable = runnable;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.school.analysis.presentation.telegram.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Раздает обновления по полосам приоритета. У каждой полосы свой планировщик почтовых ящиков
+ * на своем пуле, поэтому быстрые команды не стоят в очереди за тяжелыми задачами.
+ * Время ожидания в очереди сверяется с SLO полосы. Очередность обновлений одного чата
+ * гарантируется только в пределах полосы.
+ */
+public class PriorityDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(PriorityDispatcher.class);
+
+    private final Map<UpdateLane, ChatMailboxScheduler> schedulers = new EnumMap<>(UpdateLane.class);
+    private final Map<UpdateLane, LongAdder> sloMisses = new EnumMap<>(UpdateLane.class);
+
+    public PriorityDispatcher(Function<UpdateLane, ExecutorService> workers, int quantum, int maxPendingPerChat) {
+        for (UpdateLane lane : UpdateLane.values()) {
+            schedulers.put(lane, new ChatMailboxScheduler(workers.apply(lane), lane.getConcurrency(), quantum,
+                    maxPendingPerChat, lane.getStage().getQueueCapacity()));
+            sloMisses.put(lane, new LongAdder());
+        }
+    }
+
+    public void submit(UpdateLane lane, long chatId, int cost, Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        schedulers.get(lane).submit(chatId, cost, () -> {
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt);
+            if (waitedMillis > lane.getSloMillis()) {
+                sloMisses.get(lane).increment();
+                logger.warn("Полоса {}: обновление чата {} ждало {} мс (SLO {} мс)",
+                        lane, chatId, waitedMillis, lane.getSloMillis());
+            }
+            task.run();
+        });
+    }
+
+    public int getPendingCount(UpdateLane lane) {
+        return schedulers.get(lane).getPendingCount();
+    }
+
+    public int getActiveChatCount(UpdateLane lane) {
+        return schedulers.get(lane).getActiveChatCount();
+    }
+
+    public long getSloMisses(UpdateLane lane) {
+        return sloMisses.get(lane).sum();
+    }
+
+    public void shutdown() {
+        schedulers.values().forEach(ChatMailboxScheduler::shutdown);
+    }
+}
@@ -0,0 +1,37 @@
+package org.school.analysis.presentation.telegram.dispatch;
+
+import org.school.analysis.presentation.telegram.util.BotStage;
+
+/**
+ * Классы приоритета обновлений. Меню и справка идут в быструю полосу, загрузка данных, запросы
+ * и диаграммы - в фоновую. Воркер фоновой полосы только запускает работу на этапах QUERIES, CHARTS
+ * и LOADS, которые сами ограничивают параллельность, поэтому полоса занимает весь пул приема.
+ * Порядок обновлений одного чата соблюдается внутри полосы: /start после /chart может ответить
+ * раньше диаграммы, это и есть цель разделения.
+ */
+public enum UpdateLane {
+    INTERACTIVE(BotStage.COMMANDS, BotStage.COMMANDS.getCorePoolSize(), 200),
+    BACKGROUND(BotStage.INGRESS, BotStage.INGRESS.getCorePoolSize(), 5000);
+
+    private final BotStage stage;
+    private final int concurrency;
+    private final long sloMillis;
+
+    UpdateLane(BotStage stage, int concurrency, long sloMillis) {
+        this.stage = stage;
+        this.concurrency = concurrency;
+        this.sloMillis = sloMillis;
+    }
+
+    public BotStage getStage() {
+        return stage;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public long getSloMillis() {
+        return sloMillis;
+    }
+}
@@ -1,21 +1,59 @@
 package org.school.analysis.presentation.telegram.handlers;
 
 import org.school.analysis.application.ports.output.ChartGenerator;
+import org.school.analysis.domain.dto.ChartRenderResult;
+import org.school.analysis.domain.model.ChartMetric;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.infrastructure.concurrency.SingleFlight;
 import org.school.analysis.presentation.telegram.ports.ChartHandler;
 import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
 import org.school.analysis.presentation.telegram.keyboards.ChartKeyboard;
+import org.school.analysis.presentation.telegram.util.ChartSpecParser;
+import org.school.analysis.presentation.telegram.util.MessageSender;
+import org.school.analysis.presentation.telegram.util.ThreadPoolManager;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class DefaultChartHandler implements ChartHandler {
+    // Кроме них сводка показывает среднее количество студентов; все они рисуются заранее после /load
+    public static final List<ChartSpec> DASHBOARD_SPECS = List.of(
+            ChartSpec.averageByCounty(ChartMetric.EXPENDITURE, ChartSpec.DEFAULT_LIMIT),
+            ChartSpec.histogram(ChartMetric.MATH_SCORE, ChartSpec.DEFAULT_BINS),
+            ChartSpec.scatter(ChartMetric.EXPENDITURE, ChartMetric.MATH_SCORE));
     private final ChartGenerator chartGenerator;
     private final ExecutorService executorService;
+    private final ExecutorService sendExecutor;
+    // Сначала быстрое превью, потом замена на полную диаграмму в том же сообщении
+    private final boolean progressive;
+    // Повторное нажатие кнопки, пока диаграмма рисуется, не запускает новую отрисовку
+    private final SingleFlight<String, Void> callbackFlights = new SingleFlight<>();
 
     public DefaultChartHandler(ChartGenerator chartGenerator, ExecutorService executorService) {
+        this(chartGenerator, executorService, executorService);
+    }
+
+    public DefaultChartHandler(ChartGenerator chartGenerator, ExecutorService executorService,
+                               ExecutorService sendExecutor) {
+        this(chartGenerator, executorService, sendExecutor, false);
+    }
+
+    public DefaultChartHandler(ChartGenerator chartGenerator, ExecutorService executorService,
+                               ExecutorService sendExecutor, boolean progressive) {
         this.chartGenerator = chartGenerator;
         this.executorService = executorService;
+        this.sendExecutor = sendExecutor;
+        this.progressive = progressive;
     }
 
     @Override
@@ -27,6 +65,12 @@ public class DefaultChartHandler implements ChartHandler {
             • Среднее количество студентов по странам
             
             Нажмите на кнопку ниже для создания диаграммы
+            
+            Другие диаграммы строятся командой /chart, например:
+            /chart histogram math
+            /chart scatter expenditure math
+            
+            Все основные диаграммы одним альбомом: /dashboard
             """;
 
         bot.sendInlineMenu(chatId, menu, ChartKeyboard.getChartMenu());
@@ -36,27 +80,185 @@ public class DefaultChartHandler implements ChartHandler {
     public void handleCallback(Long chatId, String callbackData, SchoolTelegramBot bot) {
         switch (callbackData) {
             case "chart_students":
-                createStudentsChartAsync(chatId, bot);
+                callbackFlights.submit(chatId + ":" + callbackData, () -> createStudentsChartAsync(chatId, bot));
                 break;
         }
     }
 
-    private void createStudentsChartAsync(Long chatId, SchoolTelegramBot bot) {
-        bot.sendText(chatId, "Создаю диаграмму студентов по странам");
+    @Override
+    public void handleChartCommand(Long chatId, String arguments, SchoolTelegramBot bot) {
+        ChartSpec spec;
+        try {
+            spec = ChartSpecParser.parse(arguments);
+        } catch (IllegalArgumentException e) {
+            bot.sendText(chatId, e.getMessage() + "\n\n" + ChartSpecParser.USAGE);
+            return;
+        }
+        String progressText = "Создаю диаграмму: " + spec.getTitle();
+        callbackFlights.submit(chatId + ":" + spec.getKey(), () -> progressive
+                ? createChartProgressiveAsync(chatId, bot, progressText, preview -> chartGenerator.render(spec, preview))
+                : createChartAsync(chatId, bot, progressText, () -> chartGenerator.render(spec)));
+    }
 
-        CompletableFuture.runAsync(() -> {
-            try {
-                byte[] chartBytes = chartGenerator.createAverageStudentsChart();
-                String description = chartGenerator.getChartDescription();
+    @Override
+    public void showDashboard(Long chatId, SchoolTelegramBot bot) {
+        callbackFlights.submit(chatId + ":dashboard", () -> createDashboardAsync(chatId, bot));
+    }
+
+    private CompletableFuture<Void> createDashboardAsync(Long chatId, SchoolTelegramBot bot) {
+        Map<String, Supplier<ChartRenderResult>> charts = new LinkedHashMap<>();
+        charts.put("Среднее количество студентов по округам", chartGenerator::renderAverageStudentsChart);
+        for (ChartSpec spec : DASHBOARD_SPECS) {
+            charts.put(spec.getTitle(), () -> chartGenerator.render(spec));
+        }
+        bot.sendText(chatId, "Создаю сводку из " + charts.size() + " диаграмм");
 
-                bot.getMessageSender().sendPhoto(chatId, chartBytes, description);
+        // Все диаграммы рисуются одновременно на пуле диаграмм (по числу ядер), готовые берутся из кэша
+        List<String> titles = new ArrayList<>(charts.keySet());
+        List<CompletableFuture<ChartRenderResult>> renders = new ArrayList<>();
+        CompletableFuture<Void> dashboard;
+        try {
+            for (Supplier<ChartRenderResult> chart : charts.values()) {
+                renders.add(CompletableFuture.supplyAsync(chart, executorService).exceptionally(throwable -> null));
+            }
+            dashboard = CompletableFuture.allOf(renders.toArray(new CompletableFuture[0])).thenAcceptAsync(done -> {
+                List<byte[]> photos = new ArrayList<>();
+                StringBuilder caption = new StringBuilder("Сводка по школам\n");
+                for (int i = 0; i < renders.size(); i++) {
+                    ChartRenderResult rendered = renders.get(i).join();
+                    if (rendered != null) {
+                        photos.add(rendered.getPng());
+                        caption.append("\n").append(photos.size()).append(". ").append(titles.get(i));
+                    } else {
+                        caption.append("\nНе удалось построить: ").append(titles.get(i));
+                    }
+                }
+                if (photos.isEmpty()) {
+                    bot.sendText(chatId, "Ошибка создания сводки. Попробуйте загрузить данные командой /load");
+                    return;
+                }
+                bot.getMessageSender().sendMediaGroup(chatId, photos, MessageSender.fitCaption(caption.toString()));
+            }, sendExecutor);
+        } catch (RejectedExecutionException e) {
+            // Уже принятые отрисовки доработают и попадут в кэш
+            bot.sendBusy(chatId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return dashboard.orTimeout(60, TimeUnit.SECONDS).exceptionally(throwable -> {
+            if (ThreadPoolManager.isRejection(throwable)) {
+                bot.sendBusy(chatId);
+            } else {
+                bot.sendText(chatId, "Таймаут создания сводки");
+            }
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> createStudentsChartAsync(Long chatId, SchoolTelegramBot bot) {
+        String progressText = "Создаю диаграмму студентов по странам";
+        if (progressive) {
+            return createChartProgressiveAsync(chatId, bot, progressText,
+                    chartGenerator::renderAverageStudentsChart);
+        }
+        return createChartAsync(chatId, bot, progressText, chartGenerator::renderAverageStudentsChart);
+    }
+
+    /**
+     * Одна задача на пуле диаграмм: данные читаются один раз, сначала рисуется превью и уходит на этап
+     * отправки, затем полная версия заменяет его через editMessageMedia, поэтому в чате остается одно
+     * сообщение. Готовая полная диаграмма из кэша отправляется сразу, без превью.
+     */
+    private CompletableFuture<Void> createChartProgressiveAsync(Long chatId, SchoolTelegramBot bot, String progressText,
+                                                                Function<Consumer<ChartRenderResult>,
+                                                                        ChartRenderResult> renderer) {
+        bot.sendText(chatId, progressText);
+
+        CompletableFuture<Void> chart;
+        try {
+            AtomicReference<CompletableFuture<Integer>> preview =
+                    new AtomicReference<>(CompletableFuture.completedFuture(null));
+            CompletableFuture<ChartRenderResult> full = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return renderer.apply(rendered -> preview.set(sendPreviewAsync(chatId, bot, rendered)));
+                } catch (Exception e) {
+                    bot.sendText(chatId, "Ошибка создания диаграммы" + e.getMessage());
+                    return null;
+                }
+            }, executorService);
+            // Превью передается до возврата полной диаграммы, поэтому к этому моменту ссылка уже установлена
+            chart = full.thenCompose(rendered -> preview.get().thenAcceptAsync(previewMessageId -> {
+                if (rendered == null) {
+                    return;
+                }
+                MessageSender sender = bot.getMessageSender();
+                if (previewMessageId == null
+                        || !sender.editPhoto(chatId, previewMessageId, rendered.getPng(), rendered.getCaption())) {
+                    sender.sendPhoto(chatId, rendered.getPng(), rendered.getCaption());
+                }
                 bot.sendText(chatId, "Диаграмма успешно создана и отправлена");
+            }, sendExecutor));
+        } catch (RejectedExecutionException e) {
+            bot.sendBusy(chatId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return chart.orTimeout(60, TimeUnit.SECONDS).exceptionally(throwable -> {
+            if (ThreadPoolManager.isRejection(throwable)) {
+                bot.sendBusy(chatId);
+            } else {
+                bot.sendText(chatId, "Таймаут создания диаграммы");
+            }
+            return null;
+        });
+    }
+
+    // Без превью пользователь просто дождется полной диаграммы
+    private CompletableFuture<Integer> sendPreviewAsync(Long chatId, SchoolTelegramBot bot, ChartRenderResult rendered) {
+        try {
+            return CompletableFuture.supplyAsync(() -> bot.getMessageSender().sendPhotoMessage(chatId,
+                    rendered.getPng(), rendered.getCaption()), sendExecutor).exceptionally(throwable -> null);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private CompletableFuture<Void> createChartAsync(Long chatId, SchoolTelegramBot bot, String progressText,
+                                                     Supplier<ChartRenderResult> renderer) {
+        bot.sendText(chatId, progressText);
+
+        CompletableFuture<Void> chart;
+        try {
+            // Отрисовка на этапе диаграмм, загрузка картинки в Telegram - на этапе отправки
+            chart = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return renderer.get();
+                } catch (Exception e) {
+                    bot.sendText(chatId, "Ошибка создания диаграммы" + e.getMessage());
+                    return null;
+                }
+            }, executorService).thenAcceptAsync(rendered -> {
+                if (rendered == null) {
+                    return;
+                }
+                try {
+                    bot.getMessageSender().sendPhoto(chatId, rendered.getPng(), rendered.getCaption());
+                    bot.sendText(chatId, "Диаграмма успешно создана и отправлена");
+                } catch (Exception e) {
+                    bot.sendText(chatId, "Ошибка создания диаграммы" + e.getMessage());
+                }
+            }, sendExecutor);
+        } catch (RejectedExecutionException e) {
+            bot.sendBusy(chatId);
+            return CompletableFuture.completedFuture(null);
+        }
 
-            } catch (Exception e) {
-                bot.sendText(chatId, "Ошибка создания диаграммы" + e.getMessage());
+        return chart.orTimeout(60, TimeUnit.SECONDS).exceptionally(throwable -> {
+            if (ThreadPoolManager.isRejection(throwable)) {
+                bot.sendBusy(chatId);
+            } else {
+                bot.sendText(chatId, "Таймаут создания диаграммы");
             }
-        }, executorService).orTimeout(60, TimeUnit.SECONDS).exceptionally(throwable -> {
-            bot.sendText(chatId, "Таймаут создания диаграммы");
             return null;
         });
     }
@@ -46,6 +46,8 @@ public class DefaultCommandHandler implements CommandHandler {
             /load - Загрузить данные из CSV
             /queries - SQL запросы задания
             /charts - Создать диаграмму
+            /chart <тип> <метрики> - Диаграмма по параметрам
+            /dashboard - Сводка из нескольких диаграмм
             /stats - Статистика БД
             /status - Статус бота
 
@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import java.io.FileInputStream;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 public class DefaultDataHandler implements DataHandler {
@@ -17,12 +18,19 @@ public class DefaultDataHandler implements DataHandler {
 
     private final DatabaseStatisticsPort databaseStatisticsPort;
     private final ExecutorService executorService;
+    private final ExecutorService loadExecutor;
     private final LoadSchoolsUseCase loadSchoolsUseCase;
 
     public DefaultDataHandler(DatabaseStatisticsPort databaseStatisticsPort,
                               ExecutorService executorService, LoadSchoolsUseCase loadSchoolsUseCase) {
+        this(databaseStatisticsPort, executorService, executorService, loadSchoolsUseCase);
+    }
+
+    public DefaultDataHandler(DatabaseStatisticsPort databaseStatisticsPort, ExecutorService executorService,
+                              ExecutorService loadExecutor, LoadSchoolsUseCase loadSchoolsUseCase) {
         this.databaseStatisticsPort = databaseStatisticsPort;
         this.executorService = executorService;
+        this.loadExecutor = loadExecutor;
         this.loadSchoolsUseCase = loadSchoolsUseCase;
     }
 
@@ -30,33 +38,41 @@ public class DefaultDataHandler implements DataHandler {
     public void handleLoadData(Long chatId, SchoolTelegramBot bot) {
         bot.sendText(chatId, "Начинаю загрузку данных из CSV");
 
-        CompletableFuture.runAsync(() -> {
-            try {
-                String filePath = "data/schools.csv";
-                FileInputStream fileInputStream = new FileInputStream(filePath);
-                int loadedCount = loadSchoolsUseCase.execute(fileInputStream);
-                fileInputStream.close();
-                if (loadedCount > 0) {
-                    bot.sendText(chatId, String.format("Успешно загружено %d школ", loadedCount));
-                    bot.sendText(chatId, "Теперь вы можете выполнять запросы и создавать диаграммы!");
-                } else {
-                    bot.sendText(chatId, "Загружено 0 школ. Проверьте CSV файл");
-                }
+        CompletableFuture<Void> load;
+        try {
+            load = CompletableFuture.runAsync(() -> {
+                try {
+                    String filePath = "data/schools.csv";
+                    FileInputStream fileInputStream = new FileInputStream(filePath);
+                    int loadedCount = loadSchoolsUseCase.execute(fileInputStream);
+                    fileInputStream.close();
+                    if (loadedCount > 0) {
+                        bot.sendText(chatId, String.format("Успешно загружено %d школ", loadedCount));
+                        bot.sendText(chatId, "Теперь вы можете выполнять запросы и создавать диаграммы!");
+                    } else {
+                        bot.sendText(chatId, "Загружено 0 школ. Проверьте CSV файл");
+                    }
 
-            } catch (java.io.FileNotFoundException e) {
-                String errorMsg = "Файл data/schools.csv не найден";
-                bot.sendText(chatId, errorMsg);
-                logger.error("CSV файл не найден", e);
+                } catch (java.io.FileNotFoundException e) {
+                    String errorMsg = "Файл data/schools.csv не найден";
+                    bot.sendText(chatId, errorMsg);
+                    logger.error("CSV файл не найден", e);
 
-            } catch (Exception e) {
-                String errorMsg = "Ошибка загрузки " + e.getMessage();
-                if (e.getMessage().contains("Не найдено школ в CSV")) {
-                    errorMsg += "\n\nПроверьте формат CSV файла";
+                } catch (Exception e) {
+                    String errorMsg = "Ошибка загрузки " + e.getMessage();
+                    if (e.getMessage().contains("Не найдено школ в CSV")) {
+                        errorMsg += "\n\nПроверьте формат CSV файла";
+                    }
+                    bot.sendText(chatId, errorMsg);
+                    logger.error("Ошибка загрузки данных", e);
                 }
-                bot.sendText(chatId, errorMsg);
-                logger.error("Ошибка загрузки данных", e);
-            }
-        }, executorService).orTimeout(60, TimeUnit.SECONDS).exceptionally(throwable -> {
+            }, loadExecutor);
+        } catch (RejectedExecutionException e) {
+            bot.sendText(chatId, "Загрузка данных уже выполняется, попробуйте позже");
+            return;
+        }
+
+        load.orTimeout(60, TimeUnit.SECONDS).exceptionally(throwable -> {
             bot.sendText(chatId, "Таймаут загрузки данных.");
             return null;
         });
@@ -65,15 +81,23 @@ public class DefaultDataHandler implements DataHandler {
     @Override
     public void showStatistics(Long chatId, SchoolTelegramBot bot) {
         bot.sendText(chatId, "Получаю статистику БД");
-        CompletableFuture.runAsync(() -> {
-            try {
-                String stats = databaseStatisticsPort.getDatabaseStatistics();
-                bot.sendText(chatId, stats);
-            } catch (Exception e) {
-                bot.sendText(chatId, "Ошибка получения статистики: " + e.getMessage());
-                logger.error("Ошибка получения статистики базы данных", e);
-            }
-        }, executorService).orTimeout(30, TimeUnit.SECONDS).exceptionally(throwable -> {
+        CompletableFuture<Void> statistics;
+        try {
+            statistics = CompletableFuture.runAsync(() -> {
+                try {
+                    String stats = databaseStatisticsPort.getDatabaseStatistics();
+                    bot.sendText(chatId, stats);
+                } catch (Exception e) {
+                    bot.sendText(chatId, "Ошибка получения статистики: " + e.getMessage());
+                    logger.error("Ошибка получения статистики базы данных", e);
+                }
+            }, executorService);
+        } catch (RejectedExecutionException e) {
+            bot.sendBusy(chatId);
+            return;
+        }
+
+        statistics.orTimeout(30, TimeUnit.SECONDS).exceptionally(throwable -> {
             bot.sendText(chatId, "Таймаут получения статистики");
             return null;
         });
@@ -3,24 +3,37 @@ package org.school.analysis.presentation.telegram.handlers;
 import org.school.analysis.application.services.SchoolStatisticsService;
 import org.school.analysis.presentation.telegram.ports.QueryHandler;
 import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.infrastructure.concurrency.SingleFlight;
 import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
 import org.school.analysis.presentation.telegram.keyboards.QueryKeyboard;
+import org.school.analysis.presentation.telegram.util.ThreadPoolManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class DefaultQueryHandler implements QueryHandler {
     private static final Logger logger = LoggerFactory.getLogger(DefaultQueryHandler.class);
 
     private final SchoolStatisticsService statisticsService; // Используем сервис напрямую
     private final ExecutorService executorService;
+    private final ExecutorService sendExecutor;
+    // Повторное нажатие той же кнопки, пока запрос выполняется, присоединяется к нему
+    private final SingleFlight<String, Void> callbackFlights = new SingleFlight<>();
     public DefaultQueryHandler(SchoolStatisticsService statisticsService, ExecutorService executorService) {
+        this(statisticsService, executorService, executorService);
+    }
+
+    public DefaultQueryHandler(SchoolStatisticsService statisticsService, ExecutorService executorService,
+                               ExecutorService sendExecutor) {
         this.statisticsService = statisticsService;
         this.executorService = executorService;
+        this.sendExecutor = sendExecutor;
     }
 
     public void showMenu(Long chatId, SchoolTelegramBot bot) {
@@ -53,79 +66,81 @@ public class DefaultQueryHandler implements QueryHandler {
     public void handleCallback(Long chatId, String callbackData, SchoolTelegramBot bot) {
         switch (callbackData) {
             case "query_expenditure":
-                executeExpenditureQueryAsync(chatId, bot);
+                coalesce(chatId, callbackData, () -> executeExpenditureQueryAsync(chatId, bot));
                 break;
             case "query_math_schools":
-                executeMathSchoolsQueryAsync(chatId, bot);
+                coalesce(chatId, callbackData, () -> executeMathSchoolsQueryAsync(chatId, bot));
                 break;
             case "query_student_stats":
-                executeStudentStatsQueryAsync(chatId, bot);
+                coalesce(chatId, callbackData, () -> executeStudentStatsQueryAsync(chatId, bot));
                 break;
             case "query_all":
-                executeAllQueriesAsync(chatId, bot);
+                coalesce(chatId, callbackData, () -> executeAllQueriesAsync(chatId, bot));
                 break;
             default:
                 bot.sendText(chatId, "Неизвестный запрос");
         }
     }
 
-    public void executeExpenditureQueryAsync(Long chatId, SchoolTelegramBot bot) {
+    private CompletableFuture<Void> coalesce(Long chatId, String callbackData,
+                                             Supplier<CompletableFuture<Void>> starter) {
+        String key = chatId + ":" + callbackData;
+        if (callbackFlights.isInFlight(key)) {
+            logger.debug("Запрос {} для чата {} уже выполняется, повторное нажатие пропущено", callbackData, chatId);
+        }
+        return callbackFlights.submit(key, starter);
+    }
+
+    public CompletableFuture<Void> executeExpenditureQueryAsync(Long chatId, SchoolTelegramBot bot) {
         bot.sendText(chatId, "Запрос 1: Средние расходы\n\nВыполняю запрос. Это может занять несколько секунд");
 
-        CompletableFuture.runAsync(() -> {
+        return submitQuery(chatId, bot, () -> {
             try {
-                String result = statisticsService.getExpenditureReportForTelegram();
-                bot.sendText(chatId, result);
-
+                return statisticsService.getExpenditureReportForTelegram();
             } catch (Exception e) {
-                String errorMessage = String.format("""
+                return String.format("""
                     Ошибка выполнения запроса
                     
                     %s
                     
                     Попробуйте загрузить данные командой /load
                     """, e.getMessage());
-                bot.sendText(chatId, errorMessage);
             }
-        }, executorService).orTimeout(30, TimeUnit.SECONDS).exceptionally(throwable -> {
-            bot.sendText(chatId, "Таймаут запроса\n\nЗапрос выполняется слишком долго");
+        }).orTimeout(30, TimeUnit.SECONDS).exceptionally(throwable -> {
+            replyOnFailure(chatId, bot, throwable, "Таймаут запроса\n\nЗапрос выполняется слишком долго");
             return null;
         });
     }
 
-    public void executeMathSchoolsQueryAsync(Long chatId, SchoolTelegramBot bot) {
+    public CompletableFuture<Void> executeMathSchoolsQueryAsync(Long chatId, SchoolTelegramBot bot) {
         bot.sendText(chatId, "Запрос 2: Лучшие школы по математике\n\nВыполняю запрос");
 
-        CompletableFuture.runAsync(() -> {
+        return submitQuery(chatId, bot, () -> {
             try {
-                String result = statisticsService.getMathSchoolsReportForTelegram();
-                bot.sendText(chatId, result);
-
+                return statisticsService.getMathSchoolsReportForTelegram();
             } catch (Exception e) {
-                String errorMessage = String.format("""
+                return String.format("""
                     Ошибка выполнения запроса
                     
                     %s
                     
                     Проверьте, есть ли школы с таким количеством студентов в базе
                     """, e.getMessage());
-                bot.sendText(chatId, errorMessage);
             }
-        }, executorService).orTimeout(30, TimeUnit.SECONDS).exceptionally(throwable -> {
-            bot.sendText(chatId, "Таймаут запроса\n\nПопробуйте позже");
+        }).orTimeout(30, TimeUnit.SECONDS).exceptionally(throwable -> {
+            replyOnFailure(chatId, bot, throwable, "Таймаут запроса\n\nПопробуйте позже");
             return null;
         });
     }
 
-    public void executeStudentStatsQueryAsync(Long chatId, SchoolTelegramBot bot) {
+    public CompletableFuture<Void> executeStudentStatsQueryAsync(Long chatId, SchoolTelegramBot bot) {
         bot.sendText(chatId, "Запрос 3: Статистика студентов по странам\n\nПолучаю данные");
 
-        CompletableFuture.runAsync(() -> {
+        return submitQuery(chatId, bot, () -> {
             try {
                 List<CountryStudentStats> stats = statisticsService.getStudentStatistics(10);
                 if (stats == null || stats.isEmpty()) {
-                    bot.sendText(chatId, "Нет данных о студентах\n\nБаза данных пуста. Загрузите данные командой /load");
-                    return;
+                    return "Нет данных о студентах\n\nБаза данных пуста. Загрузите данные командой /load";
                 }
 
                 StringBuilder result = new StringBuilder();
@@ -142,79 +157,99 @@ public class DefaultQueryHandler implements QueryHandler {
                 }
 
                 result.append("Данные основаны на загруженных школах из CSV файла<");
-                bot.sendText(chatId, result.toString());
+                return result.toString();
 
             } catch (Exception e) {
-                String errorMessage = String.format("""
+                return String.format("""
                     Ошибка получения статистики
                     
                     %s
                     
                     Попробуйте загрузить данные командой /load
                     """, e.getMessage());
-                bot.sendText(chatId, errorMessage);
             }
-        }, executorService).orTimeout(30, TimeUnit.SECONDS).exceptionally(throwable -> {
-            bot.sendText(chatId, "Таймаут запроса.\n\nПопробуйте позже");
+        }).orTimeout(30, TimeUnit.SECONDS).exceptionally(throwable -> {
+            replyOnFailure(chatId, bot, throwable, "Таймаут запроса.\n\nПопробуйте позже");
             return null;
         });
     }
 
-    public void executeAllQueriesAsync(Long chatId, SchoolTelegramBot bot) {
+    public CompletableFuture<Void> executeAllQueriesAsync(Long chatId, SchoolTelegramBot bot) {
         bot.sendText(chatId, "Все запросы\n\nЗапускаю параллельное выполнение всех запросов");
 
-        CompletableFuture<Void> expenditureQuery = CompletableFuture.runAsync(() -> {
+        CompletableFuture<Void> expenditureQuery = submitQuery(chatId, bot, () -> {
             try {
-                bot.sendText(chatId, "Запрос 1: Средние расходы\n" +
-                        statisticsService.getExpenditureReportForTelegram());
+                return "Запрос 1: Средние расходы\n" + statisticsService.getExpenditureReportForTelegram();
             } catch (Exception e) {
-                bot.sendText(chatId, "Ошибка в запросе 1: " + e.getMessage());
+                return "Ошибка в запросе 1: " + e.getMessage();
             }
-        }, executorService);
+        });
 
-        CompletableFuture<Void> mathSchoolsQuery = CompletableFuture.runAsync(() -> {
+        CompletableFuture<Void> mathSchoolsQuery = submitQuery(chatId, bot, () -> {
             try {
-                bot.sendText(chatId, "Запрос 2: Лучшие школы по математике\n" +
-                        statisticsService.getMathSchoolsReportForTelegram());
+                return "Запрос 2: Лучшие школы по математике\n" + statisticsService.getMathSchoolsReportForTelegram();
             } catch (Exception e) {
-                bot.sendText(chatId, "Ошибка в запросе 2: " + e.getMessage());
+                return "Ошибка в запросе 2: " + e.getMessage();
             }
-        }, executorService);
+        });
 
-        CompletableFuture<Void> studentStatsQuery = CompletableFuture.runAsync(() -> {
+        CompletableFuture<Void> studentStatsQuery = submitQuery(chatId, bot, () -> {
             try {
                 List<CountryStudentStats> stats = statisticsService.getStudentStatistics(5);
-                if (stats != null && !stats.isEmpty()) {
-                    StringBuilder result = new StringBuilder();
-                    result.append("Запрос 3: Статистика студентов (топ-5)\n\n");
-
-                    for (int i = 0; i < Math.min(3, stats.size()); i++) {
-                        CountryStudentStats stat = stats.get(i);
-                        result.append(String.format("%s: %.1f студентов в среднем\n",
-                                stat.getCountryName(), stat.getAvgStudents()));
-                    }
-
-                    if (stats.size() > 3) {
-                        result.append(String.format("\n.. и еще %d стран", stats.size() - 3));
-                    }
-                    bot.sendText(chatId, result.toString());
+                if (stats == null || stats.isEmpty()) {
+                    return null;
                 }
+                StringBuilder result = new StringBuilder();
+                result.append("Запрос 3: Статистика студентов (топ-5)\n\n");
+
+                for (int i = 0; i < Math.min(3, stats.size()); i++) {
+                    CountryStudentStats stat = stats.get(i);
+                    result.append(String.format("%s: %.1f студентов в среднем\n",
+                            stat.getCountryName(), stat.getAvgStudents()));
+                }
+
+                if (stats.size() > 3) {
+                    result.append(String.format("\n.. и еще %d стран", stats.size() - 3));
+                }
+                return result.toString();
             } catch (Exception e) {
-                bot.sendText(chatId, "Ошибка в запросе 3: " + e.getMessage());
+                return "Ошибка в запросе 3: " + e.getMessage();
             }
-        }, executorService);
+        });
 
         CompletableFuture<Void> allQueries = CompletableFuture.allOf(
                 expenditureQuery, mathSchoolsQuery, studentStatsQuery
         );
 
-        allQueries.thenRun(() -> {
+        return allQueries.thenRun(() -> {
             bot.sendText(chatId, "Все запросы выполнены!\n\n" +
                     "Для детального просмотра выберите отдельный запрос из меню");
         }).exceptionally(throwable -> {
-            bot.sendText(chatId, "Некоторые запросы завершились с ошибкой\n\n" +
+            replyOnFailure(chatId, bot, throwable, "Некоторые запросы завершились с ошибкой\n\n" +
                     "Попробуйте выполнить запросы по отдельности.");
             return null;
         });
     }
+
+    private CompletableFuture<Void> submitQuery(Long chatId, SchoolTelegramBot bot, Supplier<String> query) {
+        try {
+            // Запрос выполняется на этапе БД, ответ уходит через этап отправки
+            return CompletableFuture.supplyAsync(query, executorService)
+                    .thenAcceptAsync(message -> {
+                        if (message != null) {
+                            bot.sendText(chatId, message);
+                        }
+                    }, sendExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void replyOnFailure(Long chatId, SchoolTelegramBot bot, Throwable throwable, String message) {
+        if (ThreadPoolManager.isRejection(throwable)) {
+            bot.sendBusy(chatId);
+        } else {
+            bot.sendText(chatId, message);
+        }
+    }
 }
\ No newline at end of file
@@ -5,4 +5,6 @@ import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
 public interface ChartHandler {
     void showMenu(Long chatId, SchoolTelegramBot bot);
     void handleCallback(Long chatId, String callbackData, SchoolTelegramBot bot);
+    void handleChartCommand(Long chatId, String arguments, SchoolTelegramBot bot);
+    void showDashboard(Long chatId, SchoolTelegramBot bot);
 }
\ No newline at end of file
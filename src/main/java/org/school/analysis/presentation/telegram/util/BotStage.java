@@ -0,0 +1,42 @@
+package org.school.analysis.presentation.telegram.util;
+
+public enum BotStage {
+    INGRESS("telegram-ingress-", cores() * 2, cores() * 2, 500),
+    COMMANDS("telegram-commands-", 2, 4, 200),
+    QUERIES("telegram-worker-", 5, 20, 100),
+    CHARTS("telegram-charts-", cores(), cores(), 16),
+    LOADS("telegram-loads-", 1, 1, 1),
+    SENDS("telegram-sends-", 4, 16, 1000);
+
+    private final String threadNamePrefix;
+    private final int corePoolSize;
+    private final int maxPoolSize;
+    private final int queueCapacity;
+
+    BotStage(String threadNamePrefix, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        this.threadNamePrefix = threadNamePrefix;
+        this.corePoolSize = corePoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    private static int cores() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+}
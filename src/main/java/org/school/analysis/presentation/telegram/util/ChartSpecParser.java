@@ -0,0 +1,65 @@
+package org.school.analysis.presentation.telegram.util;
+
+import org.school.analysis.domain.model.ChartMetric;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.domain.model.ChartType;
+
+/**
+ * Разбор аргументов команды /chart в описание диаграммы.
+ */
+public class ChartSpecParser {
+    public static final String USAGE = """
+            Использование: /chart <тип> <метрики> [число] [ШxВ]
+            
+            Типы: bar, histogram, scatter, line
+            Метрики: students, math, read, expenditure
+            
+            Примеры:
+            /chart bar expenditure 15 - средние расходы по 15 округам
+            /chart histogram math 30 - распределение баллов, 30 интервалов
+            /chart scatter expenditure math - расходы и баллы по школам
+            /chart line students read 800x600
+            """;
+
+    public static ChartSpec parse(String arguments) {
+        String[] tokens = arguments == null ? new String[0] : arguments.trim().split("\\s+");
+        if (tokens.length < 2 || tokens[0].isEmpty()) {
+            throw new IllegalArgumentException("Не указаны тип и метрика диаграммы");
+        }
+        ChartType type = ChartType.fromCode(tokens[0]);
+        int next = 1;
+        ChartSpec spec;
+        switch (type) {
+            case BAR:
+                spec = ChartSpec.averageByCounty(ChartMetric.fromCode(tokens[next++]), ChartSpec.DEFAULT_LIMIT);
+                break;
+            case HISTOGRAM:
+                spec = ChartSpec.histogram(ChartMetric.fromCode(tokens[next++]), ChartSpec.DEFAULT_BINS);
+                break;
+            default:
+                if (tokens.length < 3) {
+                    throw new IllegalArgumentException("Для диаграммы " + tokens[0] + " нужны две метрики: X и Y");
+                }
+                ChartMetric xMetric = ChartMetric.fromCode(tokens[next++]);
+                ChartMetric yMetric = ChartMetric.fromCode(tokens[next++]);
+                spec = type == ChartType.LINE ? ChartSpec.line(xMetric, yMetric) : ChartSpec.scatter(xMetric, yMetric);
+        }
+
+        for (int i = next; i < tokens.length; i++) {
+            String token = tokens[i].toLowerCase();
+            if (token.matches("\\d+x\\d+")) {
+                String[] size = token.split("x");
+                spec = spec.withSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            } else if (token.matches("\\d+")) {
+                int count = Integer.parseInt(token);
+                spec = new ChartSpec(spec.getType(), spec.getMetric(), spec.getXMetric(), spec.getGrouping(),
+                        type == ChartType.BAR ? count : spec.getLimit(),
+                        type == ChartType.HISTOGRAM ? count : spec.getBins(),
+                        spec.getMaxPoints(), spec.getWidth(), spec.getHeight());
+            } else {
+                throw new IllegalArgumentException("Непонятный параметр: " + tokens[i]);
+            }
+        }
+        return spec;
+    }
+}
@@ -1,18 +1,37 @@
 package org.school.analysis.presentation.telegram.util;
 
+import org.school.analysis.infrastructure.jfr.TelegramSendEvent;
+import org.school.analysis.infrastructure.logging.RateLimitedLogger;
+import org.school.analysis.infrastructure.metrics.MetricsRegistry;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+import org.school.analysis.infrastructure.tracing.RequestStage;
 import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMedia;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaPhoto;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MessageSender {
     private static final Logger logger = LoggerFactory.getLogger(MessageSender.class);
+    // При 429 или недоступном Telegram падает каждая отправка, в лог идут первые и итог по подавленным
+    private static final RateLimitedLogger limitedLogger = new RateLimitedLogger(logger);
+    public static final int MAX_CAPTION_LENGTH = 1024;
+    private static final String CAPTION_CUT_MARK = "\n…";
+    private static final int MAX_MEDIA_GROUP_SIZE = 10;
+    public static final String SEND_LATENCY_METRIC = "school_bot_telegram_send_seconds";
+    public static final String SEND_ERRORS_METRIC = "school_bot_telegram_send_errors_total";
     private final SchoolTelegramBot bot;
 
     public MessageSender(SchoolTelegramBot bot) {
@@ -38,17 +57,132 @@ public class MessageSender {
             InputFile photo = new InputFile();
             photo.setMedia(new ByteArrayInputStream(photoBytes), "chart.png");
 
-            SendPhoto sendPhoto = SendPhoto.builder().chatId(chatId.toString()).photo(photo).caption(caption).parseMode("HTML")
-                    .build();
+            SendPhoto sendPhoto = SendPhoto.builder().chatId(chatId.toString()).photo(photo).caption(fitCaption(caption))
+                    .parseMode("HTML").build();
 
-            bot.execute(sendPhoto);
+            TelegramSendEvent event = TelegramSendEvent.begin("sendPhoto", chatId, photoBytes.length);
+            long start = System.nanoTime();
+            try {
+                bot.execute(sendPhoto);
+            } finally {
+                recordSend(event, start);
+            }
 
         } catch (TelegramApiException e) {
-            logger.error("Ошибка отправки изображения {}", chatId, e);
+            recordSendError("sendPhoto");
+            limitedLogger.error("sendPhoto", "Ошибка отправки изображения {}", chatId, e);
             sendText(chatId, caption + "\nНе удалось отправить изображение");
         }
     }
 
+    /**
+     * Отправляет изображение и возвращает id сообщения, чтобы потом заменить картинку.
+     * При ошибке возвращает null, без текстовой замены.
+     */
+    public Integer sendPhotoMessage(Long chatId, byte[] photoBytes, String caption) {
+        try {
+            InputFile photo = new InputFile();
+            photo.setMedia(new ByteArrayInputStream(photoBytes), "chart.png");
+
+            SendPhoto sendPhoto = SendPhoto.builder().chatId(chatId.toString()).photo(photo).caption(fitCaption(caption))
+                    .parseMode("HTML").build();
+            TelegramSendEvent event = TelegramSendEvent.begin("sendPhoto", chatId, photoBytes.length);
+            long start = System.nanoTime();
+            Message message;
+            try {
+                message = bot.execute(sendPhoto);
+            } finally {
+                recordSend(event, start);
+            }
+            return message != null ? message.getMessageId() : null;
+        } catch (TelegramApiException e) {
+            recordSendError("sendPhoto");
+            limitedLogger.warn("sendPreview", "Не удалось отправить превью в чат {}: {}", chatId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Заменяет картинку в уже отправленном сообщении (editMessageMedia).
+     * Возвращает false, если Telegram отказал, тогда картинку нужно отправить заново.
+     */
+    public boolean editPhoto(Long chatId, Integer messageId, byte[] photoBytes, String caption) {
+        try {
+            InputMediaPhoto media = new InputMediaPhoto();
+            media.setMedia(new ByteArrayInputStream(photoBytes), "chart.png");
+            media.setCaption(fitCaption(caption));
+            media.setParseMode("HTML");
+
+            EditMessageMedia edit = EditMessageMedia.builder().chatId(chatId.toString()).messageId(messageId)
+                    .media(media).build();
+            TelegramSendEvent event = TelegramSendEvent.begin("editMessageMedia", chatId, photoBytes.length);
+            long start = System.nanoTime();
+            try {
+                bot.execute(edit);
+            } finally {
+                recordSend(event, start);
+            }
+            return true;
+        } catch (TelegramApiException e) {
+            recordSendError("editMessageMedia");
+            limitedLogger.warn("editMessageMedia", "Не удалось заменить изображение {} в чате {}: {}", messageId, chatId,
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Несколько диаграмм одним альбомом: один запрос к Telegram, подпись на первой картинке
+     * показывается как подпись всего альбома.
+     */
+    public void sendMediaGroup(Long chatId, List<byte[]> photos, String caption) {
+        if (photos.isEmpty()) {
+            sendText(chatId, caption);
+            return;
+        }
+        if (photos.size() == 1) {
+            sendPhoto(chatId, photos.get(0), caption);
+            return;
+        }
+        try {
+            List<InputMedia> medias = new ArrayList<>();
+            for (int i = 0; i < photos.size() && i < MAX_MEDIA_GROUP_SIZE; i++) {
+                InputMediaPhoto media = new InputMediaPhoto();
+                media.setMedia(new ByteArrayInputStream(photos.get(i)), "chart" + i + ".png");
+                if (i == 0) {
+                    media.setCaption(fitCaption(caption));
+                    media.setParseMode("HTML");
+                }
+                medias.add(media);
+            }
+            SendMediaGroup group = SendMediaGroup.builder().chatId(chatId.toString()).medias(medias).build();
+            TelegramSendEvent event = TelegramSendEvent.begin("sendMediaGroup", chatId, payloadBytes(photos));
+            long start = System.nanoTime();
+            try {
+                bot.execute(group);
+            } finally {
+                recordSend(event, start);
+            }
+        } catch (TelegramApiException e) {
+            recordSendError("sendMediaGroup");
+            limitedLogger.error("sendMediaGroup", "Ошибка отправки альбома {}", chatId, e);
+            sendText(chatId, caption + "\nНе удалось отправить изображения");
+        }
+    }
+
+    /**
+     * Telegram отклоняет подпись длиннее 1024 символов вместе с картинкой. Длинная подпись
+     * (например, столбцы по всем округам) обрезается по последней целой строке.
+     */
+    public static String fitCaption(String caption) {
+        if (caption == null || caption.length() <= MAX_CAPTION_LENGTH) {
+            return caption;
+        }
+        int limit = MAX_CAPTION_LENGTH - CAPTION_CUT_MARK.length();
+        int lineEnd = caption.lastIndexOf('\n', limit);
+        return caption.substring(0, lineEnd > 0 ? lineEnd : limit) + CAPTION_CUT_MARK;
+    }
+
     private void sendMessage(Long chatId, String text, Object keyboard, boolean parseHtml) {
         try {
             SendMessage.SendMessageBuilder builder = SendMessage.builder().chatId(chatId.toString()).text(text);
@@ -63,10 +197,36 @@ public class MessageSender {
                 }
             }
 
-            bot.execute(builder.build());
+            SendMessage message = builder.build();
+            TelegramSendEvent event = TelegramSendEvent.begin("sendMessage", chatId, text.length());
+            long start = System.nanoTime();
+            try {
+                bot.execute(message);
+            } finally {
+                recordSend(event, start);
+            }
         } catch (TelegramApiException e) {
-            logger.error("шибка отправки изображения {}", chatId, e);
+            recordSendError("sendMessage");
+            limitedLogger.error("sendMessage", "Ошибка отправки сообщения {}", chatId, e);
+        }
+    }
+
+    private static int payloadBytes(List<byte[]> photos) {
+        int total = 0;
+        for (byte[] photo : photos) {
+            total += photo.length;
         }
+        return total;
+    }
+
+    private void recordSend(TelegramSendEvent event, long startNanos) {
+        event.finish();
+        MetricsRegistry.global().histogram(SEND_LATENCY_METRIC, "method", event.getMethod()).recordSince(startNanos);
+        RequestContext.record(RequestStage.SEND, System.nanoTime() - startNanos);
+    }
+
+    private void recordSendError(String method) {
+        MetricsRegistry.global().counter(SEND_ERRORS_METRIC, "method", method).increment();
     }
 
 }
\ No newline at end of file
@@ -1,48 +1,144 @@
 package org.school.analysis.presentation.telegram.util;
 
+import org.school.analysis.infrastructure.concurrency.BoundedExecutorService;
+import org.school.analysis.infrastructure.concurrency.ExecutionMode;
+import org.school.analysis.infrastructure.concurrency.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Раздельные пулы для каждого этапа обработки. У каждого своя ограниченная очередь,
+ * переполненный этап отклоняет задачу (RejectedExecutionException), а не выполняет ее в вызывающем потоке.
+ */
 public class ThreadPoolManager {
-    private static final int CORE_POOL_SIZE = 5;
-    private static final int MAX_POOL_SIZE = 20;
+    private static final Logger logger = LoggerFactory.getLogger(ThreadPoolManager.class);
     private static final long KEEP_ALIVE_TIME = 60L;
-    private static final int QUEUE_CAPACITY = 100;
 
-    private static ThreadPoolExecutor executor;
+    private static final Map<BotStage, ExecutorService> executors = new EnumMap<>(BotStage.class);
+    private static ExecutionMode executionMode = ExecutionMode.PLATFORM;
+
+    public static synchronized void configure(ExecutionMode mode) {
+        if (mode == executionMode) {
+            return;
+        }
+        if (mode == ExecutionMode.VIRTUAL && !VirtualThreads.isSupported()) {
+            logger.warn("JVM не поддерживает виртуальные потоки, остаемся на пулах платформенных потоков");
+            return;
+        }
+        for (ExecutorService executor : executors.values()) {
+            executor.shutdown();
+        }
+        executors.clear();
+        executionMode = mode;
+        logger.info("Режим выполнения обработчиков: {}", mode);
+    }
+
+    public static synchronized ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public static ExecutorService getExecutor() {
+        return getExecutor(BotStage.QUERIES);
+    }
+
+    public static synchronized ExecutorService getExecutor(BotStage stage) {
+        ExecutorService executor = executors.get(stage);
+        if (executor == null || executor.isShutdown()) {
+            executor = createExecutor(stage);
+            executors.put(stage, executor);
+        }
+        return executor;
+    }
+
+    public static synchronized int getQueueDepth(BotStage stage) {
+        ExecutorService executor = executors.get(stage);
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        return 0;
+    }
+
+    public static synchronized int getActiveCount(BotStage stage) {
+        ExecutorService executor = executors.get(stage);
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getActiveCount();
+        }
+        if (executor instanceof BoundedExecutorService) {
+            return ((BoundedExecutorService) executor).getInFlightCount();
+        }
+        return 0;
+    }
+
+    public static boolean isRejection(Throwable throwable) {
+        for (Throwable current = throwable; current != null; current = current.getCause()) {
+            if (current instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-    static {
-        executor = new ThreadPoolExecutor(CORE_POOL_SIZE, MAX_POOL_SIZE, KEEP_ALIVE_TIME,
-                TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+    private static ExecutorService createExecutor(BotStage stage) {
+        if (executionMode == ExecutionMode.VIRTUAL) {
+            // Очереди у виртуальных потоков нет, поэтому допуск ограничиваем числом задач в работе
+            return new BoundedExecutorService(VirtualThreads.newThreadPerTaskExecutor(stage.getThreadNamePrefix()),
+                    stage.getMaxPoolSize() + stage.getQueueCapacity());
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(stage.getCorePoolSize(), stage.getMaxPoolSize(),
+                KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(stage.getQueueCapacity()),
                 new ThreadFactory() {
-                    private int counter = 0;
+                    private final AtomicInteger counter = new AtomicInteger();
                     @Override
                     public Thread newThread(Runnable r) {
                         Thread thread = new Thread(r);
-                        thread.setName("telegram-worker-" + counter++);
+                        thread.setName(stage.getThreadNamePrefix() + counter.getAndIncrement());
                         thread.setDaemon(true);
                         return thread;
                     }
                 },
-                new ThreadPoolExecutor.CallerRunsPolicy()
+                new ThreadPoolExecutor.AbortPolicy()
         );
 
         executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-    public static ExecutorService getExecutor() {
-        return executor;
+    public static void shutdown(BotStage... stages) {
+        List<ExecutorService> stopping = new ArrayList<>();
+        synchronized (ThreadPoolManager.class) {
+            for (BotStage stage : stages) {
+                ExecutorService executor = executors.remove(stage);
+                if (executor != null) {
+                    executor.shutdown();
+                    stopping.add(executor);
+                }
+            }
+        }
+        awaitTermination(stopping);
     }
 
     public static void shutdown() {
-        executor.shutdown();
+        shutdown(BotStage.values());
+    }
+
+    private static void awaitTermination(List<ExecutorService> stopping) {
         try {
-            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
+            for (ExecutorService executor : stopping) {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
             }
         } catch (InterruptedException e) {
-            executor.shutdownNow();
+            stopping.forEach(ExecutorService::shutdownNow);
             Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+}
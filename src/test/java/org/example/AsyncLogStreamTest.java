@@ -0,0 +1,88 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.infrastructure.logging.AsyncLogStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLogStreamTest {
+
+    @Test
+    void testLinesAreWrittenInOrder() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AsyncLogStream stream = new AsyncLogStream(new PrintStream(output, true, "UTF-8"), 100);
+
+        stream.println("первая");
+        stream.println("вторая");
+        stream.print("третья");
+        stream.println();
+
+        assertTrue(stream.awaitDrained(5000));
+        stream.close();
+        String text = output.toString("UTF-8");
+        assertEquals("первая" + System.lineSeparator() + "вторая" + System.lineSeparator() + "третья"
+                + System.lineSeparator(), text);
+    }
+
+    @Test
+    void testFullBufferDropsOldestWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // Медленный вывод держит фоновый поток на первой строке, пока буфер переполняется
+        OutputStream slow = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                awaitRelease();
+                output.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                awaitRelease();
+                output.write(b, off, len);
+            }
+
+            private void awaitRelease() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        AsyncLogStream stream = new AsyncLogStream(new PrintStream(slow, true, "UTF-8"), 4);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            stream.println("строка " + i);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000, "Запись в лог не должна ждать вывод");
+
+        release.countDown();
+        assertTrue(stream.awaitDrained(5000));
+        stream.close();
+        String text = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(stream.getDroppedCount() > 0);
+        assertTrue(text.contains("строка 49"), "Последние строки должны сохраниться");
+        assertTrue(text.contains("потеряно строк"));
+    }
+
+    @Test
+    void testWritesAfterCloseGoToTarget() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AsyncLogStream stream = new AsyncLogStream(new PrintStream(output, true, "UTF-8"), 10);
+
+        stream.close();
+        stream.println("после остановки");
+
+        assertTrue(output.toString("UTF-8").contains("после остановки"));
+    }
+}
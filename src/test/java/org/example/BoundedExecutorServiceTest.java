@@ -0,0 +1,63 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.infrastructure.concurrency.BoundedExecutorService;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedExecutorServiceTest {
+
+    private final ExecutorService delegate = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        delegate.shutdownNow();
+    }
+
+    @Test
+    void testConstructor_InvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedExecutorService(delegate, 0));
+    }
+
+    @Test
+    @Timeout(5)
+    void testExecute_RejectsAboveCapacityAndReleasesPermits() throws Exception {
+        BoundedExecutorService bounded = new BoundedExecutorService(delegate, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            bounded.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        started.await();
+
+        assertEquals(2, bounded.getInFlightCount());
+        assertThrows(RejectedExecutionException.class, () -> bounded.execute(() -> { }));
+
+        release.countDown();
+        while (bounded.getInFlightCount() > 0) {
+            Thread.sleep(10);
+        }
+        Future<String> future = bounded.submit(() -> "ok");
+        assertEquals("ok", future.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecute_ReleasesPermitWhenDelegateRejects() {
+        BoundedExecutorService bounded = new BoundedExecutorService(delegate, 1);
+        delegate.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> bounded.execute(() -> { }));
+        assertEquals(0, bounded.getInFlightCount());
+    }
+}
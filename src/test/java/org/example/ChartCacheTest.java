@@ -0,0 +1,111 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.school.analysis.infrastructure.visualization.ChartCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChartCacheTest {
+
+    @TempDir
+    Path chartsDir;
+
+    @Test
+    void testGet_MissThenMemoryHit() {
+        ChartCache cache = new ChartCache(chartsDir, 1024, 0);
+        assertNull(cache.get("students", 0));
+
+        byte[] png = {1, 2, 3};
+        cache.put("students", 0, png);
+        assertArrayEquals(png, cache.get("students", 0));
+        assertEquals(3, cache.getMemoryBytes());
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedToDisk() {
+        ChartCache cache = new ChartCache(chartsDir, 10, 0);
+        cache.put("a", 0, new byte[6]);
+        cache.put("b", 0, new byte[]{7, 7, 7, 7, 7, 7});
+
+        assertEquals(1, cache.getMemoryEntryCount());
+        assertEquals(1, cache.getSpilledEntryCount());
+        assertTrue(cache.getMemoryBytes() <= 10);
+        assertArrayEquals(new byte[6], cache.get("a", 0));
+    }
+
+    @Test
+    void testSpilledEntries_ReloadedAfterRestart() {
+        ChartCache cache = new ChartCache(chartsDir, 1024, 0);
+        byte[] png = {9, 8, 7};
+        cache.put("students", 0, png);
+        cache.persist();
+
+        ChartCache restarted = new ChartCache(chartsDir, 1024, 0);
+        assertArrayEquals(png, restarted.get("students", 0));
+    }
+
+    @Test
+    void testDatasetChange_InvalidatesMemoryAndDisk() throws IOException {
+        ChartCache cache = new ChartCache(chartsDir, 1024, 0);
+        cache.put("students", 0, new byte[]{1, 2, 3});
+        cache.persist();
+
+        cache.onDatasetChanged(1);
+
+        assertNull(cache.get("students", 1));
+        try (Stream<Path> files = Files.list(chartsDir)) {
+            assertTrue(files.noneMatch(f -> f.toString().endsWith(".png")));
+        }
+        assertNull(new ChartCache(chartsDir, 1024, 1).get("students", 1));
+    }
+
+    @Test
+    void testLatePutAfterDatasetChange_IsIgnored() {
+        ChartCache cache = new ChartCache(chartsDir, 1024, 0);
+        cache.onDatasetChanged(1);
+        byte[] fresh = {1, 1, 1};
+        cache.put("students", 1, fresh);
+
+        // Отрисовка началась до /load и закончилась после
+        cache.put("students", 0, new byte[]{0, 0, 0});
+        cache.put("histogram", 0, new byte[]{2});
+
+        assertArrayEquals(fresh, cache.get("students", 1));
+        assertNull(cache.get("histogram", 1));
+        assertNull(cache.get("students", 0));
+        assertEquals(1, cache.getMemoryEntryCount());
+    }
+
+    @Test
+    void testCaption_StoredNextToPngAndSurvivesRestart() {
+        ChartCache cache = new ChartCache(chartsDir, 1024, 0);
+        cache.put("students", 0, new byte[]{1, 2, 3}, "Подпись");
+        cache.persist();
+
+        assertEquals("Подпись", cache.getCaption("students", 0));
+        assertEquals("Подпись", new ChartCache(chartsDir, 1024, 0).getCaption("students", 0));
+
+        cache.onDatasetChanged(1);
+        assertNull(cache.getCaption("students", 1));
+        assertNull(new ChartCache(chartsDir, 1024, 1).getCaption("students", 1));
+    }
+
+    @Test
+    void testCorruptedSpillFile_TreatedAsMiss() throws IOException {
+        ChartCache cache = new ChartCache(chartsDir, 1024, 0);
+        cache.put("students", 0, new byte[]{1, 2, 3});
+        cache.persist();
+        try (Stream<Path> files = Files.list(chartsDir)) {
+            Path png = files.filter(f -> f.toString().endsWith(".png")).findFirst().orElseThrow();
+            Files.write(png, new byte[]{0});
+        }
+
+        assertNull(new ChartCache(chartsDir, 1024, 0).get("students", 0));
+    }
+}
@@ -9,12 +9,25 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.school.analysis.application.exception.RepositoryException;
 import org.school.analysis.application.ports.output.SchoolRepository;
+import org.school.analysis.domain.dto.ChartData;
 import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.domain.dto.GroupedMetricStats;
+import org.school.analysis.domain.dto.MetricSeries;
+import org.school.analysis.domain.model.ChartMetric;
+import org.school.analysis.domain.model.ChartSpec;
 import org.school.analysis.infrastructure.visualization.ChartManager;
+import org.school.analysis.infrastructure.visualization.ChartRenderService;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -119,39 +132,6 @@ class ChartManagerTest {
         }
     }
 
-    @Nested
-    class GetChartDescriptionTests {
-
-        @Test
-        void shouldReturnEmptyDataMessage() {
-            when(repository.findAverageStudentsByCountries(10)).thenReturn(new ArrayList<>());
-            String description = chartService.getChartDescription();
-            assertEquals("Нет данных для создания диаграммы", description);
-            verify(repository, times(1)).findAverageStudentsByCountries(10);
-        }
-
-        @Test
-        void shouldHandleRepositoryExceptionInDescription() {
-            when(repository.findAverageStudentsByCountries(10))
-                    .thenThrow(new RepositoryException("Database connection failed"));
-            String description = chartService.getChartDescription();
-
-            assertTrue(description.contains("Ошибка при получении данных для диаграммы"),
-                    "Should contain error message");
-            assertTrue(description.contains("Database connection failed"),
-                    "Should contain exception message");
-        }
-
-        @Test
-        void shouldHandleGeneralExceptionInDescription() {
-            when(repository.findAverageStudentsByCountries(10))
-                    .thenThrow(new RuntimeException("Unexpected error"));
-            String description = chartService.getChartDescription();
-            assertTrue(description.contains("Ошибка при создании описания диаграммы"),
-                    "Should contain general error message");
-        }
-    }
-
     @Nested
     class IntegrationAndEdgeCasesTests {
 
@@ -187,7 +167,7 @@ class ChartManagerTest {
                 byte[] chartBytes = chartService.createAverageStudentsByCountriesChart();
                 assertNotNull(chartBytes);
 
-                String description = chartService.getChartDescription();
+                String description = chartService.describeAverageStudentsChart(stats);
                 assertTrue(!description.contains("ZeroCountry: 0.0 студентов"));
                 assertTrue(!description.contains("NormalCountry: 150.0 студентов"));
             });
@@ -203,7 +183,7 @@ class ChartManagerTest {
                 byte[] chartBytes = chartService.createAverageStudentsByCountriesChart();
                 assertNotNull(chartBytes);
 
-                String description = chartService.getChartDescription();
+                String description = chartService.describeAverageStudentsChart(stats);
                 assertTrue(!description.contains("LargeCountry: 1000000.0 студентов"));
             });
         }
@@ -221,7 +201,7 @@ class ChartManagerTest {
                 byte[] chartBytes = chartService.createAverageStudentsByCountriesChart();
                 assertNotNull(chartBytes);
 
-                String description = chartService.getChartDescription();
+                String description = chartService.describeAverageStudentsChart(stats);
                 assertTrue(description.contains("Côte d'Ivoire"));
                 assertTrue(description.contains("España"));
                 assertTrue(description.contains("Россия"));
@@ -333,23 +313,116 @@ class ChartManagerTest {
         stat.setTotalStudents(864);
         stats.add(stat);
 
-        when(repository.findAverageStudentsByCountries(10)).thenReturn(stats);
-
         // Act
-        String description = chartService.getChartDescription();
+        String description = chartService.describeAverageStudentsChart(stats);
 
         // Assert
         assertTrue(!description.contains("TestCountry: 123.5 студентов в среднем (7 школ)"),
                 "Should format average with one decimal place");
     }
 
+    @Test
+    void testLoadChartData_ScatterIsDownsampled() {
+        double[] xs = new double[20_000];
+        double[] ys = new double[20_000];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = 4000 + i % 3000;
+            ys[i] = 600 + (i * 7) % 200;
+        }
+        when(repository.findMetricPairs(ChartMetric.EXPENDITURE, ChartMetric.MATH_SCORE))
+                .thenReturn(new MetricSeries(xs, ys));
+        ChartSpec spec = ChartSpec.scatter(ChartMetric.EXPENDITURE, ChartMetric.MATH_SCORE);
+
+        ChartData data = chartService.loadChartData(spec);
+
+        assertEquals(20_000, data.getSourceSize());
+        assertTrue(data.size() <= spec.getMaxPoints());
+        assertTrue(chartService.describeChart(spec, data).contains("после прореживания"));
+        assertTrue(chartService.renderChart(spec, data).length > 0);
+    }
+
+    @Test
+    void testRenderChart_HistogramAndBarFromSpec() throws IOException {
+        when(repository.findMetricValues(ChartMetric.MATH_SCORE)).thenReturn(new double[]{610, 620, 650, 700});
+        GroupedMetricStats county = new GroupedMetricStats();
+        county.setGroupName("Fresno");
+        county.setSchoolCount(5);
+        county.setAverage(5100.5);
+        when(repository.findAverageMetricByCounty(ChartMetric.EXPENDITURE, 10)).thenReturn(List.of(county));
+
+        ChartSpec histogram = ChartSpec.histogram(ChartMetric.MATH_SCORE, 5).withSize(400, 300);
+        ChartData histogramData = chartService.loadChartData(histogram);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(chartService.renderChart(histogram, histogramData)));
+        ChartSpec bar = ChartSpec.averageByCounty(ChartMetric.EXPENDITURE, 10);
+        ChartData barData = chartService.loadChartData(bar);
+
+        assertEquals(5, histogramData.size());
+        assertEquals(400, image.getWidth());
+        assertEquals(300, image.getHeight());
+        assertTrue(chartService.describeChart(bar, barData).contains("Fresno: 5100,5")
+                || chartService.describeChart(bar, barData).contains("Fresno: 5100.5"));
+        assertNotEquals(chartService.getChartKey(histogram), chartService.getChartKey(histogram.withSize(500, 300)));
+    }
+
+    @Test
+    void testLoadChartData_HistogramWithMoreBinsThanRangeHasUniqueLabels() {
+        when(repository.findMetricValues(ChartMetric.MATH_SCORE)).thenReturn(new double[]{10, 11, 12, 13});
+
+        ChartSpec histogram = ChartSpec.histogram(ChartMetric.MATH_SCORE, 50).withSize(400, 300);
+        ChartData data = chartService.loadChartData(histogram);
+
+        assertEquals(50, data.size());
+        assertEquals(50, new java.util.HashSet<>(data.getLabels()).size());
+        assertEquals(4, java.util.Arrays.stream(data.getYs()).sum());
+        assertTrue(chartService.renderChart(histogram, data).length > 0);
+    }
+
+    @Test
+    void testLoadChartData_EmptyResult() {
+        when(repository.findMetricValues(ChartMetric.READ_SCORE)).thenReturn(new double[0]);
+        assertThrows(RepositoryException.class,
+                () -> chartService.loadChartData(ChartSpec.histogram(ChartMetric.READ_SCORE, 10)));
+    }
+
+    @Test
+    void testRenderAndDescribe_FromSingleQuery() {
+        List<CountryStudentStats> stats = createSampleStats();
+        when(repository.findAverageStudentsByCountries(10)).thenReturn(stats);
+
+        List<CountryStudentStats> loaded = chartService.loadAverageStudentsStats();
+        byte[] png = chartService.renderAverageStudentsChart(loaded);
+        String caption = chartService.describeAverageStudentsChart(loaded);
+
+        assertTrue(png.length > 0);
+        assertTrue(caption.contains("USA"));
+        verify(repository, times(1)).findAverageStudentsByCountries(10);
+    }
+
+    @Test
+    void testRenderAverageStudentsChart_ConcurrentRendersShareLimitedTemplates() throws Exception {
+        List<CountryStudentStats> stats = createSampleStats();
+        ChartManager limited = new ChartManager(repository, new ChartRenderService(2));
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<byte[]>> renders = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                renders.add(executor.submit(() -> limited.renderAverageStudentsChart(stats)));
+            }
+            for (Future<byte[]> render : renders) {
+                assertTrue(render.get(30, TimeUnit.SECONDS).length > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void testChartServiceWithMockedJFreeChart() throws Exception {
         List<CountryStudentStats> stats = createSampleStats();
         when(repository.findAverageStudentsByCountries(10)).thenReturn(stats);
 
         byte[] result = chartService.createAverageStudentsByCountriesChart();
-        String description = chartService.getChartDescription();
+        String description = chartService.describeAverageStudentsChart(stats);
 
         assertNotNull(result);
         assertTrue(result.length > 0);
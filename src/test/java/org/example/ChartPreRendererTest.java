@@ -0,0 +1,73 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.application.services.DatasetVersion;
+import org.school.analysis.infrastructure.visualization.ChartPreRenderer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChartPreRendererTest {
+
+    private final DatasetVersion datasetVersion = new DatasetVersion();
+    private final ChartPreRenderer preRenderer = new ChartPreRenderer(datasetVersion);
+
+    @AfterEach
+    void tearDown() {
+        preRenderer.shutdown();
+    }
+
+    @Test
+    @Timeout(5)
+    void testOnDatasetChanged_RendersAllRegisteredChartsInBackground() throws Exception {
+        CountDownLatch rendered = new CountDownLatch(2);
+        preRenderer.register("students", () -> {
+            assertEquals(Thread.MIN_PRIORITY, Thread.currentThread().getPriority());
+            rendered.countDown();
+        });
+        preRenderer.register("expenditure", rendered::countDown);
+
+        preRenderer.onDatasetChanged(datasetVersion.increment());
+
+        assertTrue(rendered.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(5)
+    void testFailingChart_DoesNotStopOthers() throws Exception {
+        CountDownLatch rendered = new CountDownLatch(1);
+        preRenderer.register("broken", () -> {
+            throw new IllegalStateException("Нет данных");
+        });
+        preRenderer.register("students", rendered::countDown);
+
+        preRenderer.onDatasetChanged(datasetVersion.increment());
+
+        assertTrue(rendered.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(5)
+    void testStaleVersion_Skipped() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch latest = new CountDownLatch(1);
+        preRenderer.register("students", () -> {
+            renders.incrementAndGet();
+            latest.countDown();
+        });
+
+        long stale = datasetVersion.increment();
+        datasetVersion.increment();
+        preRenderer.onDatasetChanged(stale);
+        preRenderer.onDatasetChanged(datasetVersion.current());
+
+        assertTrue(latest.await(2, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, renders.get());
+    }
+}
@@ -0,0 +1,129 @@
+package org.example;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.infrastructure.visualization.ChartEncodingStats;
+import org.school.analysis.infrastructure.visualization.ChartRenderService;
+import org.school.analysis.infrastructure.visualization.PngEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChartRenderServiceTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(6);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConstructor_InvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new ChartRenderService(0));
+    }
+
+    @Test
+    void testToPng_ReusedBuffersProduceIndependentResults() throws Exception {
+        ChartRenderService renderService = new ChartRenderService(1);
+
+        byte[] first = renderService.toPng(createChart(10), 300, 200);
+        byte[] second = renderService.toPng(createChart(500), 300, 200);
+
+        assertNotSame(first, second);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(first));
+        assertEquals(300, image.getWidth());
+        assertEquals(200, image.getHeight());
+        assertArrayEquals(first, renderService.toPng(createChart(10), 300, 200));
+        assertEquals(1, renderService.getAvailableRenderSlots());
+    }
+
+    @Test
+    @Timeout(30)
+    void testToPng_PooledBuffersAreNotSharedBetweenConcurrentRenders() throws Exception {
+        ChartRenderService renderService = new ChartRenderService(2);
+        int[] values = {10, 200, 30, 400, 50, 600};
+        byte[][] expected = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            expected[i] = renderService.toPng(createChart(values[i]), 300, 200);
+        }
+
+        java.util.List<Future<byte[]>> results = new java.util.ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int value : values) {
+                results.add(executor.submit(() -> renderService.toPng(createChart(value), 300, 200)));
+            }
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertArrayEquals(expected[i % values.length], results.get(i).get());
+        }
+        assertEquals(2, renderService.getAvailableRenderSlots());
+    }
+
+    @Test
+    @Timeout(10)
+    void testToPng_WaitsForFreeRenderSlot() throws Exception {
+        ChartRenderService renderService = new ChartRenderService(1);
+        CountDownLatch drawing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        JFreeChart blockingChart = new JFreeChart(createChart(1).getPlot()) {
+            @Override
+            public void draw(Graphics2D g2, Rectangle2D area) {
+                drawing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.draw(g2, area);
+            }
+        };
+
+        Future<byte[]> first = executor.submit(() -> renderService.toPng(blockingChart, 200, 100));
+        drawing.await();
+        Future<byte[]> second = executor.submit(() -> renderService.toPng(createChart(2), 200, 100));
+
+        assertThrows(TimeoutException.class, () -> second.get(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, renderService.getAvailableRenderSlots());
+        release.countDown();
+        assertTrue(first.get().length > 0);
+        assertTrue(second.get().length > 0);
+        assertEquals(1, renderService.getAvailableRenderSlots());
+    }
+
+    @Test
+    void testToPng_RecordsEncodingStatsPerChart() throws Exception {
+        ChartRenderService renderService = new ChartRenderService(1, new PngEncoder(true, 1));
+
+        byte[] first = renderService.toPng(createChart(10), 300, 200);
+        renderService.toPng(createChart(20), 300, 200);
+        renderService.toPng("other", 100, 50, g2 -> g2.fillRect(0, 0, 10, 10));
+
+        ChartEncodingStats stats = renderService.getEncodingStats("test");
+        assertEquals(2, stats.getEncodedCount());
+        assertTrue(stats.getLastSizeBytes() > 0);
+        assertTrue(stats.getAverageSizeBytes() > 0);
+        assertEquals(1, renderService.getEncodingStats("other").getEncodedCount());
+        assertEquals(2, renderService.getEncodingStats().size());
+        assertTrue(ImageIO.read(new ByteArrayInputStream(first)).getColorModel() instanceof IndexColorModel);
+    }
+
+    private JFreeChart createChart(double value) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        dataset.addValue(value, "series", "Fresno");
+        return ChartFactory.createBarChart("test", "x", "y", dataset, PlotOrientation.VERTICAL, false, false, false);
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.domain.model.ChartGrouping;
+import org.school.analysis.domain.model.ChartMetric;
+import org.school.analysis.domain.model.ChartSpec;
+import org.school.analysis.domain.model.ChartType;
+import org.school.analysis.presentation.telegram.util.ChartSpecParser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChartSpecParserTest {
+
+    @Test
+    void testParse_BarWithLimit() {
+        ChartSpec spec = ChartSpecParser.parse("bar expenditure 15");
+
+        assertEquals(ChartType.BAR, spec.getType());
+        assertEquals(ChartMetric.EXPENDITURE, spec.getMetric());
+        assertEquals(ChartGrouping.COUNTY, spec.getGrouping());
+        assertEquals(15, spec.getLimit());
+        assertEquals(0, spec.getWidth());
+    }
+
+    @Test
+    void testParse_ScatterWithSize() {
+        ChartSpec spec = ChartSpecParser.parse("scatter expenditure math 800x600");
+
+        assertEquals(ChartType.SCATTER, spec.getType());
+        assertEquals(ChartMetric.EXPENDITURE, spec.getXMetric());
+        assertEquals(ChartMetric.MATH_SCORE, spec.getMetric());
+        assertEquals(800, spec.getWidth());
+        assertEquals(600, spec.getHeight());
+    }
+
+    @Test
+    void testParse_HistogramBins() {
+        ChartSpec spec = ChartSpecParser.parse("HISTOGRAM math 30");
+
+        assertEquals(ChartType.HISTOGRAM, spec.getType());
+        assertEquals(30, spec.getBins());
+        assertEquals(ChartSpec.histogram(ChartMetric.MATH_SCORE, 30), spec);
+    }
+
+    @Test
+    void testParse_InvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ChartSpecParser.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> ChartSpecParser.parse("pie math"));
+        assertThrows(IllegalArgumentException.class, () -> ChartSpecParser.parse("bar salary"));
+        assertThrows(IllegalArgumentException.class, () -> ChartSpecParser.parse("scatter math"));
+        assertThrows(IllegalArgumentException.class, () -> ChartSpecParser.parse("bar math 10000"));
+        assertThrows(IllegalArgumentException.class, () -> ChartSpecParser.parse("line math read 50x50"));
+        assertThrows(IllegalArgumentException.class, () -> ChartSpecParser.parse("bar math big"));
+    }
+
+    @Test
+    void testSpecKey_DistinguishesParameters() {
+        assertNotEquals(ChartSpecParser.parse("bar math 10").getKey(), ChartSpecParser.parse("bar math 11").getKey());
+        assertNotEquals(ChartSpecParser.parse("scatter math read").getKey(),
+                ChartSpecParser.parse("scatter read math").getKey());
+        assertEquals(ChartSpecParser.parse("line students math").getKey(),
+                ChartSpec.line(ChartMetric.STUDENTS, ChartMetric.MATH_SCORE).getKey());
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.presentation.telegram.dispatch.ChatMailboxScheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMailboxSchedulerTest {
+
+    private final ExecutorService workers = Executors.newCachedThreadPool();
+    private ChatMailboxScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        workers.shutdownNow();
+    }
+
+    @Test
+    void testConstructor_InvalidParameters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ChatMailboxScheduler(workers, 0, 1, 1, 1));
+    }
+
+    @Test
+    @Timeout(5)
+    void testSubmit_KeepsOrderWithinChat() throws InterruptedException {
+        scheduler = new ChatMailboxScheduler(workers, 4, 1, 100, 100);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            int order = i;
+            scheduler.submit(1L, 1, () -> {
+                executed.add(order);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, executed.get(i), "Обновления одного чата должны выполняться по порядку");
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void testSubmit_NeverRunsSameChatConcurrently() throws InterruptedException {
+        scheduler = new ChatMailboxScheduler(workers, 4, 1, 100, 100);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(20);
+
+        for (int i = 0; i < 20; i++) {
+            scheduler.submit(7L, 1, () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(5);
+                inFlight.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    @Timeout(5)
+    void testSubmit_LightChatNotStarvedByHeavyChat() throws InterruptedException {
+        scheduler = new ChatMailboxScheduler(workers, 1, 4, 100, 100);
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(11);
+
+        scheduler.submit(1L, 4, () -> {
+            await(gate);
+            executed.add("heavy");
+            done.countDown();
+        });
+        for (int i = 0; i < 9; i++) {
+            scheduler.submit(1L, 4, () -> {
+                executed.add("heavy");
+                done.countDown();
+            });
+        }
+        scheduler.submit(2L, 1, () -> {
+            executed.add("light");
+            done.countDown();
+        });
+        gate.countDown();
+
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertTrue(executed.indexOf("light") <= 2,
+                "Легкий чат должен обслуживаться в следующем раунде, а не после всех тяжелых: " + executed);
+    }
+
+    @Test
+    void testSubmit_RejectsWhenChatMailboxFull() {
+        scheduler = new ChatMailboxScheduler(workers, 1, 1, 2, 100);
+        CountDownLatch gate = new CountDownLatch(1);
+        try {
+            scheduler.submit(1L, 1, () -> await(gate));
+            waitUntilPending(0);
+            scheduler.submit(1L, 1, () -> { });
+            scheduler.submit(1L, 1, () -> { });
+
+            assertThrows(RejectedExecutionException.class, () -> scheduler.submit(1L, 1, () -> { }));
+            assertDoesNotThrow(() -> scheduler.submit(2L, 1, () -> { }),
+                    "Лимит одного чата не должен влиять на другие чаты");
+        } finally {
+            gate.countDown();
+        }
+    }
+
+    @Test
+    void testSubmit_RejectsAfterShutdown() {
+        scheduler = new ChatMailboxScheduler(workers, 1, 1, 10, 10);
+        scheduler.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(1L, 1, () -> { }));
+    }
+
+    private void waitUntilPending(int expected) {
+        while (scheduler.getPendingCount() != expected) {
+            sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -109,6 +109,32 @@ class CsvSchoolParserTest {
         assertEquals(Integer.valueOf(4), schools.get(1).getId());
     }
 
+    @Test
+    void testParseSchools_ManyInvalidLinesAreCountedAndSkipped() throws IOException {
+        StringBuilder csvContent = new StringBuilder(CSV_HEADER).append("\n").append(VALID_CSV_LINE);
+        for (int i = 0; i < 2500; i++) {
+            csvContent.append("\ninvalid,data,here");
+        }
+
+        CsvSchoolParser.ParseResult result = csvParser.parse(new ByteArrayInputStream(csvContent.toString().getBytes()));
+
+        assertEquals(1, result.getSchools().size());
+        assertEquals(2500, result.getBadRowCount());
+    }
+
+    @Test
+    void testParseSchools_BadRowCountIsPerFile() throws IOException {
+        StringBuilder broken = new StringBuilder(CSV_HEADER).append("\n").append(VALID_CSV_LINE);
+        for (int i = 0; i < 3; i++) {
+            broken.append("\ninvalid,data,here");
+        }
+        String valid = CSV_HEADER + "\n" + VALID_CSV_LINE;
+
+        assertEquals(3, csvParser.parse(new ByteArrayInputStream(broken.toString().getBytes())).getBadRowCount());
+        assertEquals(3, csvParser.parse(new ByteArrayInputStream(broken.toString().getBytes())).getBadRowCount());
+        assertEquals(0, csvParser.parse(new ByteArrayInputStream(valid.getBytes())).getBadRowCount());
+    }
+
     @Test
     void testParseSchools_WithQuotedFields() throws IOException {
         String csvContent = CSV_HEADER + "\n" +
@@ -3,14 +3,21 @@ package org.example;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.school.analysis.application.ports.output.ChartGenerator;
+import org.school.analysis.domain.dto.ChartRenderResult;
+import org.school.analysis.domain.model.ChartMetric;
+import org.school.analysis.domain.model.ChartSpec;
 import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
 import org.school.analysis.presentation.telegram.handlers.DefaultChartHandler;
 import org.school.analysis.presentation.telegram.util.MessageSender;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -51,6 +58,90 @@ class DefaultChartHandlerTest {
         verify(bot).sendInlineMenu(eq(chatId), contains("Диаграммы"), any());
     }
 
+    @Test
+    void testHandleCallback_DuplicatePressWhileRendering() {
+        Long chatId = 12345L;
+        String callbackData = "chart_students";
+
+        chartHandler.handleCallback(chatId, callbackData, bot);
+        chartHandler.handleCallback(chatId, callbackData, bot);
+
+        verify(executorService, times(1)).execute(any(Runnable.class));
+        verify(bot, times(1)).sendText(eq(chatId), contains("Создаю диаграмму"));
+    }
+
+    @Test
+    void testHandleChartCommand_RendersSpec() {
+        Long chatId = 12345L;
+        byte[] chartBytes = new byte[]{1, 2, 3};
+        ChartSpec spec = ChartSpec.scatter(ChartMetric.EXPENDITURE, ChartMetric.MATH_SCORE);
+        when(chartGenerator.render(spec)).thenReturn(new ChartRenderResult(chartBytes, "scatter", List.of()));
+        when(bot.getMessageSender()).thenReturn(messageSender);
+        doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(0);
+            task.run();
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+
+        chartHandler.handleChartCommand(chatId, "scatter expenditure math", bot);
+
+        verify(bot).sendText(eq(chatId), contains("Создаю диаграмму"));
+        verify(messageSender).sendPhoto(eq(chatId), eq(chartBytes), eq("scatter"));
+    }
+
+    @Test
+    void testHandleChartCommand_InvalidArgumentsShowUsage() {
+        Long chatId = 12345L;
+
+        chartHandler.handleChartCommand(chatId, "pie math", bot);
+
+        verify(bot).sendText(eq(chatId), contains("Использование: /chart"));
+        verifyNoInteractions(executorService, chartGenerator);
+    }
+
+    @Test
+    void testShowDashboard_SendsAllChartsAsOneMediaGroup() {
+        Long chatId = 12345L;
+        when(chartGenerator.renderAverageStudentsChart())
+                .thenReturn(new ChartRenderResult(new byte[]{1}, "students", List.of()));
+        when(chartGenerator.render(any(ChartSpec.class)))
+                .thenReturn(new ChartRenderResult(new byte[]{2}, "spec", List.of()));
+        when(bot.getMessageSender()).thenReturn(messageSender);
+        doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(0);
+            task.run();
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+
+        chartHandler.showDashboard(chatId, bot);
+
+        ArgumentCaptor<List<byte[]>> photos = ArgumentCaptor.forClass(List.class);
+        verify(messageSender).sendMediaGroup(eq(chatId), photos.capture(), contains("Сводка по школам"));
+        assertEquals(4, photos.getValue().size());
+        verify(chartGenerator, times(3)).render(any(ChartSpec.class));
+        verify(messageSender, never()).sendPhoto(anyLong(), any(), any());
+    }
+
+    @Test
+    void testShowDashboard_SkipsFailedChart() {
+        Long chatId = 12345L;
+        when(chartGenerator.renderAverageStudentsChart()).thenThrow(new RuntimeException("Не удалось создать диаграмму"));
+        when(chartGenerator.render(any(ChartSpec.class)))
+                .thenReturn(new ChartRenderResult(new byte[]{2}, "spec", List.of()));
+        when(bot.getMessageSender()).thenReturn(messageSender);
+        doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(0);
+            task.run();
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+
+        chartHandler.showDashboard(chatId, bot);
+
+        ArgumentCaptor<List<byte[]>> photos = ArgumentCaptor.forClass(List.class);
+        verify(messageSender).sendMediaGroup(eq(chatId), photos.capture(), contains("Не удалось построить"));
+        assertEquals(3, photos.getValue().size());
+    }
+
     @Test
     void testHandleCallback_UnknownCallback() {
         Long chatId = 12345L;
@@ -65,8 +156,8 @@ class DefaultChartHandlerTest {
         byte[] chartBytes = new byte[]{1, 2, 3, 4, 5};
         String description = "Test chart description";
 
-        when(chartGenerator.createAverageStudentsChart()).thenReturn(chartBytes);
-        when(chartGenerator.getChartDescription()).thenReturn(description);
+        when(chartGenerator.renderAverageStudentsChart())
+                .thenReturn(new ChartRenderResult(chartBytes, description, List.of()));
         when(bot.getMessageSender()).thenReturn(messageSender);
         doAnswer(invocation -> {
             Runnable task = invocation.getArgument(0);
@@ -85,8 +176,8 @@ class DefaultChartHandlerTest {
         byte[] emptyBytes = new byte[0];
         String description = "Empty chart";
 
-        when(chartGenerator.createAverageStudentsChart()).thenReturn(emptyBytes);
-        when(chartGenerator.getChartDescription()).thenReturn(description);
+        when(chartGenerator.renderAverageStudentsChart())
+                .thenReturn(new ChartRenderResult(emptyBytes, description, List.of()));
         when(bot.getMessageSender()).thenReturn(messageSender);
 
         doAnswer(invocation -> {
@@ -105,8 +196,8 @@ class DefaultChartHandlerTest {
         Long chatId = 12345L;
         byte[] chartBytes = new byte[]{1, 2, 3};
 
-        when(chartGenerator.createAverageStudentsChart()).thenReturn(chartBytes);
-        when(chartGenerator.getChartDescription()).thenReturn(null);
+        when(chartGenerator.renderAverageStudentsChart())
+                .thenReturn(new ChartRenderResult(chartBytes, null, List.of()));
         when(bot.getMessageSender()).thenReturn(messageSender);
 
         doAnswer(invocation -> {
@@ -126,8 +217,8 @@ class DefaultChartHandlerTest {
         byte[] chartBytes = new byte[]{1, 2, 3};
         String emptyDescription = "";
 
-        when(chartGenerator.createAverageStudentsChart()).thenReturn(chartBytes);
-        when(chartGenerator.getChartDescription()).thenReturn(emptyDescription);
+        when(chartGenerator.renderAverageStudentsChart())
+                .thenReturn(new ChartRenderResult(chartBytes, emptyDescription, List.of()));
         when(bot.getMessageSender()).thenReturn(messageSender);
 
         doAnswer(invocation -> {
@@ -179,8 +270,8 @@ class DefaultChartHandlerTest {
         byte[] chartBytes = new byte[]{1, 2, 3};
         String description = "Test chart";
 
-        when(chartGenerator.createAverageStudentsChart()).thenReturn(chartBytes);
-        when(chartGenerator.getChartDescription()).thenReturn(description);
+        when(chartGenerator.renderAverageStudentsChart())
+                .thenReturn(new ChartRenderResult(chartBytes, description, List.of()));
         when(bot.getMessageSender()).thenReturn(messageSender);
 
         doThrow(new RuntimeException("Photo sending failed")).when(messageSender)
@@ -197,6 +288,101 @@ class DefaultChartHandlerTest {
         verify(bot).sendText(eq(chatId), contains("Ошибка создания диаграммы"));
     }
 
+    @Test
+    void testProgressiveChart_ReplacesPreviewWithFullImage() {
+        Long chatId = 12345L;
+        List<Runnable> renders = new ArrayList<>();
+        DefaultChartHandler handler = progressiveHandler(renders);
+        when(chartGenerator.renderAverageStudentsChart(any())).thenAnswer(invocation -> renderWithPreview(
+                invocation.getArgument(0)));
+        when(bot.getMessageSender()).thenReturn(messageSender);
+        when(messageSender.sendPhotoMessage(chatId, new byte[]{1}, "caption")).thenReturn(42);
+        when(messageSender.editPhoto(chatId, 42, new byte[]{2}, "caption")).thenReturn(true);
+
+        invokePrivateMethod(handler, "createStudentsChartAsync", chatId, bot);
+        // Превью и полная диаграмма рисуются одной задачей по одному запросу данных
+        assertEquals(1, renders.size());
+        renders.get(0).run();
+
+        verify(messageSender).sendPhotoMessage(chatId, new byte[]{1}, "caption");
+        verify(messageSender).editPhoto(chatId, 42, new byte[]{2}, "caption");
+        verify(messageSender, never()).sendPhoto(anyLong(), any(), any());
+        verify(chartGenerator, never()).renderAverageStudentsPreview();
+        verify(bot).sendText(eq(chatId), contains("Диаграмма успешно создана"));
+    }
+
+    @Test
+    void testProgressiveChart_SendsFullImageWhenEditFails() {
+        Long chatId = 12345L;
+        List<Runnable> renders = new ArrayList<>();
+        DefaultChartHandler handler = progressiveHandler(renders);
+        when(chartGenerator.renderAverageStudentsChart(any())).thenAnswer(invocation -> renderWithPreview(
+                invocation.getArgument(0)));
+        when(bot.getMessageSender()).thenReturn(messageSender);
+        when(messageSender.sendPhotoMessage(chatId, new byte[]{1}, "caption")).thenReturn(42);
+        when(messageSender.editPhoto(chatId, 42, new byte[]{2}, "caption")).thenReturn(false);
+
+        invokePrivateMethod(handler, "createStudentsChartAsync", chatId, bot);
+        renders.get(0).run();
+
+        verify(messageSender).sendPhoto(chatId, new byte[]{2}, "caption");
+    }
+
+    @Test
+    void testProgressiveChart_SkipsPreviewWhenFullImageIsReady() {
+        Long chatId = 12345L;
+        List<Runnable> renders = new ArrayList<>();
+        DefaultChartHandler handler = progressiveHandler(renders);
+        // Полная диаграмма уже в кэше: генератор не вызывает слушателя превью
+        when(chartGenerator.renderAverageStudentsChart(any()))
+                .thenReturn(new ChartRenderResult(new byte[]{2}, "caption", List.of()));
+        when(bot.getMessageSender()).thenReturn(messageSender);
+
+        invokePrivateMethod(handler, "createStudentsChartAsync", chatId, bot);
+        renders.get(0).run();
+
+        verify(messageSender, never()).sendPhotoMessage(anyLong(), any(), any());
+        verify(messageSender, never()).editPhoto(anyLong(), any(), any(), any());
+        verify(messageSender).sendPhoto(chatId, new byte[]{2}, "caption");
+    }
+
+    @Test
+    void testProgressiveChartCommand_RendersPreviewFromSameRender() {
+        Long chatId = 12345L;
+        List<Runnable> renders = new ArrayList<>();
+        DefaultChartHandler handler = progressiveHandler(renders);
+        ChartSpec spec = ChartSpec.histogram(ChartMetric.MATH_SCORE, ChartSpec.DEFAULT_BINS);
+        when(chartGenerator.render(eq(spec), any())).thenAnswer(invocation -> renderWithPreview(
+                invocation.getArgument(1)));
+        when(bot.getMessageSender()).thenReturn(messageSender);
+        when(messageSender.sendPhotoMessage(chatId, new byte[]{1}, "caption")).thenReturn(7);
+        when(messageSender.editPhoto(chatId, 7, new byte[]{2}, "caption")).thenReturn(true);
+
+        handler.handleChartCommand(chatId, "histogram math", bot);
+        assertEquals(1, renders.size());
+        renders.get(0).run();
+
+        verify(messageSender).editPhoto(chatId, 7, new byte[]{2}, "caption");
+        verify(chartGenerator, never()).render(spec.preview());
+    }
+
+    private static ChartRenderResult renderWithPreview(Consumer<ChartRenderResult> previewListener) {
+        previewListener.accept(new ChartRenderResult(new byte[]{1}, "caption", List.of()));
+        return new ChartRenderResult(new byte[]{2}, "caption", List.of());
+    }
+
+    private DefaultChartHandler progressiveHandler(List<Runnable> renders) {
+        // Отрисовки копятся в списке, чтобы тест сам выбирал порядок; отправка выполняется сразу
+        doAnswer(invocation -> renders.add(invocation.getArgument(0))).when(executorService).execute(any(Runnable.class));
+        ExecutorService sendExecutor = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(0);
+            task.run();
+            return null;
+        }).when(sendExecutor).execute(any(Runnable.class));
+        return new DefaultChartHandler(chartGenerator, executorService, sendExecutor, true);
+    }
+
     @Test
     void testShowMenu_NullBot() {
         Long chatId = 12345L;
@@ -220,8 +406,8 @@ class DefaultChartHandlerTest {
         byte[] chartBytes = new byte[]{1, 2, 3};
         String description = "Test chart";
 
-        when(chartGenerator.createAverageStudentsChart()).thenReturn(chartBytes);
-        when(chartGenerator.getChartDescription()).thenReturn(description);
+        when(chartGenerator.renderAverageStudentsChart())
+                .thenReturn(new ChartRenderResult(chartBytes, description, List.of()));
         ExecutorService realExecutor = java.util.concurrent.Executors.newFixedThreadPool(2);
         DefaultChartHandler concurrentHandler = new DefaultChartHandler(chartGenerator, realExecutor);
 
@@ -248,10 +434,11 @@ class DefaultChartHandlerTest {
         thread1.join();
         thread2.join();
 
+        // Отправка ставится в тот же пул после отрисовки, поэтому пул закрываем только после нее
+        verify(mockMessageSender, timeout(5000).atLeast(1)).sendPhoto(eq(chatId), eq(chartBytes), eq(description));
         realExecutor.shutdown();
         realExecutor.awaitTermination(5, TimeUnit.SECONDS);
         verify(mockBot, atLeast(2)).sendText(eq(chatId), contains("Создаю диаграмму"));
-        verify(mockMessageSender, atLeast(1)).sendPhoto(eq(chatId), eq(chartBytes), eq(description));
     }
 
     private void invokePrivateMethod(String methodName, Object... args) {
@@ -100,6 +100,19 @@ class DefaultQueryHandlerTest {
         verify(bot).sendText(eq(chatId), contains("Запрос 3: Статистика студентов по странам"));
     }
 
+    @Test
+    void testHandleCallback_DuplicatePressWhileInFlight() {
+        Long chatId = 12345L;
+        String callbackData = "query_expenditure";
+
+        queryHandler.handleCallback(chatId, callbackData, bot);
+        queryHandler.handleCallback(chatId, callbackData, bot);
+        queryHandler.handleCallback(67890L, callbackData, bot);
+
+        verify(executorService, times(2)).execute(any(Runnable.class));
+        verify(bot, times(1)).sendText(eq(chatId), contains("Запрос 1: Средние расходы"));
+    }
+
     @Test
     void testHandleCallback_UnknownCallback() {
         Long chatId = 12345L;
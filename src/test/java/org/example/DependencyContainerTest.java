@@ -289,6 +289,8 @@ class DependencyContainerTest {
 
         assertNotNull(getPrivateObjectField("statisticsService"), "StatisticsService должен быть создан");
         assertNotNull(getPrivateObjectField("chartGenerator"), "ChartGenerator должен быть создан");
+        assertFalse(container.isChartSubsystemInitialized(), "Подсистема диаграмм создается лениво");
+        assertNotNull(getPrivateObjectField("chartCache"), "Кэш диаграмм создается сразу, чтобы /load его сбрасывал");
         assertNotNull(getPrivateObjectField("loadSchoolsUseCase"), "LoadSchoolsUseCase должен быть создан");
         assertTrue(getPrivateBooleanField("servicesInitialized"), "Флаг servicesInitialized должен быть true");
     }
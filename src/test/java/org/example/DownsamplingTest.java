@@ -0,0 +1,93 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.domain.dto.MetricSeries;
+import org.school.analysis.infrastructure.visualization.Downsampling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownsamplingTest {
+
+    @Test
+    void testLttb_KeepsEndpointsAndThreshold() {
+        MetricSeries series = sine(10_000);
+
+        MetricSeries sampled = Downsampling.lttb(series, 500);
+
+        assertEquals(500, sampled.size());
+        assertEquals(0, sampled.getXs()[0]);
+        assertEquals(9_999, sampled.getXs()[499]);
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.getXs()[i] > sampled.getXs()[i - 1], "X должен возрастать");
+        }
+    }
+
+    @Test
+    void testLttb_KeepsSpike() {
+        double[] xs = new double[5_000];
+        double[] ys = new double[5_000];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = i;
+        }
+        ys[2_345] = 1_000;
+
+        MetricSeries sampled = Downsampling.lttb(new MetricSeries(xs, ys), 100);
+
+        double max = 0;
+        for (double y : sampled.getYs()) {
+            max = Math.max(max, y);
+        }
+        assertEquals(1_000, max);
+    }
+
+    @Test
+    void testLttb_SmallSeriesUnchanged() {
+        MetricSeries series = sine(50);
+        assertSame(series, Downsampling.lttb(series, 100));
+    }
+
+    @Test
+    void testGridBin_LimitsPointsAndKeepsRange() {
+        MetricSeries series = sine(100_000);
+
+        MetricSeries binned = Downsampling.gridBin(series, 1_000);
+
+        assertTrue(binned.size() <= 1_000, "Точек: " + binned.size());
+        assertTrue(binned.size() > 100);
+        for (double y : binned.getYs()) {
+            assertTrue(y >= -1 && y <= 1);
+        }
+    }
+
+    @Test
+    void testHistogram_CountsEverySample() {
+        double[] samples = {600, 610, 620, 630, 640, 650, 660, 670, 680, 700};
+
+        MetricSeries histogram = Downsampling.histogram(samples, 4);
+
+        assertEquals(4, histogram.size());
+        assertEquals(600, histogram.getXs()[0]);
+        double total = 0;
+        for (double count : histogram.getYs()) {
+            total += count;
+        }
+        assertEquals(samples.length, total);
+        assertEquals(3, histogram.getYs()[0]);
+        assertEquals(2, histogram.getYs()[3]);
+    }
+
+    @Test
+    void testHistogram_InvalidBins() {
+        assertThrows(IllegalArgumentException.class, () -> Downsampling.histogram(new double[]{1}, 0));
+    }
+
+    private MetricSeries sine(int size) {
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = i;
+            ys[i] = Math.sin(i / 100.0);
+        }
+        return new MetricSeries(xs, ys);
+    }
+}
@@ -0,0 +1,374 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.school.analysis.infrastructure.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Локальная замена Bot API для нагрузочных и сквозных тестов. Отдает обновления из очереди через getUpdates
+ * (long polling), принимает sendMessage, sendPhoto, sendMediaGroup, editMessageText, editMessageMedia и
+ * answerCallbackQuery. Задержка ответа и доля ответов 429 настраиваются.
+ * Время ответа меряется от постановки обновления в очередь до первого сообщения бота в тот же чат.
+ */
+public class FakeTelegramServer {
+    private static final Pattern MULTIPART_CHAT_ID =
+            Pattern.compile("name=\"chat_id\"[^\\r\\n]*\\r\\n(?:[^\\r\\n]+\\r\\n)*\\r\\n([^\\r\\n]*)");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double throttleRatio;
+    private final Random random;
+    private final LinkedBlockingQueue<ObjectNode> updates = new LinkedBlockingQueue<>();
+    private final Map<Long, Deque<Long>> awaitingResponse = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> methodCounts = new ConcurrentHashMap<>();
+    private final Map<Long, String> lastTexts = new ConcurrentHashMap<>();
+    private final LatencyHistogram responseLatency = new LatencyHistogram();
+    private final AtomicLong nextUpdateId = new AtomicLong(1);
+    private final AtomicInteger nextMessageId = new AtomicInteger(1);
+    private final LongAdder injected = new LongAdder();
+    private final LongAdder outbound = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private volatile LongConsumer responseListener = chatId -> { };
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FakeTelegramServer() {
+        this(0, 0, 0, 1);
+    }
+
+    public FakeTelegramServer(long latencyMillis, long jitterMillis, double throttleRatio, long seed) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.throttleRatio = throttleRatio;
+        this.random = new Random(seed);
+    }
+
+    public synchronized void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bot", this::handle);
+        // Запросы getUpdates висят до таймаута, поэтому потоков не ограничиваем
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "fake-telegram");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Адрес для DefaultBotOptions.setBaseUrl, токен и метод бот добавит сам.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    public void setResponseListener(LongConsumer responseListener) {
+        this.responseListener = responseListener;
+    }
+
+    public long enqueueMessage(long chatId, String text) {
+        ObjectNode message = message(chatId);
+        message.put("text", text);
+        ObjectNode update = mapper.createObjectNode();
+        update.set("message", message);
+        return enqueue(update);
+    }
+
+    public long enqueueCallback(long chatId, String data) {
+        ObjectNode callback = mapper.createObjectNode();
+        callback.put("id", "cb-" + nextUpdateId.get());
+        callback.set("from", user(chatId));
+        callback.put("chat_instance", String.valueOf(chatId));
+        callback.put("data", data);
+        callback.set("message", message(chatId));
+        ObjectNode update = mapper.createObjectNode();
+        update.set("callback_query", callback);
+        return enqueue(update);
+    }
+
+    /**
+     * Ставит готовое обновление (например, из записанного потока). update_id назначается заново.
+     */
+    public long enqueue(ObjectNode update) {
+        long updateId = nextUpdateId.getAndIncrement();
+        update.put("update_id", updateId);
+        Long chatId = chatIdOf(update);
+        if (chatId != null) {
+            Deque<Long> pending = awaitingResponse.computeIfAbsent(chatId, id -> new ArrayDeque<>());
+            synchronized (pending) {
+                pending.addLast(System.nanoTime());
+            }
+        }
+        injected.increment();
+        updates.add(update);
+        return updateId;
+    }
+
+    public long getInjectedCount() {
+        return injected.sum();
+    }
+
+    public long getOutboundCount() {
+        return outbound.sum();
+    }
+
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    public LatencyHistogram getResponseLatency() {
+        return responseLatency;
+    }
+
+    public long getUnansweredCount() {
+        long unanswered = 0;
+        for (Deque<Long> pending : awaitingResponse.values()) {
+            synchronized (pending) {
+                unanswered += pending.size();
+            }
+        }
+        return unanswered;
+    }
+
+    public Map<String, Long> getMethodCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        methodCounts.forEach((method, count) -> counts.put(method, count.sum()));
+        return counts;
+    }
+
+    public String getLastText(long chatId) {
+        return lastTexts.get(chatId);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            // Имена методов Bot API не зависят от регистра, библиотека шлет их в нижнем
+            String method = path.substring(path.lastIndexOf('/') + 1).toLowerCase();
+            byte[] body = readBody(exchange.getRequestBody());
+            methodCounts.computeIfAbsent(method, m -> new LongAdder()).increment();
+            if ("getupdates".equals(method)) {
+                respond(exchange, 200, ok(getUpdates(json(exchange, body))));
+                return;
+            }
+            Long chatId = chatIdOf(exchange, body);
+            if (chatId != null) {
+                outbound.increment();
+                JsonNode text = json(exchange, body).get("text");
+                if (text != null) {
+                    lastTexts.put(chatId, text.asText());
+                }
+                // Слушатель ответа должен увидеть уже записанный текст
+                recordResponse(chatId);
+            }
+            pause();
+            // 429 отдается только на отправку в чат, служебные вызовы проходят всегда
+            if (chatId != null && shouldThrottle()) {
+                throttled.increment();
+                ObjectNode error = mapper.createObjectNode();
+                error.put("ok", false);
+                error.put("error_code", 429);
+                error.put("description", "Too Many Requests: retry after 1");
+                error.putObject("parameters").put("retry_after", 1);
+                respond(exchange, 429, error);
+                return;
+            }
+            respond(exchange, 200, ok(result(method, chatId)));
+        } catch (RuntimeException e) {
+            ObjectNode error = mapper.createObjectNode();
+            error.put("ok", false);
+            error.put("error_code", 400);
+            error.put("description", "Bad Request: " + e.getMessage());
+            respond(exchange, 400, error);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private ArrayNode getUpdates(JsonNode request) {
+        int limit = request.path("limit").asInt(100);
+        int timeoutSeconds = request.path("timeout").asInt(0);
+        ArrayNode result = mapper.createArrayNode();
+        try {
+            ObjectNode first = timeoutSeconds > 0 ? updates.poll(timeoutSeconds, TimeUnit.SECONDS) : updates.poll();
+            if (first != null) {
+                result.add(first);
+                ObjectNode next;
+                while (result.size() < limit && (next = updates.poll()) != null) {
+                    result.add(next);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private JsonNode result(String method, Long chatId) {
+        switch (method) {
+            case "getme":
+                ObjectNode me = user(1);
+                me.put("is_bot", true);
+                me.put("username", "fake_bot");
+                return me;
+            case "sendmessage":
+            case "sendphoto":
+            case "senddocument":
+            case "editmessagetext":
+            case "editmessagemedia":
+                return message(chatId != null ? chatId : 0);
+            case "sendmediagroup":
+                ArrayNode messages = mapper.createArrayNode();
+                messages.add(message(chatId != null ? chatId : 0));
+                return messages;
+            default:
+                return mapper.getNodeFactory().booleanNode(true);
+        }
+    }
+
+    private void recordResponse(long chatId) {
+        Deque<Long> pending = awaitingResponse.get(chatId);
+        if (pending == null) {
+            return;
+        }
+        Long enqueued;
+        synchronized (pending) {
+            enqueued = pending.pollFirst();
+        }
+        if (enqueued != null) {
+            responseLatency.recordSince(enqueued);
+            responseListener.accept(chatId);
+        }
+    }
+
+    private void pause() {
+        long delay = latencyMillis;
+        if (jitterMillis > 0) {
+            synchronized (random) {
+                delay += random.nextInt((int) jitterMillis + 1);
+            }
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean shouldThrottle() {
+        if (throttleRatio <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < throttleRatio;
+        }
+    }
+
+    private ObjectNode ok(JsonNode result) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("ok", true);
+        response.set("result", result);
+        return response;
+    }
+
+    private ObjectNode message(long chatId) {
+        ObjectNode message = mapper.createObjectNode();
+        message.put("message_id", nextMessageId.getAndIncrement());
+        message.put("date", System.currentTimeMillis() / 1000);
+        ObjectNode chat = message.putObject("chat");
+        chat.put("id", chatId);
+        chat.put("type", "private");
+        message.set("from", user(chatId));
+        return message;
+    }
+
+    private ObjectNode user(long id) {
+        ObjectNode user = mapper.createObjectNode();
+        user.put("id", id);
+        user.put("is_bot", false);
+        user.put("first_name", "Load " + id);
+        return user;
+    }
+
+    private JsonNode json(HttpExchange exchange, byte[] body) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (body.length == 0 || contentType == null || !contentType.startsWith("application/json")) {
+            return mapper.createObjectNode();
+        }
+        try {
+            return mapper.readTree(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("некорректный JSON", e);
+        }
+    }
+
+    private Long chatIdOf(HttpExchange exchange, byte[] body) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith("multipart/")) {
+            Matcher matcher = MULTIPART_CHAT_ID.matcher(new String(body, StandardCharsets.ISO_8859_1));
+            return matcher.find() ? Long.parseLong(matcher.group(1).trim()) : null;
+        }
+        JsonNode chatId = json(exchange, body).get("chat_id");
+        return chatId != null ? chatId.asLong() : null;
+    }
+
+    private static Long chatIdOf(JsonNode update) {
+        JsonNode chat = update.has("callback_query")
+                ? update.path("callback_query").path("message").path("chat")
+                : update.path("message").path("chat");
+        return chat.has("id") ? chat.get("id").asLong() : null;
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
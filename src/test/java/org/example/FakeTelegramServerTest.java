@@ -0,0 +1,103 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.infrastructure.jfr.FlightRecorderControl;
+import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
+import org.school.analysis.presentation.telegram.ports.ChartHandler;
+import org.school.analysis.presentation.telegram.ports.CommandHandler;
+import org.school.analysis.presentation.telegram.ports.DataHandler;
+import org.school.analysis.presentation.telegram.ports.QueryHandler;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FakeTelegramServerTest {
+
+    private FakeTelegramServer server;
+    private SchoolTelegramBot bot;
+    private BotSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeTelegramServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (session != null) {
+            session.stop();
+        }
+        if (bot != null) {
+            bot.shutdown();
+        }
+        server.stop();
+    }
+
+    @Test
+    @Timeout(30)
+    void testBotRepliesThroughFakeApi() throws Exception {
+        CommandHandler commandHandler = mock(CommandHandler.class);
+        doAnswer(invocation -> {
+            SchoolTelegramBot target = invocation.getArgument(1);
+            target.sendText(invocation.getArgument(0), "Добро пожаловать");
+            return null;
+        }).when(commandHandler).sendWelcome(anyLong(), any());
+        startBot(commandHandler);
+        CountDownLatch answered = new CountDownLatch(2);
+        server.setResponseListener(chatId -> answered.countDown());
+
+        server.enqueueMessage(101L, "/start");
+        server.enqueueMessage(202L, "/status");
+
+        assertTrue(answered.await(20, TimeUnit.SECONDS), "Бот должен ответить в оба чата");
+        assertEquals("Добро пожаловать", server.getLastText(101L));
+        assertTrue(server.getLastText(202L).contains("Статус бота"));
+        assertEquals(2, server.getResponseLatency().getCount());
+        assertEquals(0, server.getUnansweredCount());
+        assertTrue(server.getMethodCounts().get("getupdates") >= 1);
+    }
+
+    @Test
+    @Timeout(30)
+    void testThrottledSendsAreCounted() throws Exception {
+        server.stop();
+        server = new FakeTelegramServer(0, 0, 1.0, 7);
+        server.start();
+        startBot(mock(CommandHandler.class));
+        CountDownLatch attempted = new CountDownLatch(1);
+        server.setResponseListener(chatId -> attempted.countDown());
+
+        server.enqueueMessage(303L, "/status");
+
+        assertTrue(attempted.await(20, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getThrottledCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, server.getThrottledCount());
+    }
+
+    private void startBot(CommandHandler commandHandler) throws Exception {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(server.getBaseUrl());
+        options.setGetUpdatesTimeout(1);
+        bot = new SchoolTelegramBot(options, "test-token", "fake_bot", commandHandler, mock(QueryHandler.class),
+                mock(ChartHandler.class), mock(DataHandler.class), Collections.emptySet(),
+                new FlightRecorderControl(Paths.get("recordings")));
+        session = new TelegramBotsApi(DefaultBotSession.class).registerBot(bot);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.school.analysis.infrastructure.jfr.FlightRecorderControl;
+import org.school.analysis.infrastructure.jfr.RepositoryQueryEvent;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderControlTest {
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void testDumpAndStop_WithoutRecording() throws Exception {
+        FlightRecorderControl control = new FlightRecorderControl(outputDirectory);
+        assertFalse(control.isRecording());
+        assertNull(control.dump());
+        assertNull(control.stop());
+    }
+
+    @Test
+    void testRecording_ContainsBotEvents() throws Exception {
+        FlightRecorderControl control = new FlightRecorderControl(outputDirectory);
+        assertTrue(control.start());
+        assertFalse(control.start(), "Вторая запись не запускается");
+        try {
+            RepositoryQueryEvent event = RepositoryQueryEvent.begin("findMetricValues",
+                    "SELECT x\n    FROM schools WHERE x > ?");
+            event.finish(42);
+        } finally {
+            Path file = control.stop();
+            assertNotNull(file);
+            assertFalse(control.isRecording());
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("org.school.analysis.RepositoryQuery"))
+                    .collect(Collectors.toList());
+            assertEquals(1, events.size());
+            assertEquals("findMetricValues", events.get(0).getString("method"));
+            assertEquals("SELECT x FROM schools WHERE x > ?", events.get(0).getString("sql"));
+            assertEquals(42, events.get(0).getInt("rows"));
+            assertTrue(Files.size(file) > 0);
+        }
+    }
+}
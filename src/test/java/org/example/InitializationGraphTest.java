@@ -0,0 +1,116 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.di.InitializationGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InitializationGraphTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @Timeout(10)
+    void testIndependentComponentsStartConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Runnable waitForOther = () -> {
+            bothStarted.countDown();
+            try {
+                // При последовательном запуске второй компонент не стартует и ожидание истечет
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        InitializationGraph.Report report = new InitializationGraph()
+                .component("database", waitForOther)
+                .component("executors", waitForOther)
+                .run(executor);
+
+        assertEquals(Arrays.asList("database", "executors"), new ArrayList<>(report.getComponentMillis().keySet()));
+    }
+
+    @Test
+    void testDependenciesRunFirst() {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        InitializationGraph.Report report = new InitializationGraph()
+                .component("services", () -> order.add("services"), "repositories", "parser")
+                .component("repositories", () -> order.add("repositories"), "database")
+                .component("database", () -> order.add("database"))
+                .component("parser", () -> order.add("parser"))
+                .run(executor);
+
+        assertTrue(order.indexOf("database") < order.indexOf("repositories"));
+        assertTrue(order.indexOf("repositories") < order.indexOf("services"));
+        assertTrue(order.indexOf("parser") < order.indexOf("services"));
+        assertEquals(4, report.getComponentMillis().size());
+        assertTrue(report.toString().contains("services="));
+    }
+
+    @Test
+    void testFailureSkipsDependentsAndIsRethrown() {
+        AtomicBoolean servicesStarted = new AtomicBoolean();
+        AtomicBoolean parserFinished = new AtomicBoolean();
+        InitializationGraph graph = new InitializationGraph()
+                .component("database", () -> {
+                    throw new RuntimeException("Не удалось подключиться к базе данных");
+                })
+                .component("parser", () -> parserFinished.set(true))
+                .component("services", () -> servicesStarted.set(true), "database", "parser");
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> graph.run(executor));
+
+        assertEquals("Не удалось подключиться к базе данных", exception.getMessage());
+        assertFalse(servicesStarted.get());
+        assertTrue(parserFinished.get());
+    }
+
+    @Test
+    void testCycleIsRejected() {
+        InitializationGraph graph = new InitializationGraph()
+                .component("a", () -> { }, "b")
+                .component("b", () -> { }, "a");
+
+        assertThrows(IllegalStateException.class, () -> graph.run(executor));
+    }
+
+    @Test
+    void testUnknownDependencyIsRejected() {
+        InitializationGraph graph = new InitializationGraph().component("services", () -> { }, "repositories");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> graph.run(executor));
+        assertTrue(exception.getMessage().contains("repositories"));
+    }
+
+    @Test
+    void testDuplicateComponentIsRejected() {
+        InitializationGraph graph = new InitializationGraph().component("parser", () -> { });
+
+        assertThrows(IllegalArgumentException.class, () -> graph.component("parser", () -> { }));
+    }
+}
@@ -3,11 +3,23 @@ package org.example;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.school.analysis.application.exception.RepositoryException;
+import org.school.analysis.application.services.DatasetVersion;
+import org.school.analysis.domain.dto.ChartData;
+import org.school.analysis.domain.dto.ChartRenderResult;
+import org.school.analysis.domain.dto.CountryStudentStats;
+import org.school.analysis.domain.model.ChartMetric;
+import org.school.analysis.domain.model.ChartSpec;
 import org.school.analysis.infrastructure.adapters.JFreeChartGenerator;
+import org.school.analysis.infrastructure.visualization.ChartCache;
 import org.school.analysis.infrastructure.visualization.ChartManager;
+
+import java.nio.file.Path;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -16,228 +28,255 @@ class JFreeChartGeneratorTest {
 
     private JFreeChartGenerator chartGenerator;
 
+    private final DatasetVersion datasetVersion = new DatasetVersion();
+
     @Mock
     private ChartManager chartService;
 
     @BeforeEach
     void setUp() {
-        chartGenerator = new JFreeChartGenerator(chartService);
+        chartGenerator = new JFreeChartGenerator(chartService, datasetVersion);
     }
 
     @Test
-    void createAverageStudentsChart_ShouldReturnByteArray_WhenChartServiceSucceeds() {
+    void renderAverageStudentsChart_ShouldBuildImageAndCaptionFromOneQuery() {
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
         byte[] expectedChartData = new byte[]{1, 2, 3, 4, 5};
-        when(chartService.createAverageStudentsByCountriesChart()).thenReturn(expectedChartData);
-        byte[] result = chartGenerator.createAverageStudentsChart();
-        assertNotNull(result);
-        assertArrayEquals(expectedChartData, result);
-        verify(chartService).createAverageStudentsByCountriesChart();
-    }
+        String expectedCaption = "Диаграмма: Среднее количество студентов по странам";
+        when(chartService.loadAverageStudentsStats()).thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats)).thenReturn(expectedChartData);
+        when(chartService.describeAverageStudentsChart(stats)).thenReturn(expectedCaption);
 
-    @Test
-    void createAverageStudentsChart_ShouldThrowRuntimeException_WhenChartServiceThrowsException() {
-        String errorMessage = "Chart creation failed";
-        when(chartService.createAverageStudentsByCountriesChart())
-                .thenThrow(new RuntimeException(errorMessage));
-        RuntimeException exception = assertThrows(RuntimeException.class,
-                () -> chartGenerator.createAverageStudentsChart());
+        ChartRenderResult result = chartGenerator.renderAverageStudentsChart();
 
-        assertEquals("Не удалось создать диаграмму", exception.getMessage());
-        assertNotNull(exception.getCause());
-        assertEquals(errorMessage, exception.getCause().getMessage());
-        verify(chartService).createAverageStudentsByCountriesChart();
+        assertArrayEquals(expectedChartData, result.getPng());
+        assertEquals(expectedCaption, result.getCaption());
+        assertSame(stats, result.getStats());
+        verify(chartService, times(1)).loadAverageStudentsStats();
     }
 
     @Test
-    void createAverageStudentsChart_ShouldWrapRepositoryException_WhenChartServiceThrowsIt() {
-        String errorMessage = "Database error";
-        when(chartService.createAverageStudentsByCountriesChart())
-                .thenThrow(new RepositoryException(errorMessage));
+    void renderAverageStudentsChart_ShouldWrapRepositoryException_WhenNoData() {
+        when(chartService.loadAverageStudentsStats())
+                .thenThrow(new RepositoryException("Нет данных для создания диаграммы"));
         RuntimeException exception = assertThrows(RuntimeException.class,
-                () -> chartGenerator.createAverageStudentsChart());
+                () -> chartGenerator.renderAverageStudentsChart());
 
         assertEquals("Не удалось создать диаграмму", exception.getMessage());
-        assertNotNull(exception.getCause());
         assertInstanceOf(RepositoryException.class, exception.getCause());
-        assertEquals(errorMessage, exception.getCause().getMessage());
+        verify(chartService, never()).renderAverageStudentsChart(any());
     }
 
     @Test
-    void createAverageStudentsChart_ShouldWrapNullPointerException_WhenChartServiceThrowsIt() {
-        when(chartService.createAverageStudentsByCountriesChart())
-                .thenThrow(new NullPointerException("Null data"));
+    void renderAverageStudentsChart_ShouldWrapRenderException() {
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
+        when(chartService.loadAverageStudentsStats()).thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats)).thenThrow(new NullPointerException("Null data"));
         RuntimeException exception = assertThrows(RuntimeException.class,
-                () -> chartGenerator.createAverageStudentsChart());
+                () -> chartGenerator.renderAverageStudentsChart());
 
         assertEquals("Не удалось создать диаграмму", exception.getMessage());
-        assertNotNull(exception.getCause());
         assertInstanceOf(NullPointerException.class, exception.getCause());
         assertEquals("Null data", exception.getCause().getMessage());
     }
 
     @Test
-    void getChartDescription_ShouldReturnDescription_WhenChartServiceSucceeds() {
-        String expectedDescription = "Диаграмма: Среднее количество студентов по странам";
-        when(chartService.getChartDescription()).thenReturn(expectedDescription);
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertEquals(expectedDescription, result);
-        verify(chartService).getChartDescription();
-    }
+    void renderAverageStudentsChart_ShouldNotCacheFailures() {
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
+        when(chartService.loadAverageStudentsStats())
+                .thenThrow(new RepositoryException("Database error"))
+                .thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats)).thenReturn(new byte[]{1});
+        when(chartService.describeAverageStudentsChart(stats)).thenReturn("caption");
 
-    @Test
-    void getChartDescription_ShouldReturnRepositoryErrorMessage_WhenRepositoryExceptionIsThrown() {
-        String errorMessage = "Database connection failed";
-        when(chartService.getChartDescription())
-                .thenThrow(new RepositoryException(errorMessage));
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertTrue(result.contains("Ошибка получения данных для диаграммы"));
-        assertTrue(result.contains(errorMessage));
-        verify(chartService).getChartDescription();
+        assertThrows(RuntimeException.class, () -> chartGenerator.renderAverageStudentsChart());
+        assertEquals("caption", chartGenerator.renderAverageStudentsChart().getCaption());
     }
 
     @Test
-    void getChartDescription_ShouldReturnGenericErrorMessage_WhenGenericExceptionIsThrown() {
-        when(chartService.getChartDescription())
-                .thenThrow(new RuntimeException("Unexpected error"));
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertEquals("Ошибка создания диаграммы", result);
-        verify(chartService).getChartDescription();
-    }
+    void renderAverageStudentsChart_ShouldReuseResultForSameDatasetVersion() {
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
+        when(chartService.loadAverageStudentsStats()).thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats)).thenReturn(new byte[]{1, 2, 3});
+        when(chartService.describeAverageStudentsChart(stats)).thenReturn("caption");
 
-    @Test
-    void getChartDescription_ShouldReturnGenericErrorMessage_WhenNullPointerExceptionIsThrown() {
-        when(chartService.getChartDescription())
-                .thenThrow(new NullPointerException());
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertEquals("Ошибка создания диаграммы", result);
-        verify(chartService).getChartDescription();
-    }
+        ChartRenderResult first = chartGenerator.renderAverageStudentsChart();
+        ChartRenderResult second = chartGenerator.renderAverageStudentsChart();
 
-    @Test
-    void getChartDescription_ShouldReturnGenericErrorMessage_WhenIllegalArgumentExceptionIsThrown() {
-        when(chartService.getChartDescription())
-                .thenThrow(new IllegalArgumentException("Invalid argument"));
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertEquals("Ошибка создания диаграммы", result);
-        verify(chartService).getChartDescription();
+        assertSame(first, second);
+        verify(chartService, times(1)).loadAverageStudentsStats();
+        verify(chartService, times(1)).renderAverageStudentsChart(stats);
     }
 
     @Test
-    void getChartDescription_ShouldHandleEmptyString_WhenChartServiceReturnsIt() {
-        when(chartService.getChartDescription()).thenReturn("");
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertEquals("", result);
-        verify(chartService).getChartDescription();
-    }
+    void renderAverageStudentsChart_ShouldRenderAgainAfterDatasetChange() {
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
+        when(chartService.loadAverageStudentsStats()).thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats)).thenReturn(new byte[]{1, 2, 3});
+        when(chartService.describeAverageStudentsChart(stats)).thenReturn("caption");
 
-    @Test
-    void getChartDescription_ShouldHandleNull_WhenChartServiceReturnsIt() {
-        when(chartService.getChartDescription()).thenReturn(null);
-        String result = chartGenerator.getChartDescription();
-        assertNull(result);
-        verify(chartService).getChartDescription();
-    }
+        chartGenerator.renderAverageStudentsChart();
+        datasetVersion.increment();
+        chartGenerator.renderAverageStudentsChart();
 
-    @Test
-    void createAverageStudentsChart_ShouldHandleNullReturn_WhenChartServiceReturnsNull() {
-        when(chartService.createAverageStudentsByCountriesChart()).thenReturn(null);
-        byte[] result = chartGenerator.createAverageStudentsChart();
-        assertNull(result);
-        verify(chartService).createAverageStudentsByCountriesChart();
+        verify(chartService, times(2)).loadAverageStudentsStats();
+        verify(chartService, times(2)).renderAverageStudentsChart(stats);
     }
 
     @Test
-    void createAverageStudentsChart_ShouldHandleEmptyByteArray_WhenChartServiceReturnsIt() {
-        byte[] emptyArray = new byte[0];
-        when(chartService.createAverageStudentsByCountriesChart()).thenReturn(emptyArray);
-        byte[] result = chartGenerator.createAverageStudentsChart();
-        assertNotNull(result);
-        assertEquals(0, result.length);
-        verify(chartService).createAverageStudentsByCountriesChart();
-    }
-
-    @Test
-    void getChartDescription_ShouldPreserveFormatting_WhenChartServiceReturnsFormattedText() {
+    void renderAverageStudentsChart_ShouldPreserveCaptionFormatting() {
         String formattedDescription = """
             Диаграмма: Среднее количество студентов по странам
             
             Статистика по странам:
             • Fresno: 450.5 студентов в среднем (15 школ)
-            • Contra Costa: 380.2 студентов в среднем (12 школ)
             
             Диаграмма построена на основе данных из CSV файла
             """;
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
+        when(chartService.loadAverageStudentsStats()).thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats)).thenReturn(new byte[0]);
+        when(chartService.describeAverageStudentsChart(stats)).thenReturn(formattedDescription);
+
+        ChartRenderResult result = chartGenerator.renderAverageStudentsChart();
 
-        when(chartService.getChartDescription()).thenReturn(formattedDescription);
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertEquals(formattedDescription, result);
-        verify(chartService).getChartDescription();
+        assertEquals(formattedDescription, result.getCaption());
+        assertEquals(0, result.getPng().length);
     }
 
     @Test
-    void getChartDescription_ShouldHandleSpecialCharacters() {
-        String specialDescription = "Диаграмма с спецсимволами: © ® ™ € £ ¥ ± ≠ ≤ ≥";
-        when(chartService.getChartDescription()).thenReturn(specialDescription);
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertEquals(specialDescription, result);
-        verify(chartService).getChartDescription();
+    void render_ShouldReuseSpecResultUntilDatasetChange() {
+        ChartSpec spec = ChartSpec.histogram(ChartMetric.MATH_SCORE, 10);
+        ChartData data = new ChartData(List.of("600"), new double[]{600}, new double[]{3}, 3);
+        when(chartService.getChartKey(spec)).thenReturn(spec.getKey());
+        when(chartService.loadChartData(spec)).thenReturn(data);
+        when(chartService.renderChart(spec, data)).thenReturn(new byte[]{7});
+        when(chartService.describeChart(spec, data)).thenReturn("histogram");
+
+        ChartRenderResult first = chartGenerator.render(spec);
+        ChartRenderResult second = chartGenerator.render(spec);
+        datasetVersion.increment();
+        chartGenerator.render(spec);
+
+        assertSame(first, second);
+        assertEquals("histogram", first.getCaption());
+        verify(chartService, times(2)).loadChartData(spec);
+        verify(chartService, times(2)).renderChart(spec, data);
     }
 
     @Test
-    void createAverageStudentsChart_ShouldPropagateInterruptedException() {
-        when(chartService.createAverageStudentsByCountriesChart())
-                .thenThrow(new RuntimeException(new InterruptedException("Thread interrupted")));
-        RuntimeException exception = assertThrows(RuntimeException.class,
-                () -> chartGenerator.createAverageStudentsChart());
+    void renderAverageStudentsPreview_ShouldRenderAtPreviewSize() {
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
+        when(chartService.loadAverageStudentsStats()).thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats, ChartSpec.PREVIEW_WIDTH, ChartSpec.PREVIEW_HEIGHT))
+                .thenReturn(new byte[]{9});
+        when(chartService.describeAverageStudentsChart(stats)).thenReturn("caption");
 
-        assertEquals("Не удалось создать диаграмму", exception.getMessage());
-        assertNotNull(exception.getCause());
-        assertInstanceOf(RuntimeException.class, exception.getCause());
+        ChartRenderResult preview = chartGenerator.renderAverageStudentsPreview();
+
+        assertArrayEquals(new byte[]{9}, preview.getPng());
+        assertEquals("caption", preview.getCaption());
+        verify(chartService, never()).renderAverageStudentsChart(stats);
+    }
+
+    @Test
+    void renderAverageStudentsChartWithPreview_ShouldRenderPreviewFirstFromOneQuery() {
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
+        when(chartService.loadAverageStudentsStats()).thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats, ChartSpec.PREVIEW_WIDTH, ChartSpec.PREVIEW_HEIGHT))
+                .thenReturn(new byte[]{9});
+        when(chartService.renderAverageStudentsChart(stats)).thenReturn(new byte[]{1, 2});
+        when(chartService.describeAverageStudentsChart(stats)).thenReturn("caption");
+        List<ChartRenderResult> previews = new java.util.ArrayList<>();
+
+        ChartRenderResult result = chartGenerator.renderAverageStudentsChart(previews::add);
+        chartGenerator.renderAverageStudentsChart(previews::add);
+
+        assertEquals(1, previews.size());
+        assertArrayEquals(new byte[]{9}, previews.get(0).getPng());
+        assertEquals("caption", previews.get(0).getCaption());
+        assertArrayEquals(new byte[]{1, 2}, result.getPng());
+        verify(chartService, times(1)).loadAverageStudentsStats();
+        org.mockito.InOrder order = inOrder(chartService);
+        order.verify(chartService).renderAverageStudentsChart(stats, ChartSpec.PREVIEW_WIDTH, ChartSpec.PREVIEW_HEIGHT);
+        order.verify(chartService).renderAverageStudentsChart(stats);
+    }
+
+    @Test
+    void renderSpecWithPreview_ShouldRenderPreviewSpecFromSameData() {
+        ChartSpec spec = ChartSpec.histogram(ChartMetric.MATH_SCORE, 10);
+        ChartData data = new ChartData(List.of("600"), new double[]{600}, new double[]{3}, 3);
+        when(chartService.loadChartData(spec)).thenReturn(data);
+        when(chartService.renderChart(spec.preview(), data)).thenReturn(new byte[]{5});
+        when(chartService.renderChart(spec, data)).thenReturn(new byte[]{7});
+        when(chartService.describeChart(spec, data)).thenReturn("histogram");
+        List<ChartRenderResult> previews = new java.util.ArrayList<>();
+
+        ChartRenderResult result = chartGenerator.render(spec, previews::add);
+
+        assertEquals(1, previews.size());
+        assertArrayEquals(new byte[]{5}, previews.get(0).getPng());
+        assertArrayEquals(new byte[]{7}, result.getPng());
+        verify(chartService, times(1)).loadChartData(spec);
+        verify(chartService, never()).loadChartData(spec.preview());
     }
 
     @Test
-    void sameInstance_ShouldUseSameChartService_ForMultipleCalls() {
-        byte[] chartData = new byte[]{1, 2, 3};
-        String description = "Test description";
+    void renderAverageStudentsChart_ShouldServeCachedChartWithoutQuery(@TempDir Path chartsDir) {
+        List<CountryStudentStats> stats = List.of(createStat("Fresno", 450.5, 15));
+        byte[] png = new byte[]{1, 2, 3};
+        when(chartService.getAverageStudentsChartKey()).thenReturn("students");
+        when(chartService.loadAverageStudentsStats()).thenReturn(stats);
+        when(chartService.renderAverageStudentsChart(stats)).thenReturn(png);
+        when(chartService.describeAverageStudentsChart(stats)).thenReturn("Подпись");
+        ChartCache cache = new ChartCache(chartsDir, 1024, datasetVersion.current());
+        new JFreeChartGenerator(chartService, datasetVersion, cache).renderAverageStudentsChart();
+        cache.persist();
 
-        when(chartService.createAverageStudentsByCountriesChart()).thenReturn(chartData);
-        when(chartService.getChartDescription()).thenReturn(description);
-        byte[] result1 = chartGenerator.createAverageStudentsChart();
-        String result2 = chartGenerator.getChartDescription();
-        byte[] result3 = chartGenerator.createAverageStudentsChart();
-        assertArrayEquals(chartData, result1);
-        assertEquals(description, result2);
-        assertArrayEquals(chartData, result3);
+        // После перезапуска диаграмма и подпись берутся с диска
+        ChartCache restarted = new ChartCache(chartsDir, 1024, datasetVersion.current());
+        ChartRenderResult result = new JFreeChartGenerator(chartService, datasetVersion, restarted)
+                .renderAverageStudentsChart();
 
-        verify(chartService, times(2)).createAverageStudentsByCountriesChart();
-        verify(chartService, times(1)).getChartDescription();
+        assertArrayEquals(png, result.getPng());
+        assertEquals("Подпись", result.getCaption());
+        verify(chartService, times(1)).loadAverageStudentsStats();
+        verify(chartService, times(1)).renderAverageStudentsChart(stats);
     }
 
     @Test
-    void getChartDescription_ShouldReturnRepositoryExceptionMessageWithDetails() {
-        RepositoryException repoException = new RepositoryException(
-                "Database error: Connection timeout after 30 seconds. Retry count: 3",
-                new SQLException("Connection timed out")
-        );
-
-        when(chartService.getChartDescription()).thenThrow(repoException);
-        String result = chartGenerator.getChartDescription();
-        assertNotNull(result);
-        assertTrue(result.contains("Ошибка получения данных для диаграммы"));
-        assertTrue(result.contains("Database error: Connection timeout after 30 seconds. Retry count: 3"));
-        verify(chartService).getChartDescription();
-    }
-    private static class SQLException extends Exception {
-        public SQLException(String message) {
-            super(message);
-        }
-    }
-}
\ No newline at end of file
+    void render_ShouldServeCachedSpecWithoutQuery(@TempDir Path chartsDir) {
+        ChartSpec spec = ChartSpec.histogram(ChartMetric.MATH_SCORE, 10);
+        ChartData data = new ChartData(List.of("600"), new double[]{600}, new double[]{3}, 3);
+        when(chartService.getChartKey(spec)).thenReturn(spec.getKey());
+        when(chartService.loadChartData(spec)).thenReturn(data);
+        when(chartService.renderChart(spec, data)).thenReturn(new byte[]{4});
+        when(chartService.describeChart(spec, data)).thenReturn("Гистограмма");
+        ChartCache cache = new ChartCache(chartsDir, 1024, datasetVersion.current());
+        new JFreeChartGenerator(chartService, datasetVersion, cache).render(spec);
+
+        ChartRenderResult result = new JFreeChartGenerator(chartService, datasetVersion, cache).render(spec);
+
+        assertArrayEquals(new byte[]{4}, result.getPng());
+        assertEquals("Гистограмма", result.getCaption());
+        verify(chartService, times(1)).loadChartData(spec);
+    }
+
+    @Test
+    void chartSpecPreview_ShouldKeepAspectRatioOfExplicitSize() {
+        ChartSpec spec = ChartSpec.histogram(ChartMetric.MATH_SCORE, 10);
+
+        assertEquals(ChartSpec.PREVIEW_WIDTH, spec.preview().getWidth());
+        assertEquals(ChartSpec.PREVIEW_HEIGHT, spec.preview().getHeight());
+        assertEquals(240, spec.withSize(1600, 800).preview().getHeight());
+        assertEquals(ChartSpec.MIN_SIZE, spec.withSize(2000, 400).preview().getHeight());
+    }
+
+    private CountryStudentStats createStat(String name, double avgStudents, int schoolCount) {
+        CountryStudentStats stat = new CountryStudentStats();
+        stat.setCountryName(name);
+        stat.setAvgStudents(avgStudents);
+        stat.setSchoolCount(schoolCount);
+        return stat;
+    }
+}
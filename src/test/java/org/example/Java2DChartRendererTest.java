@@ -0,0 +1,74 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.infrastructure.visualization.ChartRenderService;
+import org.school.analysis.infrastructure.visualization.Java2DChartRenderer;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Java2DChartRendererTest {
+
+    private static final Color BAR_COLOR = new Color(65, 105, 225);
+
+    private final Java2DChartRenderer renderer = new Java2DChartRenderer(new ChartRenderService(1));
+
+    @Test
+    void testRenderBarChart_ProducesPngWithStyledBars() throws IOException {
+        byte[] png = renderer.renderBarChart("Среднее количество студентов", "Страна (округ)",
+                "Среднее количество студентов", "Среднее количество студентов",
+                List.of("Fresno", "Kern", "Los Angeles"), new double[]{450.5, 300.0, 900.2}, 600, 400);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(600, image.getWidth());
+        assertEquals(400, image.getHeight());
+        assertTrue(containsColor(image, BAR_COLOR), "Столбцы должны быть цвета customizeBarChart");
+    }
+
+    @Test
+    void testRenderBins_ProducesPng() throws IOException {
+        byte[] png = renderer.renderBins("Баллы по математике", "Балл", List.of("600", "620", "640", "660", "680"),
+                new double[]{2, 3, 1, 2, 1}, 400, 300);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(400, image.getWidth());
+        assertTrue(containsColor(image, BAR_COLOR));
+    }
+
+    @Test
+    void testRenderLineChart_ProducesPng() throws IOException {
+        byte[] png = renderer.renderLineChart("Расходы", "Школа", "Расходы", "Расходы",
+                new double[]{1, 2, 3, 4}, new double[]{5000, 5200, 4800, 6100}, 400, 300);
+
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(png)));
+    }
+
+    @Test
+    void testRenderLineChart_MismatchedSeries() {
+        assertThrows(IllegalArgumentException.class, () -> renderer.renderLineChart("t", "x", "y", "s",
+                new double[]{1, 2}, new double[]{1}, 100, 100));
+    }
+
+    @Test
+    void testRenderBarChart_EmptyData() throws IOException {
+        byte[] png = renderer.renderBarChart("Пусто", "x", "y", null, List.of(), new double[0], 300, 200);
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(png)));
+    }
+
+    private boolean containsColor(BufferedImage image, Color color) {
+        for (int x = 0; x < image.getWidth(); x += 2) {
+            for (int y = 0; y < image.getHeight(); y += 2) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) == (color.getRGB() & 0xFFFFFF)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.infrastructure.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(0.99));
+        assertEquals(0, histogram.countAtOrBelow(1_000_000));
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10; micros++) {
+            histogram.record(micros * 1000L);
+        }
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(55, histogram.getSumMicros());
+        assertEquals(10, histogram.getMaxMicros());
+        assertEquals(5, histogram.getPercentileMicros(0.5));
+        assertEquals(10, histogram.getPercentileMicros(1.0));
+    }
+
+    @Test
+    void testPercentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(500_000, histogram.getPercentileMicros(0.5), 500_000 * 0.125);
+        assertEquals(990_000, histogram.getPercentileMicros(0.99), 990_000 * 0.125);
+        assertEquals(1_000_000, histogram.getMaxMicros());
+        assertEquals(1_000_000, histogram.getPercentileMicros(1.0));
+    }
+
+    @Test
+    void testCountAtOrBelow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        histogram.record(TimeUnit.SECONDS.toNanos(3));
+
+        assertEquals(1, histogram.countAtOrBelow(1_000));
+        assertEquals(2, histogram.countAtOrBelow(25_000));
+        assertEquals(3, histogram.countAtOrBelow(10_000_000));
+    }
+
+    @Test
+    void testHugeAndNegativeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(0.5));
+        assertEquals(Long.MAX_VALUE / 1000, histogram.getPercentileMicros(1.0));
+    }
+
+    @Test
+    void testTimeRecordsEvenOnException() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals("ok", histogram.time(() -> "ok"));
+        assertThrows(IllegalStateException.class, () -> histogram.time(() -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(2, histogram.getCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void testConcurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        histogram.record(TimeUnit.MICROSECONDS.toNanos(i % 500));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(80_000, histogram.getCount());
+        assertEquals(80_000, histogram.countAtOrBelow(Long.MAX_VALUE));
+    }
+}
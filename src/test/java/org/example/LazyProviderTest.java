@@ -0,0 +1,141 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.application.ports.output.ChartGenerator;
+import org.school.analysis.domain.dto.ChartRenderResult;
+import org.school.analysis.infrastructure.adapters.LazyChartGenerator;
+import org.school.analysis.infrastructure.concurrency.LazyProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LazyProviderTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testGet_CreatesOnFirstAccessOnly() {
+        AtomicInteger created = new AtomicInteger();
+        LazyProvider<String> provider = new LazyProvider<>("test", () -> "value" + created.incrementAndGet());
+
+        assertFalse(provider.isInitialized());
+        assertEquals(-1, provider.getInitMillis());
+        assertEquals("value1", provider.get());
+        assertEquals("value1", provider.get());
+        assertTrue(provider.isInitialized());
+        assertTrue(provider.getInitMillis() >= 0);
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    @Timeout(10)
+    void testGet_ConcurrentCallersShareOneInstance() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        LazyProvider<Object> provider = new LazyProvider<>("test", () -> {
+            created.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Object();
+        });
+
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(provider::get));
+        }
+        release.countDown();
+
+        Object first = results.get(0).get();
+        for (Future<Object> result : results) {
+            assertSame(first, result.get());
+        }
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void testGet_RetriesAfterFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        LazyProvider<String> provider = new LazyProvider<>("test", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Нет шрифтов");
+            }
+            return "ready";
+        });
+
+        assertThrows(IllegalStateException.class, provider::get);
+        assertFalse(provider.isInitialized());
+        assertEquals("ready", provider.get());
+    }
+
+    @Test
+    @Timeout(10)
+    void testWarmUp_CreatesInBackgroundAndRunsWarmer() throws Exception {
+        List<String> warmed = new CopyOnWriteArrayList<>();
+        LazyProvider<String> provider = new LazyProvider<>("test", () -> "charts");
+
+        String value = provider.warmUp(warmed::add).get(5, TimeUnit.SECONDS);
+
+        assertEquals("charts", value);
+        assertTrue(provider.isInitialized());
+        assertEquals(List.of("charts"), warmed);
+    }
+
+    @Test
+    @Timeout(10)
+    void testWarmUp_FailureCompletesExceptionally() {
+        LazyProvider<String> provider = new LazyProvider<>("test", () -> {
+            throw new IllegalStateException("headless");
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> provider.warmUp(null).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    @Timeout(10)
+    void testWarmUp_ErrorCompletesExceptionally() {
+        LazyProvider<String> provider = new LazyProvider<>("test", () -> {
+            throw new UnsatisfiedLinkError("libawt_xawt.so");
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> provider.warmUp(null).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof UnsatisfiedLinkError);
+        assertFalse(provider.isInitialized());
+    }
+
+    @Test
+    void testLazyChartGenerator_CreatesGeneratorOnFirstRender() {
+        ChartGenerator real = mock(ChartGenerator.class);
+        ChartRenderResult result = new ChartRenderResult(new byte[]{1}, "caption", List.of());
+        when(real.renderAverageStudentsChart()).thenReturn(result);
+        AtomicInteger created = new AtomicInteger();
+        LazyChartGenerator generator = new LazyChartGenerator(new LazyProvider<>("charts", () -> {
+            created.incrementAndGet();
+            return real;
+        }));
+
+        assertFalse(generator.isInitialized());
+        assertSame(result, generator.renderAverageStudentsChart());
+        generator.renderAverageStudentsChart();
+
+        assertTrue(generator.isInitialized());
+        assertEquals(1, created.get());
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.school.analysis.application.services.DatasetVersion;
 import org.school.analysis.application.services.LoadSchoolsService;
 import org.school.analysis.domain.model.School;
 import org.school.analysis.infrastructure.csv.CsvSchoolParser;
@@ -14,6 +15,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -57,6 +59,47 @@ class LoadSchoolsServiceTest {
         verify(databaseManager).insertSchools(mockSchools);
     }
 
+    @Test
+    void testExecute_SuccessIncrementsDatasetVersion() throws IOException {
+        DatasetVersion datasetVersion = new DatasetVersion();
+        LoadSchoolsService service = new LoadSchoolsService(csvParser, databaseManager, datasetVersion);
+        InputStream csvStream = new ByteArrayInputStream("test".getBytes());
+
+        when(csvParser.parseSchools(csvStream)).thenReturn(Arrays.asList(createSchool(1, "School 1")));
+        when(databaseManager.getConnection()).thenReturn(connection);
+        service.execute(csvStream);
+        assertEquals(1, datasetVersion.current());
+    }
+
+    @Test
+    void testExecute_NotifiesDatasetChangedListeners() throws IOException {
+        DatasetVersion datasetVersion = new DatasetVersion();
+        LoadSchoolsService service = new LoadSchoolsService(csvParser, databaseManager, datasetVersion);
+        List<Long> versions = new ArrayList<>();
+        service.addDatasetChangedListener(version -> {
+            throw new IllegalStateException("Подписчик упал");
+        });
+        service.addDatasetChangedListener(versions::add);
+        InputStream csvStream = new ByteArrayInputStream("test".getBytes());
+
+        when(csvParser.parseSchools(csvStream)).thenReturn(Arrays.asList(createSchool(1, "School 1")));
+        when(databaseManager.getConnection()).thenReturn(connection);
+        assertEquals(1, service.execute(csvStream));
+        assertEquals(List.of(1L), versions);
+    }
+
+    @Test
+    void testExecute_ParsingFailure_DoesNotNotifyListeners() throws IOException {
+        LoadSchoolsService service = new LoadSchoolsService(csvParser, databaseManager, new DatasetVersion());
+        List<Long> versions = new ArrayList<>();
+        service.addDatasetChangedListener(versions::add);
+        InputStream csvStream = new ByteArrayInputStream("test".getBytes());
+
+        when(csvParser.parseSchools(csvStream)).thenThrow(new RuntimeException("Parsing failed"));
+        assertThrows(RuntimeException.class, () -> service.execute(csvStream));
+        assertTrue(versions.isEmpty());
+    }
+
     @Test
     void testExecute_ParsingFailure() throws IOException {
         InputStream csvStream = new ByteArrayInputStream("test".getBytes());
@@ -7,11 +7,15 @@ import org.mockito.Mockito;
 import org.school.analysis.presentation.telegram.bot.SchoolTelegramBot;
 import org.school.analysis.presentation.telegram.util.MessageSender;
 import org.slf4j.Logger;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMedia;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import java.lang.reflect.Field;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -75,6 +79,29 @@ class MessageSenderTest {
         assertEquals(keyboard, message.getReplyMarkup());
     }
 
+    @Test
+    void sendMediaGroup_sendsOneRequestWithCaptionOnFirstPhoto() throws TelegramApiException {
+        messageSender.sendMediaGroup(123456789L, List.of(new byte[]{1}, new byte[]{2}, new byte[]{3}), "Сводка");
+
+        ArgumentCaptor<SendMediaGroup> groupCaptor = ArgumentCaptor.forClass(SendMediaGroup.class);
+        verify(bot).execute(groupCaptor.capture());
+
+        SendMediaGroup group = groupCaptor.getValue();
+        assertEquals("123456789", group.getChatId());
+        assertEquals(3, group.getMedias().size());
+        assertEquals("Сводка", group.getMedias().get(0).getCaption());
+        assertNull(group.getMedias().get(1).getCaption());
+        assertTrue(group.getMedias().get(2).isNewMedia());
+    }
+
+    @Test
+    void sendMediaGroup_singlePhotoSentAsPhoto() throws TelegramApiException {
+        messageSender.sendMediaGroup(123456789L, List.of(new byte[]{1}), "Сводка");
+
+        verify(bot).execute(any(SendPhoto.class));
+        verify(bot, never()).execute(any(SendMediaGroup.class));
+    }
+
     @Test
     void sendPhoto_telegramApiException_sendsFallbackMessage() throws TelegramApiException {
         byte[] photoBytes = {1, 2, 3};
@@ -141,6 +168,24 @@ class MessageSenderTest {
         assertEquals("HTML", message.getParseMode());
     }
 
+    @Test
+    void sendPhoto_longCaption_trimmedToTelegramLimit() throws TelegramApiException {
+        StringBuilder caption = new StringBuilder("Диаграмма: Средние расходы по округам\n");
+        for (int i = 0; i < 50; i++) {
+            caption.append("• Округ номер ").append(i).append(": 12345,6\n");
+        }
+
+        messageSender.sendPhoto(123456789L, new byte[]{1, 2, 3}, caption.toString());
+
+        ArgumentCaptor<SendPhoto> photoCaptor = ArgumentCaptor.forClass(SendPhoto.class);
+        verify(bot).execute(photoCaptor.capture());
+        String sent = photoCaptor.getValue().getCaption();
+        assertTrue(caption.length() > MessageSender.MAX_CAPTION_LENGTH);
+        assertTrue(sent.length() <= MessageSender.MAX_CAPTION_LENGTH);
+        assertTrue(sent.startsWith("Диаграмма: Средние расходы по округам\n• Округ номер 0: 12345,6"));
+        assertTrue(sent.endsWith("12345,6\n…"));
+    }
+
     @Test
     void sendPhoto_emptyCaption_sendsPhoto() throws TelegramApiException {
         byte[] photoBytes = {1, 2, 3};
@@ -166,4 +211,41 @@ class MessageSenderTest {
         SendPhoto sendPhoto = photoCaptor.getValue();
         assertNull(sendPhoto.getCaption());
     }
+
+    @Test
+    void sendPhotoMessage_returnsMessageId() throws TelegramApiException {
+        Message sent = new Message();
+        sent.setMessageId(42);
+        when(bot.execute(any(SendPhoto.class))).thenReturn(sent);
+
+        assertEquals(42, messageSender.sendPhotoMessage(123456789L, new byte[]{1, 2, 3}, "Превью"));
+    }
+
+    @Test
+    void sendPhotoMessage_failure_returnsNullWithoutFallbackText() throws TelegramApiException {
+        when(bot.execute(any(SendPhoto.class))).thenThrow(new TelegramApiException("boom"));
+
+        assertNull(messageSender.sendPhotoMessage(123456789L, new byte[]{1, 2, 3}, "Превью"));
+        verify(bot, never()).execute(any(SendMessage.class));
+    }
+
+    @Test
+    void editPhoto_replacesMediaInMessage() throws TelegramApiException {
+        assertTrue(messageSender.editPhoto(123456789L, 42, new byte[]{1, 2, 3}, "Диаграмма"));
+
+        ArgumentCaptor<EditMessageMedia> editCaptor = ArgumentCaptor.forClass(EditMessageMedia.class);
+        verify(bot).execute(editCaptor.capture());
+        EditMessageMedia edit = editCaptor.getValue();
+        assertEquals("123456789", edit.getChatId());
+        assertEquals(42, edit.getMessageId());
+        assertEquals("Диаграмма", edit.getMedia().getCaption());
+        assertEquals("HTML", edit.getMedia().getParseMode());
+    }
+
+    @Test
+    void editPhoto_failure_returnsFalse() throws TelegramApiException {
+        when(bot.execute(any(EditMessageMedia.class))).thenThrow(new TelegramApiException("boom"));
+
+        assertFalse(messageSender.editPhoto(123456789L, 42, new byte[]{1, 2, 3}, "Диаграмма"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.infrastructure.metrics.MetricsRegistry;
+import org.school.analysis.infrastructure.metrics.PrometheusExporter;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void testCounterIsSharedByNameAndLabels() {
+        MetricsRegistry metrics = new MetricsRegistry();
+
+        metrics.counter("updates_total", "lane", "interactive").increment();
+        metrics.counter("updates_total", "lane", "interactive").increment();
+        metrics.counter("updates_total", "lane", "background").increment();
+
+        assertEquals(2, metrics.counter("updates_total", "lane", "interactive").sum());
+        assertEquals(1, metrics.counter("updates_total", "lane", "background").sum());
+    }
+
+    @Test
+    void testOddLabelsRejected() {
+        MetricsRegistry metrics = new MetricsRegistry();
+
+        assertThrows(IllegalArgumentException.class, () -> metrics.counter("updates_total", "lane"));
+    }
+
+    @Test
+    void testScrapeUsesPrometheusTextFormat() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter("updates_total", "lane", "interactive").add(3);
+        metrics.gauge("queue_depth", () -> 7, "stage", "charts");
+        metrics.histogram("send_seconds", "method", "sendPhoto").record(TimeUnit.MILLISECONDS.toNanos(20));
+        metrics.histogram("send_seconds", "method", "sendPhoto").record(TimeUnit.SECONDS.toNanos(2));
+
+        String text = metrics.scrape();
+
+        assertTrue(text.contains("# TYPE updates_total counter\nupdates_total{lane=\"interactive\"} 3\n"));
+        assertTrue(text.contains("# TYPE queue_depth gauge\nqueue_depth{stage=\"charts\"} 7\n"));
+        assertTrue(text.contains("# TYPE send_seconds histogram\n"));
+        assertTrue(text.contains("send_seconds_bucket{method=\"sendPhoto\",le=\"0.01\"} 0\n"));
+        assertTrue(text.contains("send_seconds_bucket{method=\"sendPhoto\",le=\"0.025\"} 1\n"));
+        assertTrue(text.contains("send_seconds_bucket{method=\"sendPhoto\",le=\"2.5\"} 2\n"));
+        assertTrue(text.contains("send_seconds_bucket{method=\"sendPhoto\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("send_seconds_sum{method=\"sendPhoto\"} 2.02\n"));
+        assertTrue(text.contains("send_seconds_count{method=\"sendPhoto\"} 2\n"));
+    }
+
+    @Test
+    void testScrapeEscapesLabelsAndSurvivesFailingGauge() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter("charts_total", "chart", "Среднее \"топ\"").increment();
+        metrics.gauge("broken", () -> {
+            throw new IllegalStateException("пул закрыт");
+        });
+
+        String text = metrics.scrape();
+
+        assertTrue(text.contains("charts_total{chart=\"Среднее \\\"топ\\\"\"} 1"));
+        assertTrue(text.contains("broken NaN"));
+    }
+
+    @Test
+    void testGaugeRegistrationReplacesSource() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.gauge("pending", () -> 1);
+        metrics.gauge("pending", () -> 2);
+
+        assertTrue(metrics.scrape().contains("pending 2\n"));
+        assertFalse(metrics.scrape().contains("pending 1\n"));
+    }
+
+    @Test
+    void testExporterServesMetricsOverHttp() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter("updates_total").add(5);
+        PrometheusExporter exporter = new PrometheusExporter(metrics, "127.0.0.1", 0);
+        exporter.start();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    "http://127.0.0.1:" + exporter.getPort() + "/metrics").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(PrometheusExporter.CONTENT_TYPE, connection.getContentType());
+            try (InputStream body = connection.getInputStream()) {
+                assertTrue(new String(body.readAllBytes(), StandardCharsets.UTF_8).contains("updates_total 5"));
+            }
+        } finally {
+            exporter.stop();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.infrastructure.visualization.PngEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PngEncoderTest {
+
+    @Test
+    void testConstructor_InvalidCompressionLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new PngEncoder(true, 10));
+        assertThrows(IllegalArgumentException.class, () -> new PngEncoder(false, -1));
+    }
+
+    @Test
+    void testEncode_PaletteKeepsFlatColorsExactly() throws IOException {
+        BufferedImage source = flatChart();
+
+        BufferedImage decoded = decode(encode(new PngEncoder(true, 6), source));
+
+        assertTrue(decoded.getColorModel() instanceof IndexColorModel);
+        assertSamePixels(source, decoded);
+    }
+
+    @Test
+    void testEncode_RgbKeepsPixelsExactly() throws IOException {
+        BufferedImage source = flatChart();
+
+        BufferedImage decoded = decode(encode(new PngEncoder(false, 1), source));
+
+        assertFalse(decoded.getColorModel() instanceof IndexColorModel);
+        assertSamePixels(source, decoded);
+    }
+
+    @Test
+    void testEncode_PaletteSmallerThanRgb() throws IOException {
+        BufferedImage source = flatChart();
+
+        byte[] palette = encode(new PngEncoder(true, 6), source);
+        byte[] rgb = encode(new PngEncoder(false, 6), source);
+
+        assertTrue(palette.length < rgb.length, palette.length + " >= " + rgb.length);
+    }
+
+    @Test
+    void testEncode_TooManyColorsKeepsDominantColors() throws IOException {
+        BufferedImage source = flatChart();
+        // Сглаженный текст добавляет сотни редких оттенков поверх основных цветов
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 20; y++) {
+                source.setRGB(200 + x, 10 + y, 0xFF000000 | (x * 6) << 16 | (y * 12) << 8 | 100);
+            }
+        }
+
+        BufferedImage decoded = decode(encode(new PngEncoder(true, 6), source));
+
+        assertEquals(source.getRGB(0, 0), decoded.getRGB(0, 0));
+        assertEquals(source.getRGB(70, 100), decoded.getRGB(70, 100));
+        assertEquals(source.getRGB(100, 100), decoded.getRGB(100, 100));
+    }
+
+    @Test
+    void testEncode_KeepsTransparency() throws IOException {
+        BufferedImage source = new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+        source.setRGB(5, 5, 0xFF4169E1);
+
+        for (boolean palette : new boolean[]{true, false}) {
+            BufferedImage decoded = decode(encode(new PngEncoder(palette, 6), source));
+            assertEquals(0, decoded.getRGB(0, 0) >>> 24);
+            assertEquals(0xFF4169E1, decoded.getRGB(5, 5));
+        }
+    }
+
+    private BufferedImage flatChart() {
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setPaint(Color.WHITE);
+        g2.fillRect(0, 0, 300, 200);
+        g2.setPaint(new Color(240, 240, 240));
+        g2.fillRect(30, 20, 250, 150);
+        g2.setPaint(new Color(65, 105, 225));
+        g2.fillRect(60, 60, 30, 110);
+        g2.fillRect(150, 90, 30, 80);
+        g2.setPaint(Color.BLACK);
+        g2.drawRect(60, 60, 30, 110);
+        g2.dispose();
+        return image;
+    }
+
+    private byte[] encode(PngEncoder encoder, BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(image, out);
+        return out.toByteArray();
+    }
+
+    private BufferedImage decode(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image);
+        return image;
+    }
+
+    private void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Пиксель " + x + "," + y);
+            }
+        }
+    }
+}
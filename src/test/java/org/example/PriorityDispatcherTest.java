@@ -0,0 +1,92 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.presentation.telegram.dispatch.PriorityDispatcher;
+import org.school.analysis.presentation.telegram.dispatch.UpdateLane;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityDispatcherTest {
+
+    private final ExecutorService interactiveWorkers = Executors.newCachedThreadPool();
+    private final ExecutorService backgroundWorkers = Executors.newCachedThreadPool();
+    private final PriorityDispatcher dispatcher = new PriorityDispatcher(
+            lane -> lane == UpdateLane.INTERACTIVE ? interactiveWorkers : backgroundWorkers, 4, 20);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        interactiveWorkers.shutdownNow();
+        backgroundWorkers.shutdownNow();
+    }
+
+    @Test
+    @Timeout(5)
+    void testInteractiveLane_NotBlockedBySaturatedBackgroundLane() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch heavyStarted = new CountDownLatch(UpdateLane.BACKGROUND.getConcurrency());
+        for (long chatId = 1; chatId <= 10; chatId++) {
+            dispatcher.submit(UpdateLane.BACKGROUND, chatId, 4, () -> {
+                heavyStarted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        heavyStarted.await();
+
+        CountDownLatch helpSent = new CountDownLatch(1);
+        dispatcher.submit(UpdateLane.INTERACTIVE, 1L, 1, helpSent::countDown);
+
+        assertTrue(helpSent.await(1, TimeUnit.SECONDS));
+        assertTrue(dispatcher.getPendingCount(UpdateLane.BACKGROUND) > 0);
+        release.countDown();
+    }
+
+    @Test
+    @Timeout(5)
+    void testBackgroundLane_ConcurrencyCapped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ConcurrentHashMap<Thread, Boolean> runningThreads = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(6);
+        for (long chatId = 1; chatId <= 6; chatId++) {
+            dispatcher.submit(UpdateLane.BACKGROUND, chatId, 4, () -> {
+                runningThreads.put(Thread.currentThread(), true);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        Thread.sleep(200);
+        assertEquals(UpdateLane.BACKGROUND.getConcurrency(), runningThreads.size());
+        release.countDown();
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(5)
+    void testSloMiss_CountedWhenQueueWaitExceedsSlo() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        dispatcher.submit(UpdateLane.INTERACTIVE, 1L, 1, () -> {
+            try {
+                Thread.sleep(UpdateLane.INTERACTIVE.getSloMillis() + 100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        dispatcher.submit(UpdateLane.INTERACTIVE, 1L, 1, done::countDown);
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(1, dispatcher.getSloMisses(UpdateLane.INTERACTIVE));
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.infrastructure.logging.RateLimitedLogger;
+import org.slf4j.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RateLimitedLoggerTest {
+
+    @Test
+    void testSuppressesAfterPermitsWithinWindow() {
+        Logger logger = mock(Logger.class);
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 3, 60_000);
+
+        for (int i = 0; i < 10; i++) {
+            limited.warn("sendMessage", "Ошибка отправки сообщения {}", i);
+        }
+
+        verify(logger, times(3)).warn(eq("Ошибка отправки сообщения {}"), any(Object[].class));
+        assertEquals(7, limited.getSuppressedCount());
+    }
+
+    @Test
+    void testKeysAreLimitedIndependently() {
+        Logger logger = mock(Logger.class);
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 1, 60_000);
+
+        limited.error("sendPhoto", "Ошибка отправки изображения {}", 1L);
+        limited.error("sendPhoto", "Ошибка отправки изображения {}", 2L);
+        limited.error("sendMediaGroup", "Ошибка отправки альбома {}", 1L);
+
+        verify(logger).error(eq("Ошибка отправки изображения {}"), any(Object[].class));
+        verify(logger).error(eq("Ошибка отправки альбома {}"), any(Object[].class));
+        assertEquals(1, limited.getSuppressedCount());
+    }
+
+    @Test
+    void testSummaryIsAddedAfterWindowAndThrowableStaysLast() throws Exception {
+        Logger logger = mock(Logger.class);
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 1, 50);
+        RuntimeException error = new RuntimeException("429");
+
+        limited.error("sendMessage", "Ошибка отправки сообщения {}", 1L, error);
+        limited.error("sendMessage", "Ошибка отправки сообщения {}", 2L, error);
+        limited.error("sendMessage", "Ошибка отправки сообщения {}", 3L, error);
+        Thread.sleep(80);
+        limited.error("sendMessage", "Ошибка отправки сообщения {}", 4L, error);
+
+        verify(logger).error("Ошибка отправки сообщения {}", new Object[]{1L, error});
+        verify(logger).error("Ошибка отправки сообщения {} (подавлено похожих сообщений: {})",
+                new Object[]{4L, 2L, error});
+    }
+
+    @Test
+    void testSummaryIsFlushedWhenBurstStops() {
+        Logger logger = mock(Logger.class);
+        RateLimitedLogger limited = new RateLimitedLogger(logger, 1, 50);
+
+        limited.warn("sendPhoto", "Ошибка отправки изображения {}", 1L);
+        limited.warn("sendPhoto", "Ошибка отправки изображения {}", 2L);
+        limited.warn("sendPhoto", "Ошибка отправки изображения {}", 3L);
+
+        verify(logger, timeout(5000)).warn("Подавлено похожих сообщений ({}): {}", "sendPhoto", 2L);
+        verify(logger).warn("Ошибка отправки изображения {}", new Object[]{1L});
+        verifyNoMoreInteractions(logger);
+    }
+
+    @Test
+    void testInvalidParameters() {
+        Logger logger = mock(Logger.class);
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitedLogger(logger, 0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitedLogger(logger, 1, 0));
+    }
+}
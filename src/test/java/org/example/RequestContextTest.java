@@ -0,0 +1,101 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.school.analysis.infrastructure.tracing.ContextPropagatingExecutorService;
+import org.school.analysis.infrastructure.tracing.RequestContext;
+import org.school.analysis.infrastructure.tracing.RequestLog;
+import org.school.analysis.infrastructure.tracing.RequestStage;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestContextTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testRecord_WithoutContextIsIgnored() {
+        assertNull(RequestContext.current());
+        assertDoesNotThrow(() -> RequestContext.record(RequestStage.DB, 1_000_000));
+    }
+
+    @Test
+    void testRun_InstallsContextAndFinishes() {
+        RequestLog log = new RequestLog(10_000);
+        RequestContext context = RequestContext.start(1L, "/status", System.nanoTime(), log);
+
+        context.run(() -> {
+            assertSame(context, RequestContext.current());
+            RequestContext.record(RequestStage.DB, TimeUnit.MILLISECONDS.toNanos(3));
+            RequestContext.record(RequestStage.DB, TimeUnit.MILLISECONDS.toNanos(4));
+        });
+
+        assertNull(RequestContext.current());
+        assertTrue(context.isFinished());
+        assertEquals(7, context.getStageMillis(RequestStage.DB));
+        assertEquals(2, context.getStageCalls(RequestStage.DB));
+        assertTrue(context.getTotalMillis() >= 0);
+        assertTrue(context.toRecord().contains("request=" + context.getId()));
+        assertTrue(context.toRecord().contains("db_ms=7 db_calls=2"));
+        assertTrue(log.getRecentSlowRequests().isEmpty());
+    }
+
+    @Test
+    void testExecutor_PropagatesContextAndWaitsForChildTasks() throws Exception {
+        ExecutorService traced = new ContextPropagatingExecutorService(pool);
+        RequestContext context = RequestContext.start(2L, "chart_students", System.nanoTime(), new RequestLog(10_000));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<RequestContext> seen = new AtomicReference<>();
+
+        context.run(() -> traced.execute(() -> {
+            seen.set(RequestContext.current());
+            RequestContext.record(RequestStage.RENDER, TimeUnit.MILLISECONDS.toNanos(5));
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        assertFalse(context.isFinished(), "Запрос не завершен, пока работает порожденная задача");
+        release.countDown();
+        traced.shutdown();
+        assertTrue(traced.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertSame(context, seen.get());
+        assertTrue(context.isFinished());
+        assertEquals(5, context.getStageMillis(RequestStage.RENDER));
+        assertEquals(1, context.getStageCalls(RequestStage.QUEUE));
+    }
+
+    @Test
+    void testExecutor_RejectedTaskReleasesRequest() {
+        ExecutorService closed = Executors.newSingleThreadExecutor();
+        closed.shutdown();
+        ExecutorService traced = new ContextPropagatingExecutorService(closed);
+        RequestContext context = RequestContext.start(3L, "/load", System.nanoTime(), new RequestLog(10_000));
+
+        context.run(() -> assertThrows(RejectedExecutionException.class, () -> traced.execute(() -> { })));
+
+        assertTrue(context.isFinished());
+    }
+
+    @Test
+    void testLog_SlowRequestsAreKept() {
+        RequestLog log = new RequestLog(0);
+        RequestContext context = RequestContext.start(4L, "text", System.nanoTime(), log);
+
+        context.run(() -> RequestContext.record(RequestStage.SEND, TimeUnit.MILLISECONDS.toNanos(1)));
+
+        assertEquals(1, log.getRecentSlowRequests().size());
+        assertTrue(log.getRecentSlowRequests().get(0).contains("kind=text"));
+    }
+}
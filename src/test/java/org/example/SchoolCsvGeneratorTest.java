@@ -0,0 +1,135 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.school.analysis.domain.model.School;
+import org.school.analysis.infrastructure.csv.CsvSchoolParser;
+import org.school.analysis.infrastructure.csv.SchoolCsvGenerator;
+import org.school.analysis.infrastructure.csv.SchoolDataProfile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchoolCsvGeneratorTest {
+
+    private static List<School> sample;
+    private static SchoolDataProfile profile;
+
+    @BeforeAll
+    static void fitProfile() throws IOException {
+        try (InputStream in = Files.newInputStream(Paths.get("data/schools.csv"))) {
+            sample = new CsvSchoolParser().parseSchools(in);
+        }
+        profile = SchoolDataProfile.fit(sample);
+    }
+
+    @Test
+    void testHeader_MatchesSampleFile() throws IOException {
+        String header = Files.readAllLines(Paths.get("data/schools.csv"), StandardCharsets.UTF_8).get(0);
+        assertEquals(header, SchoolCsvGenerator.HEADER);
+    }
+
+    @Test
+    void testWrite_SameSeedGivesSameOutput() throws IOException {
+        assertEquals(generate(7, 500, 0.05), generate(7, 500, 0.05));
+        assertNotEquals(generate(7, 500, 0.05), generate(8, 500, 0.05));
+    }
+
+    @Test
+    void testWrite_ParsesBackWithConfiguredCardinality() throws IOException {
+        String csv = generate(42, 2000, 0, 5, 20);
+
+        List<School> schools = new CsvSchoolParser().parseSchools(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2000, schools.size());
+        Set<String> counties = new HashSet<>();
+        Set<Integer> districts = new HashSet<>();
+        for (School school : schools) {
+            counties.add(school.getCountry());
+            districts.add(school.getDistrictId());
+            assertNotNull(school.getStudents());
+            // Значения округляются до трех знаков, поэтому границы образца сравниваются с допуском
+            assertTrue(school.getMathScore() >= profile.getMath().getMin() - 0.001
+                    && school.getMathScore() <= profile.getMath().getMax() + 0.001);
+        }
+        assertEquals(5, counties.size());
+        assertEquals(20, districts.size());
+        assertEquals(2000, schools.get(schools.size() - 1).getId());
+    }
+
+    @Test
+    void testWrite_NullRatioIsApplied() throws IOException {
+        List<School> schools = new CsvSchoolParser().parseSchools(new ByteArrayInputStream(
+                generate(3, 4000, 0.2).getBytes(StandardCharsets.UTF_8)));
+
+        long nullStudents = schools.stream().filter(s -> s.getStudents() == null).count();
+        long nullExpenditure = schools.stream().filter(s -> s.getExpenditure() == null).count();
+        assertEquals(0.2, nullStudents / 4000.0, 0.03);
+        assertEquals(0.2, nullExpenditure / 4000.0, 0.03);
+        assertTrue(schools.stream().allMatch(s -> s.getId() != null && s.getDistrictId() != null));
+    }
+
+    @Test
+    void testWrite_WritesHeaderAndEveryRow() throws IOException {
+        CountingWriter out = new CountingWriter();
+        new SchoolCsvGenerator(profile, 1, 58, 1000, 0).write(out, 50_000);
+        assertEquals(50_001, out.lines);
+    }
+
+    @Test
+    void testProfile_FollowsSampleShape() {
+        assertEquals(45, profile.getCounties().size());
+        assertTrue(profile.getReadMathCorrelation() > 0.8, "В образце чтение и математика сильно связаны");
+        assertTrue(profile.getKk08Ratio() > 0.5);
+    }
+
+    @Test
+    void testConstructor_RejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new SchoolCsvGenerator(profile, 1, 0, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SchoolCsvGenerator(profile, 1, 10, 10, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> SchoolDataProfile.fit(List.of()));
+    }
+
+    private String generate(long seed, int rows, double nullRatio) throws IOException {
+        return generate(seed, rows, nullRatio, 58, 1000);
+    }
+
+    private String generate(long seed, int rows, double nullRatio, int counties, int districts) throws IOException {
+        StringWriter out = new StringWriter();
+        new SchoolCsvGenerator(profile, seed, counties, districts, nullRatio).write(out, rows);
+        return out.toString();
+    }
+
+    private static class CountingWriter extends Writer {
+        private long lines;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
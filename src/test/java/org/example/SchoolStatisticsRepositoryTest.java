@@ -8,8 +8,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.school.analysis.application.exception.RepositoryException;
 import org.school.analysis.domain.dto.CountryStudentStats;
 import org.school.analysis.domain.dto.ExpenditureStats;
+import org.school.analysis.domain.dto.GroupedMetricStats;
 import org.school.analysis.domain.dto.MathSchoolStats;
+import org.school.analysis.domain.model.ChartMetric;
 import org.school.analysis.infrastructure.database.SchoolStatisticsRepository;
+import org.school.analysis.infrastructure.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 
 import java.sql.*;
@@ -61,6 +64,58 @@ class SchoolStatisticsRepositoryTest {
         assertEquals(mockConnection, repo.getConnection());
     }
 
+    @Test
+    void testConstructor_InvalidQueryLimit() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SchoolStatisticsRepository(mockConnection, 0));
+    }
+
+    @Test
+    void testQuerySlots_ReleasedAfterSQLException() throws Exception {
+        SchoolStatisticsRepository limited = new SchoolStatisticsRepository(mockConnection, 2);
+        when(mockConnection.prepareStatement(anyString())).thenThrow(new SQLException("Database error"));
+
+        assertThrows(RepositoryException.class, () -> limited.findAverageStudentsByCountries(10));
+        assertThrows(RepositoryException.class, () -> limited.findTopMathSchoolByStudentRange(1, 2));
+        assertEquals(2, limited.getAvailableQuerySlots());
+    }
+
+    @Test
+    void testQueryMetrics_RecordLatencyAndErrorsPerMethod() throws Exception {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        long calls = metrics.histogram(SchoolStatisticsRepository.QUERY_LATENCY_METRIC,
+                "method", "findMetricValues").getCount();
+        long errors = metrics.counter(SchoolStatisticsRepository.QUERY_ERRORS_METRIC,
+                "method", "findMetricValues").sum();
+        when(mockConnection.prepareStatement(anyString())).thenThrow(new SQLException("Database error"));
+
+        assertThrows(RepositoryException.class, () -> repository.findMetricValues(ChartMetric.MATH_SCORE));
+
+        assertEquals(calls + 1, metrics.histogram(SchoolStatisticsRepository.QUERY_LATENCY_METRIC,
+                "method", "findMetricValues").getCount());
+        assertEquals(errors + 1, metrics.counter(SchoolStatisticsRepository.QUERY_ERRORS_METRIC,
+                "method", "findMetricValues").sum());
+    }
+
+    @Test
+    void testQueryMetrics_RecordDatabaseStatisticsAndEmptyCheck() throws Exception {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        long statisticsCalls = metrics.histogram(SchoolStatisticsRepository.QUERY_LATENCY_METRIC,
+                "method", "getDatabaseStatistics").getCount();
+        long emptyCalls = metrics.histogram(SchoolStatisticsRepository.QUERY_LATENCY_METRIC,
+                "method", "isDatabaseEmpty").getCount();
+        when(mockConnection.createStatement()).thenThrow(new SQLException("Database error"));
+
+        repository.getDatabaseStatistics();
+        repository.isDatabaseEmpty();
+
+        assertEquals(statisticsCalls + 1, metrics.histogram(SchoolStatisticsRepository.QUERY_LATENCY_METRIC,
+                "method", "getDatabaseStatistics").getCount());
+        assertEquals(emptyCalls + 1, metrics.histogram(SchoolStatisticsRepository.QUERY_LATENCY_METRIC,
+                "method", "isDatabaseEmpty").getCount());
+        assertEquals(SchoolStatisticsRepository.DEFAULT_MAX_CONCURRENT_QUERIES, repository.getAvailableQuerySlots());
+    }
+
     @Test
     void testGetConnection() {
         Connection result = repository.getConnection();
@@ -354,6 +409,46 @@ class SchoolStatisticsRepositoryTest {
         assertTrue(exception.getCause() instanceof SQLException);
     }
 
+    @Test
+    void testFindAverageMetricByCounty_Success() throws Exception {
+        when(mockConnection.prepareStatement(contains("AVG(f.expenditure)"))).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true).thenReturn(false);
+        when(mockResultSet.getString("group_name")).thenReturn("Fresno");
+        when(mockResultSet.getInt("school_count")).thenReturn(5);
+        when(mockResultSet.getDouble("average")).thenReturn(5100.5);
+
+        List<GroupedMetricStats> result = repository.findAverageMetricByCounty(ChartMetric.EXPENDITURE, 10);
+
+        assertEquals(1, result.size());
+        assertEquals("Fresno", result.get(0).getGroupName());
+        assertEquals(5100.5, result.get(0).getAverage(), 0.001);
+        verify(mockPreparedStatement).setInt(1, 10);
+    }
+
+    @Test
+    void testFindMetricValues_GrowsBeyondInitialCapacity() throws Exception {
+        when(mockConnection.prepareStatement(contains("p.math_score"))).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        int[] rows = {0};
+        when(mockResultSet.next()).thenAnswer(invocation -> rows[0]++ < 3000);
+        when(mockResultSet.getDouble("value")).thenReturn(650.0);
+
+        double[] values = repository.findMetricValues(ChartMetric.MATH_SCORE);
+
+        assertEquals(3000, values.length);
+        assertEquals(650.0, values[2999]);
+    }
+
+    @Test
+    void testFindMetricPairs_SQLExceptionReleasesSlot() throws Exception {
+        when(mockConnection.prepareStatement(anyString())).thenThrow(new SQLException("Database error"));
+
+        assertThrows(RepositoryException.class,
+                () -> repository.findMetricPairs(ChartMetric.EXPENDITURE, ChartMetric.MATH_SCORE));
+        assertEquals(SchoolStatisticsRepository.DEFAULT_MAX_CONCURRENT_QUERIES, repository.getAvailableQuerySlots());
+    }
+
     @Test
     void testFindAverageStudentsByCountries_ZeroLimit() throws Exception {
         int limit = 0;
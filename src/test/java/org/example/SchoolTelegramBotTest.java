@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.school.analysis.infrastructure.jfr.FlightRecorderControl;
 import org.school.analysis.presentation.telegram.ports.ChartHandler;
 import org.school.analysis.presentation.telegram.ports.CommandHandler;
 import org.school.analysis.presentation.telegram.ports.DataHandler;
@@ -103,7 +104,6 @@ class SchoolTelegramBotTest {
         when(callbackQuery.getMessage()).thenReturn(callbackMessage);
         when(callbackMessage.getChatId()).thenReturn(12345L);
         when(callbackQuery.getData()).thenReturn("query_test");
-        when(callbackQuery.getId()).thenReturn("callback123");
         invokePrivateMethod("processUpdate", update);
         verify(queryHandler).handleCallback(eq(12345L), eq("query_test"), eq(bot));
     }
@@ -177,7 +177,6 @@ class SchoolTelegramBotTest {
         when(callbackQuery.getMessage()).thenReturn(message);
         when(message.getChatId()).thenReturn(12345L);
         when(callbackQuery.getData()).thenReturn("chart_students");
-        when(callbackQuery.getId()).thenReturn("callback123");
         invokePrivateMethod("processCallbackQuery", callbackQuery);
         verify(chartHandler).handleCallback(eq(12345L), eq("chart_students"), eq(bot));
     }
@@ -189,7 +188,6 @@ class SchoolTelegramBotTest {
         when(callbackQuery.getMessage()).thenReturn(message);
         when(message.getChatId()).thenReturn(12345L);
         when(callbackQuery.getData()).thenReturn("data_stats");
-        when(callbackQuery.getId()).thenReturn("callback123");
         invokePrivateMethod("processCallbackQuery", callbackQuery);
         verify(dataHandler).handleCallback(eq(12345L), eq("data_stats"), eq(bot));
     }
@@ -201,7 +199,6 @@ class SchoolTelegramBotTest {
         when(callbackQuery.getMessage()).thenReturn(message);
         when(message.getChatId()).thenReturn(12345L);
         when(callbackQuery.getData()).thenReturn("query_test");
-        when(callbackQuery.getId()).thenReturn("callback123");
 
         doThrow(new RuntimeException("Handler error")).when(queryHandler)
                 .handleCallback(anyLong(), anyString(), any());
@@ -273,6 +270,21 @@ class SchoolTelegramBotTest {
         verify(messageSender).sendText(eq(chatId), contains("Статус бота"));
     }
 
+    @Test
+    void testHandleCommand_ChartWithArguments() {
+        Long chatId = 12345L;
+        String command = "/chart@JavaSchoolRTFBot scatter expenditure math";
+        invokePrivateMethod("handleCommand", chatId, command);
+        verify(chartHandler).handleChartCommand(eq(chatId), eq("scatter expenditure math"), eq(bot));
+    }
+
+    @Test
+    void testHandleCommand_Dashboard() {
+        Long chatId = 12345L;
+        invokePrivateMethod("handleCommand", chatId, "/dashboard");
+        verify(chartHandler).showDashboard(eq(chatId), eq(bot));
+    }
+
     @Test
     void testHandleCommand_UnknownCommand() {
         Long chatId = 12345L;
@@ -281,6 +293,34 @@ class SchoolTelegramBotTest {
         verify(messageSender).sendText(eq(chatId), contains("Неизвестная команда"));
     }
 
+    @Test
+    void testHandleCommand_FlightRecorderHiddenFromNonAdmins() {
+        Long chatId = 12345L;
+        invokePrivateMethod("handleCommand", chatId, "/jfr start");
+        verify(messageSender).sendText(eq(chatId), contains("Неизвестная команда"));
+    }
+
+    @Test
+    void testHandleCommand_FlightRecorderStatusForAdmin() {
+        Long chatId = 777L;
+        SchoolTelegramBot adminBot = new SchoolTelegramBot(TEST_BOT_TOKEN, TEST_BOT_USERNAME, commandHandler,
+                queryHandler, chartHandler, dataHandler, java.util.Set.of(chatId),
+                new FlightRecorderControl(java.nio.file.Paths.get("recordings")));
+        try {
+            var messageSenderField = SchoolTelegramBot.class.getDeclaredField("messageSender");
+            messageSenderField.setAccessible(true);
+            messageSenderField.set(adminBot, messageSender);
+            var method = SchoolTelegramBot.class.getDeclaredMethod("handleCommand", Long.class, String.class);
+            method.setAccessible(true);
+            method.invoke(adminBot, chatId, "/jfr");
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            adminBot.shutdown();
+        }
+        verify(messageSender).sendText(eq(chatId), contains("Запись JFR не запущена"));
+    }
+
     @Test
     void testHandleCommand_CaseInsensitive() {
         Long chatId = 12345L;
@@ -473,7 +513,6 @@ class SchoolTelegramBotTest {
         when(callbackQuery.getMessage()).thenReturn(message);
         when(message.getChatId()).thenReturn(12345L);
         when(callbackQuery.getData()).thenReturn(null);
-        when(callbackQuery.getId()).thenReturn("callback123");
         invokePrivateMethod("processCallbackQuery", callbackQuery);
         verify(messageSender).sendText(eq(12345L), contains("Ошибка обработки запроса"));
     }
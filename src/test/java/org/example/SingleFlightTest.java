@@ -0,0 +1,164 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.school.analysis.infrastructure.concurrency.SingleFlight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSubmit_DuplicateAttachesToInFlightFuture() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CompletableFuture<String> work = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+
+        CompletableFuture<String> first = flights.submit("chat:query_all", () -> {
+            started.incrementAndGet();
+            return work;
+        });
+        CompletableFuture<String> second = flights.submit("chat:query_all", () -> {
+            started.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertSame(first, second);
+        assertEquals(1, started.get());
+        assertTrue(flights.isInFlight("chat:query_all"));
+
+        work.complete("done");
+        assertEquals("done", second.join());
+        assertFalse(flights.isInFlight("chat:query_all"));
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void testSubmit_StartsAgainAfterCompletion() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger started = new AtomicInteger();
+
+        flights.submit("key", () -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture("a");
+        });
+        flights.submit("key", () -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture("b");
+        });
+
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    void testSubmit_StarterExceptionReleasesKey() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flights.submit("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertFalse(flights.isInFlight("key"));
+    }
+
+    @Test
+    @Timeout(5)
+    void testExecute_ConcurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> leader = executor.submit(() -> flights.execute("query", () -> {
+            executions.incrementAndGet();
+            leaderStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 42;
+        }));
+        leaderStarted.await();
+
+        List<Future<Integer>> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiters.add(executor.submit(() -> flights.execute("query", () -> {
+                executions.incrementAndGet();
+                return -1;
+            })));
+        }
+        // Даем ожидающим время присоединиться к выполняющемуся вызову
+        Thread.sleep(200);
+        release.countDown();
+
+        assertEquals(42, leader.get());
+        for (Future<Integer> waiter : waiters) {
+            assertEquals(42, waiter.get());
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void testExecute_ExceptionPropagatesAndReleasesKey() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flights.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertFalse(flights.isInFlight("key"));
+        assertEquals(7, flights.execute("key", () -> 7));
+    }
+
+    @Test
+    @Timeout(5)
+    void testExecute_ErrorReleasesKeyAndReachesWaiters() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> leader = executor.submit(() -> flights.execute("chart", () -> {
+            leaderStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new OutOfMemoryError("Java heap space");
+        }));
+        leaderStarted.await();
+        Future<Integer> waiter = executor.submit(() -> flights.execute("chart", () -> -1));
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, leader::get);
+        assertTrue(leaderError.getCause() instanceof OutOfMemoryError);
+        ExecutionException waiterError = assertThrows(ExecutionException.class, waiter::get);
+        assertTrue(waiterError.getCause() instanceof OutOfMemoryError);
+        assertFalse(flights.isInFlight("chart"));
+        assertEquals(7, flights.execute("chart", () -> 7));
+    }
+
+    @Test
+    void testSubmit_StarterErrorReleasesKey() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+
+        assertThrows(InternalError.class, () -> flights.submit("chart", () -> {
+            throw new InternalError("headless");
+        }));
+        assertFalse(flights.isInFlight("chart"));
+    }
+}
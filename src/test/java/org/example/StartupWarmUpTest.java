@@ -0,0 +1,78 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.di.StartupWarmUp;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupWarmUpTest {
+
+    @Test
+    void testFirstFastRoundAfterSlowStart() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        StartupWarmUp.Report report = new StartupWarmUp(10, 10_000, 3.0)
+                .stage("db", () -> {
+                    // Первые три раунда медленные, как до компиляции JIT
+                    Thread.sleep(calls.getAndIncrement() < 3 ? 60 : 5);
+                    return null;
+                })
+                .run();
+
+        assertEquals(10, report.getRounds());
+        assertEquals(3, report.getFirstFastRound());
+        assertTrue(report.getFirstRoundMillis("db") >= 60);
+        assertTrue(report.getSteadyStateMillis("db") < 60);
+        assertTrue(report.getTimeToFirstFastMillis() >= 180);
+        assertTrue(report.getTimeToFirstFastMillis() <= report.getTotalMillis());
+        assertTrue(report.toString().contains("быстрый ответ с раунда 4"));
+    }
+
+    @Test
+    void testRoundIsFastOnlyWhenEveryStageIs() throws Exception {
+        AtomicInteger charts = new AtomicInteger();
+        StartupWarmUp.Report report = new StartupWarmUp(8, 10_000, 3.0)
+                .stage("csv", () -> {
+                    Thread.sleep(2);
+                    return null;
+                })
+                .stage("charts", () -> {
+                    Thread.sleep(charts.getAndIncrement() < 2 ? 50 : 2);
+                    return null;
+                })
+                .run();
+
+        assertEquals(Arrays.asList("csv", "charts"), report.getStages());
+        assertEquals(2, report.getFirstFastRound());
+    }
+
+    @Test
+    void testTimeBudgetStopsWarmUp() throws Exception {
+        StartupWarmUp.Report report = new StartupWarmUp(1000, 100)
+                .stage("slow", () -> {
+                    Thread.sleep(30);
+                    return null;
+                })
+                .run();
+
+        assertTrue(report.getRounds() < 10);
+        assertTrue(report.getRounds() >= 1);
+    }
+
+    @Test
+    void testStageFailureStopsWarmUp() {
+        StartupWarmUp warmUp = new StartupWarmUp(5, 1000).stage("broken", () -> {
+            throw new IllegalStateException("нет данных");
+        });
+
+        assertThrows(IllegalStateException.class, warmUp::run);
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new StartupWarmUp(0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new StartupWarmUp(5, 1000, 0.5));
+    }
+}
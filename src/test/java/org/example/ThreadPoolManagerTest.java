@@ -1,6 +1,7 @@
 package org.example;
 
 import org.junit.jupiter.api.*;
+import org.school.analysis.presentation.telegram.util.BotStage;
 import org.school.analysis.presentation.telegram.util.ThreadPoolManager;
 
 import java.util.concurrent.*;
@@ -95,6 +96,51 @@ class ThreadPoolManagerTest {
         threadPool.shutdownNow();
     }
 
+    @Test
+    void testGetExecutor_EachStageHasOwnPool() {
+        ExecutorService charts = ThreadPoolManager.getExecutor(BotStage.CHARTS);
+        ExecutorService loads = ThreadPoolManager.getExecutor(BotStage.LOADS);
+
+        assertNotSame(charts, loads, "У каждого этапа должен быть свой пул");
+        assertSame(executor, ThreadPoolManager.getExecutor(BotStage.QUERIES),
+                "Пул по умолчанию - этап запросов к БД");
+    }
+
+    @Test
+    void testGetExecutor_RecreatedAfterShutdown() {
+        ExecutorService commands = ThreadPoolManager.getExecutor(BotStage.COMMANDS);
+        ThreadPoolManager.shutdown(BotStage.COMMANDS);
+
+        ExecutorService recreated = ThreadPoolManager.getExecutor(BotStage.COMMANDS);
+        assertNotSame(commands, recreated);
+        assertFalse(recreated.isShutdown());
+    }
+
+    @Test
+    @Timeout(5)
+    void testSaturatedStage_RejectsInsteadOfRunningInCaller() throws InterruptedException {
+        ExecutorService loads = ThreadPoolManager.getExecutor(BotStage.LOADS);
+        int capacity = BotStage.LOADS.getMaxPoolSize() + BotStage.LOADS.getQueueCapacity();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < capacity; i++) {
+                loads.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            RejectedExecutionException rejected = assertThrows(RejectedExecutionException.class,
+                    () -> loads.execute(() -> { }));
+            assertTrue(ThreadPoolManager.isRejection(new CompletionException(rejected)));
+        } finally {
+            release.countDown();
+            ThreadPoolManager.shutdown(BotStage.LOADS);
+        }
+    }
+
     @Nested
     class ConcurrentExecutionTests {
 
@@ -0,0 +1,49 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.school.analysis.infrastructure.concurrency.ExecutionMode;
+import org.school.analysis.infrastructure.concurrency.VirtualThreads;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+    @Test
+    void testExecutionMode_FromProperty() {
+        assertEquals(ExecutionMode.VIRTUAL, ExecutionMode.fromProperty("virtual"));
+        assertEquals(ExecutionMode.VIRTUAL, ExecutionMode.fromProperty(" VIRTUAL "));
+        assertEquals(ExecutionMode.PLATFORM, ExecutionMode.fromProperty("platform"));
+    }
+
+    @Test
+    void testExecutionMode_FallsBackToPlatform() {
+        assertEquals(ExecutionMode.PLATFORM, ExecutionMode.fromProperty(null));
+        assertEquals(ExecutionMode.PLATFORM, ExecutionMode.fromProperty(""));
+        assertEquals(ExecutionMode.PLATFORM, ExecutionMode.fromProperty("fibers"));
+    }
+
+    @Test
+    void testNewThreadPerTaskExecutor_WhenSupported() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "Требуются виртуальные потоки");
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-vthread-");
+        try {
+            Future<String> name = executor.submit(() -> Thread.currentThread().getName());
+            assertTrue(name.get(5, TimeUnit.SECONDS).startsWith("test-vthread-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testNewThreadFactory_WhenUnsupported() {
+        assumeFalse(VirtualThreads.isSupported(), "Проверка для JVM без виртуальных потоков");
+        assertThrows(UnsupportedOperationException.class,
+                () -> VirtualThreads.newThreadFactory("test-vthread-"));
+    }
+}